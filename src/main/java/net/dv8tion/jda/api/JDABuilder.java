@@ -21,6 +21,7 @@ import net.dv8tion.jda.api.entities.Activity;
 import net.dv8tion.jda.api.events.Event;
 import net.dv8tion.jda.api.events.session.ReadyEvent;
 import net.dv8tion.jda.api.exceptions.InvalidTokenException;
+import net.dv8tion.jda.api.hooks.EventLaneConfig;
 import net.dv8tion.jda.api.hooks.IEventManager;
 import net.dv8tion.jda.api.hooks.VoiceDispatchInterceptor;
 import net.dv8tion.jda.api.requests.GatewayIntent;
@@ -29,9 +30,11 @@ import net.dv8tion.jda.api.requests.RestConfig;
 import net.dv8tion.jda.api.utils.*;
 import net.dv8tion.jda.api.utils.cache.CacheFlag;
 import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.audio.AudioEventLoopGroup;
 import net.dv8tion.jda.internal.managers.PresenceImpl;
 import net.dv8tion.jda.internal.utils.Checks;
 import net.dv8tion.jda.internal.utils.IOUtil;
+import net.dv8tion.jda.internal.utils.concurrent.VirtualThreads;
 import net.dv8tion.jda.internal.utils.config.AuthorizationConfig;
 import net.dv8tion.jda.internal.utils.config.MetaConfig;
 import net.dv8tion.jda.internal.utils.config.SessionConfig;
@@ -71,6 +74,8 @@ public class JDABuilder
     protected boolean shutdownCallbackPool = true;
     protected ExecutorService eventPool = null;
     protected boolean shutdownEventPool = true;
+    protected EventLaneConfig eventLaneConfig = null;
+    protected boolean virtualThreads = false;
     protected ScheduledExecutorService audioPool = null;
     protected boolean shutdownAudioPool = true;
     protected EnumSet<CacheFlag> cacheFlags = EnumSet.allOf(CacheFlag.class);
@@ -767,6 +772,7 @@ public class JDABuilder
      *
      * @throws java.lang.IllegalArgumentException
      *         If provided with null
+     *         or if the compression is not {@link Compression#isSupported() supported}
      *
      * @return The JDABuilder instance. Useful for chaining
      *
@@ -776,6 +782,7 @@ public class JDABuilder
     public JDABuilder setCompression(@Nonnull Compression compression)
     {
         Checks.notNull(compression, "Compression");
+        Checks.check(compression.isSupported(), "Compression %s is not supported on this system", compression);
         this.compression = compression;
         return this;
     }
@@ -1123,6 +1130,57 @@ public class JDABuilder
         return this;
     }
 
+    /**
+     * Enables ordered parallel event handling, which handles events of different guilds in parallel,
+     * while keeping the order of events within each guild.
+     * <br>By default, events are handled in the order they are received, either on the gateway thread or on the {@link #setEventPool(ExecutorService) event pool}.
+     *
+     * <p>The events are partitioned by their guild or channel into serial lanes on the {@link #setEventPool(ExecutorService) event pool},
+     * or a pool owned by JDA if no event pool is configured, which is shut down with JDA.
+     * Using an event pool without lanes does not guarantee any order.
+     *
+     * @param  config
+     *         The {@link EventLaneConfig}, or null to disable the lanes
+     *
+     * @return The JDABuilder instance. Useful for chaining.
+     *
+     * @see    EventLaneConfig
+     */
+    @Nonnull
+    public JDABuilder setEventLanes(@Nullable EventLaneConfig config)
+    {
+        this.eventLaneConfig = config;
+        return this;
+    }
+
+    /**
+     * Whether events and {@link net.dv8tion.jda.api.requests.RestAction RestAction} callbacks should each run on a new virtual thread.
+     * <br>This requires Java 21 or newer and is disabled by default.
+     *
+     * <p>Blocking listeners and callbacks only block their own virtual thread, instead of a thread of a limited pool.
+     * The {@link org.slf4j.MDC MDC} context of the thread which fires the event or completes the request is used for the virtual thread.
+     *
+     * <p>This only replaces the default pools, pools configured with {@link #setEventPool(ExecutorService)}
+     * or {@link #setCallbackPool(ExecutorService)} are still used.
+     * Without an {@link #setEventLanes(EventLaneConfig) event lane configuration}, the events are not handled in order.
+     *
+     * @param  enabled
+     *         True, to use virtual threads
+     *
+     * @throws IllegalStateException
+     *         If enabled on a JVM without virtual threads
+     *
+     * @return The JDABuilder instance. Useful for chaining.
+     */
+    @Nonnull
+    public JDABuilder setVirtualThreads(boolean enabled)
+    {
+        if (enabled && !VirtualThreads.isSupported())
+            throw new IllegalStateException("Virtual threads require Java 21 or newer");
+        this.virtualThreads = enabled;
+        return this;
+    }
+
     /**
      * Sets the {@link ScheduledExecutorService ScheduledExecutorService} used by
      * the audio WebSocket connection. Used for sending keepalives and closing the connection.
@@ -1185,6 +1243,30 @@ public class JDABuilder
         return setFlag(ConfigFlag.BULK_DELETE_SPLIT, enabled);
     }
 
+    /**
+     * Enables/Disables lock-free lookups in the entity caches.
+     * <br>By default, every lookup such as {@link net.dv8tion.jda.api.entities.Guild#getMemberById(long) Guild.getMemberById(long)}
+     * acquires the shared read-lock of the respective cache. With many event threads resolving entities concurrently,
+     * the shared lock state can become a point of contention.
+     *
+     * <p>When enabled, lookups by id first attempt an optimistic read without acquiring any lock,
+     * and only fall back to the read-lock if the cache was modified during the lookup.
+     * This makes lookups cheaper under contention, at the cost of slightly more expensive cache updates.
+     * Iteration and other bulk operations on the cache views are not affected by this setting.
+     *
+     * <p>Default: <b>false (disabled)</b>
+     *
+     * @param  enabled
+     *         True, to use optimistic lock-free lookups in the entity caches
+     *
+     * @return The JDABuilder instance. Useful for chaining.
+     */
+    @Nonnull
+    public JDABuilder setOptimisticCacheReadsEnabled(boolean enabled)
+    {
+        return setFlag(ConfigFlag.OPTIMISTIC_CACHE_READS, enabled);
+    }
+
     /**
      * Enables/Disables the use of a Shutdown hook to clean up JDA.
      * <br>When the Java program closes shutdown hooks are run. This is used as a last-second cleanup
@@ -1254,11 +1336,17 @@ public class JDABuilder
      *         The new {@link net.dv8tion.jda.api.audio.factory.IAudioSendFactory IAudioSendFactory} to be used
      *         when creating new {@link net.dv8tion.jda.api.audio.factory.IAudioSendSystem} objects.
      *
+     * @throws IllegalArgumentException
+     *         If the factory provides an {@link net.dv8tion.jda.api.audio.factory.IAudioEventLoopGroup IAudioEventLoopGroup},
+     *         which was not created by {@link net.dv8tion.jda.api.audio.factory.NioSendFactory NioSendFactory}
+     *
      * @return The JDABuilder instance. Useful for chaining.
      */
     @Nonnull
     public JDABuilder setAudioSendFactory(@Nullable IAudioSendFactory factory)
     {
+        if (factory != null)
+            AudioEventLoopGroup.of(factory);
         this.audioSendFactory = factory;
         return this;
     }
@@ -1820,6 +1908,8 @@ public class JDABuilder
         threadingConfig.setRateLimitScheduler(rateLimitScheduler, shutdownRateLimitScheduler);
         threadingConfig.setRateLimitElastic(rateLimitElastic, shutdownRateLimitElastic);
         threadingConfig.setEventPool(eventPool, shutdownEventPool);
+        threadingConfig.setEventLaneConfig(eventLaneConfig);
+        threadingConfig.setVirtualThreads(virtualThreads);
         threadingConfig.setAudioPool(audioPool, shutdownAudioPool);
         SessionConfig sessionConfig = new SessionConfig(controller, httpClient, wsFactory, voiceDispatchInterceptor, flags, maxReconnectDelay, largeThreshold);
         MetaConfig metaConfig = new MetaConfig(maxBufferSize, contextMap, cacheFlags, flags);
@@ -20,6 +20,7 @@ import net.dv8tion.jda.api.entities.User;
 
 import javax.annotation.Nonnull;
 import javax.sound.sampled.AudioFormat;
+import java.nio.ShortBuffer;
 
 /**
  * Interface used to receive audio from Discord through JDA.
@@ -52,6 +53,21 @@ public interface AudioReceiveHandler
         return false;
     }
 
+    /**
+     * If this method returns true, then JDA will lend the decoded audio of each user to {@link #handleUserAudio(User, ShortBuffer)}.
+     * <br>Unlike {@link #canReceiveUser()}, this decodes into buffers which are reused for every packet,
+     * so receiving audio does not allocate new arrays.
+     *
+     * <p>JDA only uses the reused buffers if {@link #canReceiveUser()}, {@link #canReceiveCombined()},
+     * and {@link #canReceiveEncoded()} are all false. Otherwise, the audio is provided in a buffer wrapping a new array.
+     *
+     * @return If true, JDA provides user specific audio data in reused buffers.
+     */
+    default boolean canReceiveUserBuffer()
+    {
+        return false;
+    }
+
     /**
      * If this method returns true, then JDA will provide raw OPUS encoded packets to {@link #handleEncodedAudio(OpusPacket)}.
      * <br>This can be used in combination with the other receive methods but will not be combined audio of multiple users.
@@ -127,6 +143,24 @@ public interface AudioReceiveHandler
      */
     default void handleUserAudio(@Nonnull UserAudio userAudio) {}
 
+    /**
+     * If {@link #canReceiveUserBuffer()} returns true, JDA will lend the decoded audio of a user to this method
+     * <b>every time the user speaks.</b>
+     *
+     * <p><b>The buffer is only valid until this method returns.</b> JDA decodes the next packet into the same buffer,
+     * so copy the audio if it is needed later.
+     * The audio is between position 0 and the limit of the buffer, with the samples of both channels interleaved.
+     * <p>
+     * Output audio format: 48KHz 16bit stereo signed PCM
+     * <br>and is defined by: {@link net.dv8tion.jda.api.audio.AudioReceiveHandler#OUTPUT_FORMAT AudioRecieveHandler.OUTPUT_FORMAT}
+     *
+     * @param  user
+     *         The user who sent the audio
+     * @param  audio
+     *         The decoded audio, which is reused after this method returns
+     */
+    default void handleUserAudio(@Nonnull User user, @Nonnull ShortBuffer audio) {}
+
     /**
      * This method is a filter predicate used by JDA to determine whether or not to include a
      * {@link net.dv8tion.jda.api.entities.User User}'s audio when creating a CombinedAudio packet.
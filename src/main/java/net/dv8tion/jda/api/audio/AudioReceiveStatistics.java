@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.api.audio;
+
+import net.dv8tion.jda.internal.utils.EntityString;
+
+/**
+ * Statistics of the audio received from a user, collected by the jitter buffer.
+ *
+ * @see net.dv8tion.jda.api.managers.AudioManager#getReceiveStatistics()
+ */
+public class AudioReceiveStatistics
+{
+    private final long userId;
+    private final long receivedPackets;
+    private final long latePackets;
+    private final long lostPackets;
+    private final long recoveredPackets;
+    private final long discardedPackets;
+    private final double jitter;
+    private final int delay;
+
+    public AudioReceiveStatistics(long userId, long receivedPackets, long latePackets, long lostPackets,
+                                  long recoveredPackets, long discardedPackets, double jitter, int delay)
+    {
+        this.userId = userId;
+        this.receivedPackets = receivedPackets;
+        this.latePackets = latePackets;
+        this.lostPackets = lostPackets;
+        this.recoveredPackets = recoveredPackets;
+        this.discardedPackets = discardedPackets;
+        this.jitter = jitter;
+        this.delay = delay;
+    }
+
+    /**
+     * The id of the user, who sent the audio.
+     *
+     * @return The user id
+     */
+    public long getUserId()
+    {
+        return userId;
+    }
+
+    /**
+     * The number of packets received from the user.
+     *
+     * @return The received packets
+     */
+    public long getReceivedPackets()
+    {
+        return receivedPackets;
+    }
+
+    /**
+     * The number of packets, which arrived after their audio was already played.
+     *
+     * @return The late packets
+     */
+    public long getLatePackets()
+    {
+        return latePackets;
+    }
+
+    /**
+     * The number of packets, which were missing when their audio had to be played.
+     * <br>These are concealed by the decoder, or {@link #getRecoveredPackets() recovered} with forward error correction.
+     *
+     * @return The lost packets
+     */
+    public long getLostPackets()
+    {
+        return lostPackets;
+    }
+
+    /**
+     * The number of {@link #getLostPackets() lost packets}, which were recovered with forward error correction.
+     *
+     * @return The recovered packets
+     */
+    public long getRecoveredPackets()
+    {
+        return recoveredPackets;
+    }
+
+    /**
+     * The number of packets, which were discarded to keep the delay below the maximum.
+     *
+     * @return The discarded packets
+     */
+    public long getDiscardedPackets()
+    {
+        return discardedPackets;
+    }
+
+    /**
+     * The estimated interarrival jitter in milliseconds, as defined by RFC 3550.
+     *
+     * @return The jitter in milliseconds
+     */
+    public double getJitter()
+    {
+        return jitter;
+    }
+
+    /**
+     * The current delay of the jitter buffer in milliseconds.
+     *
+     * @return The delay in milliseconds
+     */
+    public int getDelay()
+    {
+        return delay;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new EntityString(this)
+                .addMetadata("user", Long.toUnsignedString(userId))
+                .addMetadata("received", receivedPackets)
+                .addMetadata("late", latePackets)
+                .addMetadata("lost", lostPackets)
+                .addMetadata("recovered", recoveredPackets)
+                .addMetadata("discarded", discardedPackets)
+                .addMetadata("jitter", jitter)
+                .addMetadata("delay", delay)
+                .toString();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.api.audio;
+
+import net.dv8tion.jda.internal.utils.Checks;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Configuration for the jitter buffer of received audio.
+ *
+ * <p>The jitter buffer holds the packets of each user for a short delay before decoding them,
+ * so packets which arrive late or out of order are still played in order.
+ * Missing packets are concealed by the Opus decoder, instead of leaving a gap in the audio.
+ *
+ * <p>The delay adapts to the measured jitter of each user, between the {@link #setMinDelay(int) minimum}
+ * and {@link #setMaxDelay(int) maximum} delay. It only changes between talk spurts, so the audio is never stretched.
+ *
+ * @see net.dv8tion.jda.api.managers.AudioManager#setJitterBuffer(JitterBufferConfig)
+ */
+public class JitterBufferConfig
+{
+    private int minDelay = 40;
+    private int maxDelay = 200;
+    private boolean forwardErrorCorrection = true;
+
+    /**
+     * The delay, in milliseconds, which is always used before playing the audio of a user.
+     * <br>By default, this is 40 milliseconds.
+     *
+     * <p>The delay is rounded up to full frames of {@value OpusPacket#OPUS_FRAME_TIME_AMOUNT} milliseconds.
+     *
+     * @param  minDelay
+     *         The minimum delay in milliseconds
+     *
+     * @throws IllegalArgumentException
+     *         If the delay is negative, or more than 1000 milliseconds
+     *
+     * @return The current JitterBufferConfig for chaining convenience
+     */
+    @Nonnull
+    public JitterBufferConfig setMinDelay(int minDelay)
+    {
+        Checks.notNegative(minDelay, "Min delay");
+        Checks.check(minDelay <= 1000, "Min delay must be at most 1000 milliseconds");
+        this.minDelay = minDelay;
+        return this;
+    }
+
+    /**
+     * The maximum delay, in milliseconds, before playing the audio of a user.
+     * <br>By default, this is 200 milliseconds.
+     *
+     * <p>If more audio is buffered, the oldest packets are discarded.
+     *
+     * @param  maxDelay
+     *         The maximum delay in milliseconds
+     *
+     * @throws IllegalArgumentException
+     *         If the delay is not positive, or more than 1000 milliseconds
+     *
+     * @return The current JitterBufferConfig for chaining convenience
+     */
+    @Nonnull
+    public JitterBufferConfig setMaxDelay(int maxDelay)
+    {
+        Checks.positive(maxDelay, "Max delay");
+        Checks.check(maxDelay <= 1000, "Max delay must be at most 1000 milliseconds");
+        this.maxDelay = maxDelay;
+        return this;
+    }
+
+    /**
+     * Whether lost packets are recovered from the forward error correction data of the next packet, if available.
+     * <br>Otherwise, or if the next packet is also missing, the decoder conceals the lost packet from the previous audio.
+     * By default, this is enabled.
+     *
+     * @param  forwardErrorCorrection
+     *         True, to use forward error correction
+     *
+     * @return The current JitterBufferConfig for chaining convenience
+     */
+    @Nonnull
+    public JitterBufferConfig setForwardErrorCorrection(boolean forwardErrorCorrection)
+    {
+        this.forwardErrorCorrection = forwardErrorCorrection;
+        return this;
+    }
+
+    public int getMinDelay()
+    {
+        return minDelay;
+    }
+
+    public int getMaxDelay()
+    {
+        return Math.max(minDelay, maxDelay);
+    }
+
+    public boolean isForwardErrorCorrection()
+    {
+        return forwardErrorCorrection;
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.api.audio;
+
+import net.dv8tion.jda.internal.utils.Checks;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A clip of pre-encoded Opus frames, which can be played on any number of connections at the same time.
+ *
+ * <p>The frames are only stored once and are never encoded again.
+ * Each connection only adds its own RTP header and encryption to every frame,
+ * so playing a clip in many guilds costs much less than providing the same PCM audio to each of them.
+ *
+ * <p>A clip can be created from a list of frames, or from a buffer of length-prefixed frames.
+ * Each frame in such a buffer starts with its length as an unsigned 2 byte big-endian integer, followed by the Opus data.
+ * This format can also be {@link #map(Path) memory-mapped} from a file, to share large clips without loading them onto the heap.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * OpusClip jingle = OpusClip.fromFrames(frames);
+ * for (Guild guild : guilds)
+ *     guild.getAudioManager().setSendingHandler(jingle.createSendHandler());
+ * }</pre>
+ *
+ * @see AudioSendHandler#isOpus()
+ */
+public class OpusClip
+{
+    private final ByteBuffer data;
+    // The positions of the length prefix of each frame
+    private final int[] offsets;
+    private final int maxFrameLength;
+
+    private OpusClip(ByteBuffer data, int[] offsets, int maxFrameLength)
+    {
+        this.data = data;
+        this.offsets = offsets;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * Creates a clip from the provided frames of 20 milliseconds of Opus audio.
+     * <br>The frames are copied into one array.
+     *
+     * @param  frames
+     *         The Opus frames, in the order they are played
+     *
+     * @throws IllegalArgumentException
+     *         If null, or any frame is empty or longer than 65535 bytes
+     *
+     * @return The new OpusClip
+     */
+    @Nonnull
+    public static OpusClip fromFrames(@Nonnull Collection<byte[]> frames)
+    {
+        Checks.noneNull(frames, "Frames");
+        int size = 0;
+        for (byte[] frame : frames)
+        {
+            checkFrameLength(frame.length);
+            size += 2 + frame.length;
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(size);
+        for (byte[] frame : frames)
+        {
+            data.putChar((char) frame.length);
+            data.put(frame);
+        }
+        ((Buffer) data).flip();
+        return fromBuffer(data);
+    }
+
+    /**
+     * Creates a clip from a buffer of length-prefixed Opus frames, between the position and limit of the buffer.
+     * <br>The buffer is not copied, and must not be modified while the clip is used.
+     *
+     * @param  buffer
+     *         The buffer of frames, each prefixed with its length as an unsigned 2 byte big-endian integer
+     *
+     * @throws IllegalArgumentException
+     *         If null, or the buffer contains an empty or incomplete frame
+     *
+     * @return The new OpusClip
+     */
+    @Nonnull
+    public static OpusClip fromBuffer(@Nonnull ByteBuffer buffer)
+    {
+        Checks.notNull(buffer, "Buffer");
+        ByteBuffer data = buffer.slice();
+        int[] offsets = new int[16];
+        int count = 0;
+        int maxFrameLength = 0;
+        int offset = 0;
+        while (offset < data.limit())
+        {
+            Checks.check(offset + 2 <= data.limit(), "Incomplete frame length at offset %d", offset);
+            int length = data.getChar(offset);
+            checkFrameLength(length);
+            Checks.check(offset + 2 + length <= data.limit(), "Incomplete frame at offset %d", offset);
+
+            if (count == offsets.length)
+                offsets = Arrays.copyOf(offsets, count * 2);
+            offsets[count++] = offset;
+            maxFrameLength = Math.max(maxFrameLength, length);
+            offset += 2 + length;
+        }
+        return new OpusClip(data, Arrays.copyOf(offsets, count), maxFrameLength);
+    }
+
+    /**
+     * Memory-maps a file of length-prefixed Opus frames as a clip.
+     * <br>The file is only read by the operating system when its frames are played,
+     * and the mapped memory is shared by all connections playing the clip.
+     *
+     * @param  file
+     *         The file of frames, each prefixed with its length as an unsigned 2 byte big-endian integer
+     *
+     * @throws IllegalArgumentException
+     *         If null, or the file contains an empty or incomplete frame
+     * @throws IOException
+     *         If the file cannot be mapped
+     *
+     * @return The new OpusClip
+     *
+     * @see    #fromBuffer(ByteBuffer)
+     */
+    @Nonnull
+    public static OpusClip map(@Nonnull Path file) throws IOException
+    {
+        Checks.notNull(file, "File");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            // The mapping stays valid after the channel is closed
+            return fromBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * The number of frames in this clip.
+     *
+     * @return The frame count
+     */
+    public int getFrameCount()
+    {
+        return offsets.length;
+    }
+
+    /**
+     * The duration of this clip in milliseconds.
+     *
+     * @return The duration
+     */
+    public long getDuration()
+    {
+        return (long) offsets.length * OpusPacket.OPUS_FRAME_TIME_AMOUNT;
+    }
+
+    /**
+     * Creates a new {@link AudioSendHandler} which plays this clip once.
+     * <br>Each connection needs its own handler, but all handlers share the frames of this clip.
+     *
+     * @return The new send handler
+     */
+    @Nonnull
+    public AudioSendHandler createSendHandler()
+    {
+        return createSendHandler(false);
+    }
+
+    /**
+     * Creates a new {@link AudioSendHandler} which plays this clip.
+     * <br>Each connection needs its own handler, but all handlers share the frames of this clip.
+     *
+     * @param  loop
+     *         Whether to start from the beginning again after the last frame
+     *
+     * @return The new send handler
+     */
+    @Nonnull
+    public AudioSendHandler createSendHandler(boolean loop)
+    {
+        return new ClipSendHandler(this, loop);
+    }
+
+    private static void checkFrameLength(int length)
+    {
+        Checks.check(length > 0, "Frames may not be empty");
+        Checks.check(length <= Character.MAX_VALUE, "Frames may not be longer than %d bytes", (int) Character.MAX_VALUE);
+    }
+
+    private static class ClipSendHandler implements AudioSendHandler
+    {
+        private final OpusClip clip;
+        private final boolean loop;
+        // Our own view of the clip, so the position and limit can change without affecting other handlers
+        private final ByteBuffer data;
+        // Only used if the clip is not backed by an array, for instance if it is memory-mapped
+        private final ByteBuffer frame;
+        private int index;
+
+        private ClipSendHandler(OpusClip clip, boolean loop)
+        {
+            this.clip = clip;
+            this.loop = loop;
+            this.data = clip.data.duplicate();
+            this.frame = data.hasArray() ? null : ByteBuffer.allocate(clip.maxFrameLength);
+        }
+
+        @Override
+        public boolean canProvide()
+        {
+            return index < clip.offsets.length || (loop && clip.offsets.length > 0);
+        }
+
+        @Override
+        public ByteBuffer provide20MsAudio()
+        {
+            if (index >= clip.offsets.length)
+            {
+                if (!loop || clip.offsets.length == 0)
+                    return null;
+                index = 0;
+            }
+
+            int offset = clip.offsets[index++];
+            int start = offset + 2;
+            int end = start + clip.data.getChar(offset);
+            ((Buffer) data).limit(end);
+            ((Buffer) data).position(start);
+            if (frame == null)
+                return data;
+
+            ((Buffer) frame).clear();
+            frame.put(data);
+            ((Buffer) frame).flip();
+            return frame;
+        }
+
+        @Override
+        public boolean isOpus()
+        {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.api.audio.factory;
+
+/**
+ * Event loop threads, which send and receive the audio of many connections.
+ *
+ * <p>If the {@link IAudioSendFactory#getEventLoopGroup() send factory} provides a group,
+ * audio connections also receive packets and mix their combined audio on these event loops,
+ * instead of starting a receive thread and a combined audio thread for every connection.
+ * <br>Groups are created by the {@link NioSendFactory}, other implementations of this interface are not supported.
+ * Setting a send factory which provides another implementation throws an {@link IllegalArgumentException}.
+ *
+ * @see NioSendFactory#getEventLoopGroup()
+ */
+public interface IAudioEventLoopGroup
+{
+    /**
+     * The maximum number of event loop threads in this group.
+     *
+     * @return The number of event loops
+     */
+    int getSize();
+
+    /**
+     * Stops all event loop threads of this group.
+     * <br>Connections which still use this group stop sending and receiving audio,
+     * and new connections cannot use this group anymore.
+     */
+    void shutdown();
+}
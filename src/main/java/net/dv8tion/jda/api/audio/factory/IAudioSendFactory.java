@@ -17,6 +17,7 @@
 package net.dv8tion.jda.api.audio.factory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Factory interface for the creation of new {@link net.dv8tion.jda.api.audio.factory.IAudioSendSystem IAudioSendSystem} objects.
@@ -40,4 +41,22 @@ public interface IAudioSendFactory
      */
     @Nonnull
     IAudioSendSystem createSendSystem(@Nonnull IPacketProvider packetProvider);
+
+    /**
+     * The event loops, which audio connections use to receive audio, instead of a receive thread for every connection.
+     * <br>If this is not null, the UDP socket of each connection is opened as a {@link java.nio.channels.DatagramChannel DatagramChannel},
+     * which is registered with these event loops.
+     *
+     * <p>Factories which wrap another factory should return the event loop group of the wrapped factory.
+     * Only the groups created by {@link NioSendFactory} are supported.
+     *
+     * @return The event loop group, or null to use a receive thread for every connection (default)
+     *
+     * @see    NioSendFactory
+     */
+    @Nullable
+    default IAudioEventLoopGroup getEventLoopGroup()
+    {
+        return null;
+    }
 }
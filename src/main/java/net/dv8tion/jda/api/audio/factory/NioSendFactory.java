@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.api.audio.factory;
+
+import net.dv8tion.jda.internal.audio.AudioEventLoopGroup;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An {@link net.dv8tion.jda.api.audio.factory.IAudioSendFactory IAudioSendFactory},
+ * which sends and receives the audio of all connections on a few shared event loop threads.
+ *
+ * <p>The {@link net.dv8tion.jda.api.audio.factory.DefaultSendFactory DefaultSendFactory} uses a send thread,
+ * a receive thread, and a thread for combined audio, for every audio connection.
+ * With this factory, each event loop handles the UDP channels of many connections with one selector,
+ * and paces their 20ms frames on a timer wheel.
+ *
+ * <p><b>The {@link net.dv8tion.jda.api.audio.AudioSendHandler AudioSendHandler} and
+ * {@link net.dv8tion.jda.api.audio.AudioReceiveHandler AudioReceiveHandler} are called on the event loop threads,
+ * so they must never block.</b> Blocking one handler delays the audio of every other connection on the same loop.
+ */
+public class NioSendFactory implements IAudioSendFactory
+{
+    private final AudioEventLoopGroup eventLoopGroup;
+
+    /**
+     * Creates a factory, which uses the default event loops.
+     * <br>There is one default event loop for every two CPU cores, which are shared by all factories.
+     */
+    public NioSendFactory()
+    {
+        this.eventLoopGroup = AudioEventLoopGroup.getDefault();
+    }
+
+    /**
+     * Creates a factory with its own event loops.
+     *
+     * @param  eventLoops
+     *         The number of event loop threads
+     *
+     * @throws IllegalArgumentException
+     *         If the number of event loops is not positive
+     */
+    public NioSendFactory(int eventLoops)
+    {
+        this.eventLoopGroup = new AudioEventLoopGroup("JDA Audio-EventLoop", eventLoops);
+    }
+
+    @Nonnull
+    @Override
+    public IAudioEventLoopGroup getEventLoopGroup()
+    {
+        return eventLoopGroup;
+    }
+
+    /**
+     * Stops the event loops created by this factory.
+     * <br>The default event loops are shared by all factories, so this does nothing for factories created with {@link #NioSendFactory()}.
+     *
+     * <p>Connections which still use this factory stop sending and receiving audio.
+     */
+    public void shutdown()
+    {
+        if (eventLoopGroup != AudioEventLoopGroup.getDefault())
+            eventLoopGroup.shutdown();
+    }
+
+    @Nonnull
+    @Override
+    public IAudioSendSystem createSendSystem(@Nonnull IPacketProvider packetProvider)
+    {
+        return new NioSendSystem(packetProvider, eventLoopGroup);
+    }
+}
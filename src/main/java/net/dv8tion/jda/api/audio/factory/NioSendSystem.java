@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.api.audio.factory;
+
+import net.dv8tion.jda.internal.audio.AudioConnection;
+import net.dv8tion.jda.internal.audio.AudioEventLoop;
+import net.dv8tion.jda.internal.audio.AudioEventLoopGroup;
+import org.slf4j.MDC;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.net.NoRouteToHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sends the packets of an audio connection on a frame task of an {@link AudioEventLoop}.
+ * <br>Sockets without a channel fall back to the {@link DefaultSendSystem}.
+ */
+class NioSendSystem implements IAudioSendSystem
+{
+    private final IPacketProvider packetProvider;
+    private final AudioEventLoopGroup eventLoopGroup;
+    private ConcurrentMap<String, String> contextMap;
+    private IAudioSendSystem fallback;
+    private AudioEventLoop.Handle frameTask;
+    private boolean shutdown;
+    private boolean sentPacket = true;
+
+    NioSendSystem(IPacketProvider packetProvider, AudioEventLoopGroup eventLoopGroup)
+    {
+        this.packetProvider = packetProvider;
+        this.eventLoopGroup = eventLoopGroup;
+    }
+
+    @Override
+    public void setContextMap(@CheckForNull ConcurrentMap<String, String> contextMap)
+    {
+        this.contextMap = contextMap;
+    }
+
+    @Override
+    public synchronized void start()
+    {
+        DatagramChannel channel = packetProvider.getUdpSocket().getChannel();
+        if (channel == null)
+        {
+            AudioConnection.LOG.debug("UDP socket has no channel, falling back to a send thread");
+            fallback = new DefaultSendSystem(packetProvider);
+            fallback.setContextMap(contextMap);
+            fallback.start();
+            return;
+        }
+
+        schedule(channel);
+    }
+
+    @Override
+    public synchronized void shutdown()
+    {
+        shutdown = true;
+        if (fallback != null)
+            fallback.shutdown();
+        if (frameTask != null)
+            frameTask.cancel();
+    }
+
+    private synchronized void schedule(DatagramChannel channel)
+    {
+        if (shutdown)
+            return;
+        AudioEventLoop.Handle handle = eventLoopGroup.next().scheduleFrameTask(() -> sendFrame(channel));
+        frameTask = handle;
+        // The loop died, so continue sending on another loop
+        handle.onFailure(() -> reschedule(handle, channel));
+    }
+
+    private synchronized void reschedule(AudioEventLoop.Handle handle, DatagramChannel channel)
+    {
+        if (frameTask != handle)
+            return;
+        try
+        {
+            schedule(channel);
+        }
+        catch (RuntimeException e)
+        {
+            AudioConnection.LOG.error("Failed to move audio sending to another event loop", e);
+        }
+    }
+
+    // Only called on the event loop thread
+    private void sendFrame(DatagramChannel channel)
+    {
+        if (!channel.isOpen())
+            return;
+
+        if (contextMap != null)
+            MDC.setContextMap(contextMap);
+        try
+        {
+            ByteBuffer packet = packetProvider.getNextPacketRaw(!sentPacket);
+            sentPacket = packet != null;
+            if (sentPacket)
+                channel.send(packet, packetProvider.getSocketAddress());
+        }
+        catch (NoRouteToHostException e)
+        {
+            packetProvider.onConnectionLost();
+        }
+        catch (ClosedChannelException e)
+        {
+            // The audio connection has been closed, the task is cancelled on shutdown
+        }
+        catch (IOException e)
+        {
+            AudioConnection.LOG.error("Error while sending udp audio data", e);
+        }
+        finally
+        {
+            if (contextMap != null)
+                MDC.clear();
+        }
+    }
+}
@@ -17,18 +17,18 @@ package net.dv8tion.jda.api.hooks;
 
 import net.dv8tion.jda.api.events.GenericEvent;
 import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.hooks.EventInvoker;
 import net.dv8tion.jda.internal.utils.ClassWalker;
 import net.dv8tion.jda.internal.utils.JDALogger;
 import org.jetbrains.annotations.Unmodifiable;
 import org.slf4j.Logger;
 
 import javax.annotation.Nonnull;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implementation for {@link net.dv8tion.jda.api.hooks.IEventManager IEventManager}
@@ -48,6 +48,9 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * }
  * </code></pre>
  *
+ * <p>The annotated methods are resolved once, when the listener is registered, and are called without reflection.
+ * For every event class, the listeners of its super classes and interfaces are combined into a dispatch table on the first event.
+ *
  * @see net.dv8tion.jda.api.hooks.InterfacedEventManager
  * @see net.dv8tion.jda.api.hooks.IEventManager
  * @see net.dv8tion.jda.api.hooks.SubscribeEvent
@@ -55,8 +58,12 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class AnnotatedEventManager implements IEventManager
 {
     private static final Logger LOGGER = JDALogger.getLog(AnnotatedEventManager.class);
-    private final Set<Object> listeners = ConcurrentHashMap.newKeySet();
-    private final Map<Class<?>, Map<Object, List<Method>>> methods = new ConcurrentHashMap<>();
+    private static final Handler[] EMPTY = new Handler[0];
+
+    // Listener -> Handlers, in registration order
+    private final Map<Object, List<Handler>> listeners = new LinkedHashMap<>();
+    // Replaced whenever the listeners change, so the dispatch tables never include outdated handlers
+    private volatile DispatchTable dispatchTable = new DispatchTable(Collections.emptyList());
 
     @Override
     public void register(@Nonnull Object listener)
@@ -68,9 +75,12 @@ public class AnnotatedEventManager implements IEventManager
             return;
         }
 
-        if (listeners.add(listener))
+        synchronized (listeners)
         {
-            registerListenerMethods(listener);
+            if (listeners.containsKey(listener))
+                return;
+            listeners.put(listener, resolveHandlers(listener));
+            updateDispatchTable();
         }
     }
 
@@ -84,9 +94,10 @@ public class AnnotatedEventManager implements IEventManager
             return;
         }
 
-        if (listeners.remove(listener))
+        synchronized (listeners)
         {
-            updateMethods();
+            if (listeners.remove(listener) != null)
+                updateDispatchTable();
         }
     }
 
@@ -95,53 +106,49 @@ public class AnnotatedEventManager implements IEventManager
     @Unmodifiable
     public List<Object> getRegisteredListeners()
     {
-        return Collections.unmodifiableList(new ArrayList<>(listeners));
+        synchronized (listeners)
+        {
+            return Collections.unmodifiableList(new ArrayList<>(listeners.keySet()));
+        }
     }
 
     @Override
     public void handle(@Nonnull GenericEvent event)
     {
-        for (Class<?> eventClass : ClassWalker.walk(event.getClass()))
+        for (Handler handler : dispatchTable.getHandlers(event.getClass()))
         {
-            Map<Object, List<Method>> listeners = methods.get(eventClass);
-            if (listeners != null)
+            try
             {
-                listeners.forEach((key, value) -> value.forEach(method ->
-                {
-                    try
-                    {
-                        method.setAccessible(true);
-                        method.invoke(key, event);
-                    }
-                    catch (IllegalAccessException | InvocationTargetException e1)
-                    {
-                        JDAImpl.LOG.error("Couldn't access annotated EventListener method", e1);
-                    }
-                    catch (Throwable throwable)
-                    {
-                        JDAImpl.LOG.error("One of the EventListeners had an uncaught exception", throwable);
-                        if (throwable instanceof Error)
-                            throw (Error) throwable;
-                    }
-                }));
+                handler.invoker.invoke(handler.listener, event);
+            }
+            catch (Throwable throwable)
+            {
+                JDAImpl.LOG.error("One of the EventListeners had an uncaught exception", throwable);
+                if (throwable instanceof Error)
+                    throw (Error) throwable;
             }
         }
     }
 
-    private void updateMethods()
+    @Override
+    public boolean isConsumed(@Nonnull Class<? extends GenericEvent> type)
     {
-        methods.clear();
-        for (Object listener : listeners)
-        {
-            registerListenerMethods(listener);
-        }
+        return dispatchTable.getHandlers(type).length > 0;
     }
 
-    private void registerListenerMethods(Object listener)
+    private void updateDispatchTable()
+    {
+        List<Handler> handlers = new ArrayList<>();
+        listeners.values().forEach(handlers::addAll);
+        dispatchTable = new DispatchTable(handlers);
+    }
+
+    private List<Handler> resolveHandlers(Object listener)
     {
         boolean isClass = listener instanceof Class;
         Class<?> c = isClass ? (Class<?>) listener : listener.getClass();
         Method[] allMethods = c.getDeclaredMethods();
+        List<Handler> handlers = new ArrayList<>();
         for (Method m : allMethods)
         {
             if (!m.isAnnotationPresent(SubscribeEvent.class))
@@ -157,10 +164,62 @@ public class AnnotatedEventManager implements IEventManager
                 continue;
             }
 
-            Class<?> eventClass = parameterTypes[0];
-            methods.computeIfAbsent(eventClass, k -> new ConcurrentHashMap<>())
-                    .computeIfAbsent(listener, k -> new CopyOnWriteArrayList<>())
-                    .add(m);
+            try
+            {
+                handlers.add(new Handler(listener, parameterTypes[0], EventInvoker.of(m)));
+            }
+            catch (RuntimeException e)
+            {
+                LOGGER.error("Couldn't access annotated EventListener method '{}'", m, e);
+            }
+        }
+        return handlers;
+    }
+
+    private static class DispatchTable
+    {
+        private final Map<Class<?>, List<Handler>> handlersByType = new HashMap<>();
+        private final ConcurrentMap<Class<?>, Handler[]> handlersByEvent = new ConcurrentHashMap<>();
+
+        private DispatchTable(List<Handler> handlers)
+        {
+            for (Handler handler : handlers)
+                handlersByType.computeIfAbsent(handler.eventType, k -> new ArrayList<>()).add(handler);
+        }
+
+        private Handler[] getHandlers(Class<?> eventClass)
+        {
+            Handler[] handlers = handlersByEvent.get(eventClass);
+            if (handlers == null)
+                handlers = handlersByEvent.computeIfAbsent(eventClass, this::resolve);
+            return handlers;
+        }
+
+        private Handler[] resolve(Class<?> eventClass)
+        {
+            // Same order as walking the class hierarchy for every event, starting with the most specific class
+            List<Handler> handlers = new ArrayList<>();
+            for (Class<?> type : ClassWalker.walk(eventClass))
+            {
+                List<Handler> forType = handlersByType.get(type);
+                if (forType != null)
+                    handlers.addAll(forType);
+            }
+            return handlers.isEmpty() ? EMPTY : handlers.toArray(EMPTY);
+        }
+    }
+
+    private static class Handler
+    {
+        private final Object listener;
+        private final Class<?> eventType;
+        private final EventInvoker invoker;
+
+        private Handler(Object listener, Class<?> eventType, EventInvoker invoker)
+        {
+            this.listener = listener;
+            this.eventType = eventType;
+            this.invoker = invoker;
         }
     }
 }
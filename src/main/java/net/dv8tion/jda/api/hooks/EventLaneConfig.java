@@ -0,0 +1,215 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.hooks;
+
+import net.dv8tion.jda.internal.utils.Checks;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for ordered parallel event handling.
+ *
+ * <p>Gateway events are partitioned by their guild or channel ID into a fixed number of serial lanes.
+ * The lanes share the configured event pool, so events of different guilds are handled in parallel,
+ * while events of the same guild are always handled in the order they were received.
+ * Events which don't belong to a guild, like {@link net.dv8tion.jda.api.events.session.ReadyEvent ReadyEvent}, share one lane.
+ *
+ * <p>Each lane holds a limited amount of events. Once a lane is full, the {@link Backpressure} strategy decides
+ * whether the gateway stops reading new events or discards the event.
+ * Only message creations, reactions, and typing notifications are discarded,
+ * all other events are queued beyond the capacity, since they describe changes of state.
+ *
+ * @see net.dv8tion.jda.api.JDABuilder#setEventLanes(EventLaneConfig)
+ * @see net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder#setEventLanes(EventLaneConfig)
+ */
+public class EventLaneConfig
+{
+    private Partition partition = Partition.GUILD;
+    private int lanes = Runtime.getRuntime().availableProcessors() * 4;
+    private int laneCapacity = 1000;
+    private Backpressure backpressure = Backpressure.BLOCK;
+    private long maxBlockTime = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * The ID used to decide which events have to be handled in order.
+     * <br>By default, this uses {@link Partition#GUILD}.
+     *
+     * @param  partition
+     *         The partition
+     *
+     * @throws IllegalArgumentException
+     *         If null is provided
+     *
+     * @return The current EventLaneConfig for chaining convenience
+     */
+    @Nonnull
+    public EventLaneConfig setPartition(@Nonnull Partition partition)
+    {
+        Checks.notNull(partition, "Partition");
+        this.partition = partition;
+        return this;
+    }
+
+    /**
+     * The number of serial lanes.
+     * <br>By default, this uses 4 lanes per available processor.
+     *
+     * <p>Multiple guilds share each lane, so more lanes reduce the chance of a slow guild delaying another guild.
+     *
+     * @param  lanes
+     *         The number of lanes
+     *
+     * @throws IllegalArgumentException
+     *         If the number is not positive
+     *
+     * @return The current EventLaneConfig for chaining convenience
+     */
+    @Nonnull
+    public EventLaneConfig setLanes(int lanes)
+    {
+        Checks.positive(lanes, "Lanes");
+        this.lanes = lanes;
+        return this;
+    }
+
+    /**
+     * The maximum number of queued events per lane, before the {@link #setBackpressure(Backpressure) backpressure} is applied.
+     * <br>By default, this is 1000.
+     *
+     * @param  laneCapacity
+     *         The capacity of each lane
+     *
+     * @throws IllegalArgumentException
+     *         If the capacity is not positive
+     *
+     * @return The current EventLaneConfig for chaining convenience
+     */
+    @Nonnull
+    public EventLaneConfig setLaneCapacity(int laneCapacity)
+    {
+        Checks.positive(laneCapacity, "Lane capacity");
+        this.laneCapacity = laneCapacity;
+        return this;
+    }
+
+    /**
+     * What happens to new events, when their lane is full.
+     * <br>By default, this uses {@link Backpressure#BLOCK}.
+     *
+     * @param  backpressure
+     *         The backpressure strategy
+     *
+     * @throws IllegalArgumentException
+     *         If null is provided
+     *
+     * @return The current EventLaneConfig for chaining convenience
+     */
+    @Nonnull
+    public EventLaneConfig setBackpressure(@Nonnull Backpressure backpressure)
+    {
+        Checks.notNull(backpressure, "Backpressure");
+        this.backpressure = backpressure;
+        return this;
+    }
+
+    /**
+     * The maximum time the gateway waits for space in a full lane, when using {@link Backpressure#BLOCK}.
+     * <br>By default, this is 5 seconds.
+     *
+     * <p>The gateway does not read any messages while waiting, including heartbeat acknowledgements.
+     * Once the time has passed, the lane is handled like with {@link Backpressure#DISCARD}, until it has space again.
+     *
+     * @param  time
+     *         The maximum time to wait
+     * @param  unit
+     *         The time unit
+     *
+     * @throws IllegalArgumentException
+     *         If the time is negative or the unit is null
+     *
+     * @return The current EventLaneConfig for chaining convenience
+     */
+    @Nonnull
+    public EventLaneConfig setMaxBlockTime(long time, @Nonnull TimeUnit unit)
+    {
+        Checks.notNegative(time, "Time");
+        Checks.notNull(unit, "TimeUnit");
+        this.maxBlockTime = unit.toMillis(time);
+        return this;
+    }
+
+    @Nonnull
+    public Partition getPartition()
+    {
+        return partition;
+    }
+
+    public int getLanes()
+    {
+        return lanes;
+    }
+
+    public int getLaneCapacity()
+    {
+        return laneCapacity;
+    }
+
+    @Nonnull
+    public Backpressure getBackpressure()
+    {
+        return backpressure;
+    }
+
+    public long getMaxBlockTime()
+    {
+        return maxBlockTime;
+    }
+
+    /**
+     * The ID used to assign events to lanes.
+     */
+    public enum Partition
+    {
+        /**
+         * Events of the same guild are handled in order.
+         */
+        GUILD,
+        /**
+         * Events of the same channel are handled in order.
+         * <br>Events of a guild, which don't belong to a channel, are ordered by the guild instead.
+         */
+        CHANNEL
+    }
+
+    /**
+     * Strategy for events, which are received while their lane is full.
+     */
+    public enum Backpressure
+    {
+        /**
+         * Blocks the gateway thread until the lane has space, at most for the {@link #setMaxBlockTime(long, TimeUnit) maximum block time}.
+         * <br>No further events are received while waiting. Afterward, the lane is handled like with {@link #DISCARD}.
+         */
+        BLOCK,
+        /**
+         * Discards message creations, reactions, and typing notifications, and logs a warning.
+         * <br>Other events are queued beyond the capacity of the lane.
+         */
+        DISCARD
+    }
+}
@@ -79,6 +79,23 @@ public interface IEventManager
      */
     void handle(@Nonnull GenericEvent event);
 
+    /**
+     * Whether any of the registered listeners handles events of the provided class.
+     * <br>JDA skips creating events, which would be ignored by all listeners, and the work only needed for these events.
+     *
+     * <p>This is called for every received event, so implementations should cache the result until the listeners change.
+     * The default implementation always returns true.
+     *
+     * @param  type
+     *         The event class
+     *
+     * @return True, if events of this class should be created and handled
+     */
+    default boolean isConsumed(@Nonnull Class<? extends GenericEvent> type)
+    {
+        return true;
+    }
+
     /**
      * The currently registered listeners
      *
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.hooks;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.utils.JDALogger;
+import org.jetbrains.annotations.Unmodifiable;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An {@link net.dv8tion.jda.api.hooks.IEventManager IEventManager} implementation
+ * that uses the {@link net.dv8tion.jda.api.hooks.EventListener EventListener} interface for
+ * event listeners, and only calls the listeners which handle the event.
+ *
+ * <p>This behaves like the {@link InterfacedEventManager}, with the same order of listeners.
+ * However, for {@link ListenerAdapter} implementations, it detects which event methods are overridden,
+ * and skips listeners which would ignore the event.
+ * Listeners which override {@link ListenerAdapter#onGenericEvent(GenericEvent) onGenericEvent},
+ * or only implement {@link EventListener}, receive every event.
+ *
+ * <p>The listeners for each event class are determined on the first event of that class,
+ * and reused until a listener is registered or removed.
+ * This is most useful with many listeners, which only handle a few events each.
+ *
+ * @see net.dv8tion.jda.api.hooks.InterfacedEventManager
+ * @see net.dv8tion.jda.api.hooks.IEventManager
+ */
+public class IndexedEventManager implements IEventManager
+{
+    // ListenerAdapter subclass -> Event types of the overridden methods, or null if it handles every event
+    private static final ConcurrentMap<Class<?>, Optional<Set<Class<?>>>> handledTypes = new ConcurrentHashMap<>();
+    private static final EventListener[] EMPTY = new EventListener[0];
+
+    private final List<EventListener> listeners = new ArrayList<>();
+    // Replaced whenever the listeners change, so the dispatch tables never include outdated listeners
+    private volatile DispatchTable dispatchTable = new DispatchTable(EMPTY);
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException
+     *         If the provided listener does not implement {@link net.dv8tion.jda.api.hooks.EventListener EventListener}
+     */
+    @Override
+    public void register(@Nonnull Object listener)
+    {
+        if (!(listener instanceof EventListener))
+        {
+            throw new IllegalArgumentException("Listener must implement EventListener");
+        }
+
+        synchronized (listeners)
+        {
+            listeners.add((EventListener) listener);
+            dispatchTable = new DispatchTable(listeners.toArray(EMPTY));
+        }
+    }
+
+    @Override
+    public void unregister(@Nonnull Object listener)
+    {
+        if (!(listener instanceof EventListener))
+        {
+            //noinspection ConstantConditions
+            JDALogger.getLog(getClass()).warn(
+                    "Trying to remove a listener that does not implement EventListener: {}",
+                    listener == null ? "null" : listener.getClass().getName());
+        }
+
+        synchronized (listeners)
+        {
+            //noinspection SuspiciousMethodCalls
+            if (listeners.remove(listener))
+                dispatchTable = new DispatchTable(listeners.toArray(EMPTY));
+        }
+    }
+
+    @Nonnull
+    @Override
+    @Unmodifiable
+    public List<Object> getRegisteredListeners()
+    {
+        return Collections.unmodifiableList(Arrays.asList(dispatchTable.listeners));
+    }
+
+    @Override
+    public void handle(@Nonnull GenericEvent event)
+    {
+        for (EventListener listener : dispatchTable.getListeners(event.getClass()))
+        {
+            try
+            {
+                listener.onEvent(event);
+            }
+            catch (Throwable throwable)
+            {
+                JDAImpl.LOG.error("One of the EventListeners had an uncaught exception", throwable);
+                if (throwable instanceof Error)
+                    throw (Error) throwable;
+            }
+        }
+    }
+
+    @Override
+    public boolean isConsumed(@Nonnull Class<? extends GenericEvent> type)
+    {
+        return dispatchTable.getListeners(type).length > 0;
+    }
+
+    // The event types handled by the listener, or null if it handles every event
+    static Set<Class<?>> getHandledTypes(EventListener listener)
+    {
+        if (!(listener instanceof ListenerAdapter))
+            return null;
+        return handledTypes.computeIfAbsent(listener.getClass(), IndexedEventManager::findHandledTypes).orElse(null);
+    }
+
+    private static Optional<Set<Class<?>>> findHandledTypes(Class<?> type)
+    {
+        Set<Class<?>> handled = new HashSet<>();
+        for (Class<?> clazz = type; clazz != ListenerAdapter.class; clazz = clazz.getSuperclass())
+        {
+            for (Method method : clazz.getDeclaredMethods())
+            {
+                if (Modifier.isStatic(method.getModifiers()) || method.isBridge() || method.getParameterCount() != 1)
+                    continue;
+                Class<?> eventType = method.getParameterTypes()[0];
+                if (!GenericEvent.class.isAssignableFrom(eventType) || !isEventMethod(method.getName(), eventType))
+                    continue;
+                if (eventType == GenericEvent.class)
+                    return Optional.empty();
+                handled.add(eventType);
+            }
+        }
+        return Optional.of(handled);
+    }
+
+    private static boolean isEventMethod(String name, Class<?> eventType)
+    {
+        try
+        {
+            Method method = ListenerAdapter.class.getDeclaredMethod(name, eventType);
+            return Modifier.isPublic(method.getModifiers()) && !Modifier.isFinal(method.getModifiers());
+        }
+        catch (NoSuchMethodException e)
+        {
+            return false;
+        }
+    }
+
+    private static class DispatchTable
+    {
+        private final EventListener[] listeners;
+        private final List<Set<Class<?>>> handledTypes;
+        private final ConcurrentMap<Class<?>, EventListener[]> listenersByEvent = new ConcurrentHashMap<>();
+
+        private DispatchTable(EventListener[] listeners)
+        {
+            this.listeners = listeners;
+            this.handledTypes = new ArrayList<>(listeners.length);
+            for (EventListener listener : listeners)
+                handledTypes.add(getHandledTypes(listener));
+        }
+
+        private EventListener[] getListeners(Class<?> eventClass)
+        {
+            EventListener[] interested = listenersByEvent.get(eventClass);
+            if (interested == null)
+                interested = listenersByEvent.computeIfAbsent(eventClass, this::resolve);
+            return interested;
+        }
+
+        private EventListener[] resolve(Class<?> eventClass)
+        {
+            List<EventListener> interested = new ArrayList<>();
+            for (int i = 0; i < listeners.length; i++)
+            {
+                if (isHandled(handledTypes.get(i), eventClass))
+                    interested.add(listeners[i]);
+            }
+            return interested.toArray(EMPTY);
+        }
+    }
+
+    static boolean isHandled(Set<Class<?>> handledTypes, Class<?> eventClass)
+    {
+        if (handledTypes == null)
+            return true;
+        for (Class<?> type : handledTypes)
+        {
+            if (type.isAssignableFrom(eventClass))
+                return true;
+        }
+        return false;
+    }
+}
@@ -24,6 +24,8 @@ import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -38,11 +40,14 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * <p><b>This is the default IEventManager used by JDA</b>
  *
  * @see net.dv8tion.jda.api.hooks.AnnotatedEventManager
+ * @see net.dv8tion.jda.api.hooks.IndexedEventManager
  * @see net.dv8tion.jda.api.hooks.IEventManager
  */
 public class InterfacedEventManager implements IEventManager
 {
     private final CopyOnWriteArrayList<EventListener> listeners = new CopyOnWriteArrayList<>();
+    // Replaced whenever the listeners change, see IndexedEventManager for the detection of handled events
+    private volatile ConcurrentMap<Class<?>, Boolean> consumedTypes = new ConcurrentHashMap<>();
 
     public InterfacedEventManager()
     {
@@ -63,6 +68,7 @@ public class InterfacedEventManager implements IEventManager
             throw new IllegalArgumentException("Listener must implement EventListener");
         }
         listeners.add((EventListener) listener);
+        consumedTypes = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -77,7 +83,8 @@ public class InterfacedEventManager implements IEventManager
         }
 
         //noinspection SuspiciousMethodCalls
-        listeners.remove(listener);
+        if (listeners.remove(listener))
+            consumedTypes = new ConcurrentHashMap<>();
     }
 
     @Nonnull
@@ -88,6 +95,25 @@ public class InterfacedEventManager implements IEventManager
         return Collections.unmodifiableList(new ArrayList<>(listeners));
     }
 
+    @Override
+    public boolean isConsumed(@Nonnull Class<? extends GenericEvent> type)
+    {
+        Boolean consumed = consumedTypes.get(type);
+        if (consumed == null)
+            consumed = consumedTypes.computeIfAbsent(type, this::isHandled);
+        return consumed;
+    }
+
+    private boolean isHandled(Class<?> type)
+    {
+        for (EventListener listener : listeners)
+        {
+            if (IndexedEventManager.isHandled(IndexedEventManager.getHandledTypes(listener), type))
+                return true;
+        }
+        return false;
+    }
+
     @Override
     public void handle(@Nonnull GenericEvent event)
     {
@@ -19,7 +19,9 @@ package net.dv8tion.jda.api.managers;
 import net.dv8tion.jda.annotations.Incubating;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.audio.AudioReceiveHandler;
+import net.dv8tion.jda.api.audio.AudioReceiveStatistics;
 import net.dv8tion.jda.api.audio.AudioSendHandler;
+import net.dv8tion.jda.api.audio.JitterBufferConfig;
 import net.dv8tion.jda.api.audio.SpeakingMode;
 import net.dv8tion.jda.api.audio.hooks.ConnectionListener;
 import net.dv8tion.jda.api.audio.hooks.ConnectionStatus;
@@ -36,6 +38,7 @@ import javax.annotation.Nullable;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.List;
 
 
 /**
@@ -245,6 +248,44 @@ public interface AudioManager
     @Nullable
     AudioReceiveHandler getReceivingHandler();
 
+    /**
+     * Enables the jitter buffer for received audio, or disables it with {@code null}.
+     * <br>By default, the jitter buffer is disabled and received audio is decoded as soon as it arrives.
+     *
+     * <p>The jitter buffer delays the audio of each user, to play packets which arrive late or out of order in order,
+     * and conceals lost packets with the Opus decoder.
+     * The decoded audio is provided to the {@link AudioReceiveHandler} exactly once every 20 milliseconds while a user speaks,
+     * which keeps {@link AudioReceiveHandler#handleCombinedAudio(net.dv8tion.jda.api.audio.CombinedAudio) combined audio} free of gaps.
+     *
+     * <p>While enabled, the {@link net.dv8tion.jda.api.audio.OpusPacket OpusPackets} provided to
+     * {@link AudioReceiveHandler#handleEncodedAudio(net.dv8tion.jda.api.audio.OpusPacket)} cannot be decoded,
+     * since the decoders are used by the jitter buffer.
+     *
+     * <p>Like the handlers, the config persists between audio connections.
+     *
+     * @param config
+     *        The {@link JitterBufferConfig}, or null to disable the jitter buffer
+     */
+    void setJitterBuffer(@Nullable JitterBufferConfig config);
+
+    /**
+     * The currently set {@link JitterBufferConfig}, or {@code null} if the jitter buffer is disabled.
+     *
+     * @return The current {@link JitterBufferConfig} or {@code null}
+     */
+    @Nullable
+    JitterBufferConfig getJitterBuffer();
+
+    /**
+     * The statistics of the audio received from each user of the current audio connection.
+     * <br>These are collected by the {@link #setJitterBuffer(JitterBufferConfig) jitter buffer},
+     * so this is empty while the jitter buffer is disabled, or no audio connection is established.
+     *
+     * @return Immutable list of {@link AudioReceiveStatistics}
+     */
+    @Nonnull
+    List<AudioReceiveStatistics> getReceiveStatistics();
+
     /**
      * Sets the {@link net.dv8tion.jda.api.audio.hooks.ConnectionListener ConnectionListener} for this AudioManager.
      * It will be informed about meta data of any audio connection established through this AudioManager.
@@ -0,0 +1,559 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+import net.dv8tion.jda.internal.utils.Checks;
+import net.dv8tion.jda.internal.utils.JDALogger;
+import okhttp3.Headers;
+import okhttp3.Response;
+import org.slf4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rate-limiter which uses the same buckets as the {@link SequentialRestRateLimiter}, but without a global lock.
+ *
+ * <p>Route hashes and buckets are stored in concurrent maps, and each bucket manages its own worker.
+ * This means requests for independent buckets never block each other, which reduces contention
+ * when many requests for different routes or major parameters are enqueued concurrently.
+ *
+ * <p>The rate-limit state of each bucket is kept in a {@link RateLimitStore}, which can be shared with other rate-limiters.
+ * Requests reserve a use of their bucket in the store before they are executed,
+ * which lets multiple shards or processes using the same token coordinate their requests.
+ *
+ * <p>Enqueueing a request and removing an unused bucket are atomic for the respective bucket id,
+ * so a request can never end up in a bucket that has already been removed.
+ *
+ * <p>This can be enabled with {@link RestConfig#setRateLimiterFactory(java.util.function.Function) RestConfig.setRateLimiterFactory(ConcurrentRestRateLimiter::new)}.
+ *
+ * @see SequentialRestRateLimiter
+ * @see RateLimitStore
+ */
+public final class ConcurrentRestRateLimiter implements RestRateLimiter
+{
+    private static final Logger log = JDALogger.getLog(RestRateLimiter.class);
+    private static final String UNINIT_BUCKET = "uninit"; // we generate an uninit bucket for every major parameter configuration
+
+    private final CompletableFuture<?> shutdownHandle = new CompletableFuture<>();
+
+    private final Future<?> cleanupWorker;
+    private final RateLimitConfig config;
+    private final RateLimitStore store;
+    private final GlobalRateLimit globalRateLimit;
+
+    private final Object stopLock = new Object();
+    private final AtomicBoolean shutdownStarted = new AtomicBoolean(false);
+    private volatile boolean isStopped, isShutdown;
+
+    // Route -> Should we print warning for 429? AKA did we already hit it once before
+    private final Set<Route> hitRatelimit = ConcurrentHashMap.newKeySet(5);
+    // Route -> Hash, cached from the store
+    private final Map<Route, String> hashes = new ConcurrentHashMap<>();
+    // Hash + Major Parameter -> Bucket
+    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public ConcurrentRestRateLimiter(@Nonnull RateLimitConfig config)
+    {
+        this(config, RateLimitStore.inMemory());
+    }
+
+    /**
+     * Creates a rate-limiter which keeps its rate-limit state in the provided store.
+     * <br>If the store provides a {@link RateLimitStore#getGlobalRateLimit() global rate-limit},
+     * it is used instead of {@link RateLimitConfig#getGlobalRateLimit()}.
+     *
+     * @param  config
+     *         The rate-limit config
+     * @param  store
+     *         The rate-limit store, which can be shared with other rate-limiters
+     *
+     * @throws IllegalArgumentException
+     *         If the store is null
+     */
+    public ConcurrentRestRateLimiter(@Nonnull RateLimitConfig config, @Nonnull RateLimitStore store)
+    {
+        Checks.notNull(store, "RateLimitStore");
+        this.config = config;
+        this.store = store;
+        GlobalRateLimit sharedGlobal = store.getGlobalRateLimit();
+        this.globalRateLimit = sharedGlobal != null ? sharedGlobal : config.getGlobalRateLimit();
+        this.cleanupWorker = config.getScheduler().scheduleAtFixedRate(this::cleanup, 30, 30, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void enqueue(@Nonnull RestRateLimiter.Work task)
+    {
+        runBucket(enqueue0(task));
+    }
+
+    @Override
+    public void stop(boolean shutdown, @Nonnull Runnable callback)
+    {
+        boolean doShutdown = shutdown;
+        synchronized (stopLock)
+        {
+            if (!isStopped)
+            {
+                isStopped = true;
+                shutdownHandle.thenRun(callback);
+                if (!doShutdown)
+                {
+                    int count = buckets.values().stream()
+                            .mapToInt(bucket -> bucket.getRequests().size())
+                            .sum();
+
+                    if (count > 0)
+                        log.info("Waiting for {} requests to finish.", count);
+                    doShutdown = count == 0;
+                }
+            }
+        }
+        if (doShutdown)
+            shutdown();
+    }
+
+    @Override
+    public boolean isStopped()
+    {
+        return isStopped;
+    }
+
+    @Override
+    public int cancelRequests()
+    {
+        // Empty buckets will be removed by the cleanup worker, which also checks for rate limit parameters
+        int cancelled = (int) buckets.values()
+                .stream()
+                .map(Bucket::getRequests)
+                .flatMap(Deque::stream)
+                .filter(request -> !request.isPriority() && !request.isCancelled())
+                .peek(Work::cancel)
+                .count();
+
+        if (cancelled == 1)
+            log.warn("Cancelled 1 request!");
+        else if (cancelled > 1)
+            log.warn("Cancelled {} requests!", cancelled);
+        return cancelled;
+    }
+
+    private void shutdown()
+    {
+        if (!shutdownStarted.compareAndSet(false, true))
+            return;
+        isShutdown = true;
+        cleanupWorker.cancel(false);
+        cleanup();
+        shutdownHandle.complete(null);
+    }
+
+    private void cleanup()
+    {
+        // This will remove buckets that are no longer needed every 30 seconds to avoid memory leakage
+        // We will keep the hashes in memory since they are very limited (by the amount of possible routes)
+        int removed = 0;
+        for (Bucket bucket : buckets.values())
+        {
+            if (isShutdown)
+                bucket.requests.forEach(Work::cancel); // Cancel all requests
+            bucket.requests.removeIf(Work::isSkipped); // Remove cancelled requests
+
+            if (removeIfUnused(bucket))
+                removed++;
+        }
+        store.cleanup(getNow());
+
+        // Log how many buckets were removed
+        if (removed > 0)
+            log.debug("Removed {} expired buckets", removed);
+        else if (isStopped && !isShutdown)
+            shutdown();
+    }
+
+    private boolean removeIfUnused(Bucket bucket)
+    {
+        // This is atomic with enqueue0, so no request can be added to the bucket while it is removed
+        return buckets.computeIfPresent(bucket.bucketId, (id, current) -> current == bucket && bucket.isUnused() ? null : current) == null;
+    }
+
+    private String getRouteHash(Route route)
+    {
+        String hash = hashes.get(route);
+        if (hash == null)
+        {
+            // Another rate-limiter using the same store might have discovered the hash already
+            hash = store.getHash(route.toString());
+            if (hash == null)
+                return UNINIT_BUCKET + "+" + route;
+            hashes.putIfAbsent(route, hash);
+        }
+        return hash;
+    }
+
+    private String getBucketId(Route.CompiledRoute route)
+    {
+        // Retrieve the hash via the route and combine it with the major parameters
+        return getRouteHash(route.getBaseRoute()) + ":" + route.getMajorParameters();
+    }
+
+    private Bucket createBucket(String bucketId, Route.CompiledRoute route)
+    {
+        if (route.getBaseRoute().isInteractionBucket())
+            return new InteractionBucket(bucketId);
+        else
+            return new ClassicBucket(bucketId);
+    }
+
+    private Bucket getBucket(Route.CompiledRoute route)
+    {
+        return buckets.computeIfAbsent(getBucketId(route), id -> createBucket(id, route));
+    }
+
+    private Bucket enqueue0(Work task)
+    {
+        Route.CompiledRoute route = task.getRoute();
+        return buckets.compute(getBucketId(route), (id, bucket) ->
+        {
+            if (bucket == null)
+                bucket = createBucket(id, route);
+            bucket.enqueue(task);
+            return bucket;
+        });
+    }
+
+    private void scheduleElastic(Bucket bucket)
+    {
+        if (isShutdown)
+            return;
+
+        ExecutorService elastic = config.getElastic();
+        ScheduledExecutorService scheduler = config.getScheduler();
+
+        try
+        {
+            // Avoid context switch if unnecessary
+            if (elastic == scheduler)
+                bucket.run();
+            else
+                elastic.execute(bucket);
+        }
+        catch (RejectedExecutionException ex)
+        {
+            bucket.scheduled.set(false);
+            if (!isShutdown)
+                log.error("Failed to execute bucket worker", ex);
+        }
+        catch (Throwable t)
+        {
+            log.error("Caught throwable in bucket worker", t);
+            if (t instanceof Error)
+                throw t;
+        }
+    }
+
+    private void runBucket(Bucket bucket)
+    {
+        if (isShutdown)
+            return;
+        // Schedule a new bucket worker if no worker is running
+        if (!bucket.scheduled.compareAndSet(false, true))
+            return;
+        try
+        {
+            config.getScheduler().schedule(() -> scheduleElastic(bucket), bucket.getRateLimit(), TimeUnit.MILLISECONDS);
+        }
+        catch (RuntimeException | Error e)
+        {
+            bucket.scheduled.set(false);
+            throw e;
+        }
+    }
+
+    private long parseLong(String input)
+    {
+        return input == null ? 0L : Long.parseLong(input);
+    }
+
+    private long parseDouble(String input)
+    {
+        //The header value is using a double to represent milliseconds and seconds:
+        // 5.250 this is 5 seconds and 250 milliseconds (5250 milliseconds)
+        return input == null ? 0L : (long) (Double.parseDouble(input) * 1000);
+    }
+
+    private long getNow()
+    {
+        return System.currentTimeMillis();
+    }
+
+    private Bucket updateBucket(Route.CompiledRoute route, Response response)
+    {
+        try
+        {
+            Headers headers = response.headers();
+
+            boolean global = headers.get(GLOBAL_HEADER) != null;
+            boolean cloudflare = headers.get("via") == null;
+            String hash = headers.get(HASH_HEADER);
+            String scope = headers.get(SCOPE_HEADER);
+            long now = getNow();
+
+            // Create a new bucket for the hash if needed
+            Route baseRoute = route.getBaseRoute();
+            if (hash != null && hashes.putIfAbsent(baseRoute, hash) == null && store.putHash(baseRoute.toString(), hash))
+                log.debug("Caching bucket hash {} -> {}", baseRoute, hash);
+
+            Bucket bucket = getBucket(route);
+
+            if (response.code() == 429)
+            {
+                String retryAfterHeader = headers.get(RETRY_AFTER_HEADER);
+                long retryAfter = parseLong(retryAfterHeader) * 1000; // seconds precision
+                // Handle global rate limit if necessary
+                if (global)
+                {
+                    globalRateLimit.setClassic(now + retryAfter);
+                    log.error("Encountered global rate limit! Retry-After: {} ms Scope: {}", retryAfter, scope);
+                }
+                // Handle cloudflare rate limits, this applies to all routes and uses seconds for retry-after
+                else if (cloudflare)
+                {
+                    globalRateLimit.setCloudflare(now + retryAfter);
+                    log.error("Encountered cloudflare rate limit! Retry-After: {} s", retryAfter / 1000);
+                }
+                // Handle hard rate limit, pretty much just log that it happened
+                else
+                {
+                    boolean firstHit = hitRatelimit.add(baseRoute) && retryAfter < 60000;
+                    // Update the bucket to the new information
+                    store.update(bucket.bucketId, 0, now + retryAfter);
+                    // don't log warning if we hit the rate limit for the first time, likely due to initialization of the bucket
+                    // unless its a long retry-after delay (more than a minute)
+                    if (firstHit)
+                        log.debug("Encountered 429 on route {} with bucket {} Retry-After: {} ms Scope: {}", baseRoute, bucket.bucketId, retryAfter, scope);
+                    else
+                        log.warn("Encountered 429 on route {} with bucket {} Retry-After: {} ms Scope: {}", baseRoute, bucket.bucketId, retryAfter, scope);
+                }
+
+                log.trace("Updated bucket {} to retry after {}", bucket.bucketId, retryAfter);
+                return bucket;
+            }
+
+            // If hash is null this means we didn't get enough information to update a bucket
+            if (hash == null)
+                return bucket;
+
+            // Update the bucket parameters with new information
+            String limitHeader = headers.get(LIMIT_HEADER);
+            String remainingHeader = headers.get(REMAINING_HEADER);
+            String resetAfterHeader = headers.get(RESET_AFTER_HEADER);
+            String resetHeader = headers.get(RESET_HEADER);
+
+            int remaining = (int) parseLong(remainingHeader);
+            long reset = config.isRelative() ? now + parseDouble(resetAfterHeader) : parseDouble(resetHeader);
+            store.update(bucket.bucketId, remaining, reset);
+            log.trace("Updated bucket {} to ({}/{}, {})", bucket.bucketId, remaining, limitHeader, reset - now);
+            return bucket;
+        }
+        catch (Exception e)
+        {
+            Bucket bucket = getBucket(route);
+            log.error("Encountered Exception while updating a bucket. Route: {} Bucket: {} Code: {} Headers:\n{}",
+                    route.getBaseRoute(), bucket, response.code(), response.headers(), e);
+            return bucket;
+        }
+    }
+
+    private abstract class Bucket implements Runnable
+    {
+        protected final String bucketId;
+        protected final Deque<Work> requests = new ConcurrentLinkedDeque<>();
+        // Whether a worker is scheduled or running for this bucket
+        protected final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        public Bucket(String bucketId)
+        {
+            this.bucketId = bucketId;
+        }
+
+        public boolean isUninit()
+        {
+            return bucketId.startsWith(UNINIT_BUCKET);
+        }
+
+        public void enqueue(Work request)
+        {
+            requests.addLast(request);
+        }
+
+        public void retry(Work request)
+        {
+            if (!moveRequest(request))
+                requests.addFirst(request);
+        }
+
+        public boolean isUnused()
+        {
+            // The rate-limit state is kept in the store, so drained buckets have no valuable information
+            return requests.isEmpty() && !scheduled.get();
+        }
+
+        public abstract long getGlobalRateLimit(long now);
+
+        public long getRateLimit()
+        {
+            long now = getNow();
+
+            long global = getGlobalRateLimit(now);
+            return Math.max(global, store.getDelay(bucketId, now));
+        }
+
+        protected boolean isGlobalRateLimit()
+        {
+            return getGlobalRateLimit(getNow()) > 0;
+        }
+
+        protected void backoff()
+        {
+            // Release the worker before checking the queue, so concurrently enqueued requests are never missed
+            scheduled.set(false);
+            if (!requests.isEmpty())
+                runBucket(this);
+            else if (isStopped)
+                removeIfUnused(this);
+            if (isStopped && buckets.isEmpty())
+                shutdown();
+        }
+
+        public Deque<Work> getRequests()
+        {
+            return requests;
+        }
+
+        protected boolean moveRequest(Work request)
+        {
+            // Attempt moving request to correct bucket if it has been created
+            if (bucketId.equals(getBucketId(request.getRoute())))
+                return false;
+            runBucket(enqueue0(request));
+            return true;
+        }
+
+        protected boolean execute(Work request)
+        {
+            try
+            {
+                Response response = request.execute();
+                if (response != null)
+                    updateBucket(request.getRoute(), response);
+                if (!request.isDone())
+                    retry(request);
+            }
+            catch (Throwable ex)
+            {
+                log.error("Encountered exception trying to execute request", ex);
+                if (ex instanceof Error)
+                    throw (Error) ex;
+                return true;
+            }
+            finally
+            {
+                // Release the reservation, if the response did not update the bucket
+                store.release(bucketId);
+            }
+            return false;
+        }
+
+        public void run()
+        {
+            log.trace("Bucket {} is running {} requests", bucketId, requests.size());
+            while (!requests.isEmpty())
+            {
+                Work request = requests.pollFirst();
+                if (request == null)
+                    break;
+                if (request.isSkipped())
+                    continue;
+
+                if (isUninit() && moveRequest(request))
+                    continue;
+
+                // Reserve a use of the bucket, which might have been used by another rate-limiter sharing the store
+                long now = getNow();
+                long rateLimit = getGlobalRateLimit(now);
+                if (rateLimit <= 0L)
+                    rateLimit = store.acquire(bucketId, now);
+                if (rateLimit > 0L)
+                {
+                    // We need to backoff since we ran out of remaining uses or hit the global rate limit
+                    requests.addFirst(request);
+                    String baseRoute = request.getRoute().getBaseRoute().toString();
+                    if (!isGlobalRateLimit() && rateLimit >= 1000 * 60 * 30) // 30 minutes
+                        log.warn("Encountered long {} minutes Rate-Limit on route {}", TimeUnit.MILLISECONDS.toMinutes(rateLimit), baseRoute);
+                    log.debug("Backing off {} ms for bucket {} on route {}", rateLimit, bucketId, baseRoute);
+                    break;
+                }
+
+                if (execute(request)) break;
+            }
+
+            backoff();
+        }
+
+        @Override
+        public String toString()
+        {
+            return bucketId;
+        }
+    }
+
+    private class ClassicBucket extends Bucket
+    {
+        public ClassicBucket(String bucketId)
+        {
+            super(bucketId);
+        }
+
+        @Override
+        public long getGlobalRateLimit(long now)
+        {
+            GlobalRateLimit holder = globalRateLimit;
+            long global = Math.max(holder.getClassic(), holder.getCloudflare());
+            return global - now;
+        }
+    }
+
+    private class InteractionBucket extends Bucket
+    {
+        public InteractionBucket(@Nonnull String bucketId)
+        {
+            super(bucketId);
+        }
+
+        @Override
+        public long getGlobalRateLimit(long now)
+        {
+            // Only cloudflare bans apply to interactions
+            return globalRateLimit.getCloudflare() - now;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.api.requests;
+
+import net.dv8tion.jda.internal.requests.ratelimit.InMemoryRateLimitStore;
+import net.dv8tion.jda.internal.requests.ratelimit.MappedFileRateLimitStore;
+import net.dv8tion.jda.internal.utils.Checks;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Storage for the rate-limit state used by the {@link ConcurrentRestRateLimiter}.
+ *
+ * <p>The rate-limiter keeps the queue of every bucket locally, but the route hashes, the remaining uses and reset times of each bucket,
+ * and optionally the global rate-limit, are delegated to this store.
+ * When multiple rate-limiters share one store, they coordinate their requests instead of discovering the limits by running into them.
+ * This is useful to run shards for the same token in multiple processes on the same host, see {@link #mappedFile(Path)}.
+ *
+ * <p>All methods must be atomic with respect to all other users of the same store.
+ *
+ * @see ConcurrentRestRateLimiter#ConcurrentRestRateLimiter(RestRateLimiter.RateLimitConfig, RateLimitStore)
+ */
+public interface RateLimitStore
+{
+    /**
+     * How long a bucket is reserved for a request, when its rate-limit is unknown or expired.
+     * <br>The reservation is replaced by the rate-limit headers of the response, or released if the response has no headers.
+     */
+    long PENDING_TIMEOUT = 5000;
+
+    /**
+     * How long to wait before checking a reserved bucket again.
+     */
+    long PENDING_POLL_INTERVAL = 50;
+
+    /**
+     * The bucket hash for the provided route.
+     *
+     * @param  route
+     *         The route, in the format of {@link Route#toString()}
+     *
+     * @return The hash, or null if it is not known yet
+     */
+    @Nullable
+    String getHash(@Nonnull String route);
+
+    /**
+     * Stores the bucket hash for the provided route, unless a hash is already known.
+     *
+     * @param  route
+     *         The route, in the format of {@link Route#toString()}
+     * @param  hash
+     *         The bucket hash
+     *
+     * @return True, if the hash was not known before
+     */
+    boolean putHash(@Nonnull String route, @Nonnull String hash);
+
+    /**
+     * Attempts to use the bucket for one request.
+     *
+     * <p>If the bucket has remaining uses, one is consumed. If the rate-limit of the bucket is unknown or expired,
+     * the bucket is reserved for {@link #PENDING_TIMEOUT} until the response updates it.
+     * Otherwise, this returns how long to wait before trying again.
+     *
+     * @param  bucketId
+     *         The bucket id
+     * @param  now
+     *         The current time in milliseconds
+     *
+     * @return 0 if the request can be executed, otherwise the backoff in milliseconds
+     */
+    long acquire(@Nonnull String bucketId, long now);
+
+    /**
+     * How long to wait before the bucket can be used, without consuming a use.
+     *
+     * @param  bucketId
+     *         The bucket id
+     * @param  now
+     *         The current time in milliseconds
+     *
+     * @return The backoff in milliseconds, or 0 if the bucket can be used
+     */
+    long getDelay(@Nonnull String bucketId, long now);
+
+    /**
+     * Updates the bucket with the information of a response.
+     *
+     * <p>Multiple requests of the same bucket can be in flight, when the store is shared, and their responses can arrive out of order.
+     * While the current window of the bucket has not been reset, updates can therefore only lower the remaining uses.
+     *
+     * @param bucketId
+     *        The bucket id
+     * @param remaining
+     *        The remaining uses
+     * @param reset
+     *        The time in milliseconds at which the bucket resets
+     */
+    void update(@Nonnull String bucketId, int remaining, long reset);
+
+    /**
+     * Releases the reservation made by {@link #acquire(String, long)}, if it has not been replaced by {@link #update(String, int, long)}.
+     *
+     * @param bucketId
+     *        The bucket id
+     */
+    void release(@Nonnull String bucketId);
+
+    /**
+     * Removes all buckets which have expired before the provided time.
+     *
+     * @param now
+     *        The current time in milliseconds
+     */
+    void cleanup(long now);
+
+    /**
+     * The global rate-limit shared by all users of this store.
+     *
+     * @return The global rate-limit, or null to use {@link RestRateLimiter.RateLimitConfig#getGlobalRateLimit()}
+     */
+    @Nullable
+    default RestRateLimiter.GlobalRateLimit getGlobalRateLimit()
+    {
+        return null;
+    }
+
+    /**
+     * Creates a store which keeps the state in memory.
+     * <br>The store can be shared by the rate-limiters of multiple shards in the same process.
+     *
+     * @return The new store
+     */
+    @Nonnull
+    static RateLimitStore inMemory()
+    {
+        return new InMemoryRateLimitStore();
+    }
+
+    /**
+     * Creates a store which keeps the state in a memory-mapped file.
+     * <br>All processes on the same host which use the same file share the rate-limit state, including the global rate-limit.
+     *
+     * <p>The file is created if it does not exist. The store holds a fixed amount of buckets, expired buckets are replaced once it is full.
+     *
+     * @param  file
+     *         The file to use
+     *
+     * @throws IllegalArgumentException
+     *         If the file is null
+     * @throws IOException
+     *         If the file cannot be created or mapped, or is not a valid store file
+     *
+     * @return The new store
+     */
+    @Nonnull
+    static RateLimitStore mappedFile(@Nonnull Path file) throws IOException
+    {
+        Checks.notNull(file, "File");
+        return new MappedFileRateLimitStore(file);
+    }
+}
@@ -23,6 +23,7 @@ import okhttp3.Request;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -47,6 +48,9 @@ public class RestConfig
     private String userAgent = USER_AGENT;
     private String baseUrl = DEFAULT_BASE_URL;
     private boolean relativeRateLimit = true;
+    private boolean coalesceRequests = false;
+    private int responseCacheSize = 0;
+    private long responseCacheTtl = 0;
     private Consumer<? super Request.Builder> customBuilder;
     private Function<? super RestRateLimiter.RateLimitConfig, ? extends RestRateLimiter> rateLimiter = SequentialRestRateLimiter::new;
 
@@ -66,9 +70,66 @@ public class RestConfig
         return this;
     }
 
+    /**
+     * Whether identical queued {@code GET} requests should share a single HTTP request.
+     * <br>This is disabled by default.
+     *
+     * <p>When enabled, a {@code GET} request without custom headers joins an identical request that is still waiting in the rate-limiter.
+     * Every caller receives the same response, but only one request is sent and only one use of the rate-limit bucket is consumed.
+     * Requests never join a request which has already been sent, so the response is never older than the request.
+     *
+     * @param  coalesceRequests
+     *         True, to coalesce identical requests
+     *
+     * @return The current RestConfig for chaining convenience
+     */
+    @Nonnull
+    public RestConfig setCoalesceRequests(boolean coalesceRequests)
+    {
+        this.coalesceRequests = coalesceRequests;
+        return this;
+    }
+
+    /**
+     * Enables a cache for the responses of {@code GET} requests, such as {@link net.dv8tion.jda.api.JDA#retrieveUserById(long) JDA.retrieveUserById(id)}.
+     * <br>This is disabled by default.
+     *
+     * <p>The responses are cached by their route, including the query parameters, and served without making a request or using the rate-limit.
+     * Cached responses are removed once they expire or are updated by a gateway event,
+     * for example a member update removes the member and user of the event.
+     * Write requests remove their resource and its parent collection, for example, {@link net.dv8tion.jda.api.entities.Member#modifyNickname(String) modifying a member}
+     * removes the member and the cached lists of members of that guild.
+     *
+     * <p>Some resources, like the commands and application info, are not updated by gateway events.
+     * Changes by other clients are only visible once these responses expire.
+     *
+     * @param  maxSize
+     *         The maximum amount of cached responses, or 0 to disable the cache
+     * @param  ttl
+     *         How long responses are cached
+     * @param  unit
+     *         The time unit of the ttl
+     *
+     * @throws IllegalArgumentException
+     *         If the size is negative, the ttl is not positive, or the unit is null
+     *
+     * @return The current RestConfig for chaining convenience
+     */
+    @Nonnull
+    public RestConfig setResponseCache(int maxSize, long ttl, @Nonnull TimeUnit unit)
+    {
+        Checks.notNegative(maxSize, "Max size");
+        Checks.positive(ttl, "TTL");
+        Checks.notNull(unit, "TimeUnit");
+        this.responseCacheSize = maxSize;
+        this.responseCacheTtl = unit.toMillis(ttl);
+        return this;
+    }
+
     /**
      * Provide a custom implementation of {@link RestRateLimiter}.
      * <br>By default, this will use the {@link SequentialRestRateLimiter}.
+     * The {@link ConcurrentRestRateLimiter} avoids lock contention between buckets when many requests are made concurrently.
      *
      * @param  rateLimiter
      *         The new implementation
@@ -214,4 +275,40 @@ public class RestConfig
     {
         return relativeRateLimit;
     }
+
+    /**
+     * Whether identical queued {@code GET} requests share a single HTTP request.
+     *
+     * @return True, if requests are coalesced
+     *
+     * @see    #setCoalesceRequests(boolean)
+     */
+    public boolean isCoalesceRequests()
+    {
+        return coalesceRequests;
+    }
+
+    /**
+     * The maximum amount of cached responses.
+     *
+     * @return The maximum size, or 0 if the cache is disabled
+     *
+     * @see    #setResponseCache(int, long, TimeUnit)
+     */
+    public int getResponseCacheSize()
+    {
+        return responseCacheSize;
+    }
+
+    /**
+     * How long responses are cached, in milliseconds.
+     *
+     * @return The time-to-live in milliseconds
+     *
+     * @see    #setResponseCache(int, long, TimeUnit)
+     */
+    public long getResponseCacheTtl()
+    {
+        return responseCacheTtl;
+    }
 }
@@ -22,6 +22,7 @@ import net.dv8tion.jda.api.audio.factory.IAudioSendFactory;
 import net.dv8tion.jda.api.entities.Activity;
 import net.dv8tion.jda.api.events.Event;
 import net.dv8tion.jda.api.exceptions.InvalidTokenException;
+import net.dv8tion.jda.api.hooks.EventLaneConfig;
 import net.dv8tion.jda.api.hooks.IEventManager;
 import net.dv8tion.jda.api.hooks.VoiceDispatchInterceptor;
 import net.dv8tion.jda.api.requests.GatewayIntent;
@@ -33,8 +34,10 @@ import net.dv8tion.jda.api.utils.MemberCachePolicy;
 import net.dv8tion.jda.api.utils.SessionController;
 import net.dv8tion.jda.api.utils.cache.CacheFlag;
 import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.audio.AudioEventLoopGroup;
 import net.dv8tion.jda.internal.utils.Checks;
 import net.dv8tion.jda.internal.utils.concurrent.CountingThreadFactory;
+import net.dv8tion.jda.internal.utils.concurrent.VirtualThreads;
 import net.dv8tion.jda.internal.utils.config.flags.ConfigFlag;
 import net.dv8tion.jda.internal.utils.config.flags.ShardingConfigFlag;
 import net.dv8tion.jda.internal.utils.config.sharding.*;
@@ -100,6 +103,8 @@ public class  DefaultShardManagerBuilder
     );
     protected ThreadPoolProvider<? extends ExecutorService> callbackPoolProvider = null;
     protected ThreadPoolProvider<? extends ExecutorService> eventPoolProvider = null;
+    protected EventLaneConfig eventLaneConfig = null;
+    protected boolean virtualThreads = false;
     protected ThreadPoolProvider<? extends ScheduledExecutorService> audioPoolProvider = null;
     protected IntFunction<? extends RestConfig> restConfigProvider = null;
     protected Collection<Integer> shards = null;
@@ -838,6 +843,7 @@ public class  DefaultShardManagerBuilder
      *
      * @throws java.lang.IllegalArgumentException
      *         If provided with null
+     *         or if the compression is not {@link Compression#isSupported() supported}
      *
      * @return The DefaultShardManagerBuilder instance. Useful for chaining.
      *
@@ -847,6 +853,7 @@ public class  DefaultShardManagerBuilder
     public DefaultShardManagerBuilder setCompression(@Nonnull Compression compression)
     {
         Checks.notNull(compression, "Compression");
+        Checks.check(compression.isSupported(), "Compression %s is not supported on this system", compression);
         this.compression = compression;
         return this;
     }
@@ -1022,11 +1029,17 @@ public class  DefaultShardManagerBuilder
      *         The new {@link net.dv8tion.jda.api.audio.factory.IAudioSendFactory IAudioSendFactory} to be used
      *         when creating new {@link net.dv8tion.jda.api.audio.factory.IAudioSendSystem} objects.
      *
+     * @throws IllegalArgumentException
+     *         If the factory provides an {@link net.dv8tion.jda.api.audio.factory.IAudioEventLoopGroup IAudioEventLoopGroup},
+     *         which was not created by {@link net.dv8tion.jda.api.audio.factory.NioSendFactory NioSendFactory}
+     *
      * @return The DefaultShardManagerBuilder instance. Useful for chaining.
      */
     @Nonnull
     public DefaultShardManagerBuilder setAudioSendFactory(@Nullable final IAudioSendFactory factory)
     {
+        if (factory != null)
+            AudioEventLoopGroup.of(factory);
         this.audioSendFactory = factory;
         return this;
     }
@@ -1066,6 +1079,30 @@ public class  DefaultShardManagerBuilder
         return setFlag(ConfigFlag.BULK_DELETE_SPLIT, enabled);
     }
 
+    /**
+     * Enables/Disables lock-free lookups in the entity caches.
+     * <br>By default, every lookup such as {@link net.dv8tion.jda.api.entities.Guild#getMemberById(long) Guild.getMemberById(long)}
+     * acquires the shared read-lock of the respective cache. With many event threads resolving entities concurrently,
+     * the shared lock state can become a point of contention.
+     *
+     * <p>When enabled, lookups by id first attempt an optimistic read without acquiring any lock,
+     * and only fall back to the read-lock if the cache was modified during the lookup.
+     * This makes lookups cheaper under contention, at the cost of slightly more expensive cache updates.
+     * Iteration and other bulk operations on the cache views are not affected by this setting.
+     *
+     * <p>Default: <b>false (disabled)</b>
+     *
+     * @param  enabled
+     *         True, to use optimistic lock-free lookups in the entity caches
+     *
+     * @return The DefaultShardManagerBuilder instance. Useful for chaining.
+     */
+    @Nonnull
+    public DefaultShardManagerBuilder setOptimisticCacheReadsEnabled(final boolean enabled)
+    {
+        return setFlag(ConfigFlag.OPTIMISTIC_CACHE_READS, enabled);
+    }
+
     /**
      * Enables/Disables the use of a Shutdown hook to clean up the ShardManager and it's JDA instances.
      * <br>When the Java program closes shutdown hooks are run. This is used as a last-second cleanup
@@ -1658,6 +1695,57 @@ public class  DefaultShardManagerBuilder
         return this;
     }
 
+    /**
+     * Enables ordered parallel event handling, which handles events of different guilds in parallel,
+     * while keeping the order of events within each guild.
+     * <br>By default, events are handled in the order they are received, either on the gateway thread or on the {@link #setEventPool(ExecutorService) event pool}.
+     *
+     * <p>The events of each shard are partitioned by their guild or channel into serial lanes on the {@link #setEventPoolProvider(ThreadPoolProvider) event pool},
+     * or a pool owned by each shard if no event pool is configured, which is shut down with the shard.
+     * Using an event pool without lanes does not guarantee any order.
+     *
+     * @param  config
+     *         The {@link EventLaneConfig}, or null to disable the lanes
+     *
+     * @return The DefaultShardManagerBuilder instance. Useful for chaining.
+     *
+     * @see    EventLaneConfig
+     */
+    @Nonnull
+    public DefaultShardManagerBuilder setEventLanes(@Nullable EventLaneConfig config)
+    {
+        this.eventLaneConfig = config;
+        return this;
+    }
+
+    /**
+     * Whether events and {@link RestAction} callbacks should each run on a new virtual thread.
+     * <br>This requires Java 21 or newer and is disabled by default.
+     *
+     * <p>Blocking listeners and callbacks only block their own virtual thread, instead of a thread of a limited pool.
+     * The {@link org.slf4j.MDC MDC} context of the thread which fires the event or completes the request is used for the virtual thread.
+     *
+     * <p>This only replaces the default pools, pools configured with {@link #setEventPoolProvider(ThreadPoolProvider)}
+     * or {@link #setCallbackPoolProvider(ThreadPoolProvider)} are still used.
+     * Without an {@link #setEventLanes(EventLaneConfig) event lane configuration}, the events are not handled in order.
+     *
+     * @param  enabled
+     *         True, to use virtual threads
+     *
+     * @throws IllegalStateException
+     *         If enabled on a JVM without virtual threads
+     *
+     * @return The DefaultShardManagerBuilder instance. Useful for chaining.
+     */
+    @Nonnull
+    public DefaultShardManagerBuilder setVirtualThreads(boolean enabled)
+    {
+        if (enabled && !VirtualThreads.isSupported())
+            throw new IllegalStateException("Virtual threads require Java 21 or newer");
+        this.virtualThreads = enabled;
+        return this;
+    }
+
     /**
      * Sets the {@link ScheduledExecutorService ScheduledExecutorService} used by
      * the audio WebSocket connection. Used for sending keepalives and closing the connection.
@@ -2298,7 +2386,7 @@ public class  DefaultShardManagerBuilder
         presenceConfig.setActivityProvider(activityProvider);
         presenceConfig.setStatusProvider(statusProvider);
         presenceConfig.setIdleProvider(idleProvider);
-        final ThreadingProviderConfig threadingConfig = new ThreadingProviderConfig(rateLimitSchedulerProvider, rateLimitElasticProvider, gatewayPoolProvider, callbackPoolProvider, eventPoolProvider, audioPoolProvider, threadFactory);
+        final ThreadingProviderConfig threadingConfig = new ThreadingProviderConfig(rateLimitSchedulerProvider, rateLimitElasticProvider, gatewayPoolProvider, callbackPoolProvider, eventPoolProvider, eventLaneConfig, virtualThreads, audioPoolProvider, threadFactory);
         final ShardingSessionConfig sessionConfig = new ShardingSessionConfig(sessionController, voiceDispatchInterceptor, httpClient, httpClientBuilder, wsFactory, audioSendFactory, flags, shardingFlags, maxReconnectDelay, largeThreshold);
         final ShardingMetaConfig metaConfig = new ShardingMetaConfig(maxBufferSize, contextProvider, cacheFlags, flags, compression, encoding);
         final DefaultShardManager manager = new DefaultShardManager(this.token, this.shards, shardingConfig, eventConfig, presenceConfig, threadingConfig, sessionConfig, metaConfig, restConfigProvider, chunkingFilter);
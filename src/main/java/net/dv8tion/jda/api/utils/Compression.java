@@ -16,6 +16,8 @@
 
 package net.dv8tion.jda.api.utils;
 
+import net.dv8tion.jda.internal.utils.compress.ZstdNatives;
+
 /**
  * Compression algorithms that can be used with JDA.
  *
@@ -27,7 +29,16 @@ public enum Compression
     /** Don't use any compression */
     NONE(""),
     /** Use ZLIB transport compression */
-    ZLIB("zlib-stream");
+    ZLIB("zlib-stream"),
+    /**
+     * Use Zstandard transport compression.
+     * <br>This is cheaper to decompress than {@link #ZLIB} and achieves a better compression ratio,
+     * but requires JNA and the native zstd library to be available at runtime.
+     * The library is loaded by name {@code zstd}, which can be changed with the {@code jda.zstd.library} system property.
+     *
+     * @see #isSupported()
+     */
+    ZSTD("zstd-stream");
 
     private final String key;
 
@@ -45,4 +56,15 @@ public enum Compression
     {
         return key;
     }
+
+    /**
+     * Whether this compression can be used on the current system.
+     * <br>This is always true, except for {@link #ZSTD} which requires the native zstd library.
+     *
+     * @return True, if this compression is supported
+     */
+    public boolean isSupported()
+    {
+        return this != ZSTD || ZstdNatives.isSupported();
+    }
 }
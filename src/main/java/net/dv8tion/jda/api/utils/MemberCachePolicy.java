@@ -22,6 +22,9 @@ import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.GuildVoiceState;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.utils.cache.LRUMemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.TinyLFUMemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.WeightedMemberCachePolicy;
+import net.dv8tion.jda.internal.entities.MemberImpl;
 import net.dv8tion.jda.internal.utils.Checks;
 
 import javax.annotation.Nonnull;
@@ -95,7 +98,8 @@ public interface MemberCachePolicy
      * <br>Requires {@link net.dv8tion.jda.api.requests.GatewayIntent#GUILD_VOICE_STATES GatewayIntent.GUILD_VOICE_STATES} and {@link net.dv8tion.jda.api.utils.cache.CacheFlag#VOICE_STATE CacheFlag.VOICE_STATE} to be enabled.
      */
     MemberCachePolicy VOICE = (member) -> {
-        GuildVoiceState voiceState = member.getVoiceState();
+        // Voice states are created on first use, members without one are not connected
+        GuildVoiceState voiceState = member instanceof MemberImpl ? ((MemberImpl) member).peekVoiceState() : member.getVoiceState();
         return voiceState != null && voiceState.getChannel() != null;
     };
     /**
@@ -241,4 +245,64 @@ public interface MemberCachePolicy
     {
         return new LRUMemberCachePolicy(maxSize);
     }
+
+    /**
+     * Implementation using a W-TinyLFU cache strategy, which keeps the most frequently active members.
+     *
+     * <p>Unlike {@link #lru(int)}, a burst of new members does not flush the entire cache.
+     * New members are only admitted, if they are accessed more frequently than the members they would replace.
+     *
+     * <p><b>Example</b><br>
+     * <pre>{@code
+     * MemberCachePolicy.ONLINE.and( // only cache online members
+     *   MemberCachePolicy.tinyLfu(1000) // of those online members, track the 1000 most frequently active members
+     *     .unloadUnless(MemberCachePolicy.VOICE) // always keep voice members cached
+     * )
+     * }</pre>
+     *
+     * <p>Note that this policy itself always returns {@code true} for {@link #cacheMember(Member)}, since that records the access instead.
+     *
+     * @param  maxSize
+     *         The maximum cache capacity
+     *
+     * @throws IllegalArgumentException
+     *         If the provided maximum is not positive
+     *
+     * @return {@link TinyLFUMemberCachePolicy}
+     */
+    @Nonnull
+    static TinyLFUMemberCachePolicy tinyLfu(int maxSize)
+    {
+        return new TinyLFUMemberCachePolicy(maxSize);
+    }
+
+    /**
+     * Implementation using a Least-Recently-Used (LRU) cache strategy, which is bounded by the estimated heap size of the cached members.
+     *
+     * <p>The estimate includes the user, roles, voice state, presence, and activities of each member.
+     * Use the same instance for all shards, to bound the total size of all shards together.
+     *
+     * <p><b>Example</b><br>
+     * <pre>{@code
+     * MemberCachePolicy.ONLINE.and( // only cache online members
+     *   MemberCachePolicy.weighted(512L << 20) // of those online members, keep up to 512 MiB of recently active members
+     *     .unloadUnless(MemberCachePolicy.VOICE) // always keep voice members cached regardless of age
+     * )
+     * }</pre>
+     *
+     * <p>Note that this policy itself always returns {@code true} for {@link #cacheMember(Member)}, since that makes the member the <b>most recently used</b> instead.
+     *
+     * @param  maxBytes
+     *         The maximum estimated heap size of the cached members, in bytes
+     *
+     * @throws IllegalArgumentException
+     *         If the provided maximum is not positive
+     *
+     * @return {@link WeightedMemberCachePolicy}
+     */
+    @Nonnull
+    static WeightedMemberCachePolicy weighted(long maxBytes)
+    {
+        return new WeightedMemberCachePolicy(maxBytes);
+    }
 }
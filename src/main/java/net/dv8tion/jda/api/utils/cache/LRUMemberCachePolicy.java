@@ -16,15 +16,13 @@
 
 package net.dv8tion.jda.api.utils.cache;
 
-import gnu.trove.map.TObjectIntMap;
-import gnu.trove.map.hash.TObjectIntHashMap;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.utils.MemberCachePolicy;
 import net.dv8tion.jda.internal.utils.Checks;
+import net.dv8tion.jda.internal.utils.cache.MemberNodeTable;
 
 import javax.annotation.Nonnull;
-import java.util.*;
 
 /**
  * An implementation of a Least-Recently-Used cache.
@@ -33,7 +31,10 @@ import java.util.*;
  * <p>You can use {@link #unloadUnless(MemberCachePolicy)}, to configure a conditional unloading.
  * If the configured sub-policy evaluates to {@code true}, the member will not be unloaded even when it is an old cache entry.
  *
- * <p>This is implemented using a queue and counter algorithm, to achieve amortized O(1) performance.
+ * <p>This is implemented using a segmented LRU with intrusive linked lists, to achieve O(1) performance for every access.
+ * Members are identified by their guild and user id, not by their {@link Member} instance.
+ * The cache is split into independently locked stripes, so members of different guilds can be updated concurrently.
+ * Each stripe evicts its own least recently used member, which means large caches only approximate a global LRU order.
  *
  * <p><b>Example</b><br>
  * <pre>{@code
@@ -55,19 +56,15 @@ import java.util.*;
  */
 public class LRUMemberCachePolicy implements MemberCachePolicy
 {
-    private static final long EPOCH_SECONDS = System.currentTimeMillis() / 1000;
+    // Stripes smaller than this would make the eviction order too inaccurate
+    private static final int MIN_STRIPE_SIZE = 256;
 
     private final int maxMembers;
+    private final Stripe[] stripes;
 
-    // Low activity members (usage based, trades memory for cpu time)
-    private final TObjectIntMap<Member> counters;
-    private final ArrayDeque<MemberNode> queue;
-
-    // High activity members (time based, trades cpu time for memory)
-    private LinkedHashMap<Member, Integer> activeMemberCache;
-
-    private MemberCachePolicy subPolicy;
-    private int useActiveMemberCache;
+    private volatile MemberCachePolicy subPolicy;
+    // Members with more accesses than this are moved to the protected segment, disabled if 0
+    private volatile int useActiveMemberCache;
 
     /**
      * Creates a new instance of the LRU cache policy with the configured maximum capacity.
@@ -88,11 +85,13 @@ public class LRUMemberCachePolicy implements MemberCachePolicy
         Checks.positive(maxMembers, "Max members");
         Checks.notNull(subPolicy, "MemberCachePolicy");
         this.maxMembers = maxMembers;
-        this.counters = new TObjectIntHashMap<>(maxMembers);
-        this.queue = new ArrayDeque<>(maxMembers);
         this.useActiveMemberCache = Math.max(10, this.maxMembers / 10);
-        this.activeMemberCache = new LinkedHashMap<>();
         this.subPolicy = subPolicy;
+
+        int stripeCount = Math.min(Runtime.getRuntime().availableProcessors() * 4, maxMembers / MIN_STRIPE_SIZE);
+        this.stripes = new Stripe[Integer.highestOneBit(Math.max(1, stripeCount))];
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new Stripe(maxMembers / stripes.length + (i < maxMembers % stripes.length ? 1 : 0));
     }
 
     /**
@@ -118,141 +117,141 @@ public class LRUMemberCachePolicy implements MemberCachePolicy
     }
 
     @Nonnull
-    public synchronized LRUMemberCachePolicy withActiveMemberCache(boolean enabled)
+    public LRUMemberCachePolicy withActiveMemberCache(boolean enabled)
     {
         return withActiveMemberCache(enabled ? this.maxMembers / 10 : 0);
     }
 
     @Nonnull
-    public synchronized LRUMemberCachePolicy withActiveMemberCache(int activityCount)
+    public LRUMemberCachePolicy withActiveMemberCache(int activityCount)
     {
         this.useActiveMemberCache = activityCount;
 
-        if (this.useActiveMemberCache < 1) // disabled if 0
+        if (activityCount < 1) // disabled if 0
         {
-            // Move them all into the low activity cache
-            Set<Member> moved = this.activeMemberCache.keySet();
-
-            // Add them in insertion order to the queue, since the insertion order represents oldest to newest
-            moved.forEach(this::cacheMember);
+            // Move them all into the low activity segment
+            for (Stripe stripe : stripes)
+                stripe.demoteAll();
         }
 
-        this.activeMemberCache = new LinkedHashMap<>();
-
         return this;
     }
 
     @Override
-    public synchronized boolean cacheMember(@Nonnull Member member)
+    public boolean cacheMember(@Nonnull Member member)
     {
-        int currentCount = this.counters.adjustOrPutValue(member, 1, 1);
-
-        if (this.useActiveMemberCache > 0)
-        {
-            // Check if this member is a high activity member or low activity member
-
-            // If the active member cache already tracks this member, update their timestamp
-            if (this.activeMemberCache.containsKey(member))
-            {
-                this.activeMemberCache.put(member, now());
-                return true;
-            }
-
-            // If the member is not tracked yet, promote them to high activity cache if they take up 10% of the queue
-            if (currentCount > this.useActiveMemberCache)
-            {
-                // This step has O(n) time complexity because it needs to iterate the entire queue
-                // Worst-case: 10 x maxMembers operations
-                this.queue.removeIf((node) -> member.equals(node.member));
-                this.counters.remove(member);
-                this.activeMemberCache.put(member, now());
-                return true;
-            }
-        }
+        long guildId = member.getGuild().getIdLong();
+        long userId = member.getIdLong();
+        long hash = MemberNodeTable.hash(guildId, userId);
 
+        Member evicted = stripes[(int) (hash >>> 32) & (stripes.length - 1)].access(member, guildId, userId, hash, useActiveMemberCache);
 
-        // Otherwise use the queue, which has O(1) time complexity
-        this.queue.add(new MemberNode(member));
-
-        evictOldest();
-        trimQueue();
+        // Unload outside the stripe lock, since this updates the guild caches
+        if (evicted != null && !this.subPolicy.cacheMember(evicted))
+            evicted.getGuild().unloadMember(evicted.getIdLong());
 
         return true;
     }
 
-    /**
-     * Removes the head of the queue, with a counter equal to 1.
-     */
-    private void evictOldest()
+    private static class Stripe
     {
-        Member unloadable = null;
-        while (this.counters.size() + this.activeMemberCache.size() > this.maxMembers)
+        private final int capacity;
+        private final int maxProtected;
+        private final MemberNodeTable<Node> table;
+
+        // Circular lists, with the most recently used member after the head
+        private final Node probation = new Node(null, 0, 0, 0);
+        private final Node protectedSegment = new Node(null, 0, 0, 0);
+
+        private int protectedSize;
+
+        private Stripe(int capacity)
         {
-            Iterator<Map.Entry<Member, Integer>> activeMemberIterator = this.activeMemberCache.entrySet().iterator();
-            Map.Entry<Member, Integer> oldestActive = activeMemberIterator.hasNext() ? activeMemberIterator.next() : null;
+            this.capacity = capacity;
+            this.maxProtected = capacity * 4 / 5;
+            // One more than the capacity, since members are evicted after inserting the new member
+            this.table = new MemberNodeTable<>(capacity + 1);
+        }
 
-            MemberNode removed = this.queue.poll();
-            if (removed == null || oldestActive != null && oldestActive.getValue() < removed.insertionTime)
-            {
-                activeMemberIterator.remove();
-                unloadable = oldestActive.getKey();
-                if (removed != null)
-                    this.queue.addFirst(removed);
-            }
-            else
+        /**
+         * Moves the member to the front of its segment, and returns the evicted member if the stripe is full.
+         */
+        private synchronized Member access(Member member, long guildId, long userId, long hash, int activityCount)
+        {
+            Node node = table.find(guildId, userId, hash);
+            if (node == null)
             {
-                if (this.counters.get(removed.member) <= 1)
-                {
-                    this.counters.remove(removed.member);
-                    unloadable = removed.member;
-                }
-                else
-                {
-                    this.counters.adjustValue(removed.member, -1);
-                }
+                node = new Node(member, guildId, userId, hash);
+                table.insert(node);
+                node.linkFirst(probation);
+                return table.size() > capacity ? evict() : null;
             }
 
-            if (unloadable != null && !this.subPolicy.cacheMember(unloadable))
+            node.member = member;
+            if (node.hits < Integer.MAX_VALUE)
+                node.hits++;
+
+            if (node.isProtected)
             {
-                unloadable.getGuild().unloadMember(unloadable.getIdLong());
+                node.unlink();
+                node.linkFirst(protectedSegment);
             }
-        }
-    }
-
-    /**
-     * Trims the queue by removing all elements with a count higher than 1.
-     */
-    private void trimQueue()
-    {
-        while (!this.queue.isEmpty())
-        {
-            MemberNode head = this.queue.peek();
-            if (this.counters.get(head) > 1)
+            else if (activityCount > 0 && node.hits > activityCount && maxProtected > 0)
             {
-                this.counters.adjustValue(head.member, -1);
-                this.queue.poll();
+                node.unlink();
+                node.linkFirst(protectedSegment);
+                node.isProtected = true;
+                if (++protectedSize > maxProtected)
+                    demote(protectedSegment.previous());
             }
             else
             {
-                break;
+                node.unlink();
+                node.linkFirst(probation);
             }
+            return null;
         }
-    }
 
-    private static int now()
-    {
-        return (int) (System.currentTimeMillis() / 1000 - EPOCH_SECONDS);
+        private synchronized void demoteAll()
+        {
+            // Oldest first, so the most recently used members end up in front
+            while (protectedSize > 0)
+                demote(protectedSegment.previous());
+        }
+
+        private void demote(Node node)
+        {
+            node.unlink();
+            node.linkFirst(probation);
+            node.isProtected = false;
+            node.hits = 0;
+            protectedSize--;
+        }
+
+        private Member evict()
+        {
+            Node eldest = probation.previous() != probation ? probation.previous() : protectedSegment.previous();
+            if (eldest.isProtected)
+                protectedSize--;
+            eldest.unlink();
+            table.remove(eldest);
+
+            Member member = eldest.member;
+            eldest.member = null;
+            return member;
+        }
     }
 
-    private static class MemberNode
+    private static class Node extends MemberNodeTable.Node<Node>
     {
-        public final int insertionTime;
-        public final Member member;
+        private Member member;
+        private int hits = 1;
+        private boolean isProtected;
 
-        private MemberNode(Member member)
+        private Node(Member member, long guildId, long userId, long hash)
         {
+            super(guildId, userId, hash);
             this.member = member;
-            this.insertionTime = now();
         }
     }
 }
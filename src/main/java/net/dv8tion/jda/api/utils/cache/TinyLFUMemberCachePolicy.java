@@ -0,0 +1,290 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.api.utils.cache;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.internal.utils.Checks;
+import net.dv8tion.jda.internal.utils.cache.FrequencySketch;
+import net.dv8tion.jda.internal.utils.cache.MemberNodeTable;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An implementation of a W-TinyLFU cache, which keeps the most frequently active members.
+ * <br>When the cache capacity exceeds the configured maximum, either the new member or the least valuable cached member is evicted.
+ *
+ * <p>New members enter a small LRU window. When they leave the window, they are only admitted to the main cache,
+ * if they were accessed more frequently than the member the main cache would evict for them.
+ * The access frequencies are estimated with a compact sketch, which also remembers members that were already evicted.
+ * Unlike {@link LRUMemberCachePolicy}, a burst of new members, for instance during a raid or while chunking,
+ * only replaces the members of the window instead of flushing the entire cache.
+ *
+ * <p>You can use {@link #unloadUnless(MemberCachePolicy)}, to configure a conditional unloading.
+ * If the configured sub-policy evaluates to {@code true}, the member will not be unloaded even when it is evicted.
+ *
+ * <p>Members are identified by their guild and user id, not by their {@link Member} instance.
+ * The cache is split into independently locked stripes, so members of different guilds can be updated concurrently.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * MemberCachePolicy.ONLINE.and( // only cache online members
+ *   MemberCachePolicy.tinyLfu(1000) // of those online members, track the 1000 most frequently active members
+ *     .unloadUnless(MemberCachePolicy.VOICE) // always keep voice members cached
+ * )
+ * }</pre>
+ *
+ * <p>Note that this policy itself always returns {@code true} for {@link #cacheMember(Member)}, since that records the access instead.
+ * Evicted members are unloaded using {@link Guild#unloadMember(long)}.
+ *
+ * @see MemberCachePolicy#tinyLfu(int)
+ */
+public class TinyLFUMemberCachePolicy implements MemberCachePolicy
+{
+    // Stripes smaller than this would make the admission decisions too inaccurate
+    private static final int MIN_STRIPE_SIZE = 256;
+
+    private final Stripe[] stripes;
+
+    private volatile MemberCachePolicy subPolicy = MemberCachePolicy.NONE;
+
+    /**
+     * Creates a new instance of the W-TinyLFU cache policy with the configured maximum capacity.
+     *
+     * @param  maxMembers
+     *         The maximum amount members to cache
+     *
+     * @throws IllegalArgumentException
+     *         If the provided maximum is not positive
+     */
+    public TinyLFUMemberCachePolicy(int maxMembers)
+    {
+        Checks.positive(maxMembers, "Max members");
+
+        int stripeCount = Math.min(Runtime.getRuntime().availableProcessors() * 4, maxMembers / MIN_STRIPE_SIZE);
+        this.stripes = new Stripe[Integer.highestOneBit(Math.max(1, stripeCount))];
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new Stripe(maxMembers / stripes.length + (i < maxMembers % stripes.length ? 1 : 0));
+    }
+
+    /**
+     * Configure when to unload a member.
+     * <br>The provided policy will prevent a member from being uncached, if the policy returns true.
+     * This can be useful to have a pool of frequently active members cached,
+     * while also keeping members required for certain situations in cache.
+     *
+     * @param  subPolicy
+     *         The policy to decide when to keep members cached, even when they are evicted
+     *
+     * @throws IllegalArgumentException
+     *         If the provided policy is null
+     *
+     * @return The same cache policy instance, with the new sub-policy
+     */
+    @Nonnull
+    public TinyLFUMemberCachePolicy unloadUnless(@Nonnull MemberCachePolicy subPolicy)
+    {
+        Checks.notNull(subPolicy, "MemberCachePolicy");
+        this.subPolicy = subPolicy;
+        return this;
+    }
+
+    /**
+     * The number of accesses to members, which were already tracked by this policy.
+     *
+     * @return The hit count
+     */
+    public long getHitCount()
+    {
+        long count = 0;
+        for (Stripe stripe : stripes)
+            count += stripe.hits;
+        return count;
+    }
+
+    /**
+     * The number of accesses to members, which were not tracked by this policy.
+     *
+     * @return The miss count
+     */
+    public long getMissCount()
+    {
+        long count = 0;
+        for (Stripe stripe : stripes)
+            count += stripe.misses;
+        return count;
+    }
+
+    /**
+     * The number of members evicted by this policy.
+     * <br>This includes members which were retained by the {@link #unloadUnless(MemberCachePolicy) sub-policy}.
+     *
+     * @return The eviction count
+     */
+    public long getEvictionCount()
+    {
+        long count = 0;
+        for (Stripe stripe : stripes)
+            count += stripe.evictions;
+        return count;
+    }
+
+    @Override
+    public boolean cacheMember(@Nonnull Member member)
+    {
+        long guildId = member.getGuild().getIdLong();
+        long userId = member.getIdLong();
+        long hash = MemberNodeTable.hash(guildId, userId);
+
+        Member evicted = stripes[(int) (hash >>> 32) & (stripes.length - 1)].access(member, guildId, userId, hash);
+
+        // Unload outside the stripe lock, since this updates the guild caches
+        if (evicted != null && !this.subPolicy.cacheMember(evicted))
+            evicted.getGuild().unloadMember(evicted.getIdLong());
+
+        return true;
+    }
+
+    private static class Stripe
+    {
+        private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+        private final int maxWindow;
+        private final int maxMain;
+        private final int maxProtected;
+        private final MemberNodeTable<Node> table;
+        private final FrequencySketch sketch;
+
+        // Circular lists, with the most recently used member after the head
+        private final Node window = new Node(null, 0, 0, 0);
+        private final Node probation = new Node(null, 0, 0, 0);
+        private final Node protectedSegment = new Node(null, 0, 0, 0);
+
+        private int windowSize;
+        private int mainSize;
+        private int protectedSize;
+
+        private volatile long hits, misses, evictions;
+
+        private Stripe(int capacity)
+        {
+            this.maxWindow = Math.max(1, capacity / 100);
+            this.maxMain = capacity - maxWindow;
+            this.maxProtected = maxMain * 4 / 5;
+            // One more than the capacity, since members are evicted after inserting the new member
+            this.table = new MemberNodeTable<>(capacity + 1);
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        /**
+         * Records an access of the member, and returns the evicted member if the stripe is full.
+         */
+        private synchronized Member access(Member member, long guildId, long userId, long hash)
+        {
+            sketch.increment(hash);
+
+            Node node = table.find(guildId, userId, hash);
+            if (node != null)
+            {
+                hits++;
+                node.member = member;
+                node.unlink();
+                if (node.segment == WINDOW)
+                {
+                    node.linkFirst(window);
+                }
+                else
+                {
+                    node.linkFirst(protectedSegment);
+                    if (node.segment == PROBATION)
+                    {
+                        node.segment = PROTECTED;
+                        if (++protectedSize > maxProtected)
+                            demote(protectedSegment.previous());
+                    }
+                }
+                return null;
+            }
+
+            misses++;
+            node = new Node(member, guildId, userId, hash);
+            table.insert(node);
+            node.linkFirst(window);
+            if (++windowSize <= maxWindow)
+                return null;
+
+            // The oldest member of the window is a candidate for the main cache
+            Node candidate = window.previous();
+            candidate.unlink();
+            windowSize--;
+
+            if (mainSize < maxMain)
+            {
+                admit(candidate);
+                return null;
+            }
+
+            Node evicted = candidate;
+            if (mainSize > 0)
+            {
+                Node victim = probation.previous() != probation ? probation.previous() : protectedSegment.previous();
+                if (sketch.frequency(candidate.hash) > sketch.frequency(victim.hash))
+                {
+                    victim.unlink();
+                    mainSize--;
+                    if (victim.segment == PROTECTED)
+                        protectedSize--;
+                    admit(candidate);
+                    evicted = victim;
+                }
+            }
+
+            evictions++;
+            table.remove(evicted);
+            Member evictedMember = evicted.member;
+            evicted.member = null;
+            return evictedMember;
+        }
+
+        private void admit(Node node)
+        {
+            node.segment = PROBATION;
+            node.linkFirst(probation);
+            mainSize++;
+        }
+
+        private void demote(Node node)
+        {
+            node.unlink();
+            node.segment = PROBATION;
+            node.linkFirst(probation);
+            protectedSize--;
+        }
+    }
+
+    private static class Node extends MemberNodeTable.Node<Node>
+    {
+        private Member member;
+        private int segment;
+
+        private Node(Member member, long guildId, long userId, long hash)
+        {
+            super(guildId, userId, hash);
+            this.member = member;
+        }
+    }
+}
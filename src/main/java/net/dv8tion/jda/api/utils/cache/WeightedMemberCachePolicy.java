@@ -0,0 +1,312 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.api.utils.cache;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.internal.utils.Checks;
+import net.dv8tion.jda.internal.utils.cache.MemberNodeTable;
+import net.dv8tion.jda.internal.utils.cache.MemberSizeEstimator;
+
+import javax.annotation.Nonnull;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * An implementation of a Least-Recently-Used cache, which is bounded by the total weight of the cached members.
+ * <br>When the total weight exceeds the configured maximum, the least recently used members are evicted.
+ *
+ * <p>By default, the weight of a member is the estimated heap size in bytes,
+ * including its user, roles, voice state, presence, and activities.
+ * The weight is estimated again every time the member is updated.
+ * Since users are shared between guilds, the estimate is higher than the actual size for users in multiple guilds.
+ * You can provide your own weigher with {@link #WeightedMemberCachePolicy(long, ToLongFunction)}.
+ *
+ * <p>Use the same instance for all shards of a {@link net.dv8tion.jda.api.sharding.ShardManager ShardManager},
+ * to bound the total weight of all shards together.
+ * The current weight is available through {@link #getWeight()}.
+ *
+ * <p>You can use {@link #unloadUnless(MemberCachePolicy)}, to configure a conditional unloading.
+ * If the configured sub-policy evaluates to {@code true}, the member will not be unloaded even when it is evicted.
+ * Members which are retained this way are no longer part of the total weight once they are evicted.
+ *
+ * <p>The policy is not notified when members are removed from the cache by other means, for example when they leave the guild.
+ * It only holds weak references to the members, so these members can still be garbage collected.
+ * Their weight is subtracted with the next update of their stripe after they have been collected,
+ * until then the {@link #getWeight() total weight} is an upper bound of the weight of the cached members.
+ *
+ * <p>The cache is split into independently locked stripes. Each update only evicts members of its own stripe,
+ * so the maximum can be exceeded briefly, until the other stripes are updated.
+ * Stripes only evict while the total weight exceeds the maximum, so concurrent updates do not evict more than needed.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * MemberCachePolicy.ONLINE.and( // only cache online members
+ *   MemberCachePolicy.weighted(512L << 20) // of those online members, keep up to 512 MiB of recently active members
+ *     .unloadUnless(MemberCachePolicy.VOICE) // always keep voice members cached regardless of age
+ * )
+ * }</pre>
+ *
+ * <p>Note that this policy itself always returns {@code true} for {@link #cacheMember(Member)}, since that makes the member the <b>most recently used</b> instead.
+ * Evicted members are unloaded using {@link Guild#unloadMember(long)}.
+ *
+ * @see MemberCachePolicy#weighted(long)
+ */
+public class WeightedMemberCachePolicy implements MemberCachePolicy
+{
+    // Stripes with less weight than this would make the eviction order too inaccurate
+    private static final long MIN_STRIPE_WEIGHT = 1 << 17;
+
+    private final long maxWeight;
+    private final ToLongFunction<? super Member> weigher;
+    private final AtomicLong weight = new AtomicLong();
+    private final Stripe[] stripes;
+
+    private volatile MemberCachePolicy subPolicy = MemberCachePolicy.NONE;
+
+    /**
+     * Creates a new instance of the weighted cache policy, which bounds the estimated heap size of the cached members.
+     *
+     * @param  maxBytes
+     *         The maximum estimated heap size of the cached members, in bytes
+     *
+     * @throws IllegalArgumentException
+     *         If the provided maximum is not positive
+     */
+    public WeightedMemberCachePolicy(long maxBytes)
+    {
+        this(maxBytes, MemberSizeEstimator::estimate);
+    }
+
+    /**
+     * Creates a new instance of the weighted cache policy, which uses the provided weigher.
+     *
+     * @param  maxWeight
+     *         The maximum total weight of the cached members
+     * @param  weigher
+     *         The function to compute the weight of a member, which should be cheap and not negative
+     *
+     * @throws IllegalArgumentException
+     *         If the provided maximum is not positive or the weigher is null
+     */
+    public WeightedMemberCachePolicy(long maxWeight, @Nonnull ToLongFunction<? super Member> weigher)
+    {
+        Checks.positive(maxWeight, "Max weight");
+        Checks.notNull(weigher, "Weigher");
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+
+        long stripeCount = Math.min(Runtime.getRuntime().availableProcessors() * 4, maxWeight / MIN_STRIPE_WEIGHT);
+        this.stripes = new Stripe[Integer.highestOneBit((int) Math.max(1, stripeCount))];
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new Stripe();
+    }
+
+    /**
+     * Configure when to unload a member.
+     * <br>The provided policy will prevent a member from being uncached, if the policy returns true.
+     * This can be useful to have a pool of least-recently-used members cached,
+     * while also keeping members required for certain situations in cache.
+     *
+     * @param  subPolicy
+     *         The policy to decide when to keep members cached, even when they are evicted
+     *
+     * @throws IllegalArgumentException
+     *         If the provided policy is null
+     *
+     * @return The same cache policy instance, with the new sub-policy
+     */
+    @Nonnull
+    public WeightedMemberCachePolicy unloadUnless(@Nonnull MemberCachePolicy subPolicy)
+    {
+        Checks.notNull(subPolicy, "MemberCachePolicy");
+        this.subPolicy = subPolicy;
+        return this;
+    }
+
+    /**
+     * The current total weight of the members tracked by this policy.
+     * <br>With the default weigher, this is the estimated heap size in bytes.
+     * This includes members which were removed from the cache by other means, until they are garbage collected.
+     *
+     * @return The current weight
+     */
+    public long getWeight()
+    {
+        return weight.get();
+    }
+
+    /**
+     * The configured maximum weight.
+     *
+     * @return The maximum weight
+     */
+    public long getMaxWeight()
+    {
+        return maxWeight;
+    }
+
+    /**
+     * The number of members tracked by this policy.
+     *
+     * @return The member count
+     */
+    public int getMemberCount()
+    {
+        int count = 0;
+        for (Stripe stripe : stripes)
+            count += stripe.table.size();
+        return count;
+    }
+
+    @Override
+    public boolean cacheMember(@Nonnull Member member)
+    {
+        long guildId = member.getGuild().getIdLong();
+        long userId = member.getIdLong();
+        long hash = MemberNodeTable.hash(guildId, userId);
+        long memberWeight = Math.max(0, weigher.applyAsLong(member));
+
+        List<Member> evicted = stripes[(int) (hash >>> 32) & (stripes.length - 1)].access(member, guildId, userId, hash, memberWeight);
+
+        // Unload outside the stripe lock, since this updates the guild caches
+        if (evicted != null)
+        {
+            MemberCachePolicy subPolicy = this.subPolicy;
+            for (Member unloadable : evicted)
+            {
+                if (!subPolicy.cacheMember(unloadable))
+                    unloadable.getGuild().unloadMember(unloadable.getIdLong());
+            }
+        }
+
+        return true;
+    }
+
+    private class Stripe
+    {
+        // Circular list, with the most recently used member after the head
+        private final Node head = new Node(0, 0, 0);
+        // Collected members, which were removed from the cache by other means
+        private final ReferenceQueue<Member> collected = new ReferenceQueue<>();
+        private final MemberNodeTable<Node> table = new MemberNodeTable<>(12);
+
+        /**
+         * Moves the member to the front, and returns the evicted members if the total weight exceeds the maximum.
+         */
+        private synchronized List<Member> access(Member member, long guildId, long userId, long hash, long memberWeight)
+        {
+            removeCollected();
+
+            Node node = table.find(guildId, userId, hash);
+            if (node == null)
+            {
+                node = new Node(guildId, userId, hash);
+                node.setMember(member, collected);
+                table.insert(node);
+                weight.addAndGet(memberWeight);
+            }
+            else
+            {
+                node.setMember(member, collected);
+                node.unlink();
+                weight.addAndGet(memberWeight - node.weight);
+            }
+            node.weight = memberWeight;
+            node.linkFirst(head);
+
+            List<Member> evicted = null;
+            while (head.previous() != node)
+            {
+                Node eldest = head.previous();
+                Member eldestMember = eldest.member.get();
+                // Collected members were removed from the cache by other means, so they are dropped regardless of the weight
+                if (eldestMember != null)
+                {
+                    long current = weight.get();
+                    if (current <= maxWeight)
+                        break;
+                    // Another stripe evicted concurrently, check again if this stripe still has to evict
+                    if (!weight.compareAndSet(current, current - eldest.weight))
+                        continue;
+                }
+                else
+                {
+                    weight.addAndGet(-eldest.weight);
+                }
+                eldest.unlink();
+                table.remove(eldest);
+                eldest.member = null;
+                if (eldestMember == null)
+                    continue;
+                if (evicted == null)
+                    evicted = new ArrayList<>();
+                evicted.add(eldestMember);
+            }
+            return evicted;
+        }
+
+        private void removeCollected()
+        {
+            MemberReference reference;
+            while ((reference = (MemberReference) collected.poll()) != null)
+            {
+                Node node = reference.node;
+                // The reference was replaced by a newer member object, or the node was already evicted
+                if (node.member != reference)
+                    continue;
+                weight.addAndGet(-node.weight);
+                node.unlink();
+                table.remove(node);
+                node.member = null;
+            }
+        }
+    }
+
+    private static class Node extends MemberNodeTable.Node<Node>
+    {
+        // Weak, so members which were removed from the cache by other means can be collected
+        private MemberReference member;
+        private long weight;
+
+        private Node(long guildId, long userId, long hash)
+        {
+            super(guildId, userId, hash);
+        }
+
+        private void setMember(Member member, ReferenceQueue<Member> queue)
+        {
+            if (this.member == null || this.member.get() != member)
+                this.member = new MemberReference(member, this, queue);
+        }
+    }
+
+    private static class MemberReference extends WeakReference<Member>
+    {
+        private final Node node;
+
+        private MemberReference(Member member, Node node, ReferenceQueue<Member> queue)
+        {
+            super(member, queue);
+            this.node = node;
+        }
+    }
+}
@@ -23,10 +23,10 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.type.CollectionType;
 import net.dv8tion.jda.api.exceptions.ParsingException;
-import net.dv8tion.jda.api.utils.data.etf.ExTermDecoder;
 import net.dv8tion.jda.api.utils.data.etf.ExTermEncoder;
 import net.dv8tion.jda.internal.utils.Checks;
 import net.dv8tion.jda.internal.utils.Helpers;
+import net.dv8tion.jda.internal.utils.etf.CompactTermDecoder;
 import org.jetbrains.annotations.Contract;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -177,7 +177,10 @@ public class DataArray implements Iterable<Object>, SerializableArray
     }
 
     /**
-     * Parses using {@link ExTermDecoder}.
+     * Parses using a compact decoder, which produces the same values as
+     * {@link net.dv8tion.jda.api.utils.data.etf.ExTermDecoder ExTermDecoder}.
+     * <br>The elements of the array are decoded right away, but objects in the array keep their numbers and snowflakes unboxed
+     * and only decode their strings once they are accessed.
      * The provided data must start with the correct version header (131).
      *
      * @param  data
@@ -198,7 +201,7 @@ public class DataArray implements Iterable<Object>, SerializableArray
         Checks.notNull(data, "Data");
         try
         {
-            List<Object> list = ExTermDecoder.unpackList(ByteBuffer.wrap(data));
+            List<Object> list = CompactTermDecoder.unpackList(data);
             return new DataArray(list);
         }
         catch (Exception ex)
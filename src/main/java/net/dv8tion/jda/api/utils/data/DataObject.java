@@ -28,10 +28,11 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.type.MapType;
 import net.dv8tion.jda.api.exceptions.ParsingException;
 import net.dv8tion.jda.api.utils.MiscUtil;
-import net.dv8tion.jda.api.utils.data.etf.ExTermDecoder;
 import net.dv8tion.jda.api.utils.data.etf.ExTermEncoder;
 import net.dv8tion.jda.internal.utils.Checks;
 import net.dv8tion.jda.internal.utils.Helpers;
+import net.dv8tion.jda.internal.utils.etf.CompactTermDecoder;
+import net.dv8tion.jda.internal.utils.etf.CompactTermMap;
 import org.jetbrains.annotations.Contract;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -192,7 +193,9 @@ public class DataObject implements SerializableData
     }
 
     /**
-     * Parses using {@link ExTermDecoder}.
+     * Parses using a compact decoder, which produces the same values as
+     * {@link net.dv8tion.jda.api.utils.data.etf.ExTermDecoder ExTermDecoder}.
+     * <br>Numbers and snowflakes are kept unboxed and strings are only decoded once they are accessed.
      * The provided data must start with the correct version header (131).
      *
      * @param  data
@@ -213,7 +216,7 @@ public class DataObject implements SerializableData
         Checks.notNull(data, "Data");
         try
         {
-            Map<String, Object> map = ExTermDecoder.unpackMap(ByteBuffer.wrap(data));
+            Map<String, Object> map = CompactTermDecoder.unpackMap(data);
             return new DataObject(map);
         }
         catch (Exception ex)
@@ -899,6 +902,14 @@ public class DataObject implements SerializableData
     @Nullable
     private <T> T get(@Nonnull Class<T> type, @Nonnull String key, @Nullable Function<String, T> stringParse, @Nullable Function<Number, T> numberParse)
     {
+        if (type == Long.class && numberParse != null && data instanceof CompactTermMap)
+        {
+            // Avoid creating the string of snowflakes when decoding ETF
+            Long snowflake = ((CompactTermMap) data).getSnowflake(key);
+            if (snowflake != null)
+                return type.cast(snowflake);
+        }
+
         Object value = data.get(key);
         if (value == null)
             return null;
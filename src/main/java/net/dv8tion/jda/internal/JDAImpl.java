@@ -40,6 +40,7 @@ import net.dv8tion.jda.api.events.session.ShutdownEvent;
 import net.dv8tion.jda.api.exceptions.InvalidTokenException;
 import net.dv8tion.jda.api.exceptions.ParsingException;
 import net.dv8tion.jda.api.exceptions.RateLimitedException;
+import net.dv8tion.jda.api.hooks.EventLaneConfig;
 import net.dv8tion.jda.api.hooks.IEventManager;
 import net.dv8tion.jda.api.hooks.InterfacedEventManager;
 import net.dv8tion.jda.api.hooks.VoiceDispatchInterceptor;
@@ -62,6 +63,7 @@ import net.dv8tion.jda.internal.entities.EntityBuilder;
 import net.dv8tion.jda.internal.entities.UserImpl;
 import net.dv8tion.jda.internal.handle.EventCache;
 import net.dv8tion.jda.internal.handle.GuildSetupController;
+import net.dv8tion.jda.internal.hooks.EventLanes;
 import net.dv8tion.jda.internal.hooks.EventManagerProxy;
 import net.dv8tion.jda.internal.interactions.CommandDataImpl;
 import net.dv8tion.jda.internal.interactions.command.CommandImpl;
@@ -157,11 +159,16 @@ public class JDAImpl implements JDA
         this.metaConfig = metaConfig == null ? MetaConfig.getDefault() : metaConfig;
         this.restConfig = restConfig == null ? new RestConfig() : restConfig;
         this.shutdownHook = this.metaConfig.isUseShutdownHook() ? new Thread(this::shutdownNow, "JDA Shutdown Hook") : null;
+        this.userCache.setOptimisticReads(this.metaConfig.isOptimisticCacheReads());
+        this.guildCache.setOptimisticReads(this.metaConfig.isOptimisticCacheReads());
+        this.channelCache.setOptimisticReads(this.metaConfig.isOptimisticCacheReads());
         this.presence = new PresenceImpl(this);
         this.guildSetupController = new GuildSetupController(this);
         this.audioController = new DirectAudioControllerImpl(this);
         this.eventCache = new EventCache();
-        this.eventManager = new EventManagerProxy(new InterfacedEventManager(), this.threadConfig.getEventPool());
+        EventLaneConfig laneConfig = this.threadConfig.getEventLaneConfig();
+        ExecutorService eventPool = laneConfig == null ? this.threadConfig.getEventPool() : this.threadConfig.getEventLanePool();
+        this.eventManager = new EventManagerProxy(new InterfacedEventManager(), eventPool, laneConfig);
     }
 
     public void handleEvent(@Nonnull GenericEvent event)
@@ -169,6 +176,16 @@ public class JDAImpl implements JDA
         eventManager.handle(event);
     }
 
+    public boolean isEventConsumed(@Nonnull Class<? extends GenericEvent> type)
+    {
+        return eventManager.isConsumed(type);
+    }
+
+    public EventLanes getEventLanes()
+    {
+        return eventManager.getLanes();
+    }
+
     public boolean isRawEvents()
     {
         return sessionConfig.isRawEvents();
@@ -179,6 +196,11 @@ public class JDAImpl implements JDA
         return sessionConfig.isEventPassthrough();
     }
 
+    public boolean isOptimisticCacheReads()
+    {
+        return metaConfig.isOptimisticCacheReads();
+    }
+
     public boolean isCacheFlagSet(CacheFlag flag)
     {
         return metaConfig.getCacheFlags().contains(flag);
@@ -16,7 +16,6 @@
 
 package net.dv8tion.jda.internal.audio;
 
-import com.iwebpp.crypto.TweetNaclFast;
 import com.neovisionaries.ws.client.WebSocket;
 import com.sun.jna.ptr.PointerByReference;
 import gnu.trove.map.TIntLongMap;
@@ -42,11 +41,13 @@ import org.slf4j.Logger;
 import tomp2p.opuswrapper.Opus;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
 import java.net.*;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
+import java.nio.channels.DatagramChannel;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -79,6 +80,22 @@ public class AudioConnection
     private ScheduledExecutorService combinedAudioExecutor;
     private IAudioSendSystem sendSystem;
     private Thread receiveThread;
+    private volatile AudioEventLoop.Handle receiveHandle;
+    private DatagramChannel receiveChannel;
+    private AudioEventLoop.Handle combinedAudioTask;
+    private SecretBoxCipher receiveCipher;
+    private byte[] receiveCipherKey;
+    private final byte[] receiveNonce = new byte[SecretBoxCipher.NONCE_LENGTH];
+    // Received packets are decrypted into this buffer, and only copied if they are kept by a handler or jitter buffer
+    private final byte[] receivePlaintext = new byte[1920];
+    private volatile JitterBufferConfig jitterBufferConfig;
+    // Guarded by itself, the buffers are offered packets by the receiving thread and played on the combined audio tick
+    private final TIntObjectMap<JitterBuffer> jitterBuffers = new TIntObjectHashMap<>();
+    private final List<JitterBuffer> playoutBuffers = new ArrayList<>();
+    // The decoded audio lent to the handler, separate for each thread since both can use the same decoder
+    private final ShortBuffer receiveDecoded = ShortBuffer.allocate(Decoder.BUFFER_LENGTH);
+    private final ShortBuffer playoutDecoded = ShortBuffer.allocate(Decoder.BUFFER_LENGTH);
+    private final AudioMixer audioMixer = new AudioMixer();
     private long queueTimeout;
     private boolean shutdown = false;
 
@@ -146,6 +163,25 @@ public class AudioConnection
         this.queueTimeout = queueTimeout;
     }
 
+    public void setJitterBuffer(JitterBufferConfig config)
+    {
+        this.jitterBufferConfig = config;
+        clearJitterBuffers();
+        if (webSocket.isReady())
+            setupReceiveSystem();
+    }
+
+    public List<AudioReceiveStatistics> getReceiveStatistics()
+    {
+        List<AudioReceiveStatistics> statistics = new ArrayList<>();
+        synchronized (jitterBuffers)
+        {
+            for (JitterBuffer buffer : jitterBuffers.valueCollection())
+                statistics.add(buffer.getStatistics());
+        }
+        return Collections.unmodifiableList(statistics);
+    }
+
     public AudioChannel getChannel()
     {
         return channel;
@@ -180,16 +216,9 @@ public class AudioConnection
             sendSystem.shutdown();
             sendSystem = null;
         }
-        if (receiveThread != null)
-        {
-            receiveThread.interrupt();
-            receiveThread = null;
-        }
-        if (combinedAudioExecutor != null)
-        {
-            combinedAudioExecutor.shutdownNow();
-            combinedAudioExecutor = null;
-        }
+        stopReceiving();
+        stopCombinedAudio();
+        clearJitterBuffers();
         if (opusEncoder != null)
         {
             Opus.INSTANCE.opus_encoder_destroy(opusEncoder);
@@ -270,6 +299,10 @@ public class AudioConnection
         });
         if (!modified)
             return;
+        synchronized (jitterBuffers)
+        {
+            jitterBuffers.remove(ssrcRef.get());
+        }
         final Decoder decoder = opusDecoders.remove(ssrcRef.get());
         if (decoder != null) // cleanup decoder
             decoder.close();
@@ -293,7 +326,7 @@ public class AudioConnection
             ssrcMap.put(ssrc, userId);
 
             //Only create a decoder if we are actively handling received audio.
-            if (receiveThread != null && AudioNatives.ensureOpus())
+            if (isReceiving() && AudioNatives.ensureOpus())
                 opusDecoders.put(ssrc, new Decoder(ssrc));
         }
     }
@@ -306,7 +339,7 @@ public class AudioConnection
         {
             setSpeaking(speakingMode);
             IAudioSendFactory factory = getJDA().getAudioSendFactory();
-            sendSystem = factory.createSendSystem(new PacketProvider(new TweetNaclFast.SecretBox(webSocket.getSecretKey())));
+            sendSystem = factory.createSendSystem(new PacketProvider(new SecretBoxCipher(webSocket.getSecretKey())));
             sendSystem.setContextMap(getJDA().getContextMap());
             sendSystem.start();
         }
@@ -325,34 +358,119 @@ public class AudioConnection
 
     private synchronized void setupReceiveSystem()
     {
-        if (udpSocket != null && !udpSocket.isClosed() && receiveHandler != null && receiveThread == null)
+        if (receiveHandle != null && (udpSocket == null || receiveChannel != udpSocket.getChannel()))
+        {
+            //The socket was replaced, so the old channel will never receive anything again
+            receiveHandle.cancel();
+            receiveHandle = null;
+        }
+
+        if (udpSocket != null && !udpSocket.isClosed() && receiveHandler != null && !isReceiving())
         {
             setupReceiveThread();
         }
-        else if (receiveHandler == null && receiveThread != null)
+        else if (receiveHandler == null && isReceiving())
         {
-            receiveThread.interrupt();
-            receiveThread = null;
-
-            if (combinedAudioExecutor != null)
-            {
-                combinedAudioExecutor.shutdownNow();
-                combinedAudioExecutor = null;
-            }
+            stopReceiving();
+            stopCombinedAudio();
+            clearJitterBuffers();
 
             opusDecoders.valueCollection().forEach(Decoder::close);
             opusDecoders.clear();
         }
-        else if (receiveHandler != null && !receiveHandler.canReceiveCombined() && combinedAudioExecutor != null)
+        else if (receiveHandler != null && !needsCombinedAudio() && hasCombinedAudio())
+        {
+            stopCombinedAudio();
+        }
+        else if (isReceiving() && needsCombinedAudio() && !hasCombinedAudio())
+        {
+            setupCombinedAudio();
+        }
+    }
+
+    // The jitter buffers are played on the same tick as the combined audio
+    private boolean needsCombinedAudio()
+    {
+        AudioReceiveHandler handler = receiveHandler;
+        return handler != null && (handler.canReceiveCombined() || jitterBufferConfig != null);
+    }
+
+    private void clearJitterBuffers()
+    {
+        synchronized (jitterBuffers)
+        {
+            jitterBuffers.clear();
+        }
+    }
+
+    private boolean isReceiving()
+    {
+        return receiveThread != null || receiveHandle != null;
+    }
+
+    private void stopReceiving()
+    {
+        if (receiveThread != null)
+        {
+            receiveThread.interrupt();
+            receiveThread = null;
+        }
+        if (receiveHandle != null)
+        {
+            receiveHandle.cancel();
+            receiveHandle = null;
+        }
+    }
+
+    private boolean hasCombinedAudio()
+    {
+        return combinedAudioExecutor != null || combinedAudioTask != null;
+    }
+
+    private void stopCombinedAudio()
+    {
+        if (combinedAudioExecutor != null)
         {
             combinedAudioExecutor.shutdownNow();
             combinedAudioExecutor = null;
         }
+        if (combinedAudioTask != null)
+        {
+            combinedAudioTask.cancel();
+            combinedAudioTask = null;
+        }
+    }
+
+    // The event loops to use instead of dedicated threads, or null if the factory or socket does not support them
+    private AudioEventLoopGroup getEventLoopGroup()
+    {
+        AudioEventLoopGroup group = AudioEventLoopGroup.of(getJDA().getAudioSendFactory());
+        return udpSocket.getChannel() != null ? group : null;
     }
 
     private synchronized void setupReceiveThread()
     {
-        if (receiveThread == null)
+        AudioEventLoopGroup eventLoopGroup = getEventLoopGroup();
+        if (eventLoopGroup != null)
+        {
+            if (receiveHandle == null)
+            {
+                DatagramChannel channel = udpSocket.getChannel();
+                try
+                {
+                    AudioEventLoop.Handle handle = eventLoopGroup.next().register(channel, this::receivePacket);
+                    receiveHandle = handle;
+                    receiveChannel = channel;
+                    handle.onFailure(() -> onEventLoopFailure(handle));
+                }
+                catch (IOException e)
+                {
+                    LOG.error("Failed to register UDP channel with the audio event loop", e);
+                    return;
+                }
+            }
+        }
+        else if (receiveThread == null)
         {
             receiveThread = new Thread(() ->
             {
@@ -365,86 +483,15 @@ public class AudioConnection
                 {
                     LOG.error("Couldn't set SO_TIMEOUT for UDP socket", e);
                 }
+                //The packet is reused, because the received data is copied while decrypting
+                DatagramPacket receivedPacket = new DatagramPacket(new byte[1920], 1920);
                 while (!udpSocket.isClosed() && !Thread.currentThread().isInterrupted())
                 {
-                    DatagramPacket receivedPacket = new DatagramPacket(new byte[1920], 1920);
                     try
                     {
                         udpSocket.receive(receivedPacket);
-
-                        boolean shouldDecode = receiveHandler != null && (receiveHandler.canReceiveUser() || receiveHandler.canReceiveCombined());
-                        boolean canReceive = receiveHandler != null && (receiveHandler.canReceiveUser() || receiveHandler.canReceiveCombined() || receiveHandler.canReceiveEncoded());
-                        if (canReceive && webSocket.getSecretKey() != null)
-                        {
-                            couldReceive = true;
-                            AudioPacket decryptedPacket = AudioPacket.decryptAudioPacket(webSocket.encryption, receivedPacket, webSocket.getSecretKey());
-                            if (decryptedPacket == null)
-                                continue;
-
-                            int ssrc = decryptedPacket.getSSRC();
-                            final long userId = ssrcMap.get(ssrc);
-                            Decoder decoder = opusDecoders.get(ssrc);
-                            if (userId == ssrcMap.getNoEntryValue())
-                            {
-                                ByteBuffer audio = decryptedPacket.getEncodedAudio();
-
-                                //If the bytes are silence, then this was caused by a User joining the voice channel,
-                                // and as such, we haven't yet received information to pair the SSRC with the UserId.
-                                if (!audio.equals(silenceBytes))
-                                    LOG.debug("Received audio data with an unknown SSRC id. Ignoring");
-
-                                continue;
-                            }
-                            if (decoder == null)
-                            {
-                                if (AudioNatives.ensureOpus())
-                                {
-                                    opusDecoders.put(ssrc, decoder = new Decoder(ssrc));
-                                }
-                                else if (!receiveHandler.canReceiveEncoded())
-                                {
-                                    LOG.error("Unable to decode audio due to missing opus binaries!");
-                                    break;
-                                }
-                            }
-                            OpusPacket opusPacket = new OpusPacket(decryptedPacket, userId, decoder);
-                            if (receiveHandler.canReceiveEncoded())
-                                receiveHandler.handleEncodedAudio(opusPacket);
-                            if (!shouldDecode || !opusPacket.canDecode())
-                                continue;
-
-                            User user = getJDA().getUserById(userId);
-                            if (user == null)
-                            {
-                                LOG.warn("Received audio data with a known SSRC, but the userId associate with the SSRC is unknown to JDA!");
-                                continue;
-                            }
-                            short[] decodedAudio = opusPacket.decode();
-                            //If decodedAudio is null, then the Opus decode failed, so throw away the packet.
-                            if (decodedAudio == null)
-                            {
-                                //decoder error logged in method
-                                continue;
-                            }
-                            if (receiveHandler.canReceiveUser())
-                            {
-                                receiveHandler.handleUserAudio(new UserAudio(user, decodedAudio));
-                            }
-                            if (receiveHandler.canReceiveCombined() && receiveHandler.includeUserInCombinedAudio(user))
-                            {
-                                Queue<AudioData> queue = combinedQueue.get(user);
-                                if (queue == null)
-                                {
-                                    queue = new ConcurrentLinkedQueue<>();
-                                    combinedQueue.put(user, queue);
-                                }
-                                queue.add(new AudioData(decodedAudio));
-                            }
-                        }
-                        else
-                        {
-                            couldReceive = false;
-                        }
+                        if (!handleReceivedPacket(receivedPacket))
+                            break;
                     }
                     catch (SocketTimeoutException e)
                     {
@@ -473,9 +520,283 @@ public class AudioConnection
             receiveThread.start();
         }
 
-        if (receiveHandler.canReceiveCombined())
+        if (needsCombinedAudio())
         {
+            setupCombinedAudio();
+        }
+    }
+
+    private synchronized void setupCombinedAudio()
+    {
+        AudioEventLoopGroup eventLoopGroup = receiveHandle != null ? getEventLoopGroup() : null;
+        if (eventLoopGroup != null)
+            setupCombinedTask(eventLoopGroup);
+        else
             setupCombinedExecutor();
+    }
+
+    // Called on an event loop thread, for every packet received on the channel
+    private void receivePacket(DatagramPacket packet)
+    {
+        getJDA().setContext();
+        try
+        {
+            if (!handleReceivedPacket(packet))
+            {
+                AudioEventLoop.Handle handle = receiveHandle;
+                if (handle != null)
+                    handle.cancel();
+            }
+        }
+        catch (Exception e)
+        {
+            LOG.error("There was some random exception while handling udp packets", e);
+        }
+    }
+
+    // Returns false if no further packets can be handled
+    private boolean handleReceivedPacket(DatagramPacket receivedPacket)
+    {
+        AudioReceiveHandler handler = receiveHandler;
+        boolean receiveUser = handler != null && handler.canReceiveUser();
+        boolean receiveCombined = handler != null && handler.canReceiveCombined();
+        boolean receiveEncoded = handler != null && handler.canReceiveEncoded();
+        boolean receiveBuffer = handler != null && handler.canReceiveUserBuffer();
+        boolean shouldDecode = receiveUser || receiveCombined || receiveBuffer;
+        boolean canReceive = shouldDecode || receiveEncoded;
+        byte[] secretKey = webSocket.getSecretKey();
+        if (canReceive && secretKey != null)
+        {
+            couldReceive = true;
+            AudioPacket decryptedPacket = AudioPacket.decryptAudioPacket(webSocket.encryption, receivedPacket, getReceiveCipher(secretKey), receiveNonce, receivePlaintext);
+            if (decryptedPacket == null)
+                return true;
+
+            int ssrc = decryptedPacket.getSSRC();
+            final long userId = ssrcMap.get(ssrc);
+            Decoder decoder = opusDecoders.get(ssrc);
+            if (userId == ssrcMap.getNoEntryValue())
+            {
+                ByteBuffer audio = decryptedPacket.getEncodedAudio();
+
+                //If the bytes are silence, then this was caused by a User joining the voice channel,
+                // and as such, we haven't yet received information to pair the SSRC with the UserId.
+                if (!audio.equals(silenceBytes))
+                    LOG.debug("Received audio data with an unknown SSRC id. Ignoring");
+
+                return true;
+            }
+            if (decoder == null)
+            {
+                if (AudioNatives.ensureOpus())
+                {
+                    opusDecoders.put(ssrc, decoder = new Decoder(ssrc));
+                }
+                else if (!receiveEncoded)
+                {
+                    LOG.error("Unable to decode audio due to missing opus binaries!");
+                    return false;
+                }
+            }
+            //The decoders are used by the jitter buffers, so the encoded packets cannot be decoded
+            JitterBufferConfig jitterBufferConfig = this.jitterBufferConfig;
+            boolean buffered = shouldDecode && decoder != null && jitterBufferConfig != null;
+            //The packet is a view of the reused plaintext, so it is copied once if the handler or jitter buffer keeps it
+            if (receiveEncoded || buffered)
+                decryptedPacket = decryptedPacket.copy();
+            OpusPacket opusPacket = null;
+            if (receiveEncoded)
+            {
+                opusPacket = new OpusPacket(decryptedPacket, userId, jitterBufferConfig == null ? decoder : null);
+                handler.handleEncodedAudio(opusPacket);
+            }
+            if (buffered)
+            {
+                getJitterBuffer(ssrc, userId, decoder, jitterBufferConfig).offer(decryptedPacket, System.nanoTime());
+                return true;
+            }
+            if (!shouldDecode || decoder == null || !decoder.isInOrder(decryptedPacket.getSequence()))
+                return true;
+
+            User user = getJDA().getUserById(userId);
+            if (user == null)
+            {
+                LOG.warn("Received audio data with a known SSRC, but the userId associate with the SSRC is unknown to JDA!");
+                return true;
+            }
+
+            short[] decodedAudio = null;
+            ShortBuffer audioBuffer = null;
+            if (receiveUser || receiveCombined || opusPacket != null)
+            {
+                //Without an encoded handler, the packet is decoded without wrapping it in an opus packet
+                decodedAudio = opusPacket != null ? opusPacket.decode() : decoder.decodeFromOpus(decryptedPacket);
+                if (decodedAudio != null && receiveBuffer)
+                    audioBuffer = ShortBuffer.wrap(decodedAudio);
+            }
+            else
+            {
+                //Only the lent buffer is needed, so the receiving thread can reuse its buffer
+                audioBuffer = decoder.decodeInto(decryptedPacket, receiveDecoded);
+            }
+            //If both are null, then the Opus decode failed, so throw away the packet.
+            if (decodedAudio == null && audioBuffer == null)
+            {
+                //decoder error logged in method
+                return true;
+            }
+            handleDecodedAudio(handler, user, decodedAudio, audioBuffer);
+        }
+        else
+        {
+            couldReceive = false;
+        }
+        return true;
+    }
+
+    // Provides the decoded audio as array, buffer, or both, depending on what the handler receives
+    private void handleDecodedAudio(AudioReceiveHandler handler, User user, short[] decodedAudio, ShortBuffer audioBuffer)
+    {
+        boolean receiveCombined = handler.canReceiveCombined() && handler.includeUserInCombinedAudio(user);
+        decodedAudio = provideUserAudio(handler, user, decodedAudio, audioBuffer, receiveCombined);
+        if (receiveCombined)
+        {
+            Queue<AudioData> queue = combinedQueue.get(user);
+            if (queue == null)
+            {
+                queue = new ConcurrentLinkedQueue<>();
+                combinedQueue.put(user, queue);
+            }
+            queue.add(new AudioData(decodedAudio));
+        }
+    }
+
+    /**
+     * Provides the decoded audio of a user to the handler, as array, lent buffer, or both.
+     * <br>The lent buffer is reused for the next decode, so the array is copied from it before the handler can modify it.
+     *
+     * @param  handler
+     *         The receive handler
+     * @param  user
+     *         The user who sent the audio
+     * @param  decodedAudio
+     *         The decoded audio, or null if it was only decoded into the buffer
+     * @param  audioBuffer
+     *         The buffer with the decoded audio from position 0 to the limit, or null if it was only decoded into the array
+     * @param  receiveCombined
+     *         Whether the audio is also needed as array for the combined audio
+     *
+     * @return The decoded audio as array, or null if it is not needed as array
+     */
+    public static short[] provideUserAudio(AudioReceiveHandler handler, User user, short[] decodedAudio, ShortBuffer audioBuffer, boolean receiveCombined)
+    {
+        if (decodedAudio == null && (handler.canReceiveUser() || receiveCombined))
+        {
+            //Copy before lending the buffer, which the handler could modify
+            decodedAudio = new short[audioBuffer.remaining()];
+            audioBuffer.get(decodedAudio);
+            ((Buffer) audioBuffer).position(0);
+        }
+
+        if (handler.canReceiveUserBuffer())
+        {
+            handler.handleUserAudio(user, audioBuffer != null ? audioBuffer : ShortBuffer.wrap(decodedAudio));
+        }
+        if (handler.canReceiveUser())
+        {
+            handler.handleUserAudio(new UserAudio(user, decodedAudio));
+        }
+        return decodedAudio;
+    }
+
+    private JitterBuffer getJitterBuffer(int ssrc, long userId, Decoder decoder, JitterBufferConfig config)
+    {
+        synchronized (jitterBuffers)
+        {
+            JitterBuffer buffer = jitterBuffers.get(ssrc);
+            if (buffer == null || buffer.getDecoder() != decoder || buffer.getUserId() != userId)
+            {
+                buffer = new JitterBuffer(userId, decoder, config);
+                jitterBuffers.put(ssrc, buffer);
+            }
+            return buffer;
+        }
+    }
+
+    // Called every 20 milliseconds, before the combined audio is provided
+    private void playoutJitterBuffers()
+    {
+        AudioReceiveHandler handler = receiveHandler;
+        if (handler == null || jitterBufferConfig == null)
+            return;
+
+        synchronized (jitterBuffers)
+        {
+            playoutBuffers.clear();
+            playoutBuffers.addAll(jitterBuffers.valueCollection());
+        }
+        for (JitterBuffer buffer : playoutBuffers)
+        {
+            try
+            {
+                ShortBuffer audio = buffer.playout(playoutDecoded);
+                if (audio == null)
+                    continue;
+                User user = getJDA().getUserById(buffer.getUserId());
+                if (user != null)
+                    handleDecodedAudio(handler, user, null, audio);
+            }
+            catch (Exception e)
+            {
+                LOG.error("There was some unexpected exception while playing the jitter buffer!", e);
+            }
+        }
+        playoutBuffers.clear();
+    }
+
+    // Only called by the receiving thread, so the cipher is reused until the secret key changes
+    private SecretBoxCipher getReceiveCipher(byte[] secretKey)
+    {
+        if (receiveCipherKey != secretKey)
+        {
+            receiveCipher = new SecretBoxCipher(secretKey);
+            receiveCipherKey = secretKey;
+        }
+        return receiveCipher;
+    }
+
+    private synchronized void setupCombinedTask(AudioEventLoopGroup eventLoopGroup)
+    {
+        if (combinedAudioTask == null)
+        {
+            AudioEventLoop.Handle handle = eventLoopGroup.next().scheduleFrameTask(() ->
+            {
+                getJDA().setContext();
+                playoutJitterBuffers();
+                provideCombinedAudio();
+            });
+            combinedAudioTask = handle;
+            handle.onFailure(() -> onEventLoopFailure(handle));
+        }
+    }
+
+    // The event loop of the handle died, so register again on another loop
+    private synchronized void onEventLoopFailure(AudioEventLoop.Handle handle)
+    {
+        if (receiveHandle == handle)
+            receiveHandle = null;
+        else if (combinedAudioTask == handle)
+            combinedAudioTask = null;
+        else
+            return;
+
+        try
+        {
+            setupReceiveSystem();
+        }
+        catch (RuntimeException e)
+        {
+            LOG.error("Failed to move audio receiving to another event loop", e);
         }
     }
 
@@ -498,74 +819,63 @@ public class AudioConnection
             combinedAudioExecutor.scheduleAtFixedRate(() ->
             {
                 getJDA().setContext();
-                try
+                playoutJitterBuffers();
+                provideCombinedAudio();
+            }, 0, 20, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void provideCombinedAudio()
+    {
+        try
+        {
+            if (receiveHandler != null && receiveHandler.canReceiveCombined())
+            {
+                List<User> users = null;
+                long currentTime = System.currentTimeMillis();
+                for (Map.Entry<User, Queue<AudioData>> entry : combinedQueue.entrySet())
                 {
-                    List<User> users = new LinkedList<>();
-                    List<short[]> audioParts = new LinkedList<>();
-                    if (receiveHandler != null && receiveHandler.canReceiveCombined())
+                    User user = entry.getKey();
+                    Queue<AudioData> queue = entry.getValue();
+
+                    if (queue.isEmpty())
+                        continue;
+
+                    AudioData audioData = queue.poll();
+                    //Make sure the audio packet is younger than 100ms
+                    while (audioData != null && currentTime - audioData.time > queueTimeout)
                     {
-                        long currentTime = System.currentTimeMillis();
-                        for (Map.Entry<User, Queue<AudioData>> entry : combinedQueue.entrySet())
-                        {
-                            User user = entry.getKey();
-                            Queue<AudioData> queue = entry.getValue();
-
-                            if (queue.isEmpty())
-                                continue;
-
-                            AudioData audioData = queue.poll();
-                            //Make sure the audio packet is younger than 100ms
-                            while (audioData != null && currentTime - audioData.time > queueTimeout)
-                            {
-                                audioData = queue.poll();
-                            }
-
-                            //If none of the audio packets were younger than 100ms, then there is nothing to add.
-                            if (audioData == null)
-                            {
-                                continue;
-                            }
-                            users.add(user);
-                            audioParts.add(audioData.data);
-                        }
+                        audioData = queue.poll();
+                    }
 
-                        if (!audioParts.isEmpty())
-                        {
-                            int audioLength = audioParts.stream().mapToInt(it -> it.length).max().getAsInt();
-                            short[] mix = new short[1920];  //960 PCM samples for each channel
-                            int sample;
-                            for (int i = 0; i < audioLength; i++)
-                            {
-                                sample = 0;
-                                for (Iterator<short[]> iterator = audioParts.iterator(); iterator.hasNext(); )
-                                {
-                                    short[] audio = iterator.next();
-                                    if (i < audio.length)
-                                        sample += audio[i];
-                                    else
-                                        iterator.remove();
-                                }
-                                if (sample > Short.MAX_VALUE)
-                                    mix[i] = Short.MAX_VALUE;
-                                else if (sample < Short.MIN_VALUE)
-                                    mix[i] = Short.MIN_VALUE;
-                                else
-                                    mix[i] = (short) sample;
-                            }
-                            receiveHandler.handleCombinedAudio(new CombinedAudio(users, mix));
-                        }
-                        else
-                        {
-                            //No audio to mix, provide 20 MS of silence. (960 PCM samples for each channel)
-                            receiveHandler.handleCombinedAudio(new CombinedAudio(Collections.emptyList(), new short[1920]));
-                        }
+                    //If none of the audio packets were younger than 100ms, then there is nothing to add.
+                    if (audioData == null)
+                    {
+                        continue;
                     }
+                    if (users == null)
+                        users = new ArrayList<>(combinedQueue.size());
+                    users.add(user);
+                    audioMixer.add(audioData.data);
                 }
-                catch (Exception e)
+
+                //The handler may keep the combined audio, so the output can't be reused. (960 PCM samples for each channel)
+                short[] mix = new short[AudioMixer.FRAME_LENGTH];
+                if (users != null)
                 {
-                    LOG.error("There was some unexpected exception in the combinedAudioExecutor!", e);
+                    audioMixer.mixInto(mix);
+                    receiveHandler.handleCombinedAudio(new CombinedAudio(users, mix));
                 }
-            }, 0, 20, TimeUnit.MILLISECONDS);
+                else
+                {
+                    //No audio to mix, provide 20 MS of silence.
+                    receiveHandler.handleCombinedAudio(new CombinedAudio(Collections.emptyList(), mix));
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            LOG.error("There was some unexpected exception in the combinedAudioExecutor!", e);
         }
     }
 
@@ -615,17 +925,17 @@ public class AudioConnection
 
     private class PacketProvider implements IPacketProvider
     {
-        private final TweetNaclFast.SecretBox boxer;
-        private final byte[] nonceBuffer = new byte[TweetNaclFast.SecretBox.nonceLength];
+        private final SecretBoxCipher cipher;
+        private final byte[] nonceBuffer = new byte[SecretBoxCipher.NONCE_LENGTH];
         private char seq = 0;           //Sequence of audio packets. Used to determine the order of the packets.
         private int timestamp = 0;      //Used to sync up our packets within the same timeframe of other people talking.
         private long nonce = 0;
         private ByteBuffer buffer = ByteBuffer.allocate(512);
         private ByteBuffer encryptionBuffer = ByteBuffer.allocate(512);
 
-        public PacketProvider(TweetNaclFast.SecretBox boxer)
+        public PacketProvider(SecretBoxCipher cipher)
         {
-            this.boxer = boxer;
+            this.cipher = cipher;
         }
 
         @Nonnull
@@ -674,7 +984,7 @@ public class AudioConnection
                     ByteBuffer rawAudio = sendHandler.provide20MsAudio();
                     if (rawAudio != null && !rawAudio.hasArray())
                     {
-                        // we can't use the boxer without an array so encryption would not work
+                        // we can't use the cipher without an array so encryption would not work
                         LOG.error("AudioSendHandler provided ByteBuffer without a backing array! This is unsupported.");
                     }
 
@@ -756,12 +1066,12 @@ public class AudioConnection
                     break;
                 case XSALSA20_POLY1305_SUFFIX:
                     ThreadLocalRandom.current().nextBytes(nonceBuffer);
-                    nlen = TweetNaclFast.SecretBox.nonceLength;
+                    nlen = SecretBoxCipher.NONCE_LENGTH;
                     break;
                 default:
                     throw new IllegalStateException("Encryption mode [" + webSocket.encryption + "] is not supported!");
             }
-            return buffer = packet.asEncryptedPacket(boxer, buffer, nonceBuffer, nlen);
+            return buffer = packet.asEncryptedPacket(cipher, buffer, nonceBuffer, nlen);
         }
 
         private void ensureEncryptionBuffer(ByteBuffer data)
@@ -0,0 +1,449 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.internal.audio;
+
+import net.dv8tion.jda.api.audio.OpusPacket;
+import net.dv8tion.jda.internal.utils.JDALogger;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A single thread, which receives the UDP packets of many audio connections with a {@link Selector},
+ * and runs their 20ms frame tasks on a timer wheel.
+ *
+ * <p>The wheel has one slot per millisecond of a frame, and new frame tasks are added to the slot with the fewest tasks.
+ * This spreads the work of all connections over the frame, instead of running every connection at the same time.
+ *
+ * <p>All tasks and receivers run on the loop thread, so they must never block.
+ *
+ * <p>If the loop thread dies from an {@link Error}, all of its handles are cancelled and their
+ * {@link Handle#onFailure(Runnable) failure listeners} are called, so the connections can register on another loop.
+ */
+public class AudioEventLoop
+{
+    public static final Logger LOG = JDALogger.getLog(AudioEventLoop.class);
+
+    private static final int WHEEL_SIZE = OpusPacket.OPUS_FRAME_TIME_AMOUNT;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // Limits the packets read from one channel at a time, so a busy connection does not delay the others
+    private static final int MAX_PACKETS_PER_CHANNEL = 16;
+
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final List<List<Handle>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final AtomicInteger load = new AtomicInteger();
+    // All handles which are not cancelled yet, to cancel them if the loop dies
+    private final Set<Handle> handles = ConcurrentHashMap.newKeySet();
+    private final Consumer<AudioEventLoop> failureListener;
+    private final Selector selector;
+    private final Thread thread;
+
+    // Reused for every received packet, since AudioPacket copies the data
+    private final byte[] receiveArray = new byte[1920];
+    private final ByteBuffer receiveBuffer = ByteBuffer.wrap(receiveArray);
+    private final DatagramPacket receivePacket = new DatagramPacket(receiveArray, receiveArray.length);
+
+    private int frameTasks;
+    private volatile boolean shutdown;
+    private volatile boolean failed;
+
+    public AudioEventLoop(String name) throws IOException
+    {
+        this(name, null);
+    }
+
+    /**
+     * Creates and starts a new loop.
+     *
+     * @param  name
+     *         The name of the loop thread
+     * @param  failureListener
+     *         Called if the loop thread dies, before the handles are cancelled, or null
+     *
+     * @throws IOException
+     *         If the selector could not be opened
+     */
+    public AudioEventLoop(String name, Consumer<AudioEventLoop> failureListener) throws IOException
+    {
+        this.failureListener = failureListener;
+        this.selector = Selector.open();
+        for (int i = 0; i < WHEEL_SIZE; i++)
+            wheel.add(new ArrayList<>());
+
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.setPriority((Thread.NORM_PRIORITY + Thread.MAX_PRIORITY) / 2);
+        this.thread.start();
+    }
+
+    /**
+     * The number of frame tasks and receivers, which are currently registered.
+     *
+     * @return The load of this loop
+     */
+    public int getLoad()
+    {
+        return load.get();
+    }
+
+    /**
+     * Whether this loop still runs its tasks, and was neither shut down nor died from an error.
+     *
+     * @return True, if the loop is alive
+     */
+    public boolean isAlive()
+    {
+        return !shutdown && !failed;
+    }
+
+    /**
+     * Runs the task every {@value OpusPacket#OPUS_FRAME_TIME_AMOUNT} milliseconds, until the returned handle is cancelled.
+     *
+     * @param  task
+     *         The task to run
+     *
+     * @return The handle to cancel the task
+     */
+    public Handle scheduleFrameTask(Runnable task)
+    {
+        Handle handle = new Handle(task, null);
+        if (failed)
+        {
+            handle.fail();
+            return handle;
+        }
+        execute(() ->
+        {
+            if (handle.isCancelled())
+                return;
+            List<Handle> slot = wheel.get(0);
+            for (List<Handle> tasks : wheel)
+            {
+                if (tasks.size() < slot.size())
+                    slot = tasks;
+            }
+            slot.add(handle);
+            frameTasks++;
+        });
+        return handle;
+    }
+
+    /**
+     * Calls the receiver for every packet received on the channel, until the returned handle is cancelled.
+     * <br>The provided packet is reused for the next packet, after the receiver returns.
+     *
+     * <p>This switches the channel to non-blocking mode.
+     * Use {@link DatagramChannel#send(ByteBuffer, SocketAddress)} instead of the socket, to send packets on this channel.
+     *
+     * @param  channel
+     *         The channel to receive packets from
+     * @param  receiver
+     *         The receiver of the packets
+     *
+     * @throws IOException
+     *         If the channel could not be switched to non-blocking mode
+     *
+     * @return The handle to stop receiving packets
+     */
+    public Handle register(DatagramChannel channel, Consumer<DatagramPacket> receiver) throws IOException
+    {
+        channel.configureBlocking(false);
+        Handle handle = new Handle(null, receiver);
+        if (failed)
+        {
+            handle.fail();
+            return handle;
+        }
+        execute(() ->
+        {
+            if (handle.isCancelled())
+                return;
+            try
+            {
+                handle.key = channel.register(selector, SelectionKey.OP_READ, handle);
+            }
+            catch (ClosedChannelException e)
+            {
+                handle.cancel();
+            }
+        });
+        return handle;
+    }
+
+    public void shutdown()
+    {
+        shutdown = true;
+        selector.wakeup();
+    }
+
+    private void execute(Runnable task)
+    {
+        pendingTasks.add(task);
+        selector.wakeup();
+    }
+
+    private void run()
+    {
+        long nextTick = System.nanoTime();
+        int slot = 0;
+        Error failure = null;
+        while (!shutdown && failure == null)
+        {
+            try
+            {
+                if (frameTasks == 0)
+                {
+                    // Nothing to pace, so wait for packets or new tasks
+                    selector.select();
+                    nextTick = System.nanoTime();
+                }
+                else
+                {
+                    long wait = nextTick - System.nanoTime();
+                    if (wait > 0)
+                        selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait + TICK_NANOS - 1)));
+                    else
+                        selector.selectNow();
+                }
+
+                Runnable task;
+                while ((task = pendingTasks.poll()) != null)
+                    task.run();
+
+                receivePackets();
+
+                long now = System.nanoTime();
+                // Skip the missed ticks if the loop fell behind by more than a frame
+                if (now - nextTick > WHEEL_SIZE * TICK_NANOS)
+                    nextTick = now;
+                while (now - nextTick >= 0)
+                {
+                    runSlot(wheel.get(slot));
+                    slot = (slot + 1) % WHEEL_SIZE;
+                    nextTick += TICK_NANOS;
+                }
+            }
+            catch (Throwable throwable)
+            {
+                LOG.error("Uncaught exception in audio event loop", throwable);
+                if (throwable instanceof Error)
+                    failure = (Error) throwable;
+            }
+        }
+
+        try
+        {
+            selector.close();
+        }
+        catch (IOException ignored) {}
+
+        if (failure != null)
+        {
+            fail();
+            throw failure;
+        }
+    }
+
+    // Lets the group replace this loop first, so the handles can register on a new loop
+    private void fail()
+    {
+        failed = true;
+        if (failureListener != null)
+        {
+            try
+            {
+                failureListener.accept(this);
+            }
+            catch (Throwable throwable)
+            {
+                LOG.error("Uncaught exception in audio event loop failure listener", throwable);
+            }
+        }
+        for (Handle handle : handles)
+            handle.fail();
+    }
+
+    private void runSlot(List<Handle> tasks)
+    {
+        for (int i = 0; i < tasks.size(); )
+        {
+            Handle handle = tasks.get(i);
+            if (handle.isCancelled())
+            {
+                // Order within a slot does not matter, so swap with the last task to remove in constant time
+                tasks.set(i, tasks.get(tasks.size() - 1));
+                tasks.remove(tasks.size() - 1);
+                frameTasks--;
+                continue;
+            }
+
+            try
+            {
+                handle.task.run();
+            }
+            catch (Throwable throwable)
+            {
+                LOG.error("Uncaught exception in audio frame task", throwable);
+                if (throwable instanceof Error)
+                    throw (Error) throwable;
+            }
+            i++;
+        }
+    }
+
+    private void receivePackets()
+    {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext())
+        {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Handle handle = (Handle) key.attachment();
+            if (!key.isValid() || handle.isCancelled())
+                continue;
+
+            DatagramChannel channel = (DatagramChannel) key.channel();
+            for (int i = 0; i < MAX_PACKETS_PER_CHANNEL; i++)
+            {
+                SocketAddress address;
+                try
+                {
+                    receiveBuffer.clear();
+                    address = channel.receive(receiveBuffer);
+                }
+                catch (ClosedChannelException e)
+                {
+                    handle.cancel();
+                    break;
+                }
+                catch (IOException e)
+                {
+                    LOG.debug("Failed to receive UDP packet", e);
+                    break;
+                }
+                if (address == null)
+                    break;
+
+                receivePacket.setData(receiveArray, 0, receiveBuffer.position());
+                receivePacket.setSocketAddress(address);
+                try
+                {
+                    handle.receiver.accept(receivePacket);
+                }
+                catch (Throwable throwable)
+                {
+                    LOG.error("Uncaught exception in audio receiver", throwable);
+                    if (throwable instanceof Error)
+                        throw (Error) throwable;
+                }
+            }
+        }
+    }
+
+    public class Handle
+    {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final Runnable task;
+        private final Consumer<DatagramPacket> receiver;
+        private volatile SelectionKey key;
+        private Runnable failureListener;
+        private boolean failed;
+
+        private Handle(Runnable task, Consumer<DatagramPacket> receiver)
+        {
+            this.task = task;
+            this.receiver = receiver;
+            load.incrementAndGet();
+            handles.add(this);
+        }
+
+        public boolean isCancelled()
+        {
+            return cancelled.get();
+        }
+
+        /**
+         * Sets the listener, which is called if this handle is cancelled because the loop died.
+         * <br>The listener is called right away, if the loop already died.
+         *
+         * @param listener
+         *        The listener, which usually registers again on another loop
+         */
+        public void onFailure(Runnable listener)
+        {
+            boolean run;
+            synchronized (this)
+            {
+                failureListener = listener;
+                run = failed;
+            }
+            if (run)
+                listener.run();
+        }
+
+        public void cancel()
+        {
+            if (!cancelled.compareAndSet(false, true))
+                return;
+            load.decrementAndGet();
+            handles.remove(this);
+            SelectionKey key = this.key;
+            if (key != null)
+                key.cancel();
+        }
+
+        private void fail()
+        {
+            Runnable listener;
+            synchronized (this)
+            {
+                if (failed || isCancelled())
+                    return;
+                failed = true;
+                listener = failureListener;
+            }
+            cancel();
+            if (listener == null)
+                return;
+            try
+            {
+                listener.run();
+            }
+            catch (Throwable throwable)
+            {
+                LOG.error("Uncaught exception in audio event loop failure listener", throwable);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.internal.audio;
+
+import net.dv8tion.jda.api.audio.factory.IAudioEventLoopGroup;
+import net.dv8tion.jda.api.audio.factory.IAudioSendFactory;
+import net.dv8tion.jda.internal.utils.Checks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A fixed number of {@link AudioEventLoop AudioEventLoops}, which are started when they are first needed.
+ * <br>Loops which died from an error are removed, and replaced by a new loop when the next connection needs one.
+ */
+public class AudioEventLoopGroup implements IAudioEventLoopGroup
+{
+    private static AudioEventLoopGroup defaultGroup;
+
+    private final String name;
+    private final AudioEventLoop[] loops;
+    private boolean shutdown;
+
+    public AudioEventLoopGroup(String name, int size)
+    {
+        Checks.positive(size, "Size");
+        this.name = name;
+        this.loops = new AudioEventLoop[size];
+    }
+
+    /**
+     * The group used by default, with one loop for every two CPU cores.
+     *
+     * @return The default group
+     */
+    public static synchronized AudioEventLoopGroup getDefault()
+    {
+        if (defaultGroup == null)
+            defaultGroup = new AudioEventLoopGroup("JDA Audio-EventLoop", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        return defaultGroup;
+    }
+
+    /**
+     * The event loop group provided by the factory.
+     * <br>The connections need the loops of this class, so other implementations of {@link IAudioEventLoopGroup} are rejected instead of ignored.
+     *
+     * @param  factory
+     *         The audio send factory
+     *
+     * @throws IllegalArgumentException
+     *         If the factory provides a group, which was not created by JDA
+     *
+     * @return The event loop group, or null if the factory does not provide one
+     */
+    public static AudioEventLoopGroup of(IAudioSendFactory factory)
+    {
+        IAudioEventLoopGroup group = factory.getEventLoopGroup();
+        Checks.check(group == null || group instanceof AudioEventLoopGroup,
+                "Unsupported event loop group %s, only the groups of NioSendFactory are supported", group);
+        return (AudioEventLoopGroup) group;
+    }
+
+    @Override
+    public int getSize()
+    {
+        return loops.length;
+    }
+
+    /**
+     * The loop with the lowest load, which starts a new loop if there is an unused slot.
+     *
+     * @throws UncheckedIOException
+     *         If the selector for a new loop could not be opened
+     * @throws IllegalStateException
+     *         If this group was shut down
+     *
+     * @return The loop to use for a new connection
+     */
+    public synchronized AudioEventLoop next()
+    {
+        if (shutdown)
+            throw new IllegalStateException("The audio event loop group was shut down");
+        AudioEventLoop next = null;
+        for (int i = 0; i < loops.length; i++)
+        {
+            if (loops[i] == null || !loops[i].isAlive())
+            {
+                try
+                {
+                    return loops[i] = new AudioEventLoop(name + " " + (i + 1), this::remove);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (next == null || loops[i].getLoad() < next.getLoad())
+                next = loops[i];
+        }
+        return next;
+    }
+
+    // Called by a loop which died, before its handles are cancelled
+    private synchronized void remove(AudioEventLoop loop)
+    {
+        for (int i = 0; i < loops.length; i++)
+        {
+            if (loops[i] == loop)
+                loops[i] = null;
+        }
+    }
+
+    @Override
+    public synchronized void shutdown()
+    {
+        shutdown = true;
+        for (int i = 0; i < loops.length; i++)
+        {
+            if (loops[i] != null)
+                loops[i].shutdown();
+            loops[i] = null;
+        }
+    }
+}
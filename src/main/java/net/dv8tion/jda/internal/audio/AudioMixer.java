@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.internal.audio;
+
+import net.dv8tion.jda.api.audio.OpusPacket;
+
+import java.util.Arrays;
+
+/**
+ * Mixes the audio of multiple users into one frame, reusing the same accumulator for every frame.
+ *
+ * <p>The samples are summed in an {@code int} accumulator and clamped once while writing the output,
+ * instead of clamping after every addition. All loops are simple counted loops over arrays,
+ * which the JIT compiler can unroll and vectorize.
+ *
+ * <p>This is not thread-safe, each connection uses its own mixer on the combined audio thread.
+ */
+public class AudioMixer
+{
+    /**
+     * The number of samples in a frame of 20 milliseconds, of both channels.
+     */
+    public static final int FRAME_LENGTH = OpusPacket.OPUS_FRAME_SIZE * OpusPacket.OPUS_CHANNEL_COUNT;
+
+    private final int[] accumulator = new int[FRAME_LENGTH];
+    // The only source so far, which is copied without accumulating if no other source is added
+    private short[] single;
+    private int length;
+    private int sources;
+
+    /**
+     * Adds the audio to the current frame.
+     * <br>Samples beyond {@link #FRAME_LENGTH} are ignored.
+     *
+     * @param audio
+     *        The audio of one user
+     */
+    public void add(short[] audio)
+    {
+        if (sources == 0)
+        {
+            single = audio;
+        }
+        else
+        {
+            if (sources == 1)
+                accumulate(single);
+            accumulate(audio);
+        }
+        sources++;
+    }
+
+    public int getSourceCount()
+    {
+        return sources;
+    }
+
+    /**
+     * Writes the mixed frame into the output, and resets the mixer for the next frame.
+     * <br>Samples after the longest source are set to silence.
+     *
+     * @param output
+     *        The output with a length of at least {@link #FRAME_LENGTH}
+     */
+    public void mixInto(short[] output)
+    {
+        if (sources == 1)
+        {
+            int length = Math.min(single.length, FRAME_LENGTH);
+            System.arraycopy(single, 0, output, 0, length);
+            Arrays.fill(output, length, FRAME_LENGTH, (short) 0);
+        }
+        else
+        {
+            int[] accumulator = this.accumulator;
+            int length = this.length;
+            for (int i = 0; i < length; i++)
+            {
+                output[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, accumulator[i]));
+                accumulator[i] = 0;
+            }
+            Arrays.fill(output, length, FRAME_LENGTH, (short) 0);
+        }
+
+        single = null;
+        length = 0;
+        sources = 0;
+    }
+
+    private void accumulate(short[] audio)
+    {
+        int[] accumulator = this.accumulator;
+        int length = Math.min(audio.length, FRAME_LENGTH);
+        for (int i = 0; i < length; i++)
+            accumulator[i] += audio[i];
+        this.length = Math.max(this.length, length);
+    }
+}
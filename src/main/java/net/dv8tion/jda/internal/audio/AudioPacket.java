@@ -16,7 +16,6 @@
 
 package net.dv8tion.jda.internal.audio;
 
-import com.iwebpp.crypto.TweetNaclFast;
 import net.dv8tion.jda.internal.utils.IOUtil;
 
 import java.net.DatagramPacket;
@@ -71,6 +70,12 @@ public class AudioPacket
     }
 
     public AudioPacket(byte[] rawPacket)
+    {
+        this(rawPacket, rawPacket.length);
+    }
+
+    // The encoded audio is a view of the raw packet, which can be longer than the packet itself
+    private AudioPacket(byte[] rawPacket, int length)
     {
         this.rawPacket = rawPacket;
 
@@ -80,21 +85,8 @@ public class AudioPacket
         this.ssrc = buffer.getInt(SSRC_INDEX);
         this.type = buffer.get(PT_INDEX);
 
-        final byte profile = buffer.get(0);
-        final byte[] data = buffer.array();
-        final boolean hasExtension = (profile & 0x10) != 0; // extension bit is at 000X
-        final byte cc = (byte) (profile & 0x0f);            // CSRC count - we ignore this for now
-        final int csrcLength = cc * 4;                      // defines count of 4-byte words
-        // it seems as if extensions only exist without a csrc list being present
-        final short extension = hasExtension ? IOUtil.getShortBigEndian(data, RTP_HEADER_BYTE_LENGTH + csrcLength) : 0;
-
-        int offset = RTP_HEADER_BYTE_LENGTH + csrcLength;
-        if (hasExtension && extension == RTP_DISCORD_EXTENSION)
-            offset = getPayloadOffset(data, csrcLength);
-
-        this.encodedAudio = ByteBuffer.allocate(data.length - offset);
-        this.encodedAudio.put(data, offset, encodedAudio.capacity());
-        ((Buffer) this.encodedAudio).flip();
+        final int offset = getPayloadOffset(rawPacket, length);
+        this.encodedAudio = ByteBuffer.wrap(rawPacket, offset, length - offset).slice();
     }
 
     public AudioPacket(ByteBuffer buffer, char seq, int timestamp, int ssrc, ByteBuffer encodedAudio)
@@ -107,8 +99,20 @@ public class AudioPacket
         this.rawPacket = generateRawPacket(buffer, seq, timestamp, ssrc, encodedAudio);
     }
 
-    private int getPayloadOffset(byte[] data, int csrcLength)
+    private static int getPayloadOffset(byte[] data, int length)
     {
+        final byte profile = data[0];
+        final boolean hasExtension = (profile & 0x10) != 0; // extension bit is at 000X
+        final byte cc = (byte) (profile & 0x0f);            // CSRC count - we ignore this for now
+        final int csrcLength = cc * 4;                      // defines count of 4-byte words
+        if (RTP_HEADER_BYTE_LENGTH + csrcLength + 4 > length)
+            return Math.min(RTP_HEADER_BYTE_LENGTH + csrcLength, length);
+        // it seems as if extensions only exist without a csrc list being present
+        final short extension = hasExtension ? IOUtil.getShortBigEndian(data, RTP_HEADER_BYTE_LENGTH + csrcLength) : 0;
+
+        if (!hasExtension || extension != RTP_DISCORD_EXTENSION)
+            return RTP_HEADER_BYTE_LENGTH + csrcLength;
+
         // headerLength defines number of 4-byte words in the extension
         final short headerLength = IOUtil.getShortBigEndian(data, RTP_HEADER_BYTE_LENGTH + 2 + csrcLength);
         int i = RTP_HEADER_BYTE_LENGTH // RTP header = 12 bytes
@@ -117,9 +121,9 @@ public class AudioPacket
                 + headerLength * 4;    // number of 4-byte words in extension = len * 4 bytes
 
         // strip excess 0 bytes
-        while (data[i] == 0)
+        while (i < length && data[i] == 0)
             i++;
-        return i;
+        return Math.min(i, length);
     }
 
     @SuppressWarnings("unused")
@@ -131,7 +135,7 @@ public class AudioPacket
 
     public byte[] getNoncePadded()
     {
-        byte[] nonce = new byte[TweetNaclFast.SecretBox.nonceLength];
+        byte[] nonce = new byte[SecretBoxCipher.NONCE_LENGTH];
         //The first 12 bytes are the rawPacket are the RTP Discord Nonce.
         System.arraycopy(rawPacket, 0, nonce, 0, RTP_HEADER_BYTE_LENGTH);
         return nonce;
@@ -147,6 +151,18 @@ public class AudioPacket
         return encodedAudio;
     }
 
+    /**
+     * Copies a received packet, whose data is a view of the buffer it was decrypted into.
+     * <br>This is required before the packet is kept beyond the handling of the next received packet.
+     *
+     * @return The packet with its own copy of the data
+     */
+    public AudioPacket copy()
+    {
+        final int length = encodedAudio.arrayOffset() + encodedAudio.limit();
+        return new AudioPacket(Arrays.copyOf(rawPacket, length), length);
+    }
+
     public char getSequence()
     {
         return seq;
@@ -162,26 +178,29 @@ public class AudioPacket
         return timestamp;
     }
 
-    protected ByteBuffer asEncryptedPacket(TweetNaclFast.SecretBox boxer, ByteBuffer buffer, byte[] nonce, int nlen)
+    protected ByteBuffer asEncryptedPacket(SecretBoxCipher cipher, ByteBuffer buffer, byte[] nonce, int nlen)
     {
         //Xsalsa20's Nonce is 24 bytes long, however RTP (and consequently Discord)'s nonce is a different length
-        // so we need to create a 24 byte array, and copy the nonce into it.
-        // we will leave the extra bytes as nulls. (Java sets non-populated bytes as 0).
-        byte[] extendedNonce = nonce;
+        // so we copy the nonce into a 24 byte array.
+        // we will leave the extra bytes as nulls.
         if (nlen == 0) // this means the header is the nonce!
-            extendedNonce = getNoncePadded();
+        {
+            System.arraycopy(rawPacket, 0, nonce, 0, RTP_HEADER_BYTE_LENGTH);
+            Arrays.fill(nonce, RTP_HEADER_BYTE_LENGTH, nonce.length, (byte) 0);
+        }
 
-        //Create our SecretBox encoder with the secretKey provided by Discord.
-        byte[] array = encodedAudio.array();
-        int offset = encodedAudio.arrayOffset() + encodedAudio.position();
         int length = encodedAudio.remaining();
-        byte[] encryptedAudio = boxer.box(array, offset, length, extendedNonce);
-
         ((Buffer) buffer).clear();
-        int capacity = RTP_HEADER_BYTE_LENGTH + encryptedAudio.length + nlen;
+        int capacity = RTP_HEADER_BYTE_LENGTH + SecretBoxCipher.TAG_LENGTH + length + nlen;
         if (capacity > buffer.remaining())
             buffer = ByteBuffer.allocate(capacity);
-        populateBuffer(seq, timestamp, ssrc, ByteBuffer.wrap(encryptedAudio), buffer);
+        populateHeader(seq, timestamp, ssrc, buffer);
+
+        //Encrypt directly behind the header
+        int encrypted = cipher.seal(nonce,
+            encodedAudio.array(), encodedAudio.arrayOffset() + encodedAudio.position(), length,
+            buffer.array(), buffer.arrayOffset() + buffer.position());
+        ((Buffer) buffer).position(buffer.position() + encrypted);
         if (nlen > 0) // this means we append the nonce to the payload
             buffer.put(nonce, 0, nlen);
 
@@ -191,64 +210,81 @@ public class AudioPacket
 
     protected static AudioPacket decryptAudioPacket(AudioEncryption encryption, DatagramPacket packet, byte[] secretKey)
     {
-        TweetNaclFast.SecretBox boxer = new TweetNaclFast.SecretBox(secretKey);
-        AudioPacket encryptedPacket = new AudioPacket(packet);
-        if (encryptedPacket.type != RTP_PAYLOAD_TYPE)
+        SecretBoxCipher cipher = new SecretBoxCipher(secretKey);
+        return decryptAudioPacket(encryption, packet, cipher, new byte[SecretBoxCipher.NONCE_LENGTH], new byte[packet.getLength()]);
+    }
+
+    /**
+     * Decrypts the packet without copying the received data first.
+     * <br>The cipher, nonce, and plaintext are reused for every packet of a connection,
+     * so this must not be called concurrently with the same buffers.
+     *
+     * <p>The returned packet is a view of the plaintext buffer, which is overwritten by the next call.
+     * Use {@link #copy()} to keep the packet for longer.
+     *
+     * @param  encryption
+     *         The encryption mode of the connection
+     * @param  packet
+     *         The received packet, which is only read during this call
+     * @param  cipher
+     *         The cipher for the secret key of the connection
+     * @param  nonce
+     *         The buffer for the nonce, with a length of {@link SecretBoxCipher#NONCE_LENGTH}
+     * @param  plaintext
+     *         The buffer to decrypt into, which should be at least as long as the received packets
+     *
+     * @return The decrypted packet, or null if the packet is not an audio packet or could not be decrypted
+     */
+    public static AudioPacket decryptAudioPacket(AudioEncryption encryption, DatagramPacket packet, SecretBoxCipher cipher, byte[] nonce, byte[] plaintext)
+    {
+        //The received data always starts at the beginning of the packet array
+        final byte[] data = packet.getData();
+        final int packetLength = packet.getLength();
+        if (packetLength <= RTP_HEADER_BYTE_LENGTH || data[PT_INDEX] != RTP_PAYLOAD_TYPE)
             return null;
 
-        byte[] extendedNonce;
-        byte[] rawPacket = encryptedPacket.getRawPacket();
+        int offset = getPayloadOffset(data, packetLength);
+        int length = packetLength - offset;
         switch (encryption)
         {
             case XSALSA20_POLY1305:
-                extendedNonce = encryptedPacket.getNoncePadded();
+                //The first 12 bytes are the rawPacket are the RTP Discord Nonce.
+                System.arraycopy(data, 0, nonce, 0, RTP_HEADER_BYTE_LENGTH);
+                Arrays.fill(nonce, RTP_HEADER_BYTE_LENGTH, nonce.length, (byte) 0);
                 break;
             case XSALSA20_POLY1305_SUFFIX:
-                extendedNonce = new byte[TweetNaclFast.SecretBox.nonceLength];
-                System.arraycopy(rawPacket, rawPacket.length - extendedNonce.length, extendedNonce, 0, extendedNonce.length);
-                break;
-            case XSALSA20_POLY1305_LITE:
-                extendedNonce = new byte[TweetNaclFast.SecretBox.nonceLength];
-                System.arraycopy(rawPacket, rawPacket.length - 4, extendedNonce, 0, 4);
-                break;
-            default:
-                AudioConnection.LOG.debug("Failed to decrypt audio packet, unsupported encryption mode!");
-                return null;
-        }
-
-        ByteBuffer encodedAudio = encryptedPacket.encodedAudio;
-        int length = encodedAudio.remaining();
-        int offset = encodedAudio.arrayOffset() + encodedAudio.position();
-        switch (encryption)
-        {
-            case XSALSA20_POLY1305:
-//                length = encodedAudio.remaining();
+                length -= SecretBoxCipher.NONCE_LENGTH;
+                if (length < 0)
+                    return null;
+                System.arraycopy(data, packetLength - nonce.length, nonce, 0, nonce.length);
                 break;
             case XSALSA20_POLY1305_LITE:
                 length -= 4;
-                break;
-            case XSALSA20_POLY1305_SUFFIX:
-                length -= TweetNaclFast.SecretBox.nonceLength;
+                if (length < 0)
+                    return null;
+                System.arraycopy(data, packetLength - 4, nonce, 0, 4);
+                Arrays.fill(nonce, 4, nonce.length, (byte) 0);
                 break;
             default:
                 AudioConnection.LOG.debug("Failed to decrypt audio packet, unsupported encryption mode!");
                 return null;
         }
+        if (length < SecretBoxCipher.TAG_LENGTH)
+            return null;
 
-        final byte[] decryptedAudio = boxer.open(encodedAudio.array(), offset, length, extendedNonce);
-        if (decryptedAudio == null)
+        //first 12 bytes of the plaintext are the RTP header
+        //the rest is the audio data, which is decrypted directly behind it
+        final int decryptedLength = RTP_HEADER_BYTE_LENGTH + length - SecretBoxCipher.TAG_LENGTH;
+        if (plaintext.length < decryptedLength)
+            plaintext = new byte[decryptedLength];
+        if (cipher.open(nonce, data, offset, length, plaintext, RTP_HEADER_BYTE_LENGTH) < 0)
         {
             AudioConnection.LOG.trace("Failed to decrypt audio packet");
             return null;
         }
-        final byte[] decryptedRawPacket = new byte[RTP_HEADER_BYTE_LENGTH + decryptedAudio.length];
+        System.arraycopy(data, 0, plaintext, 0, RTP_HEADER_BYTE_LENGTH);
 
-        //first 12 bytes of rawPacket are the RTP header
-        //the rest is the audio data we just decrypted
-        System.arraycopy(encryptedPacket.rawPacket, 0, decryptedRawPacket, 0, RTP_HEADER_BYTE_LENGTH);
-        System.arraycopy(decryptedAudio, 0, decryptedRawPacket, RTP_HEADER_BYTE_LENGTH, decryptedAudio.length);
-
-        return new AudioPacket(decryptedRawPacket);
+        return new AudioPacket(plaintext, decryptedLength);
     }
 
     private static byte[] generateRawPacket(ByteBuffer buffer, char seq, int timestamp, int ssrc, ByteBuffer data)
@@ -260,13 +296,20 @@ public class AudioPacket
     }
 
     private static void populateBuffer(char seq, int timestamp, int ssrc, ByteBuffer data, ByteBuffer buffer)
+    {
+        populateHeader(seq, timestamp, ssrc, buffer);
+        // the payload may not start at the beginning of its buffer, so restore the position instead of flipping
+        int position = data.position();
+        buffer.put(data);
+        ((Buffer) data).position(position);
+    }
+
+    private static void populateHeader(char seq, int timestamp, int ssrc, ByteBuffer buffer)
     {
         buffer.put(RTP_VERSION_PAD_EXTEND);
         buffer.put(RTP_PAYLOAD_TYPE);
         buffer.putChar(seq);
         buffer.putInt(timestamp);
         buffer.putInt(ssrc);
-        buffer.put(data);
-        ((Buffer) data).flip();
     }
 }
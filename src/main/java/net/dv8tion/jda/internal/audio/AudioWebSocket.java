@@ -38,6 +38,7 @@ import org.slf4j.Logger;
 import java.io.IOException;
 import java.net.*;
 import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.EnumSet;
 import java.util.List;
@@ -594,7 +595,17 @@ class AudioWebSocket extends WebSocketAdapter
             if (audioConnection.udpSocket != null)
                 audioConnection.udpSocket.close();
             //Create new UDP socket for communication
-            audioConnection.udpSocket = new DatagramSocket();
+            if (AudioEventLoopGroup.of(getJDA().getAudioSendFactory()) != null)
+            {
+                //The event loops need a channel, which stays in blocking mode until the discovery is done
+                DatagramChannel channel = DatagramChannel.open();
+                channel.bind(null);
+                audioConnection.udpSocket = channel.socket();
+            }
+            else
+            {
+                audioConnection.udpSocket = new DatagramSocket();
+            }
 
             //Create a byte array of length 74 containing our ssrc.
             ByteBuffer buffer = ByteBuffer.allocate(74);    //74 taken from documentation
@@ -680,8 +691,17 @@ class AudioWebSocket extends WebSocketAdapter
             {
                 try
                 {
-                    DatagramPacket keepAlivePacket = new DatagramPacket(UDP_KEEP_ALIVE, UDP_KEEP_ALIVE.length, address);
-                    audioConnection.udpSocket.send(keepAlivePacket);
+                    //Channels registered with an event loop are non-blocking, which the socket does not support
+                    DatagramChannel channel = audioConnection.udpSocket.getChannel();
+                    if (channel != null)
+                    {
+                        channel.send(ByteBuffer.wrap(UDP_KEEP_ALIVE), address);
+                    }
+                    else
+                    {
+                        DatagramPacket keepAlivePacket = new DatagramPacket(UDP_KEEP_ALIVE, UDP_KEEP_ALIVE.length, address);
+                        audioConnection.udpSocket.send(keepAlivePacket);
+                    }
                 }
                 catch (NoRouteToHostException e)
                 {
@@ -20,6 +20,7 @@ import com.sun.jna.ptr.PointerByReference;
 import net.dv8tion.jda.api.audio.OpusPacket;
 import tomp2p.opuswrapper.Opus;
 
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
@@ -29,11 +30,18 @@ import java.nio.ShortBuffer;
  */
 public class Decoder
 {
+    /** The capacity required for the buffers of {@link #decodeInto(AudioPacket, ShortBuffer)} and {@link #decodeLost(AudioPacket, ShortBuffer)} */
+    public static final int BUFFER_LENGTH = 4096;
+
     protected int ssrc;
     protected char lastSeq;
     protected int lastTimestamp;
     protected PointerByReference opusDecoder;
 
+    // Reused while holding the lock of this decoder, the decoded audio is written to buffers owned by the callers instead,
+    // since the receiving thread and the jitter buffer playout of the combined audio can use the same decoder
+    private byte[] sharedEncoded = new byte[0];
+
     protected Decoder(int ssrc)
     {
         this.ssrc = ssrc;
@@ -56,10 +64,69 @@ public class Decoder
         return newSeq > lastSeq + 1;
     }
 
-    public short[] decodeFromOpus(AudioPacket decryptedPacket)
+    public synchronized short[] decodeFromOpus(AudioPacket decryptedPacket)
+    {
+        ShortBuffer decoded = ShortBuffer.allocate(BUFFER_LENGTH);
+        int result = decode(decryptedPacket, decoded, false, false);
+        if (result < 0)
+            return null;
+
+        short[] audio = new short[result * 2];
+        decoded.get(audio);
+        return audio;
+    }
+
+    /**
+     * Decodes the packet into the provided buffer, which the calling thread reuses for the next call.
+     *
+     * @param  decryptedPacket
+     *         The packet to decode, or null to signal a lost packet
+     * @param  decoded
+     *         The buffer to decode into, with a capacity of at least {@value #BUFFER_LENGTH}
+     *
+     * @return The provided buffer with the decoded audio from position 0 to the limit, or null if the decode failed
+     */
+    public synchronized ShortBuffer decodeInto(AudioPacket decryptedPacket, ShortBuffer decoded)
+    {
+        return decodeInto(decryptedPacket, decoded, false);
+    }
+
+    /**
+     * Conceals a lost packet into the provided buffer, which the calling thread reuses for the next call.
+     * <br>If the next packet is provided, the lost audio is recovered from its forward error correction data if possible.
+     *
+     * @param  nextPacket
+     *         The packet after the lost packet, or null if it is not available
+     * @param  decoded
+     *         The buffer to decode into, with a capacity of at least {@value #BUFFER_LENGTH}
+     *
+     * @return The provided buffer with the concealed audio from position 0 to the limit, or null if the decode failed
+     */
+    public synchronized ShortBuffer decodeLost(AudioPacket nextPacket, ShortBuffer decoded)
     {
+        return decodeInto(nextPacket, decoded, nextPacket != null);
+    }
+
+    private ShortBuffer decodeInto(AudioPacket decryptedPacket, ShortBuffer decoded, boolean fec)
+    {
+        ((Buffer) decoded).clear();
+        int result = decode(decryptedPacket, decoded, true, fec);
+        if (result < 0)
+            return null;
+
+        ((Buffer) decoded).position(0).limit(result * 2);
+        return decoded;
+    }
+
+    // Returns the number of samples per channel, or a negative error code
+    // Only called while holding the lock of this decoder, so the native decoder cannot be destroyed concurrently
+    private int decode(AudioPacket decryptedPacket, ShortBuffer decoded, boolean reuseInput, boolean fec)
+    {
+        //The user left, so the decoder was closed by another thread
+        if (opusDecoder == null)
+            return Opus.OPUS_INVALID_STATE;
+
         int result;
-        ShortBuffer decoded = ShortBuffer.allocate(4096);
         if (decryptedPacket == null)    //Flag for packet-loss
         {
             result = Opus.INSTANCE.opus_decode(opusDecoder, null, 0, decoded, OpusPacket.OPUS_FRAME_SIZE, 0);
@@ -68,28 +135,37 @@ public class Decoder
         }
         else
         {
-            this.lastSeq = decryptedPacket.getSequence();
-            this.lastTimestamp = decryptedPacket.getTimestamp();
+            //The packet is decoded again after recovering the lost packet before it
+            if (!fec)
+            {
+                this.lastSeq = decryptedPacket.getSequence();
+                this.lastTimestamp = decryptedPacket.getTimestamp();
+            }
 
             ByteBuffer encodedAudio = decryptedPacket.getEncodedAudio();
             int length = encodedAudio.remaining();
             int offset = encodedAudio.arrayOffset() + encodedAudio.position();
-            byte[] buf = new byte[length];
+            byte[] buf;
+            if (!reuseInput)
+            {
+                buf = new byte[length];
+            }
+            else
+            {
+                //The native call takes no offset, so the packet is copied into a reused array
+                if (sharedEncoded.length < length)
+                    sharedEncoded = new byte[length];
+                buf = sharedEncoded;
+            }
             byte[] data = encodedAudio.array();
             System.arraycopy(data, offset, buf, 0, length);
-            result = Opus.INSTANCE.opus_decode(opusDecoder, buf, buf.length, decoded, OpusPacket.OPUS_FRAME_SIZE, 0);
+            result = Opus.INSTANCE.opus_decode(opusDecoder, buf, length, decoded, OpusPacket.OPUS_FRAME_SIZE, fec ? 1 : 0);
         }
 
-        //If we get a result that is less than 0, then there was an error. Return null as a signifier.
+        //If we get a result that is less than 0, then there was an error.
         if (result < 0)
-        {
             handleDecodeError(result);
-            return null;
-        }
-
-        short[] audio = new short[result * 2];
-        decoded.get(audio);
-        return audio;
+        return result;
     }
 
     private void handleDecodeError(int result)
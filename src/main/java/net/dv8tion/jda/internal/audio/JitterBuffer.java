@@ -0,0 +1,286 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.internal.audio;
+
+import net.dv8tion.jda.api.audio.AudioReceiveStatistics;
+import net.dv8tion.jda.api.audio.JitterBufferConfig;
+import net.dv8tion.jda.api.audio.OpusPacket;
+
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reorders the received packets of one SSRC by their RTP sequence, and releases one packet every frame after a delay.
+ *
+ * <p>The delay starts at the minimum of the config and adapts to the interarrival jitter (RFC 3550) of the stream.
+ * It only changes when the buffer runs empty, which happens between talk spurts, since Discord sends no packets during silence.
+ *
+ * <p>Packets are {@link #offer(AudioPacket, long) offered} by the receiving thread,
+ * and {@link #poll() polled} by a single thread every {@value OpusPacket#OPUS_FRAME_TIME_AMOUNT} milliseconds.
+ */
+public class JitterBuffer
+{
+    public static final int IDLE = 0;
+    public static final int PLAY = 1;
+    public static final int LOST = 2;
+
+    // Power of two larger than the maximum delay of 1 second
+    private static final int CAPACITY = 64;
+    private static final int MASK = CAPACITY - 1;
+    private static final double SAMPLES_PER_NANO = OpusPacket.OPUS_SAMPLE_RATE / (double) TimeUnit.SECONDS.toNanos(1);
+
+    private final AudioPacket[] packets = new AudioPacket[CAPACITY];
+    private final long userId;
+    private final Decoder decoder;
+    private final int minFrames;
+    private final int maxFrames;
+    private final boolean fec;
+
+    private boolean playing;
+    private boolean started;
+    private int nextSeq;
+    private int highestSeq;
+    private int buffered;
+    private int targetFrames;
+
+    private boolean hasTransit;
+    private long lastTransit;
+    private double jitter; // in samples
+
+    private long received, late, lost, recovered, discarded;
+
+    // Only accessed by the polling thread
+    private AudioPacket packet;
+    private AudioPacket recoveryPacket;
+
+    public JitterBuffer(long userId, Decoder decoder, JitterBufferConfig config)
+    {
+        this.userId = userId;
+        this.decoder = decoder;
+        //The buffer has to start playing before it is full, otherwise it would never play
+        this.minFrames = Math.min(CAPACITY - 1, toFrames(config.getMinDelay()));
+        this.maxFrames = Math.min(CAPACITY - 1, Math.max(1, Math.max(minFrames, toFrames(config.getMaxDelay()))));
+        this.fec = config.isForwardErrorCorrection();
+        this.targetFrames = minFrames;
+    }
+
+    public long getUserId()
+    {
+        return userId;
+    }
+
+    public Decoder getDecoder()
+    {
+        return decoder;
+    }
+
+    /**
+     * Adds a received packet to the buffer.
+     *
+     * @param  packet
+     *         The decrypted packet
+     * @param  arrivalNanos
+     *         The {@link System#nanoTime()} when the packet was received
+     */
+    public synchronized void offer(AudioPacket packet, long arrivalNanos)
+    {
+        received++;
+        updateJitter(packet.getTimestamp(), arrivalNanos);
+
+        int seq = packet.getSequence();
+        if (!started || (!playing && buffered == 0))
+        {
+            //First packet of a talk spurt
+            started = true;
+            nextSeq = highestSeq = seq;
+        }
+
+        int distance = distance(nextSeq, seq);
+        if (distance < 0)
+        {
+            //Before playing, the buffer can still start at an earlier packet
+            if (playing || distance(seq, highestSeq) >= CAPACITY)
+            {
+                late++;
+                return;
+            }
+            nextSeq = seq;
+        }
+        else if (distance >= CAPACITY)
+        {
+            //The stream jumped ahead, so the buffered packets will never be played
+            clear();
+            playing = false;
+            nextSeq = highestSeq = seq;
+        }
+
+        int index = seq & MASK;
+        if (packets[index] != null)
+            return; // duplicate
+        packets[index] = packet;
+        buffered++;
+        if (distance(highestSeq, seq) > 0)
+            highestSeq = seq;
+    }
+
+    /**
+     * Releases the next frame, which is called once every frame.
+     *
+     * <ul>
+     *     <li>{@link #PLAY} if the next packet is available from {@link #getPacket()}</li>
+     *     <li>{@link #LOST} if the next packet is missing, but later packets are buffered.
+     *         The next packet for forward error correction is available from {@link #getRecoveryPacket()}, if buffered.</li>
+     *     <li>{@link #IDLE} if no audio should be played, because the buffer is empty or still filling up</li>
+     * </ul>
+     *
+     * @return The result
+     */
+    public synchronized int poll()
+    {
+        packet = recoveryPacket = null;
+        if (!playing)
+        {
+            if (buffered == 0 || span() < targetFrames)
+                return IDLE;
+            playing = true;
+        }
+        if (buffered == 0)
+        {
+            //The user stopped talking, so the delay can change before the next talk spurt
+            playing = false;
+            targetFrames = computeTargetFrames();
+            return IDLE;
+        }
+
+        int index = nextSeq & MASK;
+        packet = packets[index];
+        packets[index] = null;
+        nextSeq = (nextSeq + 1) & 0xFFFF;
+
+        int result;
+        if (packet != null)
+        {
+            buffered--;
+            result = PLAY;
+        }
+        else
+        {
+            lost++;
+            if (fec)
+                recoveryPacket = packets[nextSeq & MASK];
+            if (recoveryPacket != null)
+                recovered++;
+            result = LOST;
+        }
+
+        //Catch up, if the buffer holds more than the maximum delay
+        while (buffered > 0 && span() > maxFrames)
+        {
+            index = nextSeq & MASK;
+            if (packets[index] != null)
+            {
+                packets[index] = null;
+                buffered--;
+                discarded++;
+            }
+            nextSeq = (nextSeq + 1) & 0xFFFF;
+        }
+        return result;
+    }
+
+    /**
+     * Polls the next frame, and decodes or conceals it with the decoder of this SSRC.
+     *
+     * @param  decoded
+     *         The buffer to decode into, with a capacity of at least {@value Decoder#BUFFER_LENGTH}
+     *
+     * @return The provided buffer with the decoded audio, or null if no audio should be played
+     */
+    public ShortBuffer playout(ShortBuffer decoded)
+    {
+        switch (poll())
+        {
+            case PLAY:
+                return decoder.decodeInto(packet, decoded);
+            case LOST:
+                return decoder.decodeLost(recoveryPacket, decoded);
+            default:
+                return null;
+        }
+    }
+
+    public AudioPacket getPacket()
+    {
+        return packet;
+    }
+
+    public AudioPacket getRecoveryPacket()
+    {
+        return recoveryPacket;
+    }
+
+    public synchronized AudioReceiveStatistics getStatistics()
+    {
+        double jitterMillis = jitter / (OpusPacket.OPUS_SAMPLE_RATE / 1000.0);
+        return new AudioReceiveStatistics(userId, received, late, lost, recovered, discarded,
+                jitterMillis, targetFrames * OpusPacket.OPUS_FRAME_TIME_AMOUNT);
+    }
+
+    private void updateJitter(int timestamp, long arrivalNanos)
+    {
+        long arrival = (long) (arrivalNanos * SAMPLES_PER_NANO);
+        long transit = arrival - (timestamp & 0xFFFFFFFFL);
+        if (hasTransit)
+        {
+            //The timestamp wraps around, so only small differences are meaningful
+            long difference = Math.abs((int) (transit - lastTransit));
+            jitter += (difference - jitter) / 16;
+        }
+        hasTransit = true;
+        lastTransit = transit;
+    }
+
+    private int computeTargetFrames()
+    {
+        //Twice the jitter covers most of the delay variation
+        int jitterFrames = (int) Math.ceil(2 * jitter / OpusPacket.OPUS_FRAME_SIZE);
+        return Math.min(maxFrames, minFrames + jitterFrames);
+    }
+
+    // The number of frames from the next packet to the highest packet
+    private int span()
+    {
+        return distance(nextSeq, highestSeq) + 1;
+    }
+
+    private void clear()
+    {
+        Arrays.fill(packets, null);
+        buffered = 0;
+    }
+
+    // Distance between two 16 bit sequence numbers, considering the wrap around
+    private static int distance(int from, int to)
+    {
+        return (short) (to - from);
+    }
+
+    private static int toFrames(int millis)
+    {
+        return (millis + OpusPacket.OPUS_FRAME_TIME_AMOUNT - 1) / OpusPacket.OPUS_FRAME_TIME_AMOUNT;
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.internal.audio;
+
+import net.dv8tion.jda.internal.utils.Checks;
+
+/**
+ * XSalsa20-Poly1305 authenticated encryption, compatible with the secretbox of NaCl.
+ *
+ * <p>The sealed output is the 16 byte authenticator followed by the ciphertext,
+ * which is the same format as {@link com.iwebpp.crypto.TweetNaclFast.SecretBox}.
+ * Unlike the secretbox of TweetNaclFast, this does not need zero padded copies of the input,
+ * and writes directly into the provided output array.
+ * All intermediate state is kept in the instance, so this does not allocate anything per packet.
+ *
+ * <p>This is not thread-safe, every thread has to use its own instance.
+ */
+public class SecretBoxCipher
+{
+    public static final int KEY_LENGTH = 32;
+    public static final int NONCE_LENGTH = 24;
+    public static final int TAG_LENGTH = 16;
+
+    private static final int MASK_26 = 0x3ffffff;
+
+    private final int[] key = new int[8];
+    // The input of the salsa20 core, and the resulting key stream as words and bytes
+    private final int[] state = new int[16];
+    private final int[] block = new int[16];
+    private final byte[] keyStream = new byte[64];
+
+    // Poly1305 key and accumulator, in 26 bit limbs
+    private long r0, r1, r2, r3, r4;
+    private long s1, s2, s3, s4;
+    private long h0, h1, h2, h3, h4;
+    private long pad0, pad1, pad2, pad3;
+    private int tag0, tag1, tag2, tag3;
+
+    public SecretBoxCipher(byte[] key)
+    {
+        Checks.notNull(key, "Key");
+        Checks.check(key.length == KEY_LENGTH, "Key must be %d bytes", KEY_LENGTH);
+        for (int i = 0; i < 8; i++)
+            this.key[i] = getIntLE(key, i * 4);
+    }
+
+    /**
+     * Encrypts and authenticates the input.
+     * <br>The input and output may be the same array, if the output offset is {@value #TAG_LENGTH} bytes before the input offset.
+     *
+     * @param  nonce
+     *         The nonce, with a length of {@value #NONCE_LENGTH} bytes
+     * @param  input
+     *         The array of the plaintext
+     * @param  inputOffset
+     *         The start of the plaintext
+     * @param  length
+     *         The length of the plaintext
+     * @param  output
+     *         The array for the authenticator and ciphertext, which needs {@code length + }{@value #TAG_LENGTH} bytes
+     * @param  outputOffset
+     *         The start of the output
+     *
+     * @return The number of bytes written to the output
+     */
+    public int seal(byte[] nonce, byte[] input, int inputOffset, int length, byte[] output, int outputOffset)
+    {
+        initStream(nonce);
+        xorStream(input, inputOffset, output, outputOffset + TAG_LENGTH, length);
+        authenticate(output, outputOffset + TAG_LENGTH, length);
+        setIntLE(output, outputOffset, tag0);
+        setIntLE(output, outputOffset + 4, tag1);
+        setIntLE(output, outputOffset + 8, tag2);
+        setIntLE(output, outputOffset + 12, tag3);
+        return length + TAG_LENGTH;
+    }
+
+    /**
+     * Verifies and decrypts the input.
+     * <br>The input and output may be the same array, if the output offset is not after the input offset.
+     *
+     * @param  nonce
+     *         The nonce, with a length of {@value #NONCE_LENGTH} bytes
+     * @param  input
+     *         The array of the authenticator and ciphertext
+     * @param  inputOffset
+     *         The start of the authenticator
+     * @param  length
+     *         The length of the authenticator and ciphertext
+     * @param  output
+     *         The array for the plaintext, which needs {@code length - }{@value #TAG_LENGTH} bytes
+     * @param  outputOffset
+     *         The start of the output
+     *
+     * @return The length of the plaintext, or -1 if the input is too short or not authentic
+     */
+    public int open(byte[] nonce, byte[] input, int inputOffset, int length, byte[] output, int outputOffset)
+    {
+        if (length < TAG_LENGTH)
+            return -1;
+        int messageLength = length - TAG_LENGTH;
+        initStream(nonce);
+        authenticate(input, inputOffset + TAG_LENGTH, messageLength);
+        // Compare in constant time
+        int diff = (tag0 ^ getIntLE(input, inputOffset))
+                 | (tag1 ^ getIntLE(input, inputOffset + 4))
+                 | (tag2 ^ getIntLE(input, inputOffset + 8))
+                 | (tag3 ^ getIntLE(input, inputOffset + 12));
+        if (diff != 0)
+            return -1;
+        xorStream(input, inputOffset + TAG_LENGTH, output, outputOffset, messageLength);
+        return messageLength;
+    }
+
+    // Derives the subkey with hsalsa20 and computes the first block of the stream, which starts with the poly1305 key
+    private void initStream(byte[] nonce)
+    {
+        int[] state = this.state;
+        int[] block = this.block;
+        setConstants(state);
+        state[1] = key[0];
+        state[2] = key[1];
+        state[3] = key[2];
+        state[4] = key[3];
+        state[11] = key[4];
+        state[12] = key[5];
+        state[13] = key[6];
+        state[14] = key[7];
+        state[6] = getIntLE(nonce, 0);
+        state[7] = getIntLE(nonce, 4);
+        state[8] = getIntLE(nonce, 8);
+        state[9] = getIntLE(nonce, 12);
+        salsa20(state, block, false);
+
+        state[1] = block[0];
+        state[2] = block[5];
+        state[3] = block[10];
+        state[4] = block[15];
+        state[11] = block[6];
+        state[12] = block[7];
+        state[13] = block[8];
+        state[14] = block[9];
+        state[6] = getIntLE(nonce, 16);
+        state[7] = getIntLE(nonce, 20);
+        state[8] = 0;
+        state[9] = 0;
+        nextBlock();
+
+        // The first 32 bytes of the stream are the one-time key, the rest encrypts the start of the message
+        long t0 = block[0] & 0xffffffffL;
+        long t1 = block[1] & 0xffffffffL;
+        long t2 = block[2] & 0xffffffffL;
+        long t3 = block[3] & 0xffffffffL;
+        r0 = t0 & 0x3ffffff;
+        r1 = ((t0 >>> 26) | (t1 << 6)) & 0x3ffff03;
+        r2 = ((t1 >>> 20) | (t2 << 12)) & 0x3ffc0ff;
+        r3 = ((t2 >>> 14) | (t3 << 18)) & 0x3f03fff;
+        r4 = (t3 >>> 8) & 0x00fffff;
+        s1 = r1 * 5;
+        s2 = r2 * 5;
+        s3 = r3 * 5;
+        s4 = r4 * 5;
+        pad0 = block[4] & 0xffffffffL;
+        pad1 = block[5] & 0xffffffffL;
+        pad2 = block[6] & 0xffffffffL;
+        pad3 = block[7] & 0xffffffffL;
+    }
+
+    private void nextBlock()
+    {
+        salsa20(state, block, true);
+        for (int i = 0; i < 16; i++)
+            setIntLE(keyStream, i * 4, block[i]);
+        // 64 bit block counter
+        if (++state[8] == 0)
+            state[9]++;
+    }
+
+    private void xorStream(byte[] input, int inputOffset, byte[] output, int outputOffset, int length)
+    {
+        byte[] keyStream = this.keyStream;
+        // The first block was already computed by initStream, and its first half is used for the poly1305 key
+        int streamOffset = 32;
+        int i = 0;
+        while (i < length)
+        {
+            if (streamOffset == 64)
+            {
+                nextBlock();
+                streamOffset = 0;
+            }
+            int n = Math.min(length - i, 64 - streamOffset);
+            for (int j = 0; j < n; j++)
+                output[outputOffset + i + j] = (byte) (input[inputOffset + i + j] ^ keyStream[streamOffset + j]);
+            i += n;
+            streamOffset += n;
+        }
+    }
+
+    private void authenticate(byte[] message, int offset, int length)
+    {
+        h0 = h1 = h2 = h3 = h4 = 0;
+        int end = offset + length;
+        while (end - offset >= 16)
+        {
+            poly1305Block(getIntLE(message, offset), getIntLE(message, offset + 4),
+                          getIntLE(message, offset + 8), getIntLE(message, offset + 12), 1 << 24);
+            offset += 16;
+        }
+
+        int remaining = end - offset;
+        if (remaining > 0)
+        {
+            // The last block is padded with a single 1 bit, instead of the implicit bit of full blocks
+            int w0 = 0, w1 = 0, w2 = 0, w3 = 0;
+            for (int i = 0; i <= remaining; i++)
+            {
+                int b = i < remaining ? message[offset + i] & 0xff : 1;
+                int shift = (i & 3) << 3;
+                switch (i >> 2)
+                {
+                    case 0: w0 |= b << shift; break;
+                    case 1: w1 |= b << shift; break;
+                    case 2: w2 |= b << shift; break;
+                    default: w3 |= b << shift; break;
+                }
+            }
+            poly1305Block(w0, w1, w2, w3, 0);
+        }
+        poly1305Finish();
+    }
+
+    private void poly1305Block(int m0, int m1, int m2, int m3, int hibit)
+    {
+        long t0 = m0 & 0xffffffffL;
+        long t1 = m1 & 0xffffffffL;
+        long t2 = m2 & 0xffffffffL;
+        long t3 = m3 & 0xffffffffL;
+
+        long h0 = this.h0 + (t0 & MASK_26);
+        long h1 = this.h1 + (((t0 >>> 26) | (t1 << 6)) & MASK_26);
+        long h2 = this.h2 + (((t1 >>> 20) | (t2 << 12)) & MASK_26);
+        long h3 = this.h3 + (((t2 >>> 14) | (t3 << 18)) & MASK_26);
+        long h4 = this.h4 + ((t3 >>> 8) | hibit);
+
+        long d0 = h0 * r0 + h1 * s4 + h2 * s3 + h3 * s2 + h4 * s1;
+        long d1 = h0 * r1 + h1 * r0 + h2 * s4 + h3 * s3 + h4 * s2;
+        long d2 = h0 * r2 + h1 * r1 + h2 * r0 + h3 * s4 + h4 * s3;
+        long d3 = h0 * r3 + h1 * r2 + h2 * r1 + h3 * r0 + h4 * s4;
+        long d4 = h0 * r4 + h1 * r3 + h2 * r2 + h3 * r1 + h4 * r0;
+
+        long c = d0 >>> 26;
+        h0 = d0 & MASK_26;
+        d1 += c;
+        c = d1 >>> 26;
+        h1 = d1 & MASK_26;
+        d2 += c;
+        c = d2 >>> 26;
+        h2 = d2 & MASK_26;
+        d3 += c;
+        c = d3 >>> 26;
+        h3 = d3 & MASK_26;
+        d4 += c;
+        c = d4 >>> 26;
+        h4 = d4 & MASK_26;
+        h0 += c * 5;
+        c = h0 >>> 26;
+        h0 &= MASK_26;
+        h1 += c;
+
+        this.h0 = h0;
+        this.h1 = h1;
+        this.h2 = h2;
+        this.h3 = h3;
+        this.h4 = h4;
+    }
+
+    private void poly1305Finish()
+    {
+        long h0 = this.h0, h1 = this.h1, h2 = this.h2, h3 = this.h3, h4 = this.h4;
+
+        // Fully carry h
+        long c = h1 >>> 26;
+        h1 &= MASK_26;
+        h2 += c;
+        c = h2 >>> 26;
+        h2 &= MASK_26;
+        h3 += c;
+        c = h3 >>> 26;
+        h3 &= MASK_26;
+        h4 += c;
+        c = h4 >>> 26;
+        h4 &= MASK_26;
+        h0 += c * 5;
+        c = h0 >>> 26;
+        h0 &= MASK_26;
+        h1 += c;
+
+        // Compute h - p, and use it if h is not smaller than p
+        long g0 = h0 + 5;
+        c = g0 >>> 26;
+        g0 &= MASK_26;
+        long g1 = h1 + c;
+        c = g1 >>> 26;
+        g1 &= MASK_26;
+        long g2 = h2 + c;
+        c = g2 >>> 26;
+        g2 &= MASK_26;
+        long g3 = h3 + c;
+        c = g3 >>> 26;
+        g3 &= MASK_26;
+        long g4 = h4 + c - (1 << 26);
+
+        long mask = (g4 >>> 63) - 1;
+        h0 = (h0 & ~mask) | (g0 & mask);
+        h1 = (h1 & ~mask) | (g1 & mask);
+        h2 = (h2 & ~mask) | (g2 & mask);
+        h3 = (h3 & ~mask) | (g3 & mask);
+        h4 = (h4 & ~mask) | (g4 & mask);
+
+        // h + pad mod 2^128
+        long f0 = ((h0) | (h1 << 26)) & 0xffffffffL;
+        long f1 = ((h1 >>> 6) | (h2 << 20)) & 0xffffffffL;
+        long f2 = ((h2 >>> 12) | (h3 << 14)) & 0xffffffffL;
+        long f3 = ((h3 >>> 18) | (h4 << 8)) & 0xffffffffL;
+
+        long f = f0 + pad0;
+        tag0 = (int) f;
+        f = f1 + pad1 + (f >>> 32);
+        tag1 = (int) f;
+        f = f2 + pad2 + (f >>> 32);
+        tag2 = (int) f;
+        f = f3 + pad3 + (f >>> 32);
+        tag3 = (int) f;
+    }
+
+    private static void setConstants(int[] state)
+    {
+        // "expand 32-byte k"
+        state[0] = 0x61707865;
+        state[5] = 0x3320646e;
+        state[10] = 0x79622d32;
+        state[15] = 0x6b206574;
+    }
+
+    // The salsa20 core with 20 rounds, hsalsa20 is the same core without adding the input to the output
+    private static void salsa20(int[] input, int[] output, boolean addInput)
+    {
+        int x0 = input[0], x1 = input[1], x2 = input[2], x3 = input[3];
+        int x4 = input[4], x5 = input[5], x6 = input[6], x7 = input[7];
+        int x8 = input[8], x9 = input[9], x10 = input[10], x11 = input[11];
+        int x12 = input[12], x13 = input[13], x14 = input[14], x15 = input[15];
+
+        for (int i = 0; i < 20; i += 2)
+        {
+            // Column round
+            x4 ^= Integer.rotateLeft(x0 + x12, 7);
+            x8 ^= Integer.rotateLeft(x4 + x0, 9);
+            x12 ^= Integer.rotateLeft(x8 + x4, 13);
+            x0 ^= Integer.rotateLeft(x12 + x8, 18);
+            x9 ^= Integer.rotateLeft(x5 + x1, 7);
+            x13 ^= Integer.rotateLeft(x9 + x5, 9);
+            x1 ^= Integer.rotateLeft(x13 + x9, 13);
+            x5 ^= Integer.rotateLeft(x1 + x13, 18);
+            x14 ^= Integer.rotateLeft(x10 + x6, 7);
+            x2 ^= Integer.rotateLeft(x14 + x10, 9);
+            x6 ^= Integer.rotateLeft(x2 + x14, 13);
+            x10 ^= Integer.rotateLeft(x6 + x2, 18);
+            x3 ^= Integer.rotateLeft(x15 + x11, 7);
+            x7 ^= Integer.rotateLeft(x3 + x15, 9);
+            x11 ^= Integer.rotateLeft(x7 + x3, 13);
+            x15 ^= Integer.rotateLeft(x11 + x7, 18);
+
+            // Row round
+            x1 ^= Integer.rotateLeft(x0 + x3, 7);
+            x2 ^= Integer.rotateLeft(x1 + x0, 9);
+            x3 ^= Integer.rotateLeft(x2 + x1, 13);
+            x0 ^= Integer.rotateLeft(x3 + x2, 18);
+            x6 ^= Integer.rotateLeft(x5 + x4, 7);
+            x7 ^= Integer.rotateLeft(x6 + x5, 9);
+            x4 ^= Integer.rotateLeft(x7 + x6, 13);
+            x5 ^= Integer.rotateLeft(x4 + x7, 18);
+            x11 ^= Integer.rotateLeft(x10 + x9, 7);
+            x8 ^= Integer.rotateLeft(x11 + x10, 9);
+            x9 ^= Integer.rotateLeft(x8 + x11, 13);
+            x10 ^= Integer.rotateLeft(x9 + x8, 18);
+            x12 ^= Integer.rotateLeft(x15 + x14, 7);
+            x13 ^= Integer.rotateLeft(x12 + x15, 9);
+            x14 ^= Integer.rotateLeft(x13 + x12, 13);
+            x15 ^= Integer.rotateLeft(x14 + x13, 18);
+        }
+
+        if (addInput)
+        {
+            x0 += input[0]; x1 += input[1]; x2 += input[2]; x3 += input[3];
+            x4 += input[4]; x5 += input[5]; x6 += input[6]; x7 += input[7];
+            x8 += input[8]; x9 += input[9]; x10 += input[10]; x11 += input[11];
+            x12 += input[12]; x13 += input[13]; x14 += input[14]; x15 += input[15];
+        }
+
+        output[0] = x0; output[1] = x1; output[2] = x2; output[3] = x3;
+        output[4] = x4; output[5] = x5; output[6] = x6; output[7] = x7;
+        output[8] = x8; output[9] = x9; output[10] = x10; output[11] = x11;
+        output[12] = x12; output[13] = x13; output[14] = x14; output[15] = x15;
+    }
+
+    private static int getIntLE(byte[] array, int offset)
+    {
+        return (array[offset] & 0xff)
+             | (array[offset + 1] & 0xff) << 8
+             | (array[offset + 2] & 0xff) << 16
+             | (array[offset + 3] & 0xff) << 24;
+    }
+
+    private static void setIntLE(byte[] array, int offset, int value)
+    {
+        array[offset] = (byte) value;
+        array[offset + 1] = (byte) (value >>> 8);
+        array[offset + 2] = (byte) (value >>> 16);
+        array[offset + 3] = (byte) (value >>> 24);
+    }
+}
@@ -547,7 +547,7 @@ public class EntityBuilder extends AbstractEntityBuilder
                 getJDA().getUsersView().remove(user.getIdLong());
             }
 
-            GuildVoiceStateImpl voiceState = (GuildVoiceStateImpl) member.getVoiceState();
+            GuildVoiceStateImpl voiceState = member.peekVoiceState();
             if (voiceState != null)
             {
                 AudioChannel connectedChannel = voiceState.getChannel();
@@ -604,7 +604,7 @@ public class EntityBuilder extends AbstractEntityBuilder
             // Create a brand new member
             member = new MemberImpl(guild, user);
             configureMember(memberJson, member);
-            Set<Role> roles = member.getRoleSet();
+            List<Role> roles = new ArrayList<>(roleArray.length());
             for (int i = 0; i < roleArray.length(); i++)
             {
                 long roleId = roleArray.getUnsignedLong(i);
@@ -612,6 +612,7 @@ public class EntityBuilder extends AbstractEntityBuilder
                 if (role != null)
                     roles.add(role);
             }
+            member.setRoles(roles);
         }
         else
         {
@@ -628,7 +629,7 @@ public class EntityBuilder extends AbstractEntityBuilder
         }
 
         // Load voice state and presence if necessary
-        if (voiceStateJson != null && member.getVoiceState() != null)
+        if (voiceStateJson != null && member.getOrCreateVoiceState() != null)
             createVoiceState(guild, voiceStateJson, user, member);
         if (presence != null)
             createPresence(member, presence);
@@ -637,7 +638,7 @@ public class EntityBuilder extends AbstractEntityBuilder
 
     private void createVoiceState(GuildImpl guild, DataObject voiceStateJson, User user, MemberImpl member)
     {
-        GuildVoiceStateImpl voiceState = (GuildVoiceStateImpl) member.getVoiceState();
+        GuildVoiceStateImpl voiceState = member.getOrCreateVoiceState();
 
         final long channelId = voiceStateJson.getLong("channel_id");
         AudioChannel audioChannel = (AudioChannel) guild.getGuildChannelById(channelId);
@@ -794,6 +795,8 @@ public class EntityBuilder extends AbstractEntityBuilder
             currentRoles.removeAll(removedRoles);
         if (newRoles.size() > 0)
             currentRoles.addAll(newRoles);
+        if (removedRoles.size() > 0 || newRoles.size() > 0)
+            member.setRoles(currentRoles);
 
         if (removedRoles.size() > 0)
         {
@@ -145,6 +145,16 @@ public class GuildImpl implements Guild
             memberPresences = new CacheView.SimpleCacheView<>(MemberPresenceImpl.class, null);
         else
             memberPresences = null;
+        if (api.isOptimisticCacheReads())
+        {
+            channelCache.setOptimisticReads(true);
+            roleCache.setOptimisticReads(true);
+            emojicache.setOptimisticReads(true);
+            stickerCache.setOptimisticReads(true);
+            memberCache.setOptimisticReads(true);
+            if (memberPresences != null)
+                memberPresences.setOptimisticReads(true);
+        }
     }
 
     @Override
@@ -1153,8 +1163,12 @@ public class GuildImpl implements Guild
     @Override
     public List<GuildVoiceState> getVoiceStates()
     {
+        // Members without a stored state get a temporary disconnected state, which is not kept
         return getMembersView().stream()
-                .map(Member::getVoiceState)
+                .map(member -> {
+                    GuildVoiceStateImpl state = ((MemberImpl) member).peekVoiceState();
+                    return state != null ? state : member.getVoiceState();
+                })
                 .filter(Objects::nonNull)
                 .collect(Helpers.toUnmodifiableList());
     }
@@ -41,14 +41,21 @@ import java.awt.*;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.stream.Stream;
 
 public class MemberImpl implements Member, MemberMixin<MemberImpl>
 {
+    private static final long[] NO_ROLES = new long[0];
+    private static final AtomicReferenceFieldUpdater<MemberImpl, GuildVoiceStateImpl> VOICE_STATE
+            = AtomicReferenceFieldUpdater.newUpdater(MemberImpl.class, GuildVoiceStateImpl.class, "voiceState");
+
     private final JDAImpl api;
-    private final Set<Role> roles = ConcurrentHashMap.newKeySet();
-    private final GuildVoiceState voiceState;
+    private final boolean cacheVoiceState;
+    // Sorted role ids, which are replaced on every change and resolved with the role cache of the guild
+    private volatile long[] roleIds = NO_ROLES;
+    // Created on first use, since most members never connect to an audio channel
+    private volatile GuildVoiceStateImpl voiceState;
 
     private GuildImpl guild;
     private User user;
@@ -64,8 +71,7 @@ public class MemberImpl implements Member, MemberMixin<MemberImpl>
         this.guild = guild;
         this.user = user;
         this.joinDate = 0;
-        boolean cacheState = api.isCacheFlagSet(CacheFlag.VOICE_STATE) || user.equals(api.getSelfUser());
-        this.voiceState = cacheState ? new GuildVoiceStateImpl(this) : null;
+        this.cacheVoiceState = api.isCacheFlagSet(CacheFlag.VOICE_STATE) || user.equals(api.getSelfUser());
     }
 
     @Override
@@ -146,7 +152,11 @@ public class MemberImpl implements Member, MemberMixin<MemberImpl>
     @Override
     public GuildVoiceState getVoiceState()
     {
-        return voiceState;
+        if (!cacheVoiceState)
+            return null;
+        GuildVoiceStateImpl state = voiceState;
+        // Members without a stored state were never connected, so a temporary disconnected state is equivalent
+        return state != null ? state : new GuildVoiceStateImpl(this);
     }
 
     @Nonnull
@@ -208,7 +218,7 @@ public class MemberImpl implements Member, MemberMixin<MemberImpl>
     @Override
     public List<Role> getRoles()
     {
-        List<Role> roleList = new ArrayList<>(roles);
+        List<Role> roleList = new ArrayList<>(getRoleSet());
         roleList.sort(Comparator.reverseOrder());
 
         return Collections.unmodifiableList(roleList);
@@ -443,9 +453,64 @@ public class MemberImpl implements Member, MemberMixin<MemberImpl>
 
     public Set<Role> getRoleSet()
     {
+        long[] ids = roleIds;
+        Set<Role> roles = new HashSet<>(ids.length * 2);
+        GuildImpl guild = getGuild();
+        for (long id : ids)
+        {
+            Role role = guild.getRoleById(id);
+            if (role != null)
+                roles.add(role);
+        }
         return roles;
     }
 
+    // The returned array must not be modified
+    public long[] getRoleIds()
+    {
+        return roleIds;
+    }
+
+    public synchronized MemberImpl setRoles(Collection<? extends Role> roles)
+    {
+        long[] ids = new long[roles.size()];
+        int i = 0;
+        for (Role role : roles)
+            ids[i++] = role.getIdLong();
+        Arrays.sort(ids);
+        this.roleIds = ids.length == 0 ? NO_ROLES : ids;
+        return this;
+    }
+
+    public synchronized void removeRole(long roleId)
+    {
+        long[] ids = roleIds;
+        int index = Arrays.binarySearch(ids, roleId);
+        if (index < 0)
+            return;
+        long[] updated = new long[ids.length - 1];
+        System.arraycopy(ids, 0, updated, 0, index);
+        System.arraycopy(ids, index + 1, updated, index, updated.length - index);
+        this.roleIds = updated;
+    }
+
+    // Returns null if the voice state was not used yet, instead of creating it
+    public GuildVoiceStateImpl peekVoiceState()
+    {
+        return voiceState;
+    }
+
+    // Only used to update the voice state, reading it should not store a state for every member
+    public GuildVoiceStateImpl getOrCreateVoiceState()
+    {
+        if (!cacheVoiceState)
+            return null;
+        GuildVoiceStateImpl state = voiceState;
+        if (state == null && !VOICE_STATE.compareAndSet(this, null, state = new GuildVoiceStateImpl(this)))
+            state = voiceState;
+        return state;
+    }
+
     public long getBoostDateRaw()
     {
         return boostDate;
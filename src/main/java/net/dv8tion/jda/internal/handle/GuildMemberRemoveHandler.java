@@ -95,7 +95,7 @@ public class GuildMemberRemoveHandler extends SocketHandler
             return null;
         }
 
-        GuildVoiceStateImpl voiceState = (GuildVoiceStateImpl) member.getVoiceState();
+        GuildVoiceStateImpl voiceState = member.peekVoiceState();
         if (voiceState != null && voiceState.inAudioChannel()) //If this user was in an AudioChannel, fire VoiceLeaveEvent.
         {
             AudioChannel channel = voiceState.getChannel();
@@ -61,11 +61,7 @@ public class GuildRoleDeleteHandler extends SocketHandler
         guild.getRolesView().remove(roleId);
 
         //Now that the role is removed from the Guild, remove it from all users and emojis.
-        guild.getMembersView().forEach(m ->
-        {
-            MemberImpl member = (MemberImpl) m;
-            member.getRoleSet().remove(removedRole);
-        });
+        guild.getMembersView().forEach(m -> ((MemberImpl) m).removeRole(roleId));
 
         for (RichCustomEmoji emoji : guild.getEmojiCache())
         {
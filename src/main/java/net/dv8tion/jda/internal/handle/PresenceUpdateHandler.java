@@ -121,10 +121,13 @@ public class PresenceUpdateHandler extends SocketHandler
             if (member != null)
             {
                 getJDA().getEntityBuilder().updateMemberCache(member);
-                getJDA().handleEvent(
-                    new UserUpdateOnlineStatusEvent(
-                        getJDA(), responseNumber,
-                        member, oldStatus));
+                if (getJDA().isEventConsumed(UserUpdateOnlineStatusEvent.class))
+                {
+                    getJDA().handleEvent(
+                        new UserUpdateOnlineStatusEvent(
+                            getJDA(), responseNumber,
+                            member, oldStatus));
+                }
             }
         }
         return null;
@@ -161,6 +164,8 @@ public class PresenceUpdateHandler extends SocketHandler
         boolean unorderedEquals = Helpers.deepEqualsUnordered(oldActivities, newActivities);
         if (unorderedEquals)
         {
+            if (!getJDA().isEventConsumed(UserUpdateActivityOrderEvent.class))
+                return;
             boolean deepEquals = Helpers.deepEquals(oldActivities, newActivities);
             if (!deepEquals)
             {
@@ -173,34 +178,42 @@ public class PresenceUpdateHandler extends SocketHandler
         else
         {
             getJDA().getEntityBuilder().updateMemberCache(member);
-            List<Activity> stoppedActivities = new ArrayList<>(oldActivities); // create modifiable copy
-            List<Activity> startedActivities = new ArrayList<>();
-            for (Activity activity : newActivities)
+            boolean startConsumed = getJDA().isEventConsumed(UserActivityStartEvent.class);
+            boolean endConsumed = getJDA().isEventConsumed(UserActivityEndEvent.class);
+            if (startConsumed || endConsumed)
             {
-                if (!stoppedActivities.remove(activity))
-                    startedActivities.add(activity);
-            }
+                List<Activity> stoppedActivities = new ArrayList<>(oldActivities); // create modifiable copy
+                List<Activity> startedActivities = new ArrayList<>();
+                for (Activity activity : newActivities)
+                {
+                    if (!stoppedActivities.remove(activity))
+                        startedActivities.add(activity);
+                }
 
-            for (Activity activity : startedActivities)
-            {
-                getJDA().handleEvent(
-                    new UserActivityStartEvent(
-                        getJDA(), responseNumber,
-                        member, activity));
+                for (int i = 0; startConsumed && i < startedActivities.size(); i++)
+                {
+                    getJDA().handleEvent(
+                        new UserActivityStartEvent(
+                            getJDA(), responseNumber,
+                            member, startedActivities.get(i)));
+                }
+
+                for (int i = 0; endConsumed && i < stoppedActivities.size(); i++)
+                {
+                    getJDA().handleEvent(
+                        new UserActivityEndEvent(
+                            getJDA(), responseNumber,
+                            member, stoppedActivities.get(i)));
+                }
             }
 
-            for (Activity activity : stoppedActivities)
+            if (getJDA().isEventConsumed(UserUpdateActivitiesEvent.class))
             {
                 getJDA().handleEvent(
-                    new UserActivityEndEvent(
+                    new UserUpdateActivitiesEvent(
                         getJDA(), responseNumber,
-                        member, activity));
+                        member, oldActivities));
             }
-
-            getJDA().handleEvent(
-                new UserUpdateActivitiesEvent(
-                    getJDA(), responseNumber,
-                    member, oldActivities));
         }
     }
 
@@ -35,12 +35,14 @@ public abstract class SocketHandler
     {
         this.allContent = o;
         this.responseNumber = responseTotal;
-        if (getJDA().isEventPassthrough()) CURRENT_EVENT.set(o);
+        // Also used to partition the events into ordered lanes, cached events may be handled while handling another event
+        final DataObject previous = CURRENT_EVENT.get();
+        CURRENT_EVENT.set(o);
         final Long guildId = handleInternally(o.getObject("d"));
         if (guildId != null)
             getJDA().getGuildSetupController().cacheEvent(guildId, o);
         this.allContent = null;
-        if (getJDA().isEventPassthrough()) CURRENT_EVENT.set(null);
+        CURRENT_EVENT.set(previous);
     }
 
     protected JDAImpl getJDA()
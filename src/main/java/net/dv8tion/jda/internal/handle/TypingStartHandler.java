@@ -40,6 +40,11 @@ public class TypingStartHandler extends SocketHandler
     @Override
     protected Long handleInternally(DataObject content)
     {
+        // Without listeners, this event is only used to update the member cache
+        final boolean consumed = getJDA().isEventConsumed(UserTypingEvent.class);
+        if (!consumed && content.isNull("member"))
+            return null;
+
         GuildImpl guild = null;
         if (!content.isNull("guild_id"))
         {
@@ -77,6 +82,9 @@ public class TypingStartHandler extends SocketHandler
             user = member.getUser();
         }
 
+        if (!consumed)
+            return null;
+
         if (user == null)
             return null;    //Just like in the comment above, if for some reason we don't have the user
                             // then we will just throw the event away.
@@ -105,7 +105,7 @@ public class VoiceStateUpdateHandler extends SocketHandler
         MemberImpl member = getJDA().getEntityBuilder().createMember((GuildImpl) guild, memberJson);
         if (member == null) return;
 
-        GuildVoiceStateImpl vState = (GuildVoiceStateImpl) member.getVoiceState();
+        GuildVoiceStateImpl vState = member.getOrCreateVoiceState();
         if (vState == null)
             return;
         vState.setSessionId(sessionId); //Cant really see a reason for an event for this
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.hooks;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+
+import javax.annotation.Nonnull;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+/**
+ * Calls an event listener method without reflection.
+ *
+ * <p>Public methods, which are visible to JDA, are bound with {@link LambdaMetafactory}.
+ * This creates the same class as a method reference, which can be inlined by the JIT.
+ * All other methods use a {@link MethodHandle}, which avoids the access checks and argument boxing of {@link Method#invoke(Object, Object...)}.
+ */
+@FunctionalInterface
+public interface EventInvoker
+{
+    /**
+     * Calls the listener method.
+     *
+     * @param  listener
+     *         The listener instance, ignored for static methods
+     * @param  event
+     *         The event, which must be an instance of the parameter type
+     *
+     * @throws Throwable
+     *         Anything thrown by the listener method
+     */
+    void invoke(Object listener, GenericEvent event) throws Throwable;
+
+    @Nonnull
+    static EventInvoker of(@Nonnull Method method)
+    {
+        return EventInvokerFactory.create(method);
+    }
+}
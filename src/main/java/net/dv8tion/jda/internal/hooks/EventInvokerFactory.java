@@ -0,0 +1,120 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.hooks;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.internal.utils.JDALogger;
+import org.slf4j.Logger;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+final class EventInvokerFactory
+{
+    private static final Logger LOG = JDALogger.getLog(EventInvoker.class);
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class, GenericEvent.class);
+    private static final MethodType STATIC_INVOKER_TYPE = MethodType.methodType(void.class, GenericEvent.class);
+
+    private EventInvokerFactory() {}
+
+    static EventInvoker create(Method method)
+    {
+        if (isDirectlyAccessible(method))
+        {
+            try
+            {
+                return createLambda(method);
+            }
+            catch (Throwable e)
+            {
+                LOG.debug("Failed to create lambda for listener method {}, using method handle instead", method, e);
+            }
+        }
+
+        try
+        {
+            return createMethodHandle(method);
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new IllegalArgumentException("Cannot access listener method " + method, e);
+        }
+    }
+
+    private static EventInvoker createLambda(Method method) throws Throwable
+    {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle target = lookup.unreflect(method);
+        Class<?> eventType = method.getParameterTypes()[0];
+
+        if (Modifier.isStatic(method.getModifiers()))
+        {
+            CallSite site = LambdaMetafactory.metafactory(lookup,
+                "invoke", MethodType.methodType(StaticInvoker.class),
+                STATIC_INVOKER_TYPE, target, MethodType.methodType(void.class, eventType));
+            StaticInvoker invoker = (StaticInvoker) site.getTarget().invokeExact();
+            return (listener, event) -> invoker.invoke(event);
+        }
+
+        CallSite site = LambdaMetafactory.metafactory(lookup,
+            "invoke", MethodType.methodType(EventInvoker.class),
+            INVOKER_TYPE, target, MethodType.methodType(void.class, method.getDeclaringClass(), eventType));
+        return (EventInvoker) site.getTarget().invokeExact();
+    }
+
+    private static EventInvoker createMethodHandle(Method method) throws IllegalAccessException
+    {
+        method.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (Modifier.isStatic(method.getModifiers()))
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        MethodHandle adapted = handle.asType(INVOKER_TYPE);
+        // Must be a statement, an expression lambda would call the handle with an Object return type
+        return (listener, event) -> {
+            adapted.invokeExact(listener, event);
+        };
+    }
+
+    private static boolean isDirectlyAccessible(Method method)
+    {
+        // The generated class is defined in the class loader of JDA, so it has to resolve the listener and event class from there
+        Class<?> declaringClass = method.getDeclaringClass();
+        Class<?> eventType = method.getParameterTypes()[0];
+        return Modifier.isPublic(method.getModifiers())
+            && Modifier.isPublic(declaringClass.getModifiers()) && isVisible(declaringClass)
+            && Modifier.isPublic(eventType.getModifiers()) && isVisible(eventType);
+    }
+
+    private static boolean isVisible(Class<?> type)
+    {
+        try
+        {
+            return Class.forName(type.getName(), false, EventInvoker.class.getClassLoader()) == type;
+        }
+        catch (ClassNotFoundException | LinkageError e)
+        {
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    interface StaticInvoker
+    {
+        void invoke(GenericEvent event) throws Throwable;
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.hooks;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.EventLaneConfig;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.JDAImpl;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Serial lanes on a shared executor, which handle the events of each guild or channel in order.
+ */
+public class EventLanes
+{
+    // How many events a lane handles before it gives its thread to other lanes
+    private static final int BATCH_SIZE = 64;
+    // Events of these types only notify about something new, they don't describe a change of state
+    private static final Set<String> DISCARDABLE_TYPES = new HashSet<>(Arrays.asList(
+        "MESSAGE_CREATE", "MESSAGE_REACTION_ADD", "MESSAGE_REACTION_REMOVE", "TYPING_START"
+    ));
+
+    private final Lane[] lanes;
+    private final EventLaneConfig.Partition partition;
+    private final EventLaneConfig.Backpressure backpressure;
+    private final int capacity;
+    private final long maxBlockTime;
+    private final Executor executor;
+    private final Consumer<GenericEvent> handler;
+    private final LongAdder discarded = new LongAdder();
+    private final ThreadLocal<Lane> currentLane = new ThreadLocal<>();
+
+    public EventLanes(EventLaneConfig config, Executor executor, Consumer<GenericEvent> handler)
+    {
+        this.lanes = new Lane[config.getLanes()];
+        for (int i = 0; i < lanes.length; i++)
+            lanes[i] = new Lane();
+        this.partition = config.getPartition();
+        this.backpressure = config.getBackpressure();
+        this.capacity = config.getLaneCapacity();
+        this.maxBlockTime = config.getMaxBlockTime();
+        this.executor = executor;
+        this.handler = handler;
+    }
+
+    /**
+     * Queues the event in the lane of its guild or channel.
+     *
+     * @param event
+     *        The event
+     * @param payload
+     *        The gateway payload, which caused this event, or null
+     */
+    public void submit(GenericEvent event, DataObject payload)
+    {
+        Lane lane = lanes[(int) Long.remainderUnsigned(getPartitionKey(payload), lanes.length)];
+        // Listeners could wait for their own lane, or for a lane that needs their thread, so they never block
+        if (lane.depth.get() >= capacity && currentLane.get() == null && !awaitCapacity(lane))
+        {
+            // Other events are queued beyond the capacity, since listeners could not recover from missing them
+            if (isDiscardable(payload))
+            {
+                discarded.increment();
+                JDAImpl.LOG.warn("Event lane is full, discarding {}", event.getClass().getSimpleName());
+                return;
+            }
+        }
+
+        lane.depth.incrementAndGet();
+        lane.queue.add(event);
+        lane.schedule();
+    }
+
+    public int[] getLaneDepths()
+    {
+        int[] depths = new int[lanes.length];
+        for (int i = 0; i < lanes.length; i++)
+            depths[i] = lanes[i].depth.get();
+        return depths;
+    }
+
+    public int getQueuedEventCount()
+    {
+        int total = 0;
+        for (Lane lane : lanes)
+            total += lane.depth.get();
+        return total;
+    }
+
+    public int getMaxLaneDepth()
+    {
+        int max = 0;
+        for (Lane lane : lanes)
+            max = Math.max(max, lane.depth.get());
+        return max;
+    }
+
+    public long getDiscardedEventCount()
+    {
+        return discarded.sum();
+    }
+
+    private boolean awaitCapacity(Lane lane)
+    {
+        if (backpressure == EventLaneConfig.Backpressure.DISCARD || lane.overloaded)
+            return false;
+
+        synchronized (lane)
+        {
+            lane.waiting++;
+            try
+            {
+                // The gateway cannot read heartbeat acknowledgements while waiting, so the wait is bounded
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBlockTime);
+                while (lane.depth.get() >= capacity)
+                {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0)
+                    {
+                        // Stop waiting for this lane until it has space again, otherwise every event would wait
+                        lane.overloaded = true;
+                        JDAImpl.LOG.warn("Event lane is still full after {} ms, not waiting for it until it has space again", maxBlockTime);
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(lane, remaining);
+                }
+                return true;
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            finally
+            {
+                lane.waiting--;
+            }
+        }
+    }
+
+    private static boolean isDiscardable(DataObject payload)
+    {
+        return payload != null && DISCARDABLE_TYPES.contains(payload.getString("t", ""));
+    }
+
+    private long getPartitionKey(DataObject payload)
+    {
+        if (payload == null)
+            return 0;
+        String type = payload.getString("t", "");
+        DataObject content = payload.optObject("d").orElse(null);
+        if (content == null)
+            return 0;
+
+        if (partition == EventLaneConfig.Partition.CHANNEL)
+        {
+            long channelId = content.getUnsignedLong("channel_id", 0);
+            if (channelId == 0 && (type.startsWith("CHANNEL_") || type.startsWith("THREAD_")) && !type.equals("CHANNEL_PINS_UPDATE"))
+                channelId = content.getUnsignedLong("id", 0);
+            if (channelId != 0)
+                return channelId;
+        }
+
+        long guildId = content.getUnsignedLong("guild_id", 0);
+        // The guild payloads use the id field instead
+        if (guildId == 0 && (type.equals("GUILD_CREATE") || type.equals("GUILD_UPDATE") || type.equals("GUILD_DELETE")))
+            guildId = content.getUnsignedLong("id", 0);
+        return guildId;
+    }
+
+    private class Lane implements Runnable
+    {
+        private final Queue<GenericEvent> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // Only modified while holding the lock of this lane
+        private volatile int waiting = 0;
+        private volatile boolean overloaded = false;
+
+        private void schedule()
+        {
+            if (!scheduled.compareAndSet(false, true))
+                return;
+            try
+            {
+                executor.execute(this);
+            }
+            catch (RejectedExecutionException ex)
+            {
+                JDAImpl.LOG.warn("Event-Pool rejected event execution! Running on handling thread instead...");
+                run();
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            Lane previous = currentLane.get();
+            currentLane.set(this);
+            try
+            {
+                for (int i = 0; i < BATCH_SIZE; i++)
+                {
+                    GenericEvent event = queue.poll();
+                    if (event == null)
+                        break;
+                    try
+                    {
+                        handler.accept(event);
+                    }
+                    catch (Throwable t)
+                    {
+                        JDAImpl.LOG.error("Event lane encountered an uncaught exception while handling {}", event.getClass().getSimpleName(), t);
+                        if (t instanceof Error)
+                            throw (Error) t;
+                    }
+                    finally
+                    {
+                        onHandled();
+                    }
+                }
+            }
+            finally
+            {
+                currentLane.set(previous);
+                scheduled.set(false);
+
+                // Events might have been added after the last poll, before the lane was marked as idle
+                if (!queue.isEmpty())
+                    schedule();
+            }
+        }
+
+        private void onHandled()
+        {
+            int remaining = depth.decrementAndGet();
+            if (remaining < capacity)
+                overloaded = false;
+            if (remaining < capacity && waiting > 0)
+            {
+                synchronized (this)
+                {
+                    notifyAll();
+                }
+            }
+        }
+    }
+}
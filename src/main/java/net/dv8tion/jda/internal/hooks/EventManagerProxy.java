@@ -17,11 +17,15 @@
 package net.dv8tion.jda.internal.hooks;
 
 import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.EventLaneConfig;
 import net.dv8tion.jda.api.hooks.IEventManager;
 import net.dv8tion.jda.api.hooks.InterfacedEventManager;
 import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.handle.SocketHandler;
+import net.dv8tion.jda.internal.utils.Checks;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
@@ -29,12 +33,21 @@ import java.util.concurrent.RejectedExecutionException;
 public class EventManagerProxy implements IEventManager
 {
     private final ExecutorService executor;
+    private final EventLanes lanes;
     private IEventManager subject;
 
     public EventManagerProxy(IEventManager subject, ExecutorService executor)
+    {
+        this(subject, executor, null);
+    }
+
+    public EventManagerProxy(IEventManager subject, ExecutorService executor, EventLaneConfig laneConfig)
     {
         this.subject = subject;
         this.executor = executor;
+        if (laneConfig != null)
+            Checks.notNull(executor, "Event pool");
+        this.lanes = laneConfig == null ? null : new EventLanes(laneConfig, executor, this::handleInternally);
     }
 
     public void setSubject(IEventManager subject)
@@ -47,6 +60,12 @@ public class EventManagerProxy implements IEventManager
         return subject;
     }
 
+    @Nullable
+    public EventLanes getLanes()
+    {
+        return lanes;
+    }
+
     @Override
     public void register(@Nonnull Object listener)
     {
@@ -64,7 +83,9 @@ public class EventManagerProxy implements IEventManager
     {
         try
         {
-            if (executor != null && !executor.isShutdown())
+            if (lanes != null && (executor == null || !executor.isShutdown()))
+                lanes.submit(event, SocketHandler.CURRENT_EVENT.get());
+            else if (executor != null && !executor.isShutdown())
                 executor.execute(() -> handleInternally(event));
             else
                 handleInternally(event);
@@ -80,6 +101,12 @@ public class EventManagerProxy implements IEventManager
         }
     }
 
+    @Override
+    public boolean isConsumed(@Nonnull Class<? extends GenericEvent> type)
+    {
+        return subject.isConsumed(type);
+    }
+
     private void handleInternally(@Nonnull GenericEvent event)
     {
         // don't allow mere exceptions to obstruct the socket handler
@@ -17,7 +17,9 @@ package net.dv8tion.jda.internal.managers;
 
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.audio.AudioReceiveHandler;
+import net.dv8tion.jda.api.audio.AudioReceiveStatistics;
 import net.dv8tion.jda.api.audio.AudioSendHandler;
+import net.dv8tion.jda.api.audio.JitterBufferConfig;
 import net.dv8tion.jda.api.audio.SpeakingMode;
 import net.dv8tion.jda.api.audio.hooks.ConnectionListener;
 import net.dv8tion.jda.api.audio.hooks.ConnectionStatus;
@@ -37,7 +39,9 @@ import net.dv8tion.jda.internal.utils.PermissionUtil;
 
 import javax.annotation.Nonnull;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class AudioManagerImpl implements AudioManager
@@ -51,6 +55,7 @@ public class AudioManagerImpl implements AudioManager
 
     protected AudioSendHandler sendHandler;
     protected AudioReceiveHandler receiveHandler;
+    protected JitterBufferConfig jitterBufferConfig;
     protected long queueTimeout = 100;
     protected boolean shouldReconnect = true;
 
@@ -220,6 +225,28 @@ public class AudioManagerImpl implements AudioManager
         return receiveHandler;
     }
 
+    @Override
+    public void setJitterBuffer(JitterBufferConfig config)
+    {
+        jitterBufferConfig = config;
+        if (audioConnection != null)
+            audioConnection.setJitterBuffer(config);
+    }
+
+    @Override
+    public JitterBufferConfig getJitterBuffer()
+    {
+        return jitterBufferConfig;
+    }
+
+    @Nonnull
+    @Override
+    public List<AudioReceiveStatistics> getReceiveStatistics()
+    {
+        AudioConnection connection = audioConnection;
+        return connection == null ? Collections.emptyList() : connection.getReceiveStatistics();
+    }
+
     @Override
     public void setConnectionListener(ConnectionListener listener)
     {
@@ -309,6 +336,7 @@ public class AudioManagerImpl implements AudioManager
         audioConnection.setSendingHandler(sendHandler);
         audioConnection.setReceivingHandler(receiveHandler);
         audioConnection.setQueueTimeout(queueTimeout);
+        audioConnection.setJitterBuffer(jitterBufferConfig);
         audioConnection.setSpeakingMode(speakingModes);
     }
 
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.requests;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.dv8tion.jda.api.exceptions.ParsingException;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.utils.Checks;
+import net.dv8tion.jda.internal.utils.json.LazyJsonMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Streaming reader for JSON gateway payloads.
+ *
+ * <p>This reads the payload directly from the token stream, without going through jackson-databind.
+ * For dispatch types with a registered {@link Projection}, only the fields read by the respective handler
+ * are materialized, everything else in the {@code d} object is skipped at the token level and never allocated.
+ * The handlers still build their entities from the resulting {@link DataObject}, so this only saves the allocations
+ * of skipped fields. Without a projection, the payload is read completely and allocates about as much as databind.
+ *
+ * <p>Dispatch types can also be marked as lazy, in which case {@code d} is only indexed and decoded once it is accessed.
+ * See {@link LazyJsonMap}. To support this for streamed payloads, the bytes pulled by the parser are recorded into a buffer,
+ * until {@code t} shows that the payload is not lazy. Other payloads are only parsed from the stream.
+ * The buffer is reused, which makes this reader unsafe to use concurrently.
+ *
+ * <p>This relies on {@code t} being sent before {@code d}, which is the case for all payloads sent by Discord.
+ * If {@code d} is encountered first, the payload is read completely.
+ */
+public class GatewayPayloadReader
+{
+    private static final JsonFactory factory = new JsonFactory();
+    private static final int INITIAL_BUFFER = 8192;
+    // The buffer is halved after this many payloads in a row used less than a quarter of it
+    private static final int SHRINK_AFTER = 64;
+
+    private final Map<String, Projection> projections = new HashMap<>();
+    private final Set<String> lazyTypes = new HashSet<>();
+    private byte[] streamBuffer;
+    private int smallPayloads;
+
+    public void setProjection(@Nonnull String type, @Nullable Projection projection)
+    {
+        Checks.notNull(type, "Type");
+        if (projection == null)
+            projections.remove(type);
+        else
+            projections.put(type, projection);
+    }
+
+    public void clearProjections()
+    {
+        projections.clear();
+    }
+
+    public void setLazy(@Nonnull String type, boolean lazy)
+    {
+        Checks.notNull(type, "Type");
+        if (lazy)
+            lazyTypes.add(type);
+        else
+            lazyTypes.remove(type);
+    }
+
+    @Nonnull
+    public DataObject read(@Nonnull byte[] data)
+    {
+        try (JsonParser parser = factory.createParser(data))
+        {
+            return read(parser, null, data);
+        }
+        catch (IOException e)
+        {
+            throw new ParsingException(e);
+        }
+    }
+
+    @Nonnull
+    public DataObject read(@Nonnull InputStream stream)
+    {
+        // Lazy objects need a backing array, so the stream is recorded until the type is known
+        RecordingStream recorder = lazyTypes.isEmpty() ? null : new RecordingStream(stream);
+        try (JsonParser parser = factory.createParser(recorder == null ? stream : recorder))
+        {
+            return read(parser, recorder, null);
+        }
+        catch (IOException e)
+        {
+            throw new ParsingException(e);
+        }
+        finally
+        {
+            if (recorder != null)
+                release(recorder.length);
+        }
+    }
+
+    private void release(int used)
+    {
+        if (streamBuffer == null || streamBuffer.length <= INITIAL_BUFFER)
+            return;
+        // Large payloads come in bursts, so the buffer is only shrunk gradually once they stop
+        if (used > streamBuffer.length / 4)
+        {
+            smallPayloads = 0;
+        }
+        else if (++smallPayloads >= SHRINK_AFTER)
+        {
+            smallPayloads = 0;
+            streamBuffer = new byte[streamBuffer.length / 2];
+        }
+    }
+
+    private DataObject read(JsonParser parser, @Nullable RecordingStream recorder, @Nullable byte[] source) throws IOException
+    {
+        if (parser.nextToken() != JsonToken.START_OBJECT)
+            throw new ParsingException("Expected gateway payload to be a json object");
+
+        DataObject payload = DataObject.empty();
+        Projection projection = null;
+        boolean lazy = false;
+        String key;
+        while ((key = parser.nextFieldName()) != null)
+        {
+            JsonToken token = parser.nextToken();
+            Object value;
+            if (lazy && token == JsonToken.START_OBJECT && "d".equals(key))
+            {
+                value = readLazy(parser, recorder, source);
+            }
+            else
+            {
+                // Without a lazy type, nothing has to be recorded for the rest of the payload
+                if (recorder != null && "d".equals(key))
+                    recorder.recording = false;
+                value = readValue(parser, "d".equals(key) ? projection : null);
+            }
+            if ("t".equals(key))
+            {
+                projection = value instanceof String ? projections.get(value) : null;
+                lazy = value instanceof String && lazyTypes.contains(value);
+                if (recorder != null && !lazy)
+                    recorder.recording = false;
+            }
+            payload.put(key, value);
+        }
+        return payload;
+    }
+
+    private LazyJsonMap readLazy(JsonParser parser, @Nullable RecordingStream recorder, @Nullable byte[] source) throws IOException
+    {
+        int start = (int) parser.getTokenLocation().getByteOffset();
+        parser.skipChildren();
+        int end = (int) parser.getCurrentLocation().getByteOffset();
+        // The recorded buffer is reused for the next payload, so the object needs its own copy
+        if (recorder != null)
+            return new LazyJsonMap(Arrays.copyOfRange(streamBuffer, start, end), 0, end - start);
+        return new LazyJsonMap(source, start, end - start);
+    }
+
+    private static Object readValue(JsonParser parser, @Nullable Projection projection) throws IOException
+    {
+        switch (parser.currentToken())
+        {
+        case START_OBJECT:
+            return readObject(parser, projection);
+        case START_ARRAY:
+            return readArray(parser, projection);
+        case VALUE_STRING:
+            return parser.getText();
+        case VALUE_NUMBER_INT:
+        case VALUE_NUMBER_FLOAT:
+            return parser.getNumberValue();
+        case VALUE_TRUE:
+            return Boolean.TRUE;
+        case VALUE_FALSE:
+            return Boolean.FALSE;
+        case VALUE_NULL:
+            return null;
+        default:
+            throw new ParsingException("Unexpected token " + parser.currentToken() + " in gateway payload");
+        }
+    }
+
+    private static Map<String, Object> readObject(JsonParser parser, @Nullable Projection projection) throws IOException
+    {
+        Map<String, Object> map = new HashMap<>();
+        String key;
+        while ((key = parser.nextFieldName()) != null)
+        {
+            parser.nextToken();
+            if (projection == null)
+            {
+                map.put(key, readValue(parser, null));
+            }
+            else if (projection.fields.containsKey(key))
+            {
+                map.put(key, readValue(parser, projection.fields.get(key)));
+            }
+            else
+            {
+                parser.skipChildren();
+            }
+        }
+        return map;
+    }
+
+    private static List<Object> readArray(JsonParser parser, @Nullable Projection projection) throws IOException
+    {
+        // Projections of arrays apply to each element
+        List<Object> list = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY)
+            list.add(readValue(parser, projection));
+        return list;
+    }
+
+    /**
+     * Copies the bytes pulled by the parser into the reused buffer, so offsets reported by the parser index into it.
+     */
+    private class RecordingStream extends FilterInputStream
+    {
+        private int length;
+        private boolean recording = true;
+
+        private RecordingStream(InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int value = in.read();
+            if (recording && value != -1)
+            {
+                ensureCapacity(1);
+                streamBuffer[length++] = (byte) value;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException
+        {
+            int read = in.read(b, off, len);
+            if (recording && read > 0)
+            {
+                ensureCapacity(read);
+                System.arraycopy(b, off, streamBuffer, length, read);
+                length += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            // Skipped bytes have to be recorded as well, to keep the offsets intact
+            byte[] skipped = new byte[(int) Math.min(n, INITIAL_BUFFER)];
+            int read = read(skipped, 0, skipped.length);
+            return Math.max(read, 0);
+        }
+
+        private void ensureCapacity(int additional)
+        {
+            if (streamBuffer == null)
+                streamBuffer = new byte[Math.max(INITIAL_BUFFER, additional)];
+            else if (streamBuffer.length - length < additional)
+                streamBuffer = Arrays.copyOf(streamBuffer, Math.max(streamBuffer.length * 2, length + additional));
+        }
+    }
+
+    /**
+     * Selects the fields of a json object that should be materialized.
+     * <br>Nested fields without a projection are read completely.
+     */
+    public static class Projection
+    {
+        private final Map<String, Projection> fields = new HashMap<>();
+
+        @Nonnull
+        public static Projection of(@Nonnull String... fields)
+        {
+            Projection projection = new Projection();
+            for (String field : fields)
+                projection.fields.put(field, null);
+            return projection;
+        }
+
+        @Nonnull
+        public Projection with(@Nonnull String field, @Nullable Projection projection)
+        {
+            fields.put(field, projection);
+            return this;
+        }
+    }
+}
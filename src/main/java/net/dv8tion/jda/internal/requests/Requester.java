@@ -27,6 +27,7 @@ import okhttp3.Call;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 import okhttp3.internal.http.HttpMethod;
 import org.slf4j.Logger;
 import org.slf4j.MDC;
@@ -39,12 +40,12 @@ import java.io.InputStream;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
-import java.util.LinkedHashSet;
-import java.util.Locale;
+import java.util.*;
 import java.util.Map.Entry;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 public class Requester
@@ -78,6 +79,14 @@ public class Requester
 
     private final OkHttpClient httpClient;
 
+    // Compiled route -> Queued GET request, which identical requests can join
+    private final boolean coalesceRequests;
+    private final ConcurrentMap<String, WorkTask> coalescableTasks = new ConcurrentHashMap<>();
+    private final LongAdder coalescableCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    // Null if disabled
+    private final ResponseCache responseCache;
+
     //when we actually set the shard info we can also set the mdc context map, before it makes no sense
     private boolean isContextReady = false;
     private ConcurrentMap<String, String> contextMap = null;
@@ -96,6 +105,8 @@ public class Requester
         this.userAgent = config.getUserAgent();
         this.customBuilder = config.getCustomBuilder();
         this.httpClient = this.api.getHttpClient();
+        this.coalesceRequests = config.isCoalesceRequests();
+        this.responseCache = config.getResponseCacheSize() > 0 ? new ResponseCache(config.getResponseCacheSize(), config.getResponseCacheTtl()) : null;
     }
 
     public void setContextReady(boolean ready)
@@ -122,10 +133,132 @@ public class Requester
         if (rateLimiter.isStopped())
             throw new RejectedExecutionException("The Requester has been stopped! No new requests can be requested!");
 
-        if (apiRequest.shouldQueue())
-            rateLimiter.enqueue(new WorkTask(apiRequest));
+        if (isCacheable(apiRequest) && handleCached(apiRequest))
+            return;
+
+        if (!apiRequest.shouldQueue())
+            execute(new WorkTask(apiRequest, null), true);
+        else if (coalesceRequests && isCoalescable(apiRequest))
+            enqueueCoalescable(apiRequest);
+        else
+            rateLimiter.enqueue(new WorkTask(apiRequest, null));
+    }
+
+    private static boolean isCoalescable(Request<?> apiRequest)
+    {
+        // Requests with custom headers could receive a different response
+        return apiRequest.getRoute().getMethod() == Method.GET
+            && apiRequest.getBody() == null
+            && (apiRequest.getHeaders() == null || apiRequest.getHeaders().isEmpty());
+    }
+
+    private boolean isCacheable(Request<?> apiRequest)
+    {
+        // Interaction routes use tokens which expire, and the responses of interaction webhooks change frequently
+        return responseCache != null
+            && isCoalescable(apiRequest)
+            && !apiRequest.getRoute().getBaseRoute().isInteractionBucket();
+    }
+
+    private boolean handleCached(Request<?> apiRequest)
+    {
+        okhttp3.Response cached = responseCache.get(apiRequest.getRoute().getCompiledRoute(), System.currentTimeMillis());
+        if (cached == null)
+            return false;
+
+        LOG.trace("Using cached response for {} {}", apiRequest.getRoute().getMethod(), apiRequest.getRoute().getCompiledRoute());
+        if (!apiRequest.isSkipped())
+            apiRequest.handleResponse(new Response(cached, -1, Collections.emptySet()));
+        return true;
+    }
+
+    /**
+     * Removes the cached responses which are updated by the provided gateway event.
+     *
+     * @param type
+     *        The event type
+     * @param content
+     *        The event payload
+     */
+    public void invalidateCachedResponses(String type, DataObject content)
+    {
+        if (responseCache == null)
+            return;
+        try
+        {
+            responseCache.onEvent(type, content);
+        }
+        catch (Exception e)
+        {
+            LOG.warn("Failed to invalidate cached responses for event {}", type, e);
+        }
+    }
+
+    @Nullable
+    public ResponseCache getResponseCache()
+    {
+        return responseCache;
+    }
+
+    private static String getPath(Route.CompiledRoute route)
+    {
+        String compiled = route.getCompiledRoute();
+        int query = compiled.indexOf('?');
+        return query < 0 ? compiled : compiled.substring(0, query);
+    }
+
+    private void enqueueCoalescable(Request<?> apiRequest)
+    {
+        coalescableCount.increment();
+        WorkTask[] created = { null };
+        coalescableTasks.compute(apiRequest.getRoute().getCompiledRoute(), (key, task) ->
+        {
+            if (task != null && task.join(apiRequest))
+                return task;
+            return created[0] = new WorkTask(apiRequest, key);
+        });
+
+        if (created[0] == null)
+        {
+            coalescedCount.increment();
+            LOG.trace("Coalesced request {} {}", apiRequest.getRoute().getMethod(), apiRequest.getRoute().getCompiledRoute());
+        }
         else
-            execute(new WorkTask(apiRequest), true);
+        {
+            rateLimiter.enqueue(created[0]);
+        }
+    }
+
+    /**
+     * The number of requests which could have been coalesced with an identical request.
+     * <br>This is only counted if {@link RestConfig#setCoalesceRequests(boolean) coalescing} is enabled.
+     *
+     * @return The number of coalescable requests
+     */
+    public long getCoalescableRequestCount()
+    {
+        return coalescableCount.sum();
+    }
+
+    /**
+     * The number of requests which joined an identical queued request, instead of sending their own.
+     *
+     * @return The number of coalesced requests
+     */
+    public long getCoalescedRequestCount()
+    {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * The ratio of {@link #getCoalescedRequestCount() coalesced} to {@link #getCoalescableRequestCount() coalescable} requests.
+     *
+     * @return The hit rate between 0 and 1
+     */
+    public double getCoalescingHitRate()
+    {
+        long total = coalescableCount.sum();
+        return total == 0 ? 0 : (double) coalescedCount.sum() / total;
     }
 
     private static boolean isRetry(Throwable e)
@@ -159,7 +292,12 @@ public class Requester
 
     public okhttp3.Response execute(WorkTask task, boolean retried, boolean handleOnRatelimit)
     {
+        // Identical requests cannot join once the request is sent, otherwise they could receive an outdated response
+        task.close();
         Route.CompiledRoute route = task.getRoute();
+        // Invalidations while the request is in flight prevent caching its response
+        if (responseCache != null)
+            task.cacheGeneration = responseCache.getGeneration();
 
         okhttp3.Request.Builder builder = new okhttp3.Request.Builder();
 
@@ -195,7 +333,7 @@ public class Requester
             int code = 0;
             for (int attempt = 0; attempt < responses.length; attempt++)
             {
-                if (apiRequest.isSkipped())
+                if (task.isSkipped())
                     return null;
 
                 Call call = httpClient.newCall(request);
@@ -378,11 +516,53 @@ public class Requester
     private class WorkTask implements RestRateLimiter.Work
     {
         private final Request<?> request;
+        private final String coalescingKey;
         private boolean done;
+        private long cacheGeneration;
+
+        // Guarded by this task
+        private List<Request<?>> followers;
+        private boolean requestSkipped, closed;
 
-        private WorkTask(Request<?> request)
+        private WorkTask(Request<?> request, String coalescingKey)
         {
             this.request = request;
+            this.coalescingKey = coalescingKey;
+        }
+
+        private synchronized boolean join(Request<?> follower)
+        {
+            if (closed)
+                return false;
+            if (followers == null)
+                followers = new ArrayList<>();
+            followers.add(follower);
+            return true;
+        }
+
+        private void close()
+        {
+            if (coalescingKey == null)
+                return;
+            synchronized (this)
+            {
+                if (closed)
+                    return;
+                closed = true;
+            }
+            // Not holding the lock of this task, since join is called while holding the lock of the map
+            coalescableTasks.remove(coalescingKey, this);
+        }
+
+        private synchronized List<Request<?>> getRequests()
+        {
+            if (followers == null)
+                return Collections.singletonList(request);
+            List<Request<?>> requests = new ArrayList<>(1 + followers.size());
+            if (!requestSkipped)
+                requests.add(request);
+            requests.addAll(followers);
+            return requests;
         }
 
         @Nonnull
@@ -409,7 +589,22 @@ public class Requester
         @Override
         public boolean isSkipped()
         {
-            return request.isSkipped();
+            if (coalescingKey == null)
+                return request.isSkipped();
+
+            boolean skipped;
+            synchronized (this)
+            {
+                // The request is only skipped, once every caller has cancelled or timed out
+                if (!requestSkipped)
+                    requestSkipped = request.isSkipped();
+                if (followers != null)
+                    followers.removeIf(Request::isSkipped);
+                skipped = requestSkipped && (followers == null || followers.isEmpty());
+            }
+            if (skipped)
+                close();
+            return skipped;
         }
 
         @Override
@@ -427,31 +622,75 @@ public class Requester
         @Override
         public boolean isCancelled()
         {
-            return request.isCancelled();
+            return getRequests().stream().allMatch(Request::isCancelled);
         }
 
         @Override
         public void cancel()
         {
-            request.cancel();
+            getRequests().forEach(Request::cancel);
         }
 
         private void handleResponse(okhttp3.Response response, Set<String> rays)
         {
-            done = true;
-            request.handleResponse(new Response(response, -1, rays));
+            handleResponse(response, -1, rays);
+        }
+
+        // Called before the callbacks, so they never receive outdated responses from the cache
+        private void invalidateCache()
+        {
+            if (responseCache != null && getRoute().getMethod() != Method.GET)
+                responseCache.invalidateWrite(getPath(getRoute()));
         }
 
         private void handleResponse(Exception error, Set<String> rays)
         {
             done = true;
-            request.handleResponse(new Response(error, rays));
+            invalidateCache();
+            for (Request<?> participant : getRequests())
+                participant.handleResponse(new Response(error, rays));
         }
 
         private void handleResponse(okhttp3.Response response, long retryAfter, Set<String> cfRays)
         {
             done = true;
-            request.handleResponse(new Response(response, retryAfter, cfRays));
+            invalidateCache();
+            List<Request<?>> requests = getRequests();
+            boolean cache = response.isSuccessful() && isCacheable(request);
+            if (requests.size() == 1 && !cache)
+            {
+                requests.get(0).handleResponse(new Response(response, retryAfter, cfRays));
+                return;
+            }
+
+            // Every request parses its own response, so the body has to be buffered
+            ResponseBody body = response.body();
+            byte[] data;
+            try
+            {
+                data = body == null ? null : body.bytes();
+            }
+            catch (IOException e)
+            {
+                LOG.error("There was an I/O error while reading a shared response: {}", e.getMessage());
+                handleResponse(e, cfRays);
+                return;
+            }
+
+            if (cache && data != null)
+                responseCache.put(getRoute().getCompiledRoute(), cacheGeneration, response, data, System.currentTimeMillis());
+
+            for (Request<?> participant : requests)
+            {
+                okhttp3.Response copy = data == null ? response : response.newBuilder().body(copyBody(body, data)).build();
+                participant.handleResponse(new Response(copy, retryAfter, cfRays));
+            }
+        }
+
+        @SuppressWarnings("deprecation")
+        private ResponseBody copyBody(ResponseBody body, byte[] data)
+        {
+            return ResponseBody.create(body.contentType(), data);
         }
     }
 }
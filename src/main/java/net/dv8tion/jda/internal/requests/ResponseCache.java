@@ -0,0 +1,346 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.requests;
+
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+import java.util.*;
+
+/**
+ * Size-bounded cache of successful {@code GET} responses, keyed by the compiled route including the query.
+ *
+ * <p>All entries use the same time-to-live, so the insertion order is also the expiration order.
+ * The routes are additionally kept in a sorted set, to invalidate a resource and all of its sub-resources with a range query.
+ *
+ * <p>Requests which are in flight while their resource is invalidated would otherwise store the outdated response.
+ * Every invalidation increments the generation of the cache, and the generation of the latest invalidation is recorded
+ * for the invalidated resource. Requests take the current {@link #getGeneration() generation} before they are sent,
+ * and their responses are not stored if a covering invalidation happened after that.
+ */
+public class ResponseCache
+{
+    private static final int MAX_INVALIDATIONS = 4096;
+
+    private final int maxSize;
+    private final long ttl;
+
+    // Guarded by this cache
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private final TreeSet<String> routes = new TreeSet<>();
+    // Invalidated resources mapped to the generation of their latest invalidation
+    private final Map<String, Long> invalidatedTrees = new HashMap<>();
+    private final Map<String, Long> invalidatedResources = new HashMap<>();
+    private long generation;
+    // Responses of requests started before this generation are not stored, since older records have been dropped
+    private long oldestGeneration;
+
+    public ResponseCache(int maxSize, long ttl)
+    {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
+
+    public synchronized okhttp3.Response get(String route, long now)
+    {
+        Entry entry = entries.get(route);
+        if (entry == null)
+            return null;
+        if (entry.expiresAt <= now)
+        {
+            remove(route);
+            return null;
+        }
+        return entry.toResponse();
+    }
+
+    /**
+     * The current generation, which has to be taken before the request is sent.
+     *
+     * @return The generation
+     */
+    public synchronized long getGeneration()
+    {
+        return generation;
+    }
+
+    /**
+     * Stores the response, unless the route was invalidated after the request was started.
+     *
+     * @param route
+     *        The compiled route including the query
+     * @param startGeneration
+     *        The {@link #getGeneration() generation} taken before the request was sent
+     * @param response
+     *        The response
+     * @param body
+     *        The response body
+     * @param now
+     *        The current time in milliseconds
+     *
+     * @return True, if the response was stored
+     */
+    public synchronized boolean put(String route, long startGeneration, okhttp3.Response response, byte[] body, long now)
+    {
+        if (isInvalidatedSince(route, startGeneration))
+            return false;
+
+        // Re-insert to move the entry to the end of the expiration order
+        entries.remove(route);
+        entries.put(route, new Entry(response, body, now + ttl));
+        routes.add(route);
+
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (entries.size() <= maxSize && eldest.getValue().expiresAt > now)
+                break;
+            iterator.remove();
+            routes.remove(eldest.getKey());
+        }
+        return true;
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Removes the resource, including all query variants and sub-resources.
+     *
+     * @param path
+     *        The compiled route without query
+     */
+    public synchronized void invalidate(String path)
+    {
+        removeResource(path, true);
+    }
+
+    /**
+     * Removes the resource, including all query variants, but not its sub-resources.
+     *
+     * @param path
+     *        The compiled route without query
+     */
+    public synchronized void invalidateExact(String path)
+    {
+        removeResource(path, false);
+    }
+
+    /**
+     * Removes the resources affected by a write request on the provided route.
+     * <br>This is the resource itself and the collection which contains it.
+     *
+     * @param path
+     *        The compiled route without query
+     */
+    public synchronized void invalidateWrite(String path)
+    {
+        removeResource(path, true);
+        int parent = path.lastIndexOf('/');
+        if (parent > 0)
+            removeResource(path.substring(0, parent), false);
+    }
+
+    /**
+     * Removes the resources which are updated by the provided gateway event.
+     *
+     * @param type
+     *        The event type
+     * @param content
+     *        The event payload
+     */
+    public void onEvent(String type, DataObject content)
+    {
+        String guildId = content.getString("guild_id", null);
+        String channelId = content.getString("channel_id", null);
+        switch (type)
+        {
+            case "GUILD_UPDATE":
+                invalidateExact("guilds/" + content.getString("id"));
+                break;
+            case "GUILD_DELETE":
+                invalidate("guilds/" + content.getString("id"));
+                break;
+            case "GUILD_MEMBER_ADD":
+            case "GUILD_MEMBER_UPDATE":
+            case "GUILD_MEMBER_REMOVE":
+            {
+                String userId = content.getObject("user").getString("id");
+                invalidateWrite("guilds/" + guildId + "/members/" + userId);
+                invalidate("users/" + userId);
+                break;
+            }
+            case "GUILD_BAN_ADD":
+            case "GUILD_BAN_REMOVE":
+                invalidateWrite("guilds/" + guildId + "/bans/" + content.getObject("user").getString("id"));
+                break;
+            case "GUILD_ROLE_CREATE":
+            case "GUILD_ROLE_UPDATE":
+            case "GUILD_ROLE_DELETE":
+                invalidate("guilds/" + guildId + "/roles");
+                break;
+            case "GUILD_EMOJIS_UPDATE":
+                invalidate("guilds/" + guildId + "/emojis");
+                break;
+            case "GUILD_STICKERS_UPDATE":
+                invalidate("guilds/" + guildId + "/stickers");
+                break;
+            case "GUILD_SCHEDULED_EVENT_CREATE":
+            case "GUILD_SCHEDULED_EVENT_UPDATE":
+            case "GUILD_SCHEDULED_EVENT_DELETE":
+                invalidateWrite("guilds/" + guildId + "/scheduled-events/" + content.getString("id"));
+                break;
+            case "AUTO_MODERATION_RULE_CREATE":
+            case "AUTO_MODERATION_RULE_UPDATE":
+            case "AUTO_MODERATION_RULE_DELETE":
+                invalidateWrite("guilds/" + guildId + "/auto-moderation/rules/" + content.getString("id"));
+                break;
+            case "CHANNEL_CREATE":
+            case "CHANNEL_UPDATE":
+            case "THREAD_CREATE":
+            case "THREAD_UPDATE":
+                invalidateExact("channels/" + content.getString("id"));
+                if (guildId != null)
+                    invalidateExact("guilds/" + guildId + "/channels");
+                break;
+            case "CHANNEL_DELETE":
+            case "THREAD_DELETE":
+                invalidate("channels/" + content.getString("id"));
+                if (guildId != null)
+                    invalidateExact("guilds/" + guildId + "/channels");
+                break;
+            case "MESSAGE_CREATE":
+                // The message history has changed
+                invalidateExact("channels/" + channelId + "/messages");
+                break;
+            case "MESSAGE_UPDATE":
+            case "MESSAGE_DELETE":
+                invalidateWrite("channels/" + channelId + "/messages/" + content.getString("id"));
+                break;
+            case "MESSAGE_DELETE_BULK":
+            {
+                DataArray ids = content.getArray("ids");
+                for (int i = 0; i < ids.length(); i++)
+                    invalidate("channels/" + channelId + "/messages/" + ids.getString(i));
+                invalidateExact("channels/" + channelId + "/messages");
+                break;
+            }
+            case "MESSAGE_REACTION_ADD":
+            case "MESSAGE_REACTION_REMOVE":
+            case "MESSAGE_REACTION_REMOVE_ALL":
+            case "MESSAGE_REACTION_REMOVE_EMOJI":
+                invalidate("channels/" + channelId + "/messages/" + content.getString("message_id"));
+                break;
+            case "CHANNEL_PINS_UPDATE":
+                invalidate("channels/" + channelId + "/pins");
+                invalidate("channels/" + channelId + "/messages/pins");
+                break;
+            case "APPLICATION_COMMAND_PERMISSIONS_UPDATE":
+                invalidate("applications/" + content.getString("application_id") + "/guilds/" + guildId + "/commands");
+                break;
+            case "USER_UPDATE":
+                invalidateExact("users/@me");
+                invalidate("users/" + content.getString("id"));
+                break;
+        }
+    }
+
+    private boolean isInvalidatedSince(String route, long startGeneration)
+    {
+        if (startGeneration < oldestGeneration)
+            return true;
+        int query = route.indexOf('?');
+        String path = query < 0 ? route : route.substring(0, query);
+        if (isAfter(invalidatedResources.get(path), startGeneration) || isAfter(invalidatedTrees.get(path), startGeneration))
+            return true;
+        // Invalidating a resource with its sub-resources also covers every route below it
+        for (int parent = path.lastIndexOf('/'); parent > 0; parent = path.lastIndexOf('/', parent - 1))
+        {
+            if (isAfter(invalidatedTrees.get(path.substring(0, parent)), startGeneration))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isAfter(Long invalidation, long startGeneration)
+    {
+        return invalidation != null && invalidation > startGeneration;
+    }
+
+    private void removeResource(String path, boolean subResources)
+    {
+        // Recorded even without cached routes, since a request for the resource might be in flight
+        if (invalidatedTrees.size() + invalidatedResources.size() >= MAX_INVALIDATIONS)
+        {
+            invalidatedTrees.clear();
+            invalidatedResources.clear();
+            oldestGeneration = generation + 1;
+        }
+        generation++;
+        (subResources ? invalidatedTrees : invalidatedResources).put(path, generation);
+
+        if (routes.isEmpty())
+            return;
+        remove(path);
+        removeRange(path + '?');
+        if (subResources)
+            removeRange(path + '/');
+    }
+
+    private void removeRange(String prefix)
+    {
+        // All strings with the prefix are between the prefix itself and the prefix followed by the highest character
+        SortedSet<String> range = routes.subSet(prefix, prefix + Character.MAX_VALUE);
+        for (String route : range)
+            entries.remove(route);
+        range.clear();
+    }
+
+    private void remove(String route)
+    {
+        entries.remove(route);
+        routes.remove(route);
+    }
+
+    private static class Entry
+    {
+        // The response without body, which only holds the request, status, and headers
+        private final okhttp3.Response response;
+        private final MediaType contentType;
+        private final byte[] body;
+        private final long expiresAt;
+
+        private Entry(okhttp3.Response response, byte[] body, long expiresAt)
+        {
+            this.response = response.newBuilder().body(null).build();
+            this.contentType = response.body() == null ? null : response.body().contentType();
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+        @SuppressWarnings("deprecation")
+        private okhttp3.Response toResponse()
+        {
+            return response.newBuilder().body(ResponseBody.create(contentType, body)).build();
+        }
+    }
+}
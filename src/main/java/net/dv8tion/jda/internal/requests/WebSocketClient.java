@@ -36,6 +36,7 @@ import net.dv8tion.jda.api.requests.CloseCode;
 import net.dv8tion.jda.api.utils.Compression;
 import net.dv8tion.jda.api.utils.MiscUtil;
 import net.dv8tion.jda.api.utils.SessionController;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
 import net.dv8tion.jda.api.utils.data.DataArray;
 import net.dv8tion.jda.api.utils.data.DataObject;
 import net.dv8tion.jda.api.utils.data.DataType;
@@ -46,6 +47,7 @@ import net.dv8tion.jda.internal.entities.GuildImpl;
 import net.dv8tion.jda.internal.handle.*;
 import net.dv8tion.jda.internal.managers.AudioManagerImpl;
 import net.dv8tion.jda.internal.managers.PresenceImpl;
+import net.dv8tion.jda.internal.utils.Helpers;
 import net.dv8tion.jda.internal.utils.IOUtil;
 import net.dv8tion.jda.internal.utils.JDALogger;
 import net.dv8tion.jda.internal.utils.ShutdownReason;
@@ -53,12 +55,14 @@ import net.dv8tion.jda.internal.utils.UnlockHook;
 import net.dv8tion.jda.internal.utils.cache.AbstractCacheView;
 import net.dv8tion.jda.internal.utils.compress.Decompressor;
 import net.dv8tion.jda.internal.utils.compress.ZlibDecompressor;
+import net.dv8tion.jda.internal.utils.compress.ZstdDecompressor;
 import org.slf4j.Logger;
 import org.slf4j.MDC;
 
 import javax.annotation.Nonnull;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.ref.SoftReference;
 import java.net.Socket;
 import java.net.SocketException;
@@ -90,6 +94,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
     protected final int gatewayIntents;
     protected final MemberChunkManager chunkManager;
     protected final GatewayEncoding encoding;
+    protected final GatewayPayloadReader payloadReader = new GatewayPayloadReader();
 
     public WebSocket socket;
     protected String traceMetadata = null;
@@ -144,6 +149,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         this.shouldReconnect = api.isAutoReconnect();
         this.connectNode = new StartingNode();
         setupHandlers();
+        setupPayloadReader();
         try
         {
             api.getSessionController().appendSession(connectNode);
@@ -387,6 +393,10 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                         if (decompressor == null || decompressor.getType() != Compression.ZLIB)
                             decompressor = new ZlibDecompressor(api.getMaxBufferSize());
                         break;
+                    case ZSTD:
+                        if (decompressor == null || decompressor.getType() != Compression.ZSTD)
+                            decompressor = new ZstdDecompressor(api.getMaxBufferSize());
+                        break;
                     default:
                         throw new IllegalStateException("Unknown compression");
                 }
@@ -1004,6 +1014,8 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                         LOG.debug("Ignoring {} for unavailable guild with id {}. JSON: {}", type, guildId, content);
                         break;
                     }
+                    // Remove outdated responses before the event listeners can request them again
+                    api.getRequester().invalidateCachedResponses(type, content);
                     SocketHandler handler = handlers.get(type);
                     if (handler != null)
                         handler.handle(responseTotal, raw);
@@ -1032,7 +1044,7 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
     @Override
     public void onTextMessage(WebSocket websocket, byte[] data)
     {
-        handleEvent(DataObject.fromJson(data));
+        handleEvent(payloadReader.read(data));
     }
 
     @Override
@@ -1056,6 +1068,8 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
                 return DataObject.fromETF(binary);
             throw new IllegalStateException("Cannot decompress binary message due to unknown compression algorithm: " + compression);
         }
+        if (encoding == GatewayEncoding.JSON)
+            return handleBinaryStream(binary);
         // Scoping allows us to print the json that possibly failed parsing
         byte[] data;
         try
@@ -1091,6 +1105,29 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         }
     }
 
+    protected DataObject handleBinaryStream(byte[] binary) throws DataFormatException
+    {
+        // The decompressed json is parsed directly from the inflater, without copying it into an intermediate array
+        try (InputStream stream = decompressor.decompressStream(binary))
+        {
+            if (stream == null)
+                return null;
+            return payloadReader.read(stream);
+        }
+        catch (ParsingException | IOException e)
+        {
+            if (Helpers.hasCause(e, DataFormatException.class))
+            {
+                close(4900, "MALFORMED_PACKAGE");
+                throw (DataFormatException) new DataFormatException("Malformed").initCause(e);
+            }
+            LOG.error("Failed to parse json from compressed payload of length {}", binary.length);
+            if (e instanceof ParsingException)
+                throw (ParsingException) e;
+            throw new ParsingException(e);
+        }
+    }
+
     @Override
     public void handleCallbackError(WebSocket websocket, Throwable cause) throws Exception
     {
@@ -1363,6 +1400,34 @@ public class WebSocketClient extends WebSocketAdapter implements WebSocketListen
         }
     }
 
+    protected void setupPayloadReader()
+    {
+        // The handlers of these events only read a few fields of large payloads
+        // Only these payloads are buffered, all other payloads are parsed directly from the stream
+        payloadReader.setLazy("GUILD_UPDATE", true);
+        payloadReader.setLazy("THREAD_LIST_SYNC", true);
+
+        // The payloads are exposed to the user with these options, so they have to be complete
+        if (api.isRawEvents() || api.isEventPassthrough())
+            return;
+
+        // Presence updates are the most frequent events, but the handler only needs a fraction of the payload
+        EnumSet<CacheFlag> cacheFlags = api.getCacheFlags();
+        GatewayPayloadReader.Projection presence = GatewayPayloadReader.Projection.of("guild_id");
+        if (cacheFlags.stream().anyMatch(CacheFlag::isPresence))
+        {
+            presence.with("status", null).with("user", GatewayPayloadReader.Projection.of("id"));
+            if (cacheFlags.contains(CacheFlag.ACTIVITY))
+                presence.with("activities", null);
+            if (cacheFlags.contains(CacheFlag.CLIENT_STATUS))
+                presence.with("client_status", null);
+        }
+        payloadReader.setProjection("PRESENCE_UPDATE", presence);
+
+        payloadReader.setProjection("MESSAGE_REACTION_ADD", GatewayPayloadReader.Projection.of(
+            "guild_id", "channel_id", "message_id", "user_id", "message_author_id", "emoji", "member"));
+    }
+
     protected void setupHandlers()
     {
         final SocketHandler.NOPHandler nopHandler =            new SocketHandler.NOPHandler(api);
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.requests.ratelimit;
+
+import net.dv8tion.jda.api.requests.RateLimitStore;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class InMemoryRateLimitStore implements RateLimitStore
+{
+    private final ConcurrentMap<String, String> hashes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, BucketState> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public String getHash(@Nonnull String route)
+    {
+        return hashes.get(route);
+    }
+
+    @Override
+    public boolean putHash(@Nonnull String route, @Nonnull String hash)
+    {
+        return hashes.putIfAbsent(route, hash) == null;
+    }
+
+    @Override
+    public long acquire(@Nonnull String bucketId, long now)
+    {
+        long[] delay = { 0 };
+        buckets.compute(bucketId, (id, state) ->
+        {
+            if (state == null)
+                state = new BucketState();
+            delay[0] = state.acquire(now);
+            return state;
+        });
+        return delay[0];
+    }
+
+    @Override
+    public long getDelay(@Nonnull String bucketId, long now)
+    {
+        BucketState state = buckets.get(bucketId);
+        return state == null ? 0 : state.getDelay(now);
+    }
+
+    @Override
+    public void update(@Nonnull String bucketId, int remaining, long reset)
+    {
+        long now = System.currentTimeMillis();
+        buckets.compute(bucketId, (id, state) ->
+        {
+            if (state == null)
+                state = new BucketState();
+            state.update(remaining, reset, now);
+            return state;
+        });
+    }
+
+    @Override
+    public void release(@Nonnull String bucketId)
+    {
+        buckets.computeIfPresent(bucketId, (id, state) ->
+        {
+            state.release();
+            return state;
+        });
+    }
+
+    @Override
+    public void cleanup(long now)
+    {
+        for (String bucketId : buckets.keySet())
+            buckets.computeIfPresent(bucketId, (id, state) -> state.isExpired(now) ? null : state);
+    }
+
+    // Creation and removal are atomic through the map, the fields are guarded by the state itself
+    private static class BucketState
+    {
+        private static final int PENDING = -1;
+
+        private int remaining = 1;
+        private long reset = 0;
+
+        private synchronized long acquire(long now)
+        {
+            if (reset <= now)
+            {
+                // The rate-limit is unknown, reserve the bucket until the response arrives
+                remaining = PENDING;
+                reset = now + PENDING_TIMEOUT;
+                return 0;
+            }
+            if (remaining > 0)
+            {
+                remaining--;
+                return 0;
+            }
+            return getDelay(now);
+        }
+
+        private synchronized long getDelay(long now)
+        {
+            if (reset <= now || remaining > 0)
+                return 0;
+            if (remaining == PENDING)
+                return Math.min(reset - now, PENDING_POLL_INTERVAL);
+            return reset - now;
+        }
+
+        private synchronized void update(int remaining, long reset, long now)
+        {
+            if (this.remaining != PENDING && this.reset > now)
+            {
+                // Responses of concurrent requests can arrive out of order, so within a window the remaining uses only decrease
+                this.remaining = Math.min(this.remaining, remaining);
+                this.reset = Math.max(this.reset, reset);
+            }
+            else
+            {
+                this.remaining = remaining;
+                this.reset = reset;
+            }
+        }
+
+        private synchronized boolean isExpired(long now)
+        {
+            return reset <= now;
+        }
+
+        private synchronized void release()
+        {
+            if (remaining == PENDING)
+                reset = 0;
+        }
+    }
+}
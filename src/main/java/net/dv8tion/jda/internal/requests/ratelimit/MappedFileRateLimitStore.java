@@ -0,0 +1,447 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.requests.ratelimit;
+
+import net.dv8tion.jda.api.requests.RateLimitStore;
+import net.dv8tion.jda.api.requests.RestRateLimiter;
+import net.dv8tion.jda.internal.utils.Checks;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Rate-limit store backed by a memory-mapped file, which is shared by all processes using the same file.
+ *
+ * <p>The file consists of a header, followed by two open-addressing tables for buckets and route hashes.
+ * Keys are stored as 64-bit hashes of the bucket id or route. Slots are not cleared individually, so lookups can stop at the first empty slot.
+ * Once the bucket table is full, expired buckets are overwritten instead, and {@link #cleanup(long)} rebuilds the table without them.
+ *
+ * <p>Every operation holds an exclusive lock on the file, which is shared with other processes,
+ * and a lock for the threads of this process, since file locks are held on behalf of the entire process.
+ * The only exception are the reads of the global rate-limit, which are checked before every request.
+ * These are single aligned 8-byte reads of the mapping, which concurrent writes cannot tear.
+ */
+public class MappedFileRateLimitStore implements RateLimitStore, Closeable
+{
+    private static final int MAGIC = 0x4A444152; // JDAR
+    private static final int VERSION = 1;
+
+    public static final int DEFAULT_BUCKET_CAPACITY = 8192;
+    public static final int DEFAULT_ROUTE_CAPACITY = 2048;
+
+    // magic (4) | version (4) | bucket capacity (4) | route capacity (4) | classic global (8) | cloudflare global (8)
+    private static final int HEADER_SIZE = 64;
+    private static final int CLASSIC_GLOBAL_OFFSET = 16;
+    private static final int CLOUDFLARE_GLOBAL_OFFSET = 24;
+    // key (8) | reset (8) | remaining (4) | padding (4)
+    private static final int BUCKET_SLOT_SIZE = 24;
+    // key (8) | length (2) | utf-8 hash (118)
+    private static final int ROUTE_SLOT_SIZE = 128;
+    private static final int MAX_HASH_LENGTH = ROUTE_SLOT_SIZE - 10;
+
+    private static final int PENDING = -1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int bucketCapacity;
+    private final int routeCapacity;
+    private final int routeTableOffset;
+    private final RestRateLimiter.GlobalRateLimit globalRateLimit = new MappedGlobalRateLimit();
+
+    public MappedFileRateLimitStore(@Nonnull Path file) throws IOException
+    {
+        this(file, DEFAULT_BUCKET_CAPACITY, DEFAULT_ROUTE_CAPACITY);
+    }
+
+    public MappedFileRateLimitStore(@Nonnull Path file, int bucketCapacity, int routeCapacity) throws IOException
+    {
+        // The slots are found by the remainder of the key divided by the capacity, and addressed by int offsets
+        Checks.positive(bucketCapacity, "Bucket capacity");
+        Checks.positive(routeCapacity, "Route capacity");
+        Checks.check(fileSize(bucketCapacity, routeCapacity) <= Integer.MAX_VALUE, "The capacities exceed the maximum file size of 2 GiB");
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try
+        {
+            // Initialize the file exactly once, even if multiple processes start at the same time
+            try (FileLock ignored = channel.lock())
+            {
+                if (channel.size() < HEADER_SIZE)
+                {
+                    MappedByteBuffer init = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(bucketCapacity, routeCapacity));
+                    init.putInt(4, VERSION);
+                    init.putInt(8, bucketCapacity);
+                    init.putInt(12, routeCapacity);
+                    init.putInt(0, MAGIC);
+                    init.force();
+                }
+
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+                    throw new IOException("File " + file + " is not a rate-limit store of version " + VERSION);
+                // The capacity of an existing file takes priority
+                this.bucketCapacity = header.getInt(8);
+                this.routeCapacity = header.getInt(12);
+            }
+
+            if (this.bucketCapacity <= 0 || this.routeCapacity <= 0 || fileSize(this.bucketCapacity, this.routeCapacity) > Integer.MAX_VALUE)
+                throw new IOException("File " + file + " has invalid capacities");
+            this.routeTableOffset = HEADER_SIZE + this.bucketCapacity * BUCKET_SLOT_SIZE;
+            long size = fileSize(this.bucketCapacity, this.routeCapacity);
+            if (channel.size() < size)
+                throw new IOException("File " + file + " is truncated");
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    @Override
+    public String getHash(@Nonnull String route)
+    {
+        long key = key(route);
+        return locked(() ->
+        {
+            int slot = findRoute(key);
+            if (slot < 0 || buffer.getLong(slot) != key)
+                return null;
+            byte[] hash = new byte[buffer.getShort(slot + 8)];
+            for (int i = 0; i < hash.length; i++)
+                hash[i] = buffer.get(slot + 10 + i);
+            return new String(hash, StandardCharsets.UTF_8);
+        });
+    }
+
+    @Override
+    public boolean putHash(@Nonnull String route, @Nonnull String hash)
+    {
+        long key = key(route);
+        byte[] encoded = hash.getBytes(StandardCharsets.UTF_8);
+        if (encoded.length > MAX_HASH_LENGTH)
+            return false;
+        return locked(() ->
+        {
+            int slot = findRoute(key);
+            // The table is full or the hash is already known
+            if (slot < 0 || buffer.getLong(slot) == key)
+                return false;
+            buffer.putShort(slot + 8, (short) encoded.length);
+            for (int i = 0; i < encoded.length; i++)
+                buffer.put(slot + 10 + i, encoded[i]);
+            // Write the key last, readers in this process do not see the slot before it is complete
+            buffer.putLong(slot, key);
+            return true;
+        }) == Boolean.TRUE;
+    }
+
+    @Override
+    public long acquire(@Nonnull String bucketId, long now)
+    {
+        long key = key(bucketId);
+        return locked(() ->
+        {
+            int slot = findBucket(key, now);
+            if (slot < 0)
+                return 0L; // The table is full and nothing expired, we have to act like the rate-limit is unknown
+            long reset = buffer.getLong(slot) == key ? buffer.getLong(slot + 8) : 0;
+            int remaining = buffer.getInt(slot + 16);
+            if (reset <= now)
+            {
+                // The rate-limit is unknown, reserve the bucket until the response arrives
+                writeBucket(slot, key, PENDING, now + PENDING_TIMEOUT);
+                return 0L;
+            }
+            if (remaining > 0)
+            {
+                buffer.putInt(slot + 16, remaining - 1);
+                return 0L;
+            }
+            return delay(remaining, reset, now);
+        });
+    }
+
+    @Override
+    public long getDelay(@Nonnull String bucketId, long now)
+    {
+        long key = key(bucketId);
+        return locked(() ->
+        {
+            int slot = findBucket(key, now);
+            if (slot < 0 || buffer.getLong(slot) != key)
+                return 0L;
+            long reset = buffer.getLong(slot + 8);
+            int remaining = buffer.getInt(slot + 16);
+            if (reset <= now || remaining > 0)
+                return 0L;
+            return delay(remaining, reset, now);
+        });
+    }
+
+    @Override
+    public void update(@Nonnull String bucketId, int remaining, long reset)
+    {
+        long key = key(bucketId);
+        long now = System.currentTimeMillis();
+        locked(() ->
+        {
+            int slot = findBucket(key, now);
+            if (slot < 0)
+                return null;
+            long currentReset = buffer.getLong(slot + 8);
+            int currentRemaining = buffer.getInt(slot + 16);
+            if (buffer.getLong(slot) == key && currentRemaining != PENDING && currentReset > now)
+                // Responses of concurrent requests can arrive out of order, so within a window the remaining uses only decrease
+                writeBucket(slot, key, Math.min(currentRemaining, remaining), Math.max(currentReset, reset));
+            else
+                writeBucket(slot, key, remaining, reset);
+            return null;
+        });
+    }
+
+    @Override
+    public void release(@Nonnull String bucketId)
+    {
+        long key = key(bucketId);
+        long now = System.currentTimeMillis();
+        locked(() ->
+        {
+            int slot = findBucket(key, now);
+            if (slot >= 0 && buffer.getLong(slot) == key && buffer.getInt(slot + 16) == PENDING)
+                buffer.putLong(slot + 8, 0);
+            return null;
+        });
+    }
+
+    @Override
+    public void cleanup(long now)
+    {
+        locked(() ->
+        {
+            int expired = 0, live = 0;
+            for (int i = 0; i < bucketCapacity; i++)
+            {
+                int slot = HEADER_SIZE + i * BUCKET_SLOT_SIZE;
+                if (buffer.getLong(slot) == 0)
+                    continue;
+                if (buffer.getLong(slot + 8) <= now)
+                    expired++;
+                else
+                    live++;
+            }
+            if (expired == 0)
+                return null;
+
+            // Clearing a single slot would break the probe sequences of the following slots,
+            // so the table is rebuilt with only the buckets which have not expired yet
+            long[] keys = new long[live];
+            long[] resets = new long[live];
+            int[] remaining = new int[live];
+            int index = 0;
+            for (int i = 0; i < bucketCapacity; i++)
+            {
+                int slot = HEADER_SIZE + i * BUCKET_SLOT_SIZE;
+                long key = buffer.getLong(slot);
+                long reset = buffer.getLong(slot + 8);
+                if (key != 0 && reset > now)
+                {
+                    keys[index] = key;
+                    resets[index] = reset;
+                    remaining[index++] = buffer.getInt(slot + 16);
+                }
+                writeBucket(slot, 0, 0, 0);
+            }
+            for (int i = 0; i < live; i++)
+                writeBucket(findBucket(keys[i], now), keys[i], remaining[i], resets[i]);
+            return null;
+        });
+    }
+
+    @Override
+    public RestRateLimiter.GlobalRateLimit getGlobalRateLimit()
+    {
+        return globalRateLimit;
+    }
+
+    private static long delay(int remaining, long reset, long now)
+    {
+        if (remaining == PENDING)
+            return Math.min(reset - now, PENDING_POLL_INTERVAL);
+        return reset - now;
+    }
+
+    private void writeBucket(int slot, long key, int remaining, long reset)
+    {
+        buffer.putLong(slot + 8, reset);
+        buffer.putInt(slot + 16, remaining);
+        buffer.putLong(slot, key);
+    }
+
+    // Returns the slot with the key, or an empty slot if the key is not present, or an expired slot if the table is full, or -1
+    private int findBucket(long key, long now)
+    {
+        int start = index(key, bucketCapacity);
+        int expired = -1;
+        for (int i = 0; i < bucketCapacity; i++)
+        {
+            int slot = HEADER_SIZE + ((start + i) % bucketCapacity) * BUCKET_SLOT_SIZE;
+            long current = buffer.getLong(slot);
+            if (current == key || current == 0)
+                return slot;
+            if (expired < 0 && buffer.getLong(slot + 8) <= now)
+                expired = slot;
+        }
+        return expired;
+    }
+
+    // Returns the slot with the key, or an empty slot if the key is not present, or -1 if the table is full
+    private int findRoute(long key)
+    {
+        int start = index(key, routeCapacity);
+        for (int i = 0; i < routeCapacity; i++)
+        {
+            int slot = routeTableOffset + ((start + i) % routeCapacity) * ROUTE_SLOT_SIZE;
+            long current = buffer.getLong(slot);
+            if (current == key || current == 0)
+                return slot;
+        }
+        return -1;
+    }
+
+    private static int index(long key, int capacity)
+    {
+        return (int) ((key ^ (key >>> 32)) & Integer.MAX_VALUE) % capacity;
+    }
+
+    // FNV-1a, which has to be stable across processes unlike String#hashCode, which is only 32 bits
+    private static long key(String value)
+    {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++)
+        {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // 0 marks empty slots
+        return hash == 0 ? 1 : hash;
+    }
+
+    private <T> T locked(Supplier<T> task)
+    {
+        lock.lock();
+        try
+        {
+            // FileChannel#lock is interruptible and would close the channel, so we poll instead
+            FileLock fileLock;
+            while ((fileLock = tryLock()) == null)
+                LockSupport.parkNanos(10_000);
+            try
+            {
+                return task.get();
+            }
+            finally
+            {
+                fileLock.release();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private FileLock tryLock() throws IOException
+    {
+        try
+        {
+            return channel.tryLock();
+        }
+        catch (OverlappingFileLockException e)
+        {
+            // Another store in this process uses the same file
+            return null;
+        }
+    }
+
+    private static long fileSize(int bucketCapacity, int routeCapacity)
+    {
+        return HEADER_SIZE + (long) bucketCapacity * BUCKET_SLOT_SIZE + (long) routeCapacity * ROUTE_SLOT_SIZE;
+    }
+
+    // Not locked, the offset is aligned so the read cannot observe half of a concurrent write
+    private long getLong(int offset)
+    {
+        return buffer.getLong(offset);
+    }
+
+    private void setLong(int offset, long value)
+    {
+        locked(() -> buffer.putLong(offset, value));
+    }
+
+    private class MappedGlobalRateLimit implements RestRateLimiter.GlobalRateLimit
+    {
+        @Override
+        public long getClassic()
+        {
+            return getLong(CLASSIC_GLOBAL_OFFSET);
+        }
+
+        @Override
+        public void setClassic(long timestamp)
+        {
+            setLong(CLASSIC_GLOBAL_OFFSET, timestamp);
+        }
+
+        @Override
+        public long getCloudflare()
+        {
+            return getLong(CLOUDFLARE_GLOBAL_OFFSET);
+        }
+
+        @Override
+        public void setCloudflare(long timestamp)
+        {
+            setLong(CLOUDFLARE_GLOBAL_OFFSET, timestamp);
+        }
+    }
+}
@@ -68,6 +68,18 @@ public abstract class AbstractCacheView<T> extends ReadWriteLockCache<T> impleme
 
     public T get(long id)
     {
+        long stamp = tryOptimisticRead();
+        if (stamp != 0L)
+        {
+            try
+            {
+                T element = elements.get(id);
+                if (validate(stamp))
+                    return element;
+            }
+            catch (RuntimeException ignored) {} // concurrent rehash, the read-lock below will give a consistent result
+        }
+
         try (UnlockHook hook = readLock())
         {
             return elements.get(id);
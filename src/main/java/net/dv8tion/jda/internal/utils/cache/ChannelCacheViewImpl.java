@@ -215,26 +215,58 @@ public class ChannelCacheViewImpl<T extends Channel> extends ReadWriteLockCache<
     @Override
     public T getElementById(long id)
     {
-        try (UnlockHook hook = readLock())
+        long stamp = tryOptimisticRead();
+        if (stamp != 0L)
         {
-            for (TLongObjectMap<? extends T> cache : caches.values())
+            try
             {
-                T element = cache.get(id);
-                if (element != null)
+                T element = find(id);
+                if (validate(stamp))
                     return element;
             }
-            return null;
+            catch (RuntimeException ignored) {} // concurrent rehash, the read-lock below will give a consistent result
+        }
+
+        try (UnlockHook hook = readLock())
+        {
+            return find(id);
         }
     }
 
     public T getElementById(@Nonnull ChannelType type, long id)
     {
         Checks.notNull(type, "ChannelType");
+        TLongObjectMap<T> map = getMap(type);
+        if (map == null)
+            return null;
+
+        long stamp = tryOptimisticRead();
+        if (stamp != 0L)
+        {
+            try
+            {
+                T element = map.get(id);
+                if (validate(stamp))
+                    return element;
+            }
+            catch (RuntimeException ignored) {} // concurrent rehash, the read-lock below will give a consistent result
+        }
+
         try (UnlockHook hook = readLock())
         {
-            TLongObjectMap<T> map = getMap(type);
-            return map == null ? null : map.get(id);
+            return map.get(id);
+        }
+    }
+
+    protected T find(long id)
+    {
+        for (TLongObjectMap<? extends T> cache : caches.values())
+        {
+            T element = cache.get(id);
+            if (element != null)
+                return element;
         }
+        return null;
     }
 
     @Nonnull
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Ben Manes. All Rights Reserved.
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.internal.utils.cache;
+
+/**
+ * Count-Min sketch with 4-bit counters, used to estimate how often a key was accessed recently.
+ *
+ * <p>All counters are halved periodically, so old accesses lose their weight over time.
+ * This class is not thread-safe.
+ *
+ * <p>This is adapted from the {@code FrequencySketch} of
+ * <a href="https://github.com/ben-manes/caffeine" target="_blank">Caffeine</a> by Ben Manes,
+ * which is licensed under the Apache License, Version 2.0.
+ */
+public class FrequencySketch
+{
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final long[] table;
+    private final int sampleSize;
+    private int additions;
+
+    public FrequencySketch(int capacity)
+    {
+        capacity = Math.max(2, capacity);
+        this.table = new long[Integer.highestOneBit(capacity - 1) << 1];
+        this.sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The estimated number of recent accesses, at most 15.
+     *
+     * @param  hash
+     *         The hash of the key
+     *
+     * @return The estimated frequency
+     */
+    public int frequency(long hash)
+    {
+        int start = (int) (hash & 3) << 2;
+        int frequency = 15;
+        for (int i = 0; i < 4; i++)
+        {
+            int counter = (start + i) << 2;
+            int count = (int) ((table[indexOf(hash, i)] >>> counter) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access of the key.
+     *
+     * @param hash
+     *        The hash of the key
+     */
+    public void increment(long hash)
+    {
+        int start = (int) (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++)
+            added |= incrementAt(indexOf(hash, i), (start + i) << 2);
+
+        if (added && ++additions == sampleSize)
+            reset();
+    }
+
+    private boolean incrementAt(int index, int counter)
+    {
+        long mask = 0xFL << counter;
+        if ((table[index] & mask) == mask)
+            return false;
+        table[index] += 1L << counter;
+        return true;
+    }
+
+    private int indexOf(long hash, int depth)
+    {
+        hash = (hash + SEEDS[depth]) * SEEDS[depth];
+        hash += hash >>> 32;
+        return (int) hash & (table.length - 1);
+    }
+
+    // Halves every counter, and adjusts the additions by the truncated odd counters
+    private void reset()
+    {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++)
+        {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions = (additions >>> 1) - (odd >>> 2);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.internal.utils.cache;
+
+/**
+ * Hash table of the nodes used by the member cache policies, which identifies members by their guild and user id.
+ * <br>The nodes are also intrusive list elements, which the policies link into their own circular lists to track the eviction order.
+ *
+ * <p>This class is not thread-safe, only {@link #size()} can be read without synchronization.
+ *
+ * @param <N>
+ *        The node type of the policy
+ */
+public class MemberNodeTable<N extends MemberNodeTable.Node<N>>
+{
+    private Node<?>[] table;
+    private volatile int size;
+
+    /**
+     * Creates a new table, which resizes once it holds more than the provided number of nodes.
+     *
+     * @param initialCapacity
+     *        The number of nodes to hold without resizing
+     */
+    public MemberNodeTable(int initialCapacity)
+    {
+        this.table = new Node<?>[Integer.highestOneBit(Math.max(1, initialCapacity * 4 / 3)) << 1];
+    }
+
+    /**
+     * The hash of a member, used by {@link #find(long, long, long)} and by the policies to select their stripe.
+     *
+     * @param  guildId
+     *         The guild id of the member
+     * @param  userId
+     *         The user id of the member
+     *
+     * @return The hash
+     */
+    public static long hash(long guildId, long userId)
+    {
+        long hash = (guildId * 0x9E3779B97F4A7C15L ^ userId) * 0xC2B2AE3D27D4EB4FL;
+        return hash ^ (hash >>> 31);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public N find(long guildId, long userId, long hash)
+    {
+        Node<?> node = table[(int) hash & (table.length - 1)];
+        while (node != null && (node.guildId != guildId || node.userId != userId))
+            node = node.nextInBucket;
+        return (N) node;
+    }
+
+    public void insert(N inserted)
+    {
+        if (size + 1 > table.length * 3 / 4)
+            resize();
+        Node<?> node = inserted;
+        int bucket = (int) node.hash & (table.length - 1);
+        node.nextInBucket = table[bucket];
+        table[bucket] = node;
+        size++;
+    }
+
+    public void remove(N removed)
+    {
+        Node<?> node = removed;
+        int bucket = (int) node.hash & (table.length - 1);
+        Node<?> previous = null;
+        for (Node<?> current = table[bucket]; current != node; current = current.nextInBucket)
+            previous = current;
+        if (previous == null)
+            table[bucket] = node.nextInBucket;
+        else
+            previous.nextInBucket = node.nextInBucket;
+        node.nextInBucket = null;
+        size--;
+    }
+
+    private void resize()
+    {
+        Node<?>[] resized = new Node<?>[table.length << 1];
+        for (Node<?> node : table)
+        {
+            while (node != null)
+            {
+                Node<?> next = node.nextInBucket;
+                int bucket = (int) node.hash & (resized.length - 1);
+                node.nextInBucket = resized[bucket];
+                resized[bucket] = node;
+                node = next;
+            }
+        }
+        table = resized;
+    }
+
+    /**
+     * A member entry, which is also an element of a circular list.
+     * <br>Nodes which are not linked refer to themselves, this is also used for the heads of the lists.
+     *
+     * @param <N>
+     *        The node type of the policy
+     */
+    public static class Node<N extends Node<N>>
+    {
+        public final long guildId;
+        public final long userId;
+        public final long hash;
+
+        private N prev, next;
+        private Node<?> nextInBucket;
+
+        @SuppressWarnings("unchecked")
+        protected Node(long guildId, long userId, long hash)
+        {
+            this.guildId = guildId;
+            this.userId = userId;
+            this.hash = hash;
+            this.prev = this.next = (N) this;
+        }
+
+        /**
+         * The previous node in the list, which is the least recently used node if this is the head.
+         *
+         * @return The previous node, or this node if the list is empty
+         */
+        public N previous()
+        {
+            return prev;
+        }
+
+        /**
+         * Links this node directly after the head, which makes it the most recently used node.
+         *
+         * @param head
+         *        The head of the list
+         */
+        @SuppressWarnings("unchecked")
+        public void linkFirst(N head)
+        {
+            // Private fields are only accessible through the declared type, not the type variable
+            Node<N> before = head, after = before.next;
+            prev = head;
+            next = before.next;
+            after.prev = (N) this;
+            before.next = (N) this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void unlink()
+        {
+            Node<N> before = prev, after = next;
+            before.next = next;
+            after.prev = prev;
+            prev = next = (N) this;
+        }
+    }
+}
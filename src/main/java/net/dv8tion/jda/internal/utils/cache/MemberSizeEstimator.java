@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.internal.utils.cache;
+
+import net.dv8tion.jda.api.entities.Activity;
+import net.dv8tion.jda.api.entities.GuildVoiceState;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.internal.entities.MemberImpl;
+import net.dv8tion.jda.internal.entities.MemberPresenceImpl;
+
+import java.util.List;
+
+/**
+ * Estimates the retained heap size of cached members, assuming a 64-bit JVM with compressed references.
+ *
+ * <p>The estimates are rough, but cheap to compute on every member update.
+ */
+public class MemberSizeEstimator
+{
+    // Object layouts, including headers and padding
+    private static final int MEMBER = 72;
+    private static final int USER = 64;
+    private static final int VOICE_STATE = 56;
+    private static final int PRESENCE = 24;
+    private static final int CLIENT_STATUS = 80;
+    private static final int ACTIVITY = 48;
+    private static final int RICH_PRESENCE = 160;
+    // Entries in the guild member, user, and presence caches
+    private static final int CACHE_ENTRIES = 48;
+
+    public static long estimate(Member member)
+    {
+        if (!(member instanceof MemberImpl))
+            return MEMBER + USER + CACHE_ENTRIES;
+
+        MemberImpl impl = (MemberImpl) member;
+        long size = MEMBER + CACHE_ENTRIES;
+        size += sizeOf(impl.getNickname()) + sizeOf(impl.getAvatarId());
+
+        int roles = impl.getRoleIds().length;
+        if (roles > 0)
+            size += (16 + 8L * roles + 7) & ~7;
+
+        GuildVoiceState voiceState = impl.peekVoiceState();
+        if (voiceState != null)
+            size += VOICE_STATE + sizeOf(voiceState.getSessionId());
+
+        MemberPresenceImpl presence = impl.getPresence();
+        if (presence != null)
+        {
+            size += PRESENCE + CLIENT_STATUS;
+            List<Activity> activities = presence.getActivities();
+            for (Activity activity : activities)
+            {
+                size += activity.isRich() ? RICH_PRESENCE : ACTIVITY;
+                size += sizeOf(activity.getName()) + sizeOf(activity.getState()) + sizeOf(activity.getUrl());
+            }
+        }
+
+        // The user is shared by all members of the same user, so this overestimates users in multiple guilds
+        User user = impl.getUser();
+        size += USER + sizeOf(user.getName()) + sizeOf(user.getGlobalName()) + sizeOf(user.getAvatarId());
+        return size;
+    }
+
+    private static long sizeOf(String string)
+    {
+        if (string == null)
+            return 0;
+        // String object and its backing array, assuming 2 bytes per char
+        return 24 + ((16 + 2L * string.length() + 7) & ~7);
+    }
+}
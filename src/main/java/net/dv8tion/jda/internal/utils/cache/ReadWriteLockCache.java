@@ -25,10 +25,14 @@ import java.util.List;
 import java.util.NavigableSet;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 
 public abstract class ReadWriteLockCache<T>
 {
     protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Only used as a sequence lock for optimistic reads, writers are still serialized by the lock above
+    protected final StampedLock version = new StampedLock();
+    protected boolean optimisticReads;
     protected WeakReference<List<T>> cachedList;
     protected WeakReference<Set<T>>  cachedSet;
 
@@ -40,7 +44,19 @@ public abstract class ReadWriteLockCache<T>
         MiscUtil.tryLock(writeLock);
         onAcquireWriteLock();
         clearCachedLists();
-        return new UnlockHook(writeLock);
+        if (!optimisticReads || writeLock.getHoldCount() > 1)
+            return new UnlockHook(writeLock);
+        // Invalidates all concurrent optimistic reads until the write-lock is released again
+        long stamp = version.writeLock();
+        return new UnlockHook(writeLock)
+        {
+            @Override
+            public void close()
+            {
+                version.unlockWrite(stamp);
+                super.close();
+            }
+        };
     }
 
     public UnlockHook readLock()
@@ -51,6 +67,39 @@ public abstract class ReadWriteLockCache<T>
         return new UnlockHook(readLock);
     }
 
+    /**
+     * Enables lock-free lookups for this cache.
+     * <br>Lookups will first try to read without acquiring the read-lock and only fall back to it
+     * if a writer was active during the lookup. This must be configured before the cache is shared between threads.
+     *
+     * @param enabled
+     *        True, to enable optimistic reads
+     */
+    public void setOptimisticReads(boolean enabled)
+    {
+        this.optimisticReads = enabled;
+    }
+
+    public boolean isOptimisticReads()
+    {
+        return optimisticReads;
+    }
+
+    /**
+     * Starts an optimistic read, which has to be checked with {@link #validate(long)} once the read is done.
+     *
+     * @return The read stamp, or 0 if optimistic reads are disabled or a writer is currently active
+     */
+    protected long tryOptimisticRead()
+    {
+        return optimisticReads ? version.tryOptimisticRead() : 0L;
+    }
+
+    protected boolean validate(long stamp)
+    {
+        return stamp != 0L && version.validate(stamp);
+    }
+
     public void clearCachedLists()
     {
         cachedList = null;
@@ -21,6 +21,7 @@ import net.dv8tion.jda.internal.utils.JDALogger;
 import org.slf4j.Logger;
 
 import javax.annotation.Nullable;
+import java.io.InputStream;
 import java.util.zip.DataFormatException;
 
 public interface Decompressor
@@ -35,4 +36,10 @@ public interface Decompressor
 
     @Nullable // returns null when the decompression isn't done, for example when no Z_SYNC_FLUSH was present
     byte[] decompress(byte[] data) throws DataFormatException;
+
+    // Streaming alternative to decompress(byte[]), which avoids materializing the full decompressed payload.
+    // The returned stream must be closed before the next call, since it shares the decompression state.
+    // Malformed data is reported as an IOException caused by a DataFormatException while reading.
+    @Nullable // returns null when the decompression isn't done, for example when no Z_SYNC_FLUSH was present
+    InputStream decompressStream(byte[] data);
 }
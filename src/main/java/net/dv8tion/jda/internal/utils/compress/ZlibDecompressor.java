@@ -22,6 +22,7 @@ import net.dv8tion.jda.internal.utils.JDALogger;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.ref.SoftReference;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
@@ -35,6 +36,7 @@ public class ZlibDecompressor implements Decompressor
 
     private final int maxBufferSize;
     private final Inflater inflater = new Inflater();
+    private final InflaterStream inflaterStream = new InflaterStream();
     private ByteBuffer flushBuffer = null;
     private SoftReference<ByteArrayOutputStream> decompressBuffer = null;
 
@@ -85,6 +87,11 @@ public class ZlibDecompressor implements Decompressor
         flushBuffer.put(data);
     }
 
+    private void releaseFlushBuffer()
+    {
+        flushBuffer = null;
+    }
+
     private Object lazy(byte[] data)
     {
         return JDALogger.getLazyString(() -> Arrays.toString(data));
@@ -128,7 +135,7 @@ public class ZlibDecompressor implements Decompressor
             byte[] arr = flushBuffer.array();
             data = new byte[flushBuffer.position()];
             System.arraycopy(arr, 0, data, 0, data.length);
-            flushBuffer = null;
+            releaseFlushBuffer();
         }
         LOG.trace("Decompressing data {}", lazy(data));
         //Get the compressed message and inflate it
@@ -155,4 +162,104 @@ public class ZlibDecompressor implements Decompressor
                 buffer.reset();
         }
     }
+
+    @Override
+    public InputStream decompressStream(byte[] data)
+    {
+        //Handle split messages
+        if (!isFlush(data))
+        {
+            //There is no flush suffix so this is not the end of the message
+            LOG.debug("Received incomplete data, writing to buffer. Length: {}", data.length);
+            buffer(data);
+            return null; // signal failure to decompress
+        }
+
+        LOG.trace("Decompressing data {}", lazy(data));
+        if (flushBuffer != null)
+        {
+            //This has a flush suffix and we have an incomplete package buffered
+            //we can inflate directly from the backing array, the buffer is released once the stream is closed
+            LOG.debug("Received final part of incomplete data");
+            buffer(data);
+            inflater.setInput(flushBuffer.array(), 0, flushBuffer.position());
+        }
+        else
+        {
+            inflater.setInput(data);
+        }
+
+        //The inflater writes directly into the buffer of the reader, so the payload is never fully materialized
+        inflaterStream.open();
+        return inflaterStream;
+    }
+
+    private class InflaterStream extends InputStream
+    {
+        private final byte[] single = new byte[1];
+        private boolean closed = true;
+
+        private void open()
+        {
+            closed = false;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int read = read(single, 0, 1);
+            return read == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (closed)
+                throw new IOException("Stream closed");
+            if (len == 0)
+                return 0;
+            try
+            {
+                int read;
+                //The inflater may return 0 while it is still processing block headers, so we loop until the input is exhausted
+                while ((read = inflater.inflate(b, off, len)) == 0)
+                {
+                    //Every message ends with Z_SYNC_FLUSH, so running out of input means the message is complete
+                    if (inflater.finished() || inflater.needsInput())
+                        return -1;
+                    if (inflater.needsDictionary())
+                        throw new DataFormatException("Missing preset dictionary");
+                }
+                return read;
+            }
+            catch (DataFormatException e)
+            {
+                throw new IOException("Malformed", e);
+            }
+        }
+
+        @Override
+        public int available()
+        {
+            return closed || inflater.needsInput() ? 0 : 1;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (closed)
+                return;
+            try
+            {
+                //The remaining input has to be consumed to keep the inflater state in sync with the gateway
+                // the reader usually stops before the trailing empty block of the sync flush
+                while (read(single, 0, 1) != -1);
+            }
+            finally
+            {
+                closed = true;
+                releaseFlushBuffer();
+            }
+        }
+    }
 }
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.utils.compress;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import net.dv8tion.jda.api.utils.Compression;
+import net.dv8tion.jda.internal.utils.JDALogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+/**
+ * Decompressor for the {@code zstd-stream} transport compression, backed by the native zstd library.
+ * <br>The gateway flushes the compression stream at the end of every message,
+ * so every message can be decompressed completely without buffering incomplete parts.
+ *
+ * @see ZstdNatives#isSupported()
+ */
+public class ZstdDecompressor implements Decompressor
+{
+    // Layout of ZSTD_inBuffer and ZSTD_outBuffer, which are both { void*, size_t size, size_t pos }
+    private static final int BUFFER_SIZE_OFFSET = Native.POINTER_SIZE;
+    private static final int BUFFER_POS_OFFSET = Native.POINTER_SIZE + Native.SIZE_T_SIZE;
+    private static final int BUFFER_STRUCT_SIZE = Native.POINTER_SIZE + 2 * Native.SIZE_T_SIZE;
+
+    private final int maxBufferSize;
+    private final Memory inBuffer = new Memory(BUFFER_STRUCT_SIZE);
+    private final Memory outBuffer = new Memory(BUFFER_STRUCT_SIZE);
+    private final Memory output;
+    private final ZstdStream zstdStream = new ZstdStream();
+    private Pointer context;
+    private Memory input;
+    private SoftReference<ByteArrayOutputStream> decompressBuffer = null;
+
+    public ZstdDecompressor(int maxBufferSize)
+    {
+        if (!ZstdNatives.isSupported())
+            throw new IllegalStateException("Cannot use zstd compression without the native zstd library");
+        this.maxBufferSize = maxBufferSize;
+        this.output = new Memory(ZstdNatives.ZSTD_DStreamOutSize().longValue());
+    }
+
+    private SoftReference<ByteArrayOutputStream> newDecompressBuffer()
+    {
+        return new SoftReference<>(new ByteArrayOutputStream(Math.min(1024, maxBufferSize)));
+    }
+
+    private ByteArrayOutputStream getDecompressBuffer()
+    {
+        if (decompressBuffer == null)
+            decompressBuffer = newDecompressBuffer();
+        ByteArrayOutputStream buffer = decompressBuffer.get();
+        if (buffer == null)
+            decompressBuffer = new SoftReference<>(buffer = new ByteArrayOutputStream(Math.min(1024, maxBufferSize)));
+        return buffer;
+    }
+
+    private Pointer getContext()
+    {
+        if (context == null)
+            context = ZstdNatives.ZSTD_createDStream();
+        if (context == null)
+            throw new IllegalStateException("Failed to allocate zstd decompression context");
+        return context;
+    }
+
+    private static void setBuffer(Memory buffer, Pointer data, long size)
+    {
+        buffer.setPointer(0, data);
+        setSize(buffer, BUFFER_SIZE_OFFSET, size);
+        setSize(buffer, BUFFER_POS_OFFSET, 0);
+    }
+
+    private static void setSize(Memory buffer, long offset, long value)
+    {
+        if (Native.SIZE_T_SIZE == 8)
+            buffer.setLong(offset, value);
+        else
+            buffer.setInt(offset, (int) value);
+    }
+
+    private static long getSize(Memory buffer, long offset)
+    {
+        if (Native.SIZE_T_SIZE == 8)
+            return buffer.getLong(offset);
+        else
+            return buffer.getInt(offset) & 0xFFFFFFFFL;
+    }
+
+    private void setInput(byte[] data)
+    {
+        // The native input buffer is reused for all messages and only grows when needed
+        if (input == null || input.size() < data.length)
+            input = new Memory(Math.max(data.length, 1024));
+        input.write(0, data, 0, data.length);
+        setBuffer(inBuffer, input, data.length);
+    }
+
+    private Object lazy(byte[] data)
+    {
+        return JDALogger.getLazyString(() -> Arrays.toString(data));
+    }
+
+    @Override
+    public Compression getType()
+    {
+        return Compression.ZSTD;
+    }
+
+    @Override
+    public void reset()
+    {
+        if (context != null)
+            ZstdNatives.ZSTD_DCtx_reset(context, ZstdNatives.ZSTD_RESET_SESSION_ONLY);
+    }
+
+    @Override
+    public void shutdown()
+    {
+        if (context != null)
+            ZstdNatives.ZSTD_freeDStream(context);
+        context = null;
+    }
+
+    @Override
+    public byte[] decompress(byte[] data) throws DataFormatException
+    {
+        ByteArrayOutputStream buffer = getDecompressBuffer();
+        try (InputStream stream = decompressStream(data))
+        {
+            byte[] chunk = new byte[(int) Math.min(output.size(), 8192)];
+            int read;
+            while ((read = stream.read(chunk, 0, chunk.length)) != -1)
+                buffer.write(chunk, 0, read);
+            return buffer.toByteArray();
+        }
+        catch (IOException e)
+        {
+            // Some issue appeared during decompression that caused a failure
+            throw (DataFormatException) new DataFormatException("Malformed").initCause(e);
+        }
+        finally
+        {
+            // When done with decompression we want to reset the buffer so it can be used again later
+            if (buffer.size() > maxBufferSize)
+                decompressBuffer = newDecompressBuffer();
+            else
+                buffer.reset();
+        }
+    }
+
+    @Override
+    public InputStream decompressStream(byte[] data)
+    {
+        LOG.trace("Decompressing data {}", lazy(data));
+        setInput(data);
+        zstdStream.open(getContext());
+        return zstdStream;
+    }
+
+    private class ZstdStream extends InputStream
+    {
+        private final byte[] single = new byte[1];
+        private Pointer context;
+        private long position, limit;
+        private boolean drained = true;
+
+        private void open(Pointer context)
+        {
+            this.context = context;
+            this.position = this.limit = 0;
+            this.drained = false;
+        }
+
+        private boolean fill() throws IOException
+        {
+            if (drained)
+                return false;
+            if (context == null)
+                throw new IOException("Stream closed");
+
+            setBuffer(outBuffer, output, output.size());
+            ZstdNatives.SizeT result = ZstdNatives.ZSTD_decompressStream(context, outBuffer, inBuffer);
+            if (ZstdNatives.ZSTD_isError(result) != 0)
+                throw new IOException("Malformed", new DataFormatException(ZstdNatives.ZSTD_getErrorName(result)));
+
+            position = 0;
+            limit = getSize(outBuffer, BUFFER_POS_OFFSET);
+            // Once all input is consumed and the output was not filled completely, the decoder flushed everything it could
+            drained = getSize(inBuffer, BUFFER_POS_OFFSET) == getSize(inBuffer, BUFFER_SIZE_OFFSET) && limit < output.size();
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int read = read(single, 0, 1);
+            return read == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (len == 0)
+                return 0;
+            while (position == limit)
+            {
+                if (!fill())
+                    return -1;
+            }
+            int read = (int) Math.min(len, limit - position);
+            output.read(position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public int available()
+        {
+            return (int) (limit - position);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (context == null)
+                return;
+            try
+            {
+                // The remaining input has to be consumed to keep the decoder in sync with the gateway
+                while (fill());
+            }
+            finally
+            {
+                position = limit = 0;
+                drained = true;
+                context = null;
+            }
+        }
+    }
+}
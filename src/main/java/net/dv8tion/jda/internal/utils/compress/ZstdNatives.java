@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.utils.compress;
+
+import com.sun.jna.IntegerType;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Pointer;
+import net.dv8tion.jda.internal.utils.JDALogger;
+import org.slf4j.Logger;
+
+/**
+ * Direct JNA bindings for the streaming decompression API of the system zstd library.
+ * <br>The library can be changed with the {@code jda.zstd.library} system property, which defaults to {@code zstd}.
+ *
+ * <p>JNA is an optional dependency, so {@link #isSupported()} must be checked before using any of the bindings.
+ */
+public final class ZstdNatives
+{
+    private static final Logger LOG = JDALogger.getLog(ZstdNatives.class);
+    static final int ZSTD_RESET_SESSION_ONLY = 1;
+
+    private static boolean initialized;
+    private static boolean supported;
+
+    private ZstdNatives() {}
+
+    /**
+     * Checks whether the native zstd library was loaded, if not it will be loaded here.
+     *
+     * @return True, if the library could be loaded.
+     */
+    public static synchronized boolean isSupported()
+    {
+        if (initialized)
+            return supported;
+        initialized = true;
+        String library = System.getProperty("jda.zstd.library", "zstd");
+        try
+        {
+            Native.register(ZstdNatives.class, NativeLibrary.getInstance(library));
+            LOG.debug("Loaded native zstd library {}", library);
+            supported = true;
+        }
+        catch (NoClassDefFoundError e)
+        {
+            LOG.error("Missing JNA dependency, unable to use zstd compression!");
+        }
+        catch (UnsatisfiedLinkError e)
+        {
+            LOG.error("Could not load native zstd library {}, unable to use zstd compression!", library, e);
+        }
+        return supported;
+    }
+
+    static native Pointer ZSTD_createDStream();
+
+    static native SizeT ZSTD_freeDStream(Pointer zds);
+
+    static native SizeT ZSTD_DStreamOutSize();
+
+    static native SizeT ZSTD_DCtx_reset(Pointer dctx, int reset);
+
+    // output and input point to ZSTD_outBuffer and ZSTD_inBuffer respectively, see ZstdDecompressor
+    static native SizeT ZSTD_decompressStream(Pointer zds, Pointer output, Pointer input);
+
+    static native int ZSTD_isError(SizeT code);
+
+    static native String ZSTD_getErrorName(SizeT code);
+
+    public static class SizeT extends IntegerType
+    {
+        public SizeT()
+        {
+            this(0);
+        }
+
+        public SizeT(long value)
+        {
+            super(Native.SIZE_T_SIZE, value, true);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.utils.concurrent;
+
+import org.slf4j.MDC;
+
+import javax.annotation.Nonnull;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Creates executors, which start a new virtual thread for every task.
+ *
+ * <p>Virtual threads are only available on Java 21 and newer, so the API is accessed with method handles.
+ */
+public class VirtualThreads
+{
+    // Thread.ofVirtual().factory()
+    private static final MethodHandle virtualThreadFactory;
+    // Executors.newThreadPerTaskExecutor(ThreadFactory)
+    private static final MethodHandle threadPerTaskExecutor;
+
+    static
+    {
+        MethodHandle factory = null;
+        MethodHandle executor = null;
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            MethodHandle ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(builderClass));
+            MethodHandle toFactory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+            factory = MethodHandles.filterReturnValue(ofVirtual, toFactory);
+            executor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+        }
+        catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException ignored) {} // older than Java 21
+
+        virtualThreadFactory = factory;
+        threadPerTaskExecutor = executor;
+    }
+
+    private VirtualThreads() {}
+
+    public static boolean isSupported()
+    {
+        return virtualThreadFactory != null && threadPerTaskExecutor != null;
+    }
+
+    /**
+     * Creates an executor, which runs every task on a new virtual thread.
+     * <br>The MDC context of the thread, which submits a task, is used while running the task.
+     *
+     * @param  identifier
+     *         The identifier used for thread names, evaluated when a thread is started
+     * @param  specifier
+     *         The purpose of the threads
+     *
+     * @throws IllegalStateException
+     *         If virtual threads are not supported by this JVM
+     *
+     * @return The executor
+     */
+    @Nonnull
+    public static ExecutorService newExecutor(@Nonnull Supplier<String> identifier, @Nonnull String specifier)
+    {
+        if (!isSupported())
+            throw new IllegalStateException("Virtual threads require Java 21 or newer");
+
+        try
+        {
+            ThreadFactory virtualFactory = (ThreadFactory) virtualThreadFactory.invokeExact();
+            AtomicLong count = new AtomicLong(1);
+            ThreadFactory namedFactory = (runnable) ->
+            {
+                Thread thread = virtualFactory.newThread(runnable);
+                thread.setName(identifier.get() + " " + specifier + "-Worker " + count.getAndIncrement());
+                return thread;
+            };
+            return withContext((ExecutorService) threadPerTaskExecutor.invokeExact(namedFactory));
+        }
+        catch (RuntimeException | Error e)
+        {
+            throw e;
+        }
+        catch (Throwable e)
+        {
+            throw new IllegalStateException("Failed to create virtual thread executor", e);
+        }
+    }
+
+    /**
+     * Wraps the executor, to run every task with the MDC context of the thread, which submitted the task.
+     * <br>The previous context of the executing thread is restored after each task.
+     *
+     * @param  executor
+     *         The executor running the tasks
+     *
+     * @return The wrapping executor
+     */
+    @Nonnull
+    public static ExecutorService withContext(@Nonnull ExecutorService executor)
+    {
+        return new ContextExecutor(executor);
+    }
+
+    private static class ContextExecutor extends AbstractExecutorService
+    {
+        private final ExecutorService executor;
+
+        private ContextExecutor(ExecutorService executor)
+        {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(@Nonnull Runnable command)
+        {
+            Map<String, String> context = MDC.getCopyOfContextMap();
+            if (context == null || context.isEmpty())
+            {
+                executor.execute(command);
+                return;
+            }
+
+            executor.execute(() ->
+            {
+                // Platform threads are reused, so the previous context has to be restored afterward
+                Map<String, String> previous = MDC.getCopyOfContextMap();
+                MDC.setContextMap(context);
+                try
+                {
+                    command.run();
+                }
+                finally
+                {
+                    if (previous == null)
+                        MDC.clear();
+                    else
+                        MDC.setContextMap(previous);
+                }
+            });
+        }
+
+        @Override
+        public void shutdown()
+        {
+            executor.shutdown();
+        }
+
+        @Nonnull
+        @Override
+        public List<Runnable> shutdownNow()
+        {
+            return executor.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown()
+        {
+            return executor.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated()
+        {
+            return executor.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, @Nonnull TimeUnit unit) throws InterruptedException
+        {
+            return executor.awaitTermination(timeout, unit);
+        }
+    }
+}
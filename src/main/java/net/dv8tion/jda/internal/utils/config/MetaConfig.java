@@ -32,6 +32,7 @@ public class MetaConfig
     private final EnumSet<CacheFlag> cacheFlags;
     private final boolean enableMDC;
     private final boolean useShutdownHook;
+    private final boolean optimisticCacheReads;
     private final int maxBufferSize;
 
     public MetaConfig(
@@ -47,6 +48,7 @@ public class MetaConfig
         else
             this.mdcContextMap = null;
         this.useShutdownHook = flags.contains(ConfigFlag.SHUTDOWN_HOOK);
+        this.optimisticCacheReads = flags.contains(ConfigFlag.OPTIMISTIC_CACHE_READS);
     }
 
     @Nullable
@@ -71,6 +73,11 @@ public class MetaConfig
         return useShutdownHook;
     }
 
+    public boolean isOptimisticCacheReads()
+    {
+        return optimisticCacheReads;
+    }
+
     public int getMaxBufferSize()
     {
         return maxBufferSize;
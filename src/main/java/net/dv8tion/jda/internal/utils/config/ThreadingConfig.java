@@ -16,7 +16,9 @@
 
 package net.dv8tion.jda.internal.utils.config;
 
+import net.dv8tion.jda.api.hooks.EventLaneConfig;
 import net.dv8tion.jda.internal.utils.concurrent.CountingThreadFactory;
+import net.dv8tion.jda.internal.utils.concurrent.VirtualThreads;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -33,6 +35,8 @@ public class ThreadingConfig
     private ExecutorService callbackPool;
     private ExecutorService eventPool;
     private ScheduledExecutorService audioPool;
+    private EventLaneConfig eventLaneConfig;
+    private Supplier<String> identifier;
 
     private boolean shutdownRateLimitScheduler;
     private boolean shutdownRateLimitElastic;
@@ -88,8 +92,38 @@ public class ThreadingConfig
         this.shutdownAudioPool = shutdown;
     }
 
+    public void setEventLaneConfig(@Nullable EventLaneConfig config)
+    {
+        this.eventLaneConfig = config;
+    }
+
+    public void setVirtualThreads(boolean enabled)
+    {
+        if (!enabled)
+            return;
+        // Only replaces the default pools
+        Supplier<String> name = getLazyIdentifier();
+        if (eventPool == null)
+            setEventPool(VirtualThreads.newExecutor(name, "Event"), true);
+        if (callbackPool == ForkJoinPool.commonPool())
+            setCallbackPool(VirtualThreads.newExecutor(name, "Callback"), true);
+    }
+
+    @Nonnull
+    public ExecutorService getEventLanePool()
+    {
+        // The lanes are serial tasks, which should not occupy the common pool of the application
+        if (eventPool == null)
+        {
+            int threads = Math.min(eventLaneConfig.getLanes(), Runtime.getRuntime().availableProcessors());
+            setEventPool(Executors.newFixedThreadPool(threads, new CountingThreadFactory(getLazyIdentifier(), "EventLane")), true);
+        }
+        return eventPool;
+    }
+
     public void init(@Nonnull Supplier<String> identifier)
     {
+        this.identifier = identifier;
         if (this.rateLimitScheduler == null)
             this.rateLimitScheduler = newScheduler(2, identifier, "RateLimit-Scheduler", false);
         if (this.gatewayPool == null)
@@ -171,6 +205,12 @@ public class ThreadingConfig
         return eventPool;
     }
 
+    @Nullable
+    public EventLaneConfig getEventLaneConfig()
+    {
+        return eventLaneConfig;
+    }
+
     @Nullable
     public ScheduledExecutorService getAudioPool(@Nonnull Supplier<String> identifier)
     {
@@ -217,6 +257,12 @@ public class ThreadingConfig
         return shutdownAudioPool;
     }
 
+    // The identifier is only known after init
+    private Supplier<String> getLazyIdentifier()
+    {
+        return () -> identifier == null ? "JDA" : identifier.get();
+    }
+
     @Nonnull
     public static ScheduledThreadPoolExecutor newScheduler(int coreSize, Supplier<String> identifier, String baseName)
     {
@@ -27,7 +27,8 @@ public enum ConfigFlag
     BULK_DELETE_SPLIT(true),
     SHUTDOWN_HOOK(true),
     MDC_CONTEXT(true),
-    AUTO_RECONNECT(true);
+    AUTO_RECONNECT(true),
+    OPTIMISTIC_CACHE_READS;
 
     private final boolean isDefault;
 
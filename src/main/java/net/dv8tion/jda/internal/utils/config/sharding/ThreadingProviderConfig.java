@@ -16,6 +16,7 @@
 
 package net.dv8tion.jda.internal.utils.config.sharding;
 
+import net.dv8tion.jda.api.hooks.EventLaneConfig;
 import net.dv8tion.jda.api.sharding.ThreadPoolProvider;
 
 import javax.annotation.Nonnull;
@@ -31,6 +32,8 @@ public class ThreadingProviderConfig
     private final ThreadPoolProvider<? extends ScheduledExecutorService> gatewayPoolProvider;
     private final ThreadPoolProvider<? extends ExecutorService> callbackPoolProvider;
     private final ThreadPoolProvider<? extends ExecutorService> eventPoolProvider;
+    private final EventLaneConfig eventLaneConfig;
+    private final boolean virtualThreads;
     private final ThreadPoolProvider<? extends ScheduledExecutorService> audioPoolProvider;
     private final ThreadFactory threadFactory;
 
@@ -40,6 +43,8 @@ public class ThreadingProviderConfig
             @Nullable ThreadPoolProvider<? extends ScheduledExecutorService> gatewayPoolProvider,
             @Nullable ThreadPoolProvider<? extends ExecutorService> callbackPoolProvider,
             @Nullable ThreadPoolProvider<? extends ExecutorService> eventPoolProvider,
+            @Nullable EventLaneConfig eventLaneConfig,
+            boolean virtualThreads,
             @Nullable ThreadPoolProvider<? extends ScheduledExecutorService> audioPoolProvider,
             @Nullable ThreadFactory threadFactory)
     {
@@ -48,6 +53,8 @@ public class ThreadingProviderConfig
         this.gatewayPoolProvider = gatewayPoolProvider;
         this.callbackPoolProvider = callbackPoolProvider;
         this.eventPoolProvider = eventPoolProvider;
+        this.eventLaneConfig = eventLaneConfig;
+        this.virtualThreads = virtualThreads;
         this.audioPoolProvider = audioPoolProvider;
         this.threadFactory = threadFactory;
     }
@@ -120,6 +127,17 @@ public class ThreadingProviderConfig
         return eventPoolProvider;
     }
 
+    @Nullable
+    public EventLaneConfig getEventLaneConfig()
+    {
+        return eventLaneConfig;
+    }
+
+    public boolean isVirtualThreads()
+    {
+        return virtualThreads;
+    }
+
     @Nullable
     public ThreadPoolProvider<? extends ScheduledExecutorService> getAudioPoolProvider()
     {
@@ -129,6 +147,6 @@ public class ThreadingProviderConfig
     @Nonnull
     public static ThreadingProviderConfig getDefault()
     {
-        return new ThreadingProviderConfig(null, null, null, null, null, null, null);
+        return new ThreadingProviderConfig(null, null, null, null, null, null, false, null, null);
     }
 }
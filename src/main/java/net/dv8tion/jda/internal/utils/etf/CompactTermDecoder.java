@@ -0,0 +1,428 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.utils.etf;
+
+import net.dv8tion.jda.api.utils.data.etf.ExTermDecoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.InflaterOutputStream;
+
+import static net.dv8tion.jda.api.utils.data.etf.ExTermTag.*;
+
+/**
+ * Decodes an ETF encoded payload into a compact representation.
+ *
+ * <p>The resulting values are equal to the ones produced by {@link ExTermDecoder}, but maps are decoded into
+ * {@link CompactTermMap} instances, which keep numbers unboxed and only decode strings and nested terms on access.
+ * Binaries that contain a canonical positive integer, like snowflakes, are stored as longs.
+ *
+ * <p>Decoded maps keep a reference to the source array, which must not be modified afterwards.
+ */
+public class CompactTermDecoder
+{
+    // Value types of a CompactTermMap entry, the meaning of the raw value depends on the type
+    static final byte TYPE_DECODED = 0;   // value is stored as object
+    static final byte TYPE_INT = 1;       // raw is the int value
+    static final byte TYPE_LONG = 2;      // raw is the long value
+    static final byte TYPE_DOUBLE = 3;    // raw is the double bits
+    static final byte TYPE_BOOLEAN = 4;   // raw is 1 for true and 0 for false
+    static final byte TYPE_SNOWFLAKE = 5; // raw is the numeric value of the binary
+    static final byte TYPE_BINARY = 6;    // raw is the offset and length of the binary
+    static final byte TYPE_TERM = 7;      // raw is the offset of the term tag
+
+    private static final int KEY_CACHE_SIZE = 1024;
+    // Racy cache of keys, keyed by a hash of the encoded bytes. Entries are immutable strings, so races are harmless.
+    private static final String[] keyCache = new String[KEY_CACHE_SIZE];
+
+    /**
+     * Unpacks the provided term into a {@link CompactTermMap}.
+     *
+     * @param  data
+     *         The encoded term, starting with the version byte
+     *
+     * @throws IllegalArgumentException
+     *         If the data does not start with a Map term, does not have the right version byte, or the format includes an unsupported tag
+     *
+     * @return The compact map
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> unpackMap(byte[] data)
+    {
+        byte tag = data[1];
+        if (tag != MAP && tag != COMPRESSED)
+            throw new IllegalArgumentException("Cannot unpack map from tag " + tag);
+        Object value = unpack(data);
+        if (!(value instanceof Map))
+            throw new IllegalArgumentException("Cannot unpack map from compressed term");
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * Unpacks the provided term into a {@link List}, maps inside the list are decoded into {@link CompactTermMap} instances.
+     *
+     * @param  data
+     *         The encoded term, starting with the version byte
+     *
+     * @throws IllegalArgumentException
+     *         If the data does not start with a List term, does not have the right version byte, or the format includes an unsupported tag
+     *
+     * @return The list
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Object> unpackList(byte[] data)
+    {
+        byte tag = data[1];
+        if (tag != LIST && tag != COMPRESSED)
+            throw new IllegalArgumentException("Cannot unpack list from tag " + tag);
+        Object value = unpack(data);
+        if (!(value instanceof List))
+            throw new IllegalArgumentException("Cannot unpack list from compressed term");
+        return (List<Object>) value;
+    }
+
+    private static Object unpack(byte[] data)
+    {
+        if (data[0] != -125)
+            throw new IllegalArgumentException("Failed header check");
+
+        if (data[1] == COMPRESSED)
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(data, 2, data.length - 2);
+            int size = buffer.getInt();
+            ByteArrayOutputStream decompressed = new ByteArrayOutputStream(size + 1);
+            // Keep a fake version byte, so the offsets work the same as for uncompressed terms
+            decompressed.write(-125);
+            try (InflaterOutputStream inflater = new InflaterOutputStream(decompressed))
+            {
+                inflater.write(data, buffer.position(), buffer.remaining());
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            data = decompressed.toByteArray();
+        }
+
+        return decode(data, TYPE_TERM, 1);
+    }
+
+    static Object decode(byte[] source, byte type, long raw)
+    {
+        switch (type)
+        {
+        case TYPE_INT: return (int) raw;
+        case TYPE_LONG: return raw;
+        case TYPE_DOUBLE: return Double.longBitsToDouble(raw);
+        case TYPE_BOOLEAN: return raw != 0;
+        case TYPE_SNOWFLAKE: return Long.toString(raw);
+        case TYPE_BINARY: return new String(source, (int) (raw >>> 32), (int) raw, StandardCharsets.UTF_8);
+        case TYPE_TERM: return unpackTerm(wrap(source, (int) raw));
+        default:
+            throw new IllegalStateException("Cannot decode value of type " + type);
+        }
+    }
+
+    private static ByteBuffer wrap(byte[] source, int offset)
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(source);
+        buffer.position(offset);
+        return buffer;
+    }
+
+    private static Object unpackTerm(ByteBuffer buffer)
+    {
+        // Maps are compact, everything else is decoded the same way as ExTermDecoder would
+        int offset = buffer.position();
+        byte tag = buffer.get();
+        switch (tag)
+        {
+        case MAP: return unpackMap0(buffer);
+        case LIST: return unpackList0(buffer);
+        case NIL: return Collections.emptyList();
+        case BINARY: return unpackBinary(buffer);
+        case SMALL_INT: return Byte.toUnsignedInt(buffer.get());
+        case INT: return buffer.getInt();
+        case SMALL_BIGINT: return unpackSmallBigint(buffer);
+        case NEW_FLOAT: return buffer.getDouble();
+        case SMALL_ATOM: return unpackAtom(buffer, Byte.toUnsignedInt(buffer.get()), StandardCharsets.ISO_8859_1);
+        case SMALL_ATOM_UTF8: return unpackAtom(buffer, Byte.toUnsignedInt(buffer.get()), StandardCharsets.UTF_8);
+        case ATOM: return unpackAtom(buffer, Short.toUnsignedInt(buffer.getShort()), StandardCharsets.ISO_8859_1);
+        case ATOM_UTF8: return unpackAtom(buffer, Short.toUnsignedInt(buffer.getShort()), StandardCharsets.UTF_8);
+        default:
+            // Uncommon terms are delegated to the default decoder
+            buffer.position(offset);
+            byte[] term = new byte[skip(buffer) - offset + 1];
+            term[0] = -125;
+            System.arraycopy(buffer.array(), offset, term, 1, term.length - 1);
+            return ExTermDecoder.unpack(ByteBuffer.wrap(term));
+        }
+    }
+
+    private static Object unpackAtom(ByteBuffer buffer, int length, Charset charset)
+    {
+        byte[] source = buffer.array();
+        int start = buffer.position();
+        buffer.position(start + length);
+        if (matches("true", source, start, length))
+            return true;
+        if (matches("false", source, start, length))
+            return false;
+        if (matches("nil", source, start, length))
+            return null;
+        return new String(source, start, length, charset).intern();
+    }
+
+    private static List<Object> unpackList0(ByteBuffer buffer)
+    {
+        int length = buffer.getInt();
+        List<Object> list = new ArrayList<>(length);
+        while (length-- > 0)
+            list.add(unpackTerm(buffer));
+        if (buffer.get() != NIL)
+            throw new IllegalArgumentException("Unexpected tail at " + (buffer.position() - 1));
+        return list;
+    }
+
+    private static String unpackBinary(ByteBuffer buffer)
+    {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static CompactTermMap unpackMap0(ByteBuffer buffer)
+    {
+        byte[] source = buffer.array();
+        int arity = buffer.getInt();
+        CompactTermMap map = new CompactTermMap(source, arity);
+        while (arity-- > 0)
+        {
+            String key = unpackKey(buffer);
+            int offset = buffer.position();
+            byte tag = buffer.get();
+            switch (tag)
+            {
+            case SMALL_INT:
+                map.append(key, TYPE_INT, Byte.toUnsignedInt(buffer.get()), null);
+                break;
+            case INT:
+                map.append(key, TYPE_INT, buffer.getInt(), null);
+                break;
+            case SMALL_BIGINT:
+                map.append(key, TYPE_LONG, unpackSmallBigint(buffer), null);
+                break;
+            case NEW_FLOAT:
+                map.append(key, TYPE_DOUBLE, buffer.getLong(), null);
+                break;
+            case NIL:
+                map.append(key, TYPE_DECODED, 0, Collections.emptyList());
+                break;
+            case BINARY:
+            {
+                int length = buffer.getInt();
+                int start = buffer.position();
+                long snowflake = parseSnowflake(source, start, length);
+                if (snowflake >= 0)
+                    map.append(key, TYPE_SNOWFLAKE, snowflake, null);
+                else
+                    map.append(key, TYPE_BINARY, ((long) start << 32) | length, null);
+                buffer.position(start + length);
+                break;
+            }
+            case SMALL_ATOM:
+            case SMALL_ATOM_UTF8:
+            case ATOM:
+            case ATOM_UTF8:
+            {
+                buffer.position(offset);
+                Object atom = unpackTerm(buffer);
+                if (atom instanceof Boolean)
+                    map.append(key, TYPE_BOOLEAN, (Boolean) atom ? 1 : 0, null);
+                else
+                    map.append(key, TYPE_DECODED, 0, atom);
+                break;
+            }
+            default:
+                // Nested maps, lists and anything uncommon are only decoded when accessed
+                map.append(key, TYPE_TERM, offset, null);
+                buffer.position(offset);
+                skip(buffer);
+            }
+        }
+        return map;
+    }
+
+    private static String unpackKey(ByteBuffer buffer)
+    {
+        byte tag = buffer.get(buffer.position());
+        int length;
+        switch (tag)
+        {
+        case SMALL_ATOM:
+        case SMALL_ATOM_UTF8:
+            buffer.get();
+            length = Byte.toUnsignedInt(buffer.get());
+            break;
+        case ATOM:
+        case ATOM_UTF8:
+            buffer.get();
+            length = Short.toUnsignedInt(buffer.getShort());
+            break;
+        case BINARY:
+            buffer.get();
+            length = buffer.getInt();
+            break;
+        default:
+            return String.valueOf(unpackTerm(buffer));
+        }
+
+        byte[] source = buffer.array();
+        int start = buffer.position();
+        buffer.position(start + length);
+
+        int hash = 0;
+        for (int i = start; i < start + length; i++)
+        {
+            byte b = source[i];
+            if (b < 0) // Only cache ascii keys, which can be compared by bytes
+                return new String(source, start, length, tag == SMALL_ATOM || tag == ATOM ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+            hash = 31 * hash + b;
+        }
+
+        int index = (hash ^ (hash >>> 16)) & (KEY_CACHE_SIZE - 1);
+        String cached = keyCache[index];
+        if (cached != null && matches(cached, source, start, length))
+            return cached;
+        String key = new String(source, start, length, StandardCharsets.ISO_8859_1).intern();
+        keyCache[index] = key;
+        return key;
+    }
+
+    private static boolean matches(String key, byte[] source, int start, int length)
+    {
+        if (key.length() != length)
+            return false;
+        for (int i = 0; i < length; i++)
+        {
+            if (key.charAt(i) != source[start + i])
+                return false;
+        }
+        return true;
+    }
+
+    private static long unpackSmallBigint(ByteBuffer buffer)
+    {
+        int arity = Byte.toUnsignedInt(buffer.get());
+        int sign = Byte.toUnsignedInt(buffer.get());
+        long sum = 0;
+        long offset = 0;
+        while (arity-- > 0)
+        {
+            sum += Byte.toUnsignedLong(buffer.get()) << offset;
+            offset += 8;
+        }
+
+        return sign == 0 ? sum : -sum;
+    }
+
+    // Returns -1 if the binary is not the canonical representation of a positive long
+    private static long parseSnowflake(byte[] source, int start, int length)
+    {
+        if (length == 0 || length > 19 || (length > 1 && source[start] == '0'))
+            return -1;
+        long value = 0;
+        for (int i = start; i < start + length; i++)
+        {
+            int digit = source[i] - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10)
+                return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Moves the buffer past the term at its current position and returns the new position
+    private static int skip(ByteBuffer buffer)
+    {
+        byte tag = buffer.get();
+        int length;
+        switch (tag)
+        {
+        case SMALL_INT:
+            length = 1;
+            break;
+        case INT:
+            length = 4;
+            break;
+        case NEW_FLOAT:
+            length = 8;
+            break;
+        case FLOAT:
+            length = 31;
+            break;
+        case SMALL_BIGINT:
+            length = Byte.toUnsignedInt(buffer.get()) + 1;
+            break;
+        case SMALL_ATOM:
+        case SMALL_ATOM_UTF8:
+            length = Byte.toUnsignedInt(buffer.get());
+            break;
+        case ATOM:
+        case ATOM_UTF8:
+        case STRING:
+            length = Short.toUnsignedInt(buffer.getShort());
+            break;
+        case BINARY:
+            length = buffer.getInt();
+            break;
+        case NIL:
+            length = 0;
+            break;
+        case LIST:
+        {
+            int size = buffer.getInt();
+            while (size-- > 0)
+                skip(buffer);
+            return skip(buffer);
+        }
+        case MAP:
+        {
+            int arity = buffer.getInt();
+            while (arity-- > 0)
+            {
+                skip(buffer);
+                skip(buffer);
+            }
+            return buffer.position();
+        }
+        default:
+            throw new IllegalArgumentException("Unknown tag " + tag);
+        }
+        buffer.position(buffer.position() + length);
+        return buffer.position();
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.utils.etf;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+
+/**
+ * Flat map representation of an ETF map term, produced by {@link CompactTermDecoder}.
+ *
+ * <p>Keys are stored in a plain array and looked up by a linear scan, which is faster than hashing for the
+ * small objects of gateway payloads. Values are stored as primitives or as offsets into the source buffer
+ * and are only decoded when they are accessed. Snowflakes are stored as unboxed longs and can be read with
+ * {@link #getSnowflake(String)} without ever creating the string representation.
+ *
+ * <p>Like {@link net.dv8tion.jda.api.utils.data.DataObject DataObject}, this is not thread-safe for modifications.
+ * Reads are thread-safe once the map was safely published, for example by submitting it to an executor.
+ * Lazily decoded values are stored without synchronization, so concurrent reads can decode a value twice.
+ * This race is benign, since scalar values are immutable and nested maps and lists are stored in a holder,
+ * whose final field guarantees that other threads see them fully decoded.
+ */
+public class CompactTermMap extends AbstractMap<String, Object>
+{
+    private final byte[] source;
+    private String[] keys;
+    private Object[] values;
+    private byte[] types;
+    private long[] raw;
+    private int size;
+
+    CompactTermMap(byte[] source, int capacity)
+    {
+        this.source = source;
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.types = new byte[capacity];
+        this.raw = new long[capacity];
+    }
+
+    // Keys of ETF maps are unique, so the decoder can skip the lookup
+    void append(String key, byte type, long rawValue, Object value)
+    {
+        ensureCapacity(size + 1);
+        int index = size++;
+        keys[index] = key;
+        types[index] = type;
+        raw[index] = rawValue;
+        values[index] = value;
+    }
+
+    /**
+     * The unboxed value of a snowflake, or {@code null} if the key is not a snowflake.
+     * <br>This avoids decoding the string representation of the id.
+     *
+     * @param  key
+     *         The key
+     *
+     * @return The snowflake, or null
+     */
+    public Long getSnowflake(@Nonnull String key)
+    {
+        int index = indexOf(key);
+        if (index < 0 || types[index] != CompactTermDecoder.TYPE_SNOWFLAKE)
+            return null;
+        return raw[index];
+    }
+
+    private int indexOf(Object key)
+    {
+        String[] keys = this.keys;
+        int size = this.size;
+        // Most lookups use literals, which are interned just like the decoded keys
+        for (int i = 0; i < size; i++)
+        {
+            if (keys[i] == key)
+                return i;
+        }
+        for (int i = 0; i < size; i++)
+        {
+            if (keys[i].equals(key))
+                return i;
+        }
+        return -1;
+    }
+
+    private Object valueAt(int index)
+    {
+        Object value = values[index];
+        if (value == null)
+            return decodeAt(index);
+        return value instanceof Lazy ? ((Lazy) value).value : value;
+    }
+
+    private Object decodeAt(int index)
+    {
+        byte type = types[index];
+        if (type == CompactTermDecoder.TYPE_DECODED)
+            return null;
+        Object value = CompactTermDecoder.decode(source, type, raw[index]);
+        // Nested maps and lists are mutable, so they are only published through the final field of the holder
+        values[index] = type == CompactTermDecoder.TYPE_TERM ? new Lazy(value) : value;
+        return value;
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity <= keys.length)
+            return;
+        int newCapacity = Math.max(capacity, keys.length * 2);
+        keys = Arrays.copyOf(keys, newCapacity);
+        values = Arrays.copyOf(values, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        raw = Arrays.copyOf(raw, newCapacity);
+    }
+
+    private void removeAt(int index)
+    {
+        int moved = size - index - 1;
+        if (moved > 0)
+        {
+            System.arraycopy(keys, index + 1, keys, index, moved);
+            System.arraycopy(values, index + 1, values, index, moved);
+            System.arraycopy(types, index + 1, types, index, moved);
+            System.arraycopy(raw, index + 1, raw, index, moved);
+        }
+        size--;
+        keys[size] = null;
+        values[size] = null;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        int index = indexOf(key);
+        return index < 0 ? null : valueAt(index);
+    }
+
+    @Override
+    public Object put(String key, Object value)
+    {
+        Objects.requireNonNull(key);
+        int index = indexOf(key);
+        Object old = null;
+        if (index < 0)
+        {
+            ensureCapacity(size + 1);
+            index = size++;
+            keys[index] = key;
+        }
+        else
+        {
+            old = valueAt(index);
+        }
+        values[index] = value;
+        types[index] = CompactTermDecoder.TYPE_DECODED;
+        return old;
+    }
+
+    @Override
+    public Object remove(Object key)
+    {
+        int index = indexOf(key);
+        if (index < 0)
+            return null;
+        Object old = valueAt(index);
+        removeAt(index);
+        return old;
+    }
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    @Nonnull
+    @Override
+    public Set<String> keySet()
+    {
+        // Iterating the keys should not decode all the values
+        return new AbstractSet<String>()
+        {
+            @Nonnull
+            @Override
+            public Iterator<String> iterator()
+            {
+                return new IndexIterator<String>()
+                {
+                    @Override
+                    protected String get(int index)
+                    {
+                        return keys[index];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o)
+            {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size()
+            {
+                return size;
+            }
+        };
+    }
+
+    @Nonnull
+    @Override
+    public Set<Entry<String, Object>> entrySet()
+    {
+        return new AbstractSet<Entry<String, Object>>()
+        {
+            @Nonnull
+            @Override
+            public Iterator<Entry<String, Object>> iterator()
+            {
+                return new IndexIterator<Entry<String, Object>>()
+                {
+                    @Override
+                    protected Entry<String, Object> get(int index)
+                    {
+                        return new SimpleImmutableEntry<>(keys[index], valueAt(index));
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return size;
+            }
+        };
+    }
+
+    // Holds a lazily decoded nested term, which is fully visible to any thread that reads the holder
+    private static final class Lazy
+    {
+        private final Object value;
+
+        private Lazy(Object value)
+        {
+            this.value = value;
+        }
+    }
+
+    private abstract class IndexIterator<T> implements Iterator<T>
+    {
+        private int index = 0;
+        private int last = -1;
+
+        protected abstract T get(int index);
+
+        @Override
+        public boolean hasNext()
+        {
+            return index < size;
+        }
+
+        @Override
+        public T next()
+        {
+            if (index >= size)
+                throw new NoSuchElementException();
+            last = index++;
+            return get(last);
+        }
+
+        @Override
+        public void remove()
+        {
+            if (last < 0)
+                throw new IllegalStateException();
+            removeAt(last);
+            index = last;
+            last = -1;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.internal.utils.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.dv8tion.jda.api.exceptions.ParsingException;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Map view of a json object, which is only parsed once it is accessed.
+ *
+ * <p>On first access, the fields of the object are indexed. Scalar values are decoded right away,
+ * while nested objects and arrays are only remembered by their position in the source array.
+ * Nested objects are decoded into another {@link LazyJsonMap} when they are first accessed,
+ * and arrays are decoded into lists of lazy maps.
+ *
+ * <p>The source array must not be modified afterwards.
+ * Like {@link net.dv8tion.jda.api.utils.data.DataObject DataObject}, this is not thread-safe.
+ */
+public class LazyJsonMap extends AbstractMap<String, Object>
+{
+    private static final JsonFactory factory = new JsonFactory();
+
+    private final byte[] source;
+    private final int offset, length;
+    private Map<String, Object> index;
+
+    /**
+     * Creates a lazy map for the json object in the specified region of the source array.
+     *
+     * @param source
+     *        The source array
+     * @param offset
+     *        The offset of the opening brace
+     * @param length
+     *        The length of the object, including both braces
+     */
+    public LazyJsonMap(@Nonnull byte[] source, int offset, int length)
+    {
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    private Map<String, Object> index()
+    {
+        if (index != null)
+            return index;
+        try (JsonParser parser = factory.createParser(source, offset, length))
+        {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new ParsingException("Expected json object");
+            index = readObject(parser, offset);
+            return index;
+        }
+        catch (IOException e)
+        {
+            throw new ParsingException(e);
+        }
+    }
+
+    private Object resolve(String key, Object value)
+    {
+        if (!(value instanceof Region))
+            return value;
+        Object decoded = ((Region) value).decode(source);
+        index.put(key, decoded);
+        return decoded;
+    }
+
+    private Map<String, Object> resolveAll()
+    {
+        Map<String, Object> index = index();
+        for (Entry<String, Object> entry : index.entrySet())
+        {
+            if (entry.getValue() instanceof Region)
+                entry.setValue(((Region) entry.getValue()).decode(source));
+        }
+        return index;
+    }
+
+    @Override
+    public int size()
+    {
+        return index().size();
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return index().containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        Object value = index().get(key);
+        return value instanceof Region ? resolve((String) key, value) : value;
+    }
+
+    @Override
+    public Object put(String key, Object value)
+    {
+        Object old = index().put(key, value);
+        return old instanceof Region ? ((Region) old).decode(source) : old;
+    }
+
+    @Override
+    public Object remove(Object key)
+    {
+        Object old = index().remove(key);
+        return old instanceof Region ? ((Region) old).decode(source) : old;
+    }
+
+    @Override
+    public void clear()
+    {
+        index = new HashMap<>();
+    }
+
+    @Nonnull
+    @Override
+    public Set<String> keySet()
+    {
+        // Iterating the keys should not decode all the values
+        return index().keySet();
+    }
+
+    @Nonnull
+    @Override
+    public Set<Entry<String, Object>> entrySet()
+    {
+        return resolveAll().entrySet();
+    }
+
+    private static Map<String, Object> readObject(JsonParser parser, int base) throws IOException
+    {
+        Map<String, Object> map = new HashMap<>();
+        String key;
+        while ((key = parser.nextFieldName()) != null)
+        {
+            parser.nextToken();
+            map.put(key, readValue(parser, base));
+        }
+        return map;
+    }
+
+    private static Object readValue(JsonParser parser, int base) throws IOException
+    {
+        switch (parser.currentToken())
+        {
+        case START_OBJECT:
+        case START_ARRAY:
+            // Only remember where the value is, it is decoded when accessed
+            boolean array = parser.currentToken() == JsonToken.START_ARRAY;
+            int start = base + (int) parser.getTokenLocation().getByteOffset();
+            parser.skipChildren();
+            int end = base + (int) parser.getCurrentLocation().getByteOffset();
+            return new Region(array, start, end - start);
+        case VALUE_STRING:
+            return parser.getText();
+        case VALUE_NUMBER_INT:
+        case VALUE_NUMBER_FLOAT:
+            return parser.getNumberValue();
+        case VALUE_TRUE:
+            return Boolean.TRUE;
+        case VALUE_FALSE:
+            return Boolean.FALSE;
+        case VALUE_NULL:
+            return null;
+        default:
+            throw new ParsingException("Unexpected token " + parser.currentToken());
+        }
+    }
+
+    private static List<Object> readArray(byte[] source, int offset, int length)
+    {
+        try (JsonParser parser = factory.createParser(source, offset, length))
+        {
+            parser.nextToken();
+            List<Object> list = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY)
+            {
+                Object value = readValue(parser, offset);
+                list.add(value instanceof Region ? ((Region) value).decode(source) : value);
+            }
+            return list;
+        }
+        catch (IOException e)
+        {
+            throw new ParsingException(e);
+        }
+    }
+
+    private static class Region
+    {
+        private final boolean array;
+        private final int offset, length;
+
+        private Region(boolean array, int offset, int length)
+        {
+            this.array = array;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private Object decode(byte[] source)
+        {
+            return array ? readArray(source, offset, length) : new LazyJsonMap(source, offset, length);
+        }
+    }
+}
@@ -61,6 +61,7 @@ public class IntegrationTest
         closeable = openMocks(this);
         when(jda.getRequester()).thenReturn(requester);
         when(jda.getEntityBuilder()).thenReturn(new EntityBuilder(jda));
+        when(jda.isEventConsumed(any())).thenReturn(true);
     }
 
     @AfterEach
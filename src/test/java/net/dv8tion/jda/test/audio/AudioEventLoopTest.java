@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.test.audio;
+
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.audio.factory.*;
+import net.dv8tion.jda.internal.audio.AudioEventLoop;
+import net.dv8tion.jda.internal.audio.AudioEventLoopGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class AudioEventLoopTest
+{
+    private final AudioEventLoop loop;
+
+    AudioEventLoopTest() throws IOException
+    {
+        loop = new AudioEventLoop("Test Audio-EventLoop");
+    }
+
+    @AfterEach
+    void shutdown()
+    {
+        loop.shutdown();
+    }
+
+    @Test
+    void testFramePacing() throws InterruptedException
+    {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch frames = new CountDownLatch(10);
+        long start = System.nanoTime();
+        AudioEventLoop.Handle handle = loop.scheduleFrameTask(() ->
+        {
+            runs.incrementAndGet();
+            frames.countDown();
+        });
+        assertThat(loop.getLoad()).isEqualTo(1);
+
+        assertThat(frames.await(10, TimeUnit.SECONDS)).isTrue();
+        // The first frame runs right away, every other frame 20ms after the previous one
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(9 * 20 - 10);
+
+        handle.cancel();
+        assertThat(loop.getLoad()).isZero();
+        int cancelledAt = runs.get();
+        Thread.sleep(100);
+        assertThat(runs.get()).isLessThanOrEqualTo(cancelledAt + 1);
+    }
+
+    @Test
+    void testReceive() throws IOException, InterruptedException
+    {
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        try (DatagramChannel receiver = DatagramChannel.open(); DatagramChannel sender = DatagramChannel.open())
+        {
+            receiver.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            loop.register(receiver, packet ->
+            {
+                received.add(new String(packet.getData(), packet.getOffset(), packet.getLength()));
+                done.countDown();
+            });
+
+            for (String message : new String[] { "first", "second", "third" })
+                sender.send(ByteBuffer.wrap(message.getBytes()), receiver.getLocalAddress());
+
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(received).containsExactly("first", "second", "third");
+        }
+    }
+
+    @Test
+    void testFailedLoopIsReplaced() throws InterruptedException
+    {
+        AudioEventLoopGroup group = new AudioEventLoopGroup("Test Audio-EventLoop", 1);
+        try
+        {
+            AudioEventLoop failing = group.next();
+            CountDownLatch failed = new CountDownLatch(2);
+            AudioEventLoop.Handle receiver = failing.scheduleFrameTask(() -> {});
+            receiver.onFailure(failed::countDown);
+            AudioEventLoop.Handle task = failing.scheduleFrameTask(() ->
+            {
+                throw new StackOverflowError("Test error");
+            });
+            task.onFailure(failed::countDown);
+
+            assertThat(failed.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(receiver.isCancelled()).isTrue();
+            assertThat(task.isCancelled()).isTrue();
+            assertThat(failing.isAlive()).isFalse();
+
+            // Handles of a dead loop fail right away
+            CountDownLatch late = new CountDownLatch(1);
+            failing.scheduleFrameTask(() -> {}).onFailure(late::countDown);
+            assertThat(late.getCount()).isZero();
+
+            AudioEventLoop replacement = group.next();
+            assertThat(replacement).isNotSameAs(failing);
+            assertThat(replacement.isAlive()).isTrue();
+        }
+        finally
+        {
+            group.shutdown();
+        }
+    }
+
+    @Test
+    void testUnsupportedGroup()
+    {
+        NioSendFactory nioFactory = new NioSendFactory();
+        JDABuilder builder = JDABuilder.createLight("token");
+        builder.setAudioSendFactory(nioFactory);
+        builder.setAudioSendFactory(new DefaultSendFactory());
+
+        // Connections could not use this group, so it is rejected instead of falling back to a receive thread
+        IAudioEventLoopGroup customGroup = new IAudioEventLoopGroup()
+        {
+            @Override
+            public int getSize()
+            {
+                return 1;
+            }
+
+            @Override
+            public void shutdown() {}
+        };
+        IAudioSendFactory customFactory = new IAudioSendFactory()
+        {
+            @Nonnull
+            @Override
+            public IAudioSendSystem createSendSystem(@Nonnull IPacketProvider packetProvider)
+            {
+                return nioFactory.createSendSystem(packetProvider);
+            }
+
+            @Override
+            public IAudioEventLoopGroup getEventLoopGroup()
+            {
+                return customGroup;
+            }
+        };
+        assertThatIllegalArgumentException().isThrownBy(() -> builder.setAudioSendFactory(customFactory));
+    }
+}
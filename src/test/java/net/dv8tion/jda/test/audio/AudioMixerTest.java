@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.audio;
+
+import net.dv8tion.jda.internal.audio.AudioMixer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AudioMixerTest
+{
+    @Test
+    void testSingleSource()
+    {
+        AudioMixer mixer = new AudioMixer();
+        short[] audio = frame((short) 42);
+        short[] output = frame((short) 7);
+
+        mixer.add(audio);
+        mixer.mixInto(output);
+
+        assertThat(output).isEqualTo(audio).isNotSameAs(audio);
+        assertThat(mixer.getSourceCount()).isEqualTo(0);
+    }
+
+    @Test
+    void testClamping()
+    {
+        AudioMixer mixer = new AudioMixer();
+        short[] output = new short[AudioMixer.FRAME_LENGTH];
+
+        mixer.add(frame((short) 30000));
+        mixer.add(frame((short) 30000));
+        mixer.add(frame((short) 100));
+        mixer.mixInto(output);
+        assertThat(output).containsOnly(Short.MAX_VALUE);
+
+        mixer.add(frame((short) -30000));
+        mixer.add(frame((short) -30000));
+        mixer.mixInto(output);
+        assertThat(output).containsOnly(Short.MIN_VALUE);
+
+        // The accumulator has to be reset between frames
+        mixer.add(frame((short) 1));
+        mixer.add(frame((short) 2));
+        mixer.mixInto(output);
+        assertThat(output).containsOnly((short) 3);
+    }
+
+    @Test
+    void testDifferentLengths()
+    {
+        AudioMixer mixer = new AudioMixer();
+        short[] output = frame((short) 7);
+
+        short[] shorter = new short[100];
+        Arrays.fill(shorter, (short) 5);
+        mixer.add(shorter);
+        mixer.add(new short[] { 1, 2, 3 });
+        mixer.mixInto(output);
+
+        assertThat(output[0]).isEqualTo((short) 6);
+        assertThat(output[2]).isEqualTo((short) 8);
+        assertThat(output[3]).isEqualTo((short) 5);
+        assertThat(output[99]).isEqualTo((short) 5);
+        assertThat(Arrays.copyOfRange(output, 100, output.length)).containsOnly((short) 0);
+    }
+
+    private static short[] frame(short sample)
+    {
+        short[] audio = new short[AudioMixer.FRAME_LENGTH];
+        Arrays.fill(audio, sample);
+        return audio;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.test.audio;
+
+import net.dv8tion.jda.api.audio.AudioReceiveHandler;
+import net.dv8tion.jda.api.audio.UserAudio;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.internal.audio.AudioConnection;
+import net.dv8tion.jda.internal.audio.AudioEncryption;
+import net.dv8tion.jda.internal.audio.AudioPacket;
+import net.dv8tion.jda.internal.audio.SecretBoxCipher;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.net.DatagramPacket;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class AudioReceiveTest
+{
+    private static final byte[] KEY = new byte[SecretBoxCipher.KEY_LENGTH];
+    private static final byte[] AUDIO = { (byte) 0xF8, (byte) 0xFF, (byte) 0xFE, 1, 2, 3, 4, 5 };
+
+    static
+    {
+        for (int i = 0; i < KEY.length; i++)
+            KEY[i] = (byte) (i * 7 + 1);
+    }
+
+    private final SecretBoxCipher cipher = new SecretBoxCipher(KEY);
+    private final byte[] nonce = new byte[SecretBoxCipher.NONCE_LENGTH];
+    private final byte[] plaintext = new byte[1920];
+
+    @Test
+    void testDecryptAllModes()
+    {
+        for (AudioEncryption encryption : AudioEncryption.values())
+        {
+            byte[] header = header((char) 42, false);
+            AudioPacket packet = decrypt(encryption, encrypt(encryption, header, AUDIO));
+
+            assertThat(packet).isNotNull();
+            assertThat(packet.getSequence()).isEqualTo((char) 42);
+            assertThat(packet.getTimestamp()).isEqualTo(42 * 960);
+            assertThat(packet.getSSRC()).isEqualTo(1234);
+            assertThat(bytes(packet.getEncodedAudio())).isEqualTo(AUDIO);
+        }
+    }
+
+    @Test
+    void testDecryptWithExtensionHeader()
+    {
+        for (AudioEncryption encryption : AudioEncryption.values())
+        {
+            byte[] header = header((char) 7, true);
+            AudioPacket packet = decrypt(encryption, encrypt(encryption, header, AUDIO));
+
+            assertThat(packet).isNotNull();
+            assertThat(packet.getSequence()).isEqualTo((char) 7);
+            assertThat(bytes(packet.getEncodedAudio())).isEqualTo(AUDIO);
+        }
+    }
+
+    @Test
+    void testDecryptTooShort()
+    {
+        for (AudioEncryption encryption : AudioEncryption.values())
+        {
+            byte[] packet = encrypt(encryption, header((char) 1, false), AUDIO);
+            // Only the header, or the header with a truncated tag or suffix nonce
+            assertThat(decrypt(encryption, Arrays.copyOf(packet, AudioPacket.RTP_HEADER_BYTE_LENGTH))).isNull();
+            assertThat(decrypt(encryption, Arrays.copyOf(packet, AudioPacket.RTP_HEADER_BYTE_LENGTH + 3))).isNull();
+            assertThat(decrypt(encryption, Arrays.copyOf(packet, AudioPacket.RTP_HEADER_BYTE_LENGTH + SecretBoxCipher.TAG_LENGTH - 1))).isNull();
+            // The extension header claims more data than the packet has
+            byte[] header = header((char) 1, true);
+            header[15] = 100;
+            assertThat(decrypt(encryption, encrypt(encryption, header, AUDIO))).isNull();
+        }
+    }
+
+    @Test
+    void testDecryptTampered()
+    {
+        for (AudioEncryption encryption : AudioEncryption.values())
+        {
+            byte[] packet = encrypt(encryption, header((char) 1, false), AUDIO);
+            packet[AudioPacket.RTP_HEADER_BYTE_LENGTH + SecretBoxCipher.TAG_LENGTH] ^= 1;
+            assertThat(decrypt(encryption, packet)).isNull();
+        }
+    }
+
+    @Test
+    void testCopyOutlivesPlaintext()
+    {
+        AudioEncryption encryption = AudioEncryption.XSALSA20_POLY1305_LITE;
+        AudioPacket first = decrypt(encryption, encrypt(encryption, header((char) 1, false), AUDIO));
+        AudioPacket copy = first.copy();
+
+        byte[] otherAudio = { 9, 8, 7, 6, 5, 4, 3, 2 };
+        AudioPacket second = decrypt(encryption, encrypt(encryption, header((char) 2, false), otherAudio));
+
+        // Both decrypted packets are views of the same plaintext
+        assertThat(bytes(first.getEncodedAudio())).isEqualTo(otherAudio);
+        assertThat(bytes(second.getEncodedAudio())).isEqualTo(otherAudio);
+        assertThat(copy.getSequence()).isEqualTo((char) 1);
+        assertThat(bytes(copy.getEncodedAudio())).isEqualTo(AUDIO);
+    }
+
+    @Test
+    void testLendBufferOnly()
+    {
+        RecordingHandler handler = new RecordingHandler(false);
+        ShortBuffer audio = ShortBuffer.wrap(new short[] { 1, 2, 3, 4 });
+
+        short[] decoded = AudioConnection.provideUserAudio(handler, mock(User.class), null, audio, false);
+
+        // The handler only borrows the buffer, so no array is allocated
+        assertThat(decoded).isNull();
+        assertThat(handler.lent).containsExactly(audio);
+        assertThat(handler.lentAudio).containsExactly(new short[] { 1, 2, 3, 4 });
+        assertThat(handler.userAudio).isEmpty();
+    }
+
+    @Test
+    void testLendBufferWithUserAudio()
+    {
+        RecordingHandler handler = new RecordingHandler(true);
+        ShortBuffer audio = ShortBuffer.wrap(new short[] { 1, 2, 3, 4 });
+
+        short[] decoded = AudioConnection.provideUserAudio(handler, mock(User.class), null, audio, false);
+
+        // The array is copied before lending, so changes to the lent buffer are not visible in the array
+        assertThat(decoded).isEqualTo(new short[] { 1, 2, 3, 4 });
+        assertThat(handler.lent).containsExactly(audio);
+        assertThat(handler.lentAudio).containsExactly(new short[] { 1, 2, 3, 4 });
+        assertThat(handler.userAudio).hasSize(1);
+        assertThat(audio.get(0)).isEqualTo((short) -1);
+    }
+
+    @Test
+    void testDecodedArrayIsWrapped()
+    {
+        RecordingHandler handler = new RecordingHandler(true);
+        short[] audio = { 1, 2, 3, 4 };
+
+        short[] decoded = AudioConnection.provideUserAudio(handler, mock(User.class), audio, null, true);
+
+        assertThat(decoded).isSameAs(audio);
+        assertThat(handler.lentAudio).containsExactly(new short[] { 1, 2, 3, 4 });
+        assertThat(handler.userAudio).hasSize(1);
+    }
+
+    private AudioPacket decrypt(AudioEncryption encryption, byte[] packet)
+    {
+        // Received packets are read into a larger array, like the receiving socket does
+        byte[] data = Arrays.copyOf(packet, 1920);
+        return AudioPacket.decryptAudioPacket(encryption, new DatagramPacket(data, packet.length), cipher, nonce, plaintext);
+    }
+
+    private static byte[] header(char sequence, boolean extension)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(extension ? AudioPacket.RTP_HEADER_BYTE_LENGTH + 8 : AudioPacket.RTP_HEADER_BYTE_LENGTH);
+        buffer.put(extension ? (byte) 0x90 : AudioPacket.RTP_VERSION_PAD_EXTEND);
+        buffer.put(AudioPacket.RTP_PAYLOAD_TYPE);
+        buffer.putChar(sequence);
+        buffer.putInt(sequence * 960);
+        buffer.putInt(1234);
+        if (extension)
+        {
+            // One 4-byte word of extension data
+            buffer.putShort(AudioPacket.RTP_DISCORD_EXTENSION);
+            buffer.putShort((short) 1);
+            buffer.putInt(0x12345678);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] encrypt(AudioEncryption encryption, byte[] header, byte[] audio)
+    {
+        byte[] nonce = new byte[SecretBoxCipher.NONCE_LENGTH];
+        int nonceLength;
+        switch (encryption)
+        {
+            case XSALSA20_POLY1305:
+                System.arraycopy(header, 0, nonce, 0, AudioPacket.RTP_HEADER_BYTE_LENGTH);
+                nonceLength = 0;
+                break;
+            case XSALSA20_POLY1305_SUFFIX:
+                for (int i = 0; i < nonce.length; i++)
+                    nonce[i] = (byte) (i + 1);
+                nonceLength = nonce.length;
+                break;
+            case XSALSA20_POLY1305_LITE:
+                nonce[3] = 5;
+                nonceLength = 4;
+                break;
+            default:
+                throw new IllegalArgumentException(encryption.toString());
+        }
+
+        byte[] packet = new byte[header.length + SecretBoxCipher.TAG_LENGTH + audio.length + nonceLength];
+        System.arraycopy(header, 0, packet, 0, header.length);
+        int sealed = new SecretBoxCipher(KEY).seal(nonce, audio, 0, audio.length, packet, header.length);
+        System.arraycopy(nonce, 0, packet, header.length + sealed, nonceLength);
+        return packet;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static class RecordingHandler implements AudioReceiveHandler
+    {
+        private final boolean receiveUser;
+        private final List<ShortBuffer> lent = new ArrayList<>();
+        private final List<short[]> lentAudio = new ArrayList<>();
+        private final List<UserAudio> userAudio = new ArrayList<>();
+
+        private RecordingHandler(boolean receiveUser)
+        {
+            this.receiveUser = receiveUser;
+        }
+
+        @Override
+        public boolean canReceiveUser()
+        {
+            return receiveUser;
+        }
+
+        @Override
+        public boolean canReceiveUserBuffer()
+        {
+            return true;
+        }
+
+        @Override
+        public void handleUserAudio(@Nonnull User user, @Nonnull ShortBuffer audio)
+        {
+            short[] copy = new short[audio.remaining()];
+            audio.get(copy);
+            lent.add(audio);
+            lentAudio.add(copy);
+            // The buffer is reused after this method returns, so the handler may overwrite it
+            audio.put(0, (short) -1);
+        }
+
+        @Override
+        public void handleUserAudio(@Nonnull UserAudio userAudio)
+        {
+            this.userAudio.add(userAudio);
+        }
+    }
+}
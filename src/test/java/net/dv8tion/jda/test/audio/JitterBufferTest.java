@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.test.audio;
+
+import net.dv8tion.jda.api.audio.AudioReceiveStatistics;
+import net.dv8tion.jda.api.audio.JitterBufferConfig;
+import net.dv8tion.jda.internal.audio.AudioPacket;
+import net.dv8tion.jda.internal.audio.JitterBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class JitterBufferTest
+{
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    void testReorder()
+    {
+        JitterBuffer buffer = new JitterBuffer(1, null, new JitterBufferConfig().setMinDelay(40));
+        buffer.offer(packet(10), 0);
+        // Still filling up to the delay of 2 frames
+        assertThat(buffer.poll()).isEqualTo(JitterBuffer.IDLE);
+
+        buffer.offer(packet(12), FRAME_NANOS);
+        buffer.offer(packet(11), FRAME_NANOS);
+        assertThat(played(buffer, 4)).containsExactly(10, 11, 12, -1);
+
+        AudioReceiveStatistics statistics = buffer.getStatistics();
+        assertThat(statistics.getReceivedPackets()).isEqualTo(3);
+        assertThat(statistics.getLostPackets()).isZero();
+        assertThat(statistics.getDelay()).isGreaterThanOrEqualTo(40);
+    }
+
+    @Test
+    void testLossAndLatePackets()
+    {
+        JitterBuffer buffer = new JitterBuffer(1, null, new JitterBufferConfig().setMinDelay(0));
+        buffer.offer(packet(65534), 0);
+        buffer.offer(packet(1), 0);
+
+        // The sequence wraps around, so 65535 and 0 are missing
+        assertThat(buffer.poll()).isEqualTo(JitterBuffer.PLAY);
+        assertThat(buffer.poll()).isEqualTo(JitterBuffer.LOST);
+        assertThat(buffer.getRecoveryPacket()).isNull();
+        assertThat(buffer.poll()).isEqualTo(JitterBuffer.LOST);
+        // The next packet carries the forward error correction data of the lost packet
+        assertThat(buffer.getRecoveryPacket().getSequence()).isEqualTo((char) 1);
+
+        buffer.offer(packet(65535), 0);
+        assertThat(buffer.poll()).isEqualTo(JitterBuffer.PLAY);
+        assertThat(buffer.getPacket().getSequence()).isEqualTo((char) 1);
+
+        AudioReceiveStatistics statistics = buffer.getStatistics();
+        assertThat(statistics.getLostPackets()).isEqualTo(2);
+        assertThat(statistics.getRecoveredPackets()).isEqualTo(1);
+        assertThat(statistics.getLatePackets()).isEqualTo(1);
+    }
+
+    @Test
+    void testMaxDelay()
+    {
+        JitterBuffer buffer = new JitterBuffer(1, null, new JitterBufferConfig().setMinDelay(0).setMaxDelay(60));
+        for (int seq = 0; seq < 10; seq++)
+            buffer.offer(packet(seq), 0);
+
+        // Only the newest 3 frames are kept after playing the first
+        assertThat(played(buffer, 5)).containsExactly(0, 7, 8, 9, -1);
+        assertThat(buffer.getStatistics().getDiscardedPackets()).isEqualTo(6);
+    }
+
+    @Test
+    void testAdaptiveDelay()
+    {
+        JitterBuffer buffer = new JitterBuffer(1, null, new JitterBufferConfig().setMinDelay(20).setMaxDelay(200));
+        // Every other packet arrives 30ms late
+        for (int seq = 0; seq < 50; seq++)
+            buffer.offer(packet(seq), seq * FRAME_NANOS + (seq % 2) * TimeUnit.MILLISECONDS.toNanos(30));
+        assertThat(buffer.getStatistics().getJitter()).isBetween(20.0, 40.0);
+
+        played(buffer, 51);
+        // The delay adapts after the talk spurt
+        assertThat(buffer.getStatistics().getDelay()).isGreaterThan(20).isLessThanOrEqualTo(200);
+    }
+
+    @Test
+    void testDelayLimits()
+    {
+        assertThatIllegalArgumentException().isThrownBy(() -> new JitterBufferConfig().setMinDelay(1001));
+        assertThatIllegalArgumentException().isThrownBy(() -> new JitterBufferConfig().setMaxDelay(1001));
+
+        // The longest delay still starts playing before the buffer is full
+        JitterBuffer buffer = new JitterBuffer(1, null, new JitterBufferConfig().setMinDelay(1000).setMaxDelay(1000));
+        for (int seq = 0; seq < 49; seq++)
+            buffer.offer(packet(seq), 0);
+        assertThat(buffer.poll()).isEqualTo(JitterBuffer.IDLE);
+        buffer.offer(packet(49), 0);
+        assertThat(buffer.poll()).isEqualTo(JitterBuffer.PLAY);
+        assertThat(buffer.getStatistics().getDelay()).isEqualTo(1000);
+    }
+
+    private static List<Integer> played(JitterBuffer buffer, int frames)
+    {
+        List<Integer> played = new ArrayList<>();
+        for (int i = 0; i < frames; i++)
+        {
+            int result = buffer.poll();
+            if (result == JitterBuffer.PLAY)
+                played.add((int) buffer.getPacket().getSequence());
+            else
+                played.add(result == JitterBuffer.LOST ? -2 : -1);
+        }
+        return played;
+    }
+
+    private static AudioPacket packet(int seq)
+    {
+        ByteBuffer data = ByteBuffer.allocate(AudioPacket.RTP_HEADER_BYTE_LENGTH + 3);
+        data.put(AudioPacket.RTP_VERSION_PAD_EXTEND)
+            .put(AudioPacket.RTP_PAYLOAD_TYPE)
+            .putChar((char) seq)
+            .putInt(seq * 960)
+            .putInt(42);
+        return new AudioPacket(data.array());
+    }
+}
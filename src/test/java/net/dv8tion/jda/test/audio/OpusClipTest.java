@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.test.audio;
+
+import net.dv8tion.jda.api.audio.AudioSendHandler;
+import net.dv8tion.jda.api.audio.OpusClip;
+import net.dv8tion.jda.internal.audio.AudioPacket;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+public class OpusClipTest
+{
+    private static final List<byte[]> FRAMES = Arrays.asList(
+        new byte[] { 1, 2, 3 },
+        new byte[] { 4 },
+        new byte[] { 5, 6 }
+    );
+
+    @Test
+    void testFromFrames()
+    {
+        OpusClip clip = OpusClip.fromFrames(FRAMES);
+
+        assertThat(clip.getFrameCount()).isEqualTo(3);
+        assertThat(clip.getDuration()).isEqualTo(60);
+        assertThat(play(clip.createSendHandler(), 5)).containsExactly(FRAMES.toArray(new byte[0][]));
+    }
+
+    @Test
+    void testSharedBetweenHandlers()
+    {
+        OpusClip clip = OpusClip.fromFrames(FRAMES);
+        AudioSendHandler first = clip.createSendHandler();
+        AudioSendHandler second = clip.createSendHandler();
+
+        assertThat(first.isOpus()).isTrue();
+        assertThat(toArray(first.provide20MsAudio())).isEqualTo(FRAMES.get(0));
+        assertThat(toArray(first.provide20MsAudio())).isEqualTo(FRAMES.get(1));
+        assertThat(toArray(second.provide20MsAudio())).isEqualTo(FRAMES.get(0));
+    }
+
+    @Test
+    void testLoop()
+    {
+        AudioSendHandler handler = OpusClip.fromFrames(FRAMES).createSendHandler(true);
+
+        List<byte[]> played = play(handler, 4);
+        assertThat(played).hasSize(4);
+        assertThat(played.get(3)).isEqualTo(FRAMES.get(0));
+        assertThat(handler.canProvide()).isTrue();
+    }
+
+    @Test
+    void testMappedFile(@TempDir Path directory) throws IOException
+    {
+        Path file = directory.resolve("clip.opus");
+        ByteBuffer encoded = ByteBuffer.allocate(12);
+        for (byte[] frame : FRAMES)
+            encoded.putChar((char) frame.length).put(frame);
+        Files.write(file, encoded.array());
+
+        OpusClip clip = OpusClip.map(file);
+        assertThat(play(clip.createSendHandler(), 5)).containsExactly(FRAMES.toArray(new byte[0][]));
+    }
+
+    @Test
+    void testInvalidFrames()
+    {
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> OpusClip.fromFrames(Arrays.asList(new byte[1], new byte[0])));
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> OpusClip.fromBuffer(ByteBuffer.wrap(new byte[] { 0, 3, 1, 2 })));
+    }
+
+    @Test
+    void testPacketFromFrameView()
+    {
+        AudioSendHandler handler = OpusClip.fromFrames(FRAMES).createSendHandler();
+        handler.provide20MsAudio();
+        // The second frame is a view in the middle of the shared clip
+        ByteBuffer frame = handler.provide20MsAudio();
+
+        AudioPacket packet = new AudioPacket(null, (char) 1, 960, 42, frame);
+        byte[] raw = packet.getRawPacket();
+        assertThat(Arrays.copyOfRange(raw, AudioPacket.RTP_HEADER_BYTE_LENGTH, raw.length)).isEqualTo(FRAMES.get(1));
+        assertThat(toArray(frame)).isEqualTo(FRAMES.get(1));
+    }
+
+    private static List<byte[]> play(AudioSendHandler handler, int maxFrames)
+    {
+        List<byte[]> played = new ArrayList<>();
+        while (handler.canProvide() && played.size() < maxFrames)
+            played.add(toArray(handler.provide20MsAudio()));
+        return played;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer)
+    {
+        byte[] array = new byte[buffer.remaining()];
+        buffer.duplicate().get(array);
+        return array;
+    }
+}
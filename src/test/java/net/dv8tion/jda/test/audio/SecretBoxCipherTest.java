@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.test.audio;
+
+import com.iwebpp.crypto.TweetNaclFast;
+import net.dv8tion.jda.internal.audio.SecretBoxCipher;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SecretBoxCipherTest
+{
+    private final Random random = new Random(42);
+
+    @Test
+    void testSameAsTweetNacl()
+    {
+        for (int length = 0; length < 600; length += 7)
+        {
+            byte[] key = randomBytes(SecretBoxCipher.KEY_LENGTH);
+            byte[] nonce = randomBytes(SecretBoxCipher.NONCE_LENGTH);
+            byte[] message = randomBytes(length + 3);
+
+            byte[] expected = new TweetNaclFast.SecretBox(key).box(message, 3, length, nonce);
+            byte[] sealed = new byte[length + SecretBoxCipher.TAG_LENGTH];
+            SecretBoxCipher cipher = new SecretBoxCipher(key);
+
+            assertThat(cipher.seal(nonce, message, 3, length, sealed, 0)).isEqualTo(sealed.length);
+            assertThat(sealed).isEqualTo(expected);
+
+            byte[] opened = new byte[length];
+            assertThat(cipher.open(nonce, sealed, 0, sealed.length, opened, 0)).isEqualTo(length);
+            assertThat(opened).isEqualTo(Arrays.copyOfRange(message, 3, message.length));
+        }
+    }
+
+    @Test
+    void testInPlace()
+    {
+        byte[] key = randomBytes(SecretBoxCipher.KEY_LENGTH);
+        byte[] nonce = randomBytes(SecretBoxCipher.NONCE_LENGTH);
+        byte[] message = randomBytes(200);
+        SecretBoxCipher cipher = new SecretBoxCipher(key);
+
+        byte[] buffer = new byte[SecretBoxCipher.TAG_LENGTH + message.length];
+        System.arraycopy(message, 0, buffer, SecretBoxCipher.TAG_LENGTH, message.length);
+        cipher.seal(nonce, buffer, SecretBoxCipher.TAG_LENGTH, message.length, buffer, 0);
+        assertThat(buffer).isEqualTo(new TweetNaclFast.SecretBox(key).box(message, nonce));
+
+        assertThat(cipher.open(nonce, buffer, 0, buffer.length, buffer, 0)).isEqualTo(message.length);
+        assertThat(Arrays.copyOf(buffer, message.length)).isEqualTo(message);
+    }
+
+    @Test
+    void testRejectsForgery()
+    {
+        byte[] key = randomBytes(SecretBoxCipher.KEY_LENGTH);
+        byte[] nonce = randomBytes(SecretBoxCipher.NONCE_LENGTH);
+        byte[] sealed = new TweetNaclFast.SecretBox(key).box(randomBytes(100), nonce);
+        SecretBoxCipher cipher = new SecretBoxCipher(key);
+        byte[] output = new byte[sealed.length];
+
+        for (int i = 0; i < sealed.length; i += 13)
+        {
+            byte[] forged = sealed.clone();
+            forged[i] ^= 1;
+            assertThat(cipher.open(nonce, forged, 0, forged.length, output, 0)).isEqualTo(-1);
+        }
+
+        byte[] otherNonce = nonce.clone();
+        otherNonce[23] ^= 1;
+        assertThat(cipher.open(otherNonce, sealed, 0, sealed.length, output, 0)).isEqualTo(-1);
+        assertThat(cipher.open(nonce, sealed, 0, SecretBoxCipher.TAG_LENGTH - 1, output, 0)).isEqualTo(-1);
+    }
+
+    private byte[] randomBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
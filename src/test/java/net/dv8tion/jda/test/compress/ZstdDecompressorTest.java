@@ -0,0 +1,279 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.test.compress;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Pointer;
+import net.dv8tion.jda.api.utils.Compression;
+import net.dv8tion.jda.internal.utils.compress.ZstdDecompressor;
+import net.dv8tion.jda.internal.utils.compress.ZstdNatives;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ZstdDecompressorTest
+{
+    private static final int MAX_BUFFER_SIZE = 2048;
+
+    private ZstdDecompressor decompressor;
+    private Compressor compressor;
+
+    @BeforeEach
+    void setup()
+    {
+        assumeTrue(Compression.ZSTD.isSupported(), "The native zstd library is not available");
+        decompressor = new ZstdDecompressor(MAX_BUFFER_SIZE);
+        compressor = new Compressor();
+    }
+
+    @AfterEach
+    void shutdown()
+    {
+        if (decompressor != null)
+            decompressor.shutdown();
+        if (compressor != null)
+            compressor.close();
+    }
+
+    @Test
+    void testSeveralMessagesInOneFrame() throws Exception
+    {
+        // The gateway keeps one frame for the whole connection and flushes it after every message
+        for (int i = 0; i < 10; i++)
+        {
+            byte[] message = message(i, 100 + i * 50);
+            assertThat(decompressor.decompress(compressor.flush(message))).isEqualTo(message);
+        }
+    }
+
+    @Test
+    void testSeveralMessagesInOneBinary() throws Exception
+    {
+        byte[] first = message(1, 200);
+        byte[] second = message(2, 300);
+        byte[] data = concat(compressor.flush(first), compressor.flush(second));
+
+        assertThat(decompressor.decompress(data)).isEqualTo(concat(first, second));
+    }
+
+    @Test
+    void testMessageSplitAcrossFrames() throws Exception
+    {
+        byte[] message = message(3, 1000);
+        // The first part ends its frame, so the rest of the message starts a new frame
+        byte[] data = concat(
+            compressor.end(Arrays.copyOfRange(message, 0, 400)),
+            compressor.flush(Arrays.copyOfRange(message, 400, message.length))
+        );
+
+        assertThat(decompressor.decompress(data)).isEqualTo(message);
+        // The decoder continues with the new frame
+        byte[] next = message(4, 500);
+        assertThat(decompressor.decompress(compressor.flush(next))).isEqualTo(next);
+    }
+
+    @Test
+    void testLargeMessage() throws Exception
+    {
+        // Larger than the native output buffer of 128 KiB and the max buffer size, so it is decompressed in several chunks
+        byte[] message = new byte[(128 << 10) * 3 + 17];
+        new Random(42).nextBytes(message);
+
+        assertThat(decompressor.decompress(compressor.flush(message))).isEqualTo(message);
+        byte[] next = message(5, 100);
+        assertThat(decompressor.decompress(compressor.flush(next))).isEqualTo(next);
+    }
+
+    @Test
+    void testStream() throws Exception
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            byte[] message = message(i, 300);
+            try (InputStream stream = decompressor.decompressStream(compressor.flush(message)))
+            {
+                assertThat(readAll(stream)).isEqualTo(message);
+            }
+        }
+    }
+
+    @Test
+    void testUnreadStreamKeepsDecoderInSync() throws Exception
+    {
+        byte[] skipped = message(1, 500);
+        try (InputStream stream = decompressor.decompressStream(compressor.flush(skipped)))
+        {
+            assertThat(stream.read()).isEqualTo(skipped[0] & 0xFF);
+        }
+
+        byte[] message = message(2, 500);
+        assertThat(decompressor.decompress(compressor.flush(message))).isEqualTo(message);
+    }
+
+    @Test
+    void testResetOnReconnect() throws Exception
+    {
+        // The old connection is closed in the middle of a frame
+        byte[] message = message(1, 300);
+        assertThat(decompressor.decompress(compressor.flush(message))).isEqualTo(message);
+
+        decompressor.reset();
+        compressor.close();
+        compressor = new Compressor();
+
+        // The new connection starts a new frame, which would be malformed without the reset
+        for (int i = 0; i < 3; i++)
+        {
+            message = message(i, 300);
+            assertThat(decompressor.decompress(compressor.flush(message))).isEqualTo(message);
+        }
+    }
+
+    @Test
+    void testMalformed()
+    {
+        byte[] data = compressor.flush(message(1, 300));
+        data[0] ^= 0x55;
+
+        assertThatThrownBy(() -> decompressor.decompress(data)).isInstanceOf(DataFormatException.class);
+    }
+
+    private static byte[] message(int sequence, int length)
+    {
+        StringBuilder builder = new StringBuilder("{\"op\":0,\"s\":").append(sequence).append(",\"d\":\"");
+        while (builder.length() < length - 2)
+            builder.append((char) ('a' + builder.length() % 26));
+        return builder.append("\"}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] concat(byte[] first, byte[] second)
+    {
+        byte[] data = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, data, first.length, second.length);
+        return data;
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] chunk = new byte[256];
+        int read;
+        while ((read = stream.read(chunk)) != -1)
+            output.write(chunk, 0, read);
+        return output.toByteArray();
+    }
+
+    // Streaming compression like the gateway, which is not part of the bindings in JDA
+    private static class Compressor
+    {
+        private static final int ZSTD_E_FLUSH = 1;
+        private static final int ZSTD_E_END = 2;
+        private static final int BUFFER_SIZE_OFFSET = Native.POINTER_SIZE;
+        private static final int BUFFER_POS_OFFSET = Native.POINTER_SIZE + Native.SIZE_T_SIZE;
+        private static final int BUFFER_STRUCT_SIZE = Native.POINTER_SIZE + 2 * Native.SIZE_T_SIZE;
+
+        static
+        {
+            Native.register(Compressor.class, NativeLibrary.getInstance(System.getProperty("jda.zstd.library", "zstd")));
+        }
+
+        private final Pointer context = ZSTD_createCStream();
+        private final Memory inBuffer = new Memory(BUFFER_STRUCT_SIZE);
+        private final Memory outBuffer = new Memory(BUFFER_STRUCT_SIZE);
+        private final Memory output = new Memory(4096);
+
+        private byte[] flush(byte[] data)
+        {
+            return compress(data, ZSTD_E_FLUSH);
+        }
+
+        private byte[] end(byte[] data)
+        {
+            return compress(data, ZSTD_E_END);
+        }
+
+        private byte[] compress(byte[] data, int directive)
+        {
+            Memory input = new Memory(Math.max(1, data.length));
+            input.write(0, data, 0, data.length);
+            setBuffer(inBuffer, input, data.length);
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            long remaining;
+            do
+            {
+                setBuffer(outBuffer, output, output.size());
+                ZstdNatives.SizeT result = ZSTD_compressStream2(context, outBuffer, inBuffer, directive);
+                assertThat(ZSTD_isError(result)).isZero();
+                remaining = result.longValue();
+                int written = (int) getSize(outBuffer, BUFFER_POS_OFFSET);
+                compressed.write(output.getByteArray(0, written), 0, written);
+            }
+            while (remaining != 0);
+            return compressed.toByteArray();
+        }
+
+        private void close()
+        {
+            ZSTD_freeCStream(context);
+        }
+
+        private static void setBuffer(Memory buffer, Pointer data, long size)
+        {
+            buffer.setPointer(0, data);
+            setSize(buffer, BUFFER_SIZE_OFFSET, size);
+            setSize(buffer, BUFFER_POS_OFFSET, 0);
+        }
+
+        private static void setSize(Memory buffer, long offset, long value)
+        {
+            if (Native.SIZE_T_SIZE == 8)
+                buffer.setLong(offset, value);
+            else
+                buffer.setInt(offset, (int) value);
+        }
+
+        private static long getSize(Memory buffer, long offset)
+        {
+            if (Native.SIZE_T_SIZE == 8)
+                return buffer.getLong(offset);
+            else
+                return buffer.getInt(offset) & 0xFFFFFFFFL;
+        }
+
+        private static native Pointer ZSTD_createCStream();
+
+        private static native ZstdNatives.SizeT ZSTD_freeCStream(Pointer zcs);
+
+        private static native ZstdNatives.SizeT ZSTD_compressStream2(Pointer cctx, Pointer output, Pointer input, int endOp);
+
+        private static native int ZSTD_isError(ZstdNatives.SizeT code);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.data;
+
+import net.dv8tion.jda.api.utils.data.DataArray;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.requests.GatewayPayloadReader;
+import net.dv8tion.jda.internal.utils.json.LazyJsonMap;
+import net.dv8tion.jda.test.PrettyRepresentation;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GatewayPayloadReaderTest
+{
+    private static final byte[] payload = ("{\"t\":\"GUILD_UPDATE\",\"s\":42,\"op\":0,\"d\":{" +
+            "\"id\":\"81384788765712384\",\"name\":\"Guild\",\"description\":null,\"afk_timeout\":300," +
+            "\"features\":[\"COMMUNITY\",\"NEWS\"]," +
+            "\"roles\":[{\"id\":\"1\",\"name\":\"r\\u00f6le\",\"tags\":{}},{\"id\":\"2\",\"name\":\"role\",\"tags\":{\"bot_id\":\"3\"}}]," +
+            "\"nested\":[[{\"x\":1}],[]]}}").getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testLazyPayload()
+    {
+        GatewayPayloadReader reader = new GatewayPayloadReader();
+        reader.setLazy("GUILD_UPDATE", true);
+        DataObject reference = DataObject.fromJson(payload);
+
+        DataObject fromArray = reader.read(payload);
+        DataObject fromStream = reader.read(new ByteArrayInputStream(payload));
+
+        assertThat(fromArray.toMap().get("d")).isInstanceOf(LazyJsonMap.class);
+        assertThat(fromStream.toMap().get("d")).isInstanceOf(LazyJsonMap.class);
+        assertThat(fromArray)
+            .withRepresentation(new PrettyRepresentation())
+            .isEqualTo(reference);
+        assertThat(fromStream)
+            .withRepresentation(new PrettyRepresentation())
+            .isEqualTo(reference);
+
+        DataObject guild = fromArray.getObject("d");
+        assertThat(guild.getLong("id")).isEqualTo(81384788765712384L);
+        assertThat(guild.isNull("description")).isTrue();
+        assertThat(guild.getArray("roles").getObject(0).getString("name")).isEqualTo("röle");
+        assertThat(guild.getArray("roles").getObject(1).getObject("tags").getLong("bot_id")).isEqualTo(3);
+        assertThat(guild.getArray("nested").getArray(0).getObject(0).getInt("x")).isEqualTo(1);
+
+        guild.remove("roles").put("owner_id", "4");
+        assertThat(guild.keys()).doesNotContain("roles").contains("owner_id", "features");
+        assertThat(DataObject.fromJson(guild.toJson()).getArray("features"))
+            .isEqualTo(DataArray.empty().add("COMMUNITY").add("NEWS"));
+    }
+
+    @Test
+    void testStreamedPayloads()
+    {
+        GatewayPayloadReader reader = new GatewayPayloadReader();
+        reader.setLazy("GUILD_UPDATE", true);
+
+        StringBuilder features = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+            features.append(i == 0 ? "" : ",").append("\"FEATURE_").append(i).append('"');
+        byte[] large = ("{\"t\":\"GUILD_UPDATE\",\"s\":1,\"op\":0,\"d\":{\"id\":\"1\",\"features\":[" + features + "]}}")
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] other = new String(large, StandardCharsets.UTF_8).replace("GUILD_UPDATE", "GUILD_CREATE")
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] dataFirst = "{\"d\":{\"id\":\"2\"},\"op\":0,\"t\":\"GUILD_UPDATE\",\"s\":2}".getBytes(StandardCharsets.UTF_8);
+
+        // Reading the other payloads in between must not corrupt the objects of earlier payloads
+        DataObject lazy = reader.read(new ByteArrayInputStream(large));
+        DataObject eager = reader.read(new ByteArrayInputStream(other));
+        DataObject unordered = reader.read(new ByteArrayInputStream(dataFirst));
+        DataObject small = reader.read(new ByteArrayInputStream(payload));
+
+        assertThat(lazy.toMap().get("d")).isInstanceOf(LazyJsonMap.class);
+        assertThat(eager.toMap().get("d")).isNotInstanceOf(LazyJsonMap.class);
+        assertThat(unordered.toMap().get("d")).isNotInstanceOf(LazyJsonMap.class);
+        assertThat(small.toMap().get("d")).isInstanceOf(LazyJsonMap.class);
+
+        assertThat(lazy).isEqualTo(DataObject.fromJson(large));
+        assertThat(eager).isEqualTo(DataObject.fromJson(other));
+        assertThat(unordered).isEqualTo(DataObject.fromJson(dataFirst));
+        assertThat(small).isEqualTo(DataObject.fromJson(payload));
+        assertThat(lazy.getObject("d").getArray("features").getString(4999)).isEqualTo("FEATURE_4999");
+    }
+
+    @Test
+    void testProjection()
+    {
+        GatewayPayloadReader reader = new GatewayPayloadReader();
+        reader.setProjection("GUILD_UPDATE", GatewayPayloadReader.Projection.of("id")
+            .with("roles", GatewayPayloadReader.Projection.of("id")));
+
+        DataObject guild = reader.read(payload).getObject("d");
+
+        assertThat(guild.keys()).containsExactlyInAnyOrder("id", "roles");
+        assertThat(guild.getArray("roles").getObject(1).keys()).containsExactly("id");
+        assertThat(guild.getArray("roles").getObject(1).getLong("id")).isEqualTo(2);
+    }
+}
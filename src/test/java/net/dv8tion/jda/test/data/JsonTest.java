@@ -157,6 +157,39 @@ public class JsonTest
                 .withRepresentation(new PrettyRepresentation())
                 .isEqualTo(reference);
         }
+
+        @Test
+        void testExTerm()
+        {
+            DataObject reference = DataObject.fromJson(testJson)
+                .put("id", "1234567890123456789")
+                .put("zero_padded", "0123")
+                .put("overflow", "99999999999999999999")
+                .put("nothing", null)
+                .put("nested", DataObject.empty()
+                    .put("list", DataArray.empty().add("one").add(DataObject.empty().put("two", 2))));
+
+            byte[] etf = reference.toETF();
+            DataObject object = DataObject.fromETF(etf);
+
+            assertThat(object)
+                .withRepresentation(new PrettyRepresentation())
+                .isEqualTo(reference);
+            assertThat(object.toETF()).isEqualTo(etf);
+
+            assertThat(object.getLong("id")).isEqualTo(1234567890123456789L);
+            assertThat(object.getUnsignedLong("id")).isEqualTo(1234567890123456789L);
+            assertThat(object.getString("id")).isEqualTo("1234567890123456789");
+            assertThat(object.getString("zero_padded")).isEqualTo("0123");
+            assertThat(object.getString("overflow")).isEqualTo("99999999999999999999");
+            assertThat(object.isNull("nothing")).isTrue();
+            assertThat(object.getObject("nested").getArray("list").getObject(1).getInt("two")).isEqualTo(2);
+
+            object.put("id", "5").remove("int");
+            assertThat(object.getLong("id")).isEqualTo(5);
+            assertThat(object.hasKey("int")).isFalse();
+            assertThat(object.keys()).doesNotContain("int").contains("long", "nested");
+        }
     }
 
     @Nested
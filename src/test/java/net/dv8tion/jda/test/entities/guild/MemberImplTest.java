@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.test.entities.guild;
+
+import net.dv8tion.jda.api.entities.GuildVoiceState;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+import net.dv8tion.jda.internal.entities.GuildVoiceStateImpl;
+import net.dv8tion.jda.internal.entities.MemberImpl;
+import net.dv8tion.jda.internal.entities.RoleImpl;
+import net.dv8tion.jda.internal.entities.UserImpl;
+import net.dv8tion.jda.internal.utils.UnlockHook;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+class MemberImplTest extends AbstractGuildTest
+{
+    private RoleImpl createRole(long id, int position)
+    {
+        RoleImpl role = new RoleImpl(id, guild).setRawPosition(position);
+        try (UnlockHook ignored = guild.getRolesView().writeLock())
+        {
+            guild.getRolesView().getMap().put(id, role);
+        }
+        return role;
+    }
+
+    @Test
+    void testRolesAreResolvedById()
+    {
+        RoleImpl low = createRole(3, 1);
+        RoleImpl high = createRole(1, 2);
+        RoleImpl middle = createRole(2, 3);
+        MemberImpl member = new MemberImpl(guild, new UserImpl(42, jda));
+
+        member.setRoles(Arrays.asList(low, high, middle));
+        assertThat(member.getRoleIds()).containsExactly(1, 2, 3);
+        assertThat(member.getRoles()).containsExactly(middle, high, low);
+
+        // Roles removed from the guild are skipped, even before the member is updated
+        try (UnlockHook ignored = guild.getRolesView().writeLock())
+        {
+            guild.getRolesView().getMap().remove(2);
+        }
+        assertThat(member.getRoles()).containsExactly(high, low);
+
+        member.removeRole(2);
+        assertThat(member.getRoleIds()).containsExactly(1, 3);
+        assertThat(member.getRoleSet()).containsExactlyInAnyOrder(high, low);
+    }
+
+    @Test
+    void testVoiceStateIsCreatedOnUpdate()
+    {
+        when(jda.isCacheFlagSet(CacheFlag.VOICE_STATE)).thenReturn(true);
+        MemberImpl member = new MemberImpl(guild, new UserImpl(42, jda));
+
+        assertThat(member.peekVoiceState()).isNull();
+        GuildVoiceStateImpl state = member.getOrCreateVoiceState();
+        assertThat(state).isNotNull().isSameAs(member.getOrCreateVoiceState());
+        assertThat(member.peekVoiceState()).isSameAs(state);
+        assertThat(member.getVoiceState()).isSameAs(state);
+
+        when(jda.isCacheFlagSet(CacheFlag.VOICE_STATE)).thenReturn(false);
+        MemberImpl uncached = new MemberImpl(guild, new UserImpl(43, jda));
+        assertThat(uncached.getVoiceState()).isNull();
+        assertThat(uncached.getOrCreateVoiceState()).isNull();
+    }
+
+    @Test
+    void testReadingVoiceStateDoesNotStore()
+    {
+        when(jda.isCacheFlagSet(CacheFlag.VOICE_STATE)).thenReturn(true);
+        MemberImpl member = new MemberImpl(guild, new UserImpl(42, jda));
+        try (UnlockHook ignored = guild.getMembersView().writeLock())
+        {
+            guild.getMembersView().getMap().put(42, member);
+        }
+
+        GuildVoiceState state = member.getVoiceState();
+        assertThat(state).isNotNull();
+        assertThat(state.inAudioChannel()).isFalse();
+        assertThat(state.getMember()).isSameAs(member);
+        assertThat(member.peekVoiceState()).isNull();
+
+        assertThat(guild.getVoiceStates()).contains(state);
+        assertThat(member.peekVoiceState()).isNull();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.events;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.Event;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.AnnotatedEventManager;
+import net.dv8tion.jda.api.hooks.SubscribeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class AnnotatedEventManagerTest
+{
+    private static final List<String> calls = new ArrayList<>();
+
+    @Test
+    void testDispatch()
+    {
+        calls.clear();
+        AnnotatedEventManager manager = new AnnotatedEventManager();
+        PublicListener publicListener = new PublicListener();
+        manager.register(publicListener);
+        manager.register(new PrivateListener());
+        manager.register(StaticListener.class);
+
+        manager.handle(new ChildEvent(mock(JDA.class)));
+        assertThat(calls).containsExactly("public child", "private child", "public parent", "static parent", "public generic");
+
+        calls.clear();
+        manager.handle(new ParentEvent(mock(JDA.class)));
+        assertThat(calls).containsExactly("public parent", "static parent", "public generic");
+
+        // Removed listeners are no longer part of the cached dispatch tables
+        calls.clear();
+        manager.unregister(publicListener);
+        manager.handle(new ChildEvent(mock(JDA.class)));
+        assertThat(calls).containsExactly("private child", "static parent");
+        assertThat(manager.getRegisteredListeners()).hasSize(2);
+
+        assertThat(manager.isConsumed(ChildEvent.class)).isTrue();
+        assertThat(manager.isConsumed(GenericEvent.class)).isFalse();
+    }
+
+    @Test
+    void testExceptionsAreIsolated()
+    {
+        calls.clear();
+        AnnotatedEventManager manager = new AnnotatedEventManager();
+        manager.register(new ThrowingListener());
+        manager.register(new PrivateListener());
+
+        manager.handle(new ChildEvent(mock(JDA.class)));
+        assertThat(calls).containsExactly("private child");
+    }
+
+    public static class ParentEvent extends Event
+    {
+        public ParentEvent(JDA api)
+        {
+            super(api);
+        }
+    }
+
+    public static class ChildEvent extends ParentEvent
+    {
+        public ChildEvent(JDA api)
+        {
+            super(api);
+        }
+    }
+
+    public static class PublicListener
+    {
+        @SubscribeEvent
+        public void onChild(ChildEvent event)
+        {
+            calls.add("public child");
+        }
+
+        @SubscribeEvent
+        public void onParent(ParentEvent event)
+        {
+            calls.add("public parent");
+        }
+
+        @SubscribeEvent
+        public void onGeneric(GenericEvent event)
+        {
+            calls.add("public generic");
+        }
+    }
+
+    private static class PrivateListener
+    {
+        @SubscribeEvent
+        private void onChild(ChildEvent event)
+        {
+            calls.add("private child");
+        }
+    }
+
+    public static class StaticListener
+    {
+        @SubscribeEvent
+        public static void onParent(ParentEvent event)
+        {
+            calls.add("static parent");
+        }
+    }
+
+    public static class ThrowingListener
+    {
+        @SubscribeEvent
+        public void onChild(ChildEvent event)
+        {
+            throw new IllegalStateException("Expected");
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.events;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.EventLaneConfig;
+import net.dv8tion.jda.api.hooks.InterfacedEventManager;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.hooks.EventLanes;
+import net.dv8tion.jda.internal.hooks.EventManagerProxy;
+import net.dv8tion.jda.internal.utils.config.ThreadingConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class EventLanesTest
+{
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testOrderPerGuild() throws InterruptedException
+    {
+        int guilds = 10, eventsPerGuild = 500;
+        Map<Long, List<Integer>> received = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(guilds * eventsPerGuild);
+        EventLaneConfig config = new EventLaneConfig().setLanes(4).setLaneCapacity(16);
+        EventLanes lanes = new EventLanes(config, executor, event -> {
+            TestEvent testEvent = (TestEvent) event;
+            // Events of the same guild are never handled concurrently, so the list needs no synchronization
+            received.computeIfAbsent(testEvent.guildId, k -> new ArrayList<>()).add(testEvent.sequence);
+            done.countDown();
+        });
+
+        for (int i = 0; i < eventsPerGuild; i++)
+        {
+            for (long guildId = 1; guildId <= guilds; guildId++)
+                lanes.submit(new TestEvent(guildId, i), payload(guildId));
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).hasSize(guilds);
+        for (List<Integer> sequence : received.values())
+            assertThat(sequence).hasSize(eventsPerGuild).isSorted();
+        assertThat(lanes.getDiscardedEventCount()).isZero();
+    }
+
+    @Test
+    void testDiscard() throws InterruptedException
+    {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EventLaneConfig config = new EventLaneConfig()
+            .setLanes(1)
+            .setLaneCapacity(2)
+            .setBackpressure(EventLaneConfig.Backpressure.DISCARD);
+        EventLanes lanes = new EventLanes(config, executor, event -> {
+            blocked.countDown();
+            try
+            {
+                release.await();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        lanes.submit(new TestEvent(1, 0), payload(1));
+        assertThat(blocked.await(10, TimeUnit.SECONDS)).isTrue();
+        // The first event is still queued while it is handled
+        lanes.submit(new TestEvent(1, 1), payload(1));
+        lanes.submit(new TestEvent(1, 2), payload(1));
+
+        assertThat(lanes.getQueuedEventCount()).isEqualTo(2);
+        assertThat(lanes.getLaneDepths()).containsExactly(2);
+        assertThat(lanes.getDiscardedEventCount()).isEqualTo(1);
+        release.countDown();
+    }
+
+    @Test
+    void testBoundedBlock() throws InterruptedException
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        EventLaneConfig config = new EventLaneConfig()
+            .setLanes(1)
+            .setLaneCapacity(1)
+            .setMaxBlockTime(100, TimeUnit.MILLISECONDS);
+        EventLanes lanes = new EventLanes(config, executor, event -> awaitUninterruptibly(release));
+
+        lanes.submit(new TestEvent(1, 0), payload(1));
+        long start = System.nanoTime();
+        lanes.submit(new TestEvent(1, 1), payload(1));
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // The gateway only waits once, afterward the full lane discards without waiting
+        start = System.nanoTime();
+        lanes.submit(new TestEvent(1, 2), payload(1));
+        long waitedAgain = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(waited).isBetween(100L, 5000L);
+        assertThat(waitedAgain).isLessThan(100L);
+        assertThat(lanes.getDiscardedEventCount()).isEqualTo(2);
+        release.countDown();
+    }
+
+    @Test
+    void testKeepStateEvents() throws InterruptedException
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        EventLaneConfig config = new EventLaneConfig()
+            .setLanes(1)
+            .setLaneCapacity(1)
+            .setBackpressure(EventLaneConfig.Backpressure.DISCARD);
+        EventLanes lanes = new EventLanes(config, executor, event -> {
+            awaitUninterruptibly(release);
+            done.countDown();
+        });
+
+        lanes.submit(new TestEvent(1, 0), payload(1));
+        lanes.submit(new TestEvent(1, 1), payload(1, "GUILD_MEMBER_UPDATE"));
+        lanes.submit(new TestEvent(1, 2), null);
+        lanes.submit(new TestEvent(1, 3), payload(1));
+
+        // Only the message is discarded, the other events exceed the capacity
+        assertThat(lanes.getDiscardedEventCount()).isEqualTo(1);
+        assertThat(lanes.getQueuedEventCount()).isEqualTo(3);
+        release.countDown();
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void testContinueAfterException() throws InterruptedException
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        EventLaneConfig config = new EventLaneConfig().setLanes(1);
+        EventLanes lanes = new EventLanes(config, executor, event -> {
+            if (event.getResponseNumber() == 0)
+            {
+                awaitUninterruptibly(release);
+                throw new IllegalStateException("Listener failure");
+            }
+            done.countDown();
+        });
+
+        lanes.submit(new TestEvent(1, 0), payload(1));
+        lanes.submit(new TestEvent(1, 1), payload(1));
+        lanes.submit(new TestEvent(1, 2), payload(1));
+        release.countDown();
+
+        // The events queued behind the failing event are still handled
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void testOwnedPool()
+    {
+        ThreadingConfig config = new ThreadingConfig();
+        config.setEventLaneConfig(new EventLaneConfig().setLanes(2));
+
+        // Without a configured event pool, the lanes get a pool which is shut down with JDA
+        ExecutorService pool = config.getEventLanePool();
+        assertThat(pool).isNotSameAs(ForkJoinPool.commonPool());
+        assertThat(config.getEventPool()).isSameAs(pool);
+        assertThat(config.isShutdownEventPool()).isTrue();
+
+        config.init(() -> "JDA");
+        config.shutdown();
+        config.shutdownRequester();
+        assertThat(pool.isShutdown()).isTrue();
+    }
+
+    @Test
+    void testRequiresPool()
+    {
+        assertThatIllegalArgumentException()
+            .isThrownBy(() -> new EventManagerProxy(new InterfacedEventManager(), null, new EventLaneConfig()));
+    }
+
+    private static DataObject payload(long guildId)
+    {
+        return payload(guildId, "MESSAGE_CREATE");
+    }
+
+    private static DataObject payload(long guildId, String type)
+    {
+        return DataObject.empty()
+            .put("t", type)
+            .put("d", DataObject.empty().put("guild_id", guildId));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class TestEvent implements GenericEvent
+    {
+        private final long guildId;
+        private final int sequence;
+
+        private TestEvent(long guildId, int sequence)
+        {
+            this.guildId = guildId;
+            this.sequence = sequence;
+        }
+
+        @Nonnull
+        @Override
+        public JDA getJDA()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getResponseNumber()
+        {
+            return sequence;
+        }
+
+        @Override
+        public DataObject getRawData()
+        {
+            return null;
+        }
+    }
+}
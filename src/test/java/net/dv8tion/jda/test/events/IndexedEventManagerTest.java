@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.events;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.message.GenericMessageEvent;
+import net.dv8tion.jda.api.events.message.MessageDeleteEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.session.ReadyEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.hooks.IEventManager;
+import net.dv8tion.jda.api.hooks.IndexedEventManager;
+import net.dv8tion.jda.api.hooks.InterfacedEventManager;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class IndexedEventManagerTest
+{
+    private final List<String> calls = new ArrayList<>();
+
+    @Test
+    void testDispatch()
+    {
+        IndexedEventManager manager = new IndexedEventManager();
+        ListenerAdapter received = new ListenerAdapter()
+        {
+            @Override
+            public void onMessageReceived(@Nonnull MessageReceivedEvent event)
+            {
+                calls.add("received");
+            }
+        };
+        manager.register(received);
+        manager.register(new ListenerAdapter()
+        {
+            @Override
+            public void onGenericMessage(@Nonnull GenericMessageEvent event)
+            {
+                calls.add("message");
+            }
+        });
+        manager.register(new ListenerAdapter()
+        {
+            @Override
+            public void onGenericEvent(@Nonnull GenericEvent event)
+            {
+                calls.add("generic");
+            }
+        });
+        manager.register((EventListener) event -> calls.add("interface"));
+
+        manager.handle(mock(MessageReceivedEvent.class));
+        assertThat(calls).containsExactly("received", "message", "generic", "interface");
+
+        calls.clear();
+        manager.handle(mock(MessageDeleteEvent.class));
+        assertThat(calls).containsExactly("message", "generic", "interface");
+
+        calls.clear();
+        manager.handle(mock(ReadyEvent.class));
+        assertThat(calls).containsExactly("generic", "interface");
+
+        // Removed listeners are no longer part of the cached dispatch tables
+        calls.clear();
+        manager.unregister(received);
+        manager.handle(mock(MessageReceivedEvent.class));
+        assertThat(calls).containsExactly("message", "generic", "interface");
+        assertThat(manager.getRegisteredListeners()).hasSize(3);
+    }
+
+    @Test
+    void testIsConsumed()
+    {
+        for (IEventManager manager : Arrays.asList(new InterfacedEventManager(), new IndexedEventManager()))
+        {
+            assertThat(manager.isConsumed(MessageReceivedEvent.class)).isFalse();
+
+            ListenerAdapter listener = new ListenerAdapter()
+            {
+                @Override
+                public void onGenericMessage(@Nonnull GenericMessageEvent event) {}
+            };
+            manager.register(listener);
+            assertThat(manager.isConsumed(MessageReceivedEvent.class)).isTrue();
+            assertThat(manager.isConsumed(ReadyEvent.class)).isFalse();
+
+            // Plain listeners receive every event
+            EventListener eventListener = event -> {};
+            manager.register(eventListener);
+            assertThat(manager.isConsumed(ReadyEvent.class)).isTrue();
+
+            manager.unregister(listener);
+            manager.unregister(eventListener);
+            assertThat(manager.isConsumed(MessageReceivedEvent.class)).isFalse();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.restaction;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.requests.ConcurrentRestRateLimiter;
+import net.dv8tion.jda.api.requests.RestRateLimiter;
+import net.dv8tion.jda.api.requests.Route;
+import okhttp3.Response;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrentRestRateLimiterTest
+{
+    @Test
+    void testConcurrentEnqueue() throws Exception
+    {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        ExecutorService elastic = Executors.newCachedThreadPool();
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        try
+        {
+            RestRateLimiter rateLimiter = new ConcurrentRestRateLimiter(
+                new RestRateLimiter.RateLimitConfig(scheduler, elastic, RestRateLimiter.GlobalRateLimit.create(), true));
+
+            int requestsPerProducer = 500;
+            CountDownLatch executed = new CountDownLatch(4 * requestsPerProducer);
+            Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+            AtomicInteger overlapping = new AtomicInteger();
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int producer = 0; producer < 4; producer++)
+            {
+                futures.add(producers.submit(() ->
+                {
+                    for (int i = 0; i < requestsPerProducer; i++)
+                    {
+                        Route.CompiledRoute route = Route.Guilds.MODIFY_MEMBER.compile(String.valueOf(i % 16), String.valueOf(i));
+                        rateLimiter.enqueue(new TestWork(route, () ->
+                        {
+                            // Requests of the same bucket must never run concurrently
+                            AtomicInteger counter = running.computeIfAbsent(route.getMajorParameters(), k -> new AtomicInteger());
+                            if (counter.incrementAndGet() != 1)
+                                overlapping.incrementAndGet();
+                            counter.decrementAndGet();
+                            executed.countDown();
+                        }));
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures)
+                future.get(10, TimeUnit.SECONDS);
+            assertThat(executed.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(overlapping.get()).isZero();
+
+            CountDownLatch stopped = new CountDownLatch(1);
+            rateLimiter.stop(false, stopped::countDown);
+            assertThat(stopped.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(rateLimiter.isStopped()).isTrue();
+        }
+        finally
+        {
+            producers.shutdownNow();
+            elastic.shutdownNow();
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static class TestWork implements RestRateLimiter.Work
+    {
+        private final Route.CompiledRoute route;
+        private final Runnable action;
+        private volatile boolean done;
+
+        private TestWork(Route.CompiledRoute route, Runnable action)
+        {
+            this.route = route;
+            this.action = action;
+        }
+
+        @Nonnull
+        @Override
+        public Route.CompiledRoute getRoute()
+        {
+            return route;
+        }
+
+        @Nonnull
+        @Override
+        public JDA getJDA()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Response execute()
+        {
+            action.run();
+            done = true;
+            return null;
+        }
+
+        @Override
+        public boolean isSkipped()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isDone()
+        {
+            return done;
+        }
+
+        @Override
+        public boolean isPriority()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled()
+        {
+            return false;
+        }
+
+        @Override
+        public void cancel()
+        {
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.restaction;
+
+import net.dv8tion.jda.api.requests.RateLimitStore;
+import net.dv8tion.jda.internal.requests.ratelimit.MappedFileRateLimitStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class RateLimitStoreTest
+{
+    @Test
+    void testInMemory()
+    {
+        RateLimitStore store = RateLimitStore.inMemory();
+        testBuckets(store, store);
+        testHashes(store, store);
+    }
+
+    @Test
+    void testMappedFile(@TempDir Path directory) throws IOException
+    {
+        Path file = directory.resolve("ratelimit.bin");
+        // Two stores for the same file act like two processes
+        RateLimitStore first = RateLimitStore.mappedFile(file);
+        RateLimitStore second = RateLimitStore.mappedFile(file);
+        testBuckets(first, second);
+        testHashes(first, second);
+
+        first.getGlobalRateLimit().setClassic(1234);
+        assertThat(second.getGlobalRateLimit().getClassic()).isEqualTo(1234);
+    }
+
+    @Test
+    void testMappedFileCleanup(@TempDir Path directory) throws IOException
+    {
+        Path file = directory.resolve("ratelimit.bin");
+        assertThatIllegalArgumentException().isThrownBy(() -> new MappedFileRateLimitStore(file, 0, 1));
+        assertThatIllegalArgumentException().isThrownBy(() -> new MappedFileRateLimitStore(file, 1, 0));
+
+        try (MappedFileRateLimitStore store = new MappedFileRateLimitStore(file, 4, 1))
+        {
+            long now = System.currentTimeMillis();
+            store.update("expired:1", 0, now + 1000);
+            store.update("expired:2", 0, now + 1000);
+            store.update("active:1", 0, now + 5000);
+            store.update("active:2", 0, now + 5000);
+
+            store.cleanup(now + 2000);
+            // The expired buckets are removed, without losing the buckets which were probed past them
+            assertThat(store.getDelay("expired:1", now)).isZero();
+            assertThat(store.getDelay("expired:2", now)).isZero();
+            assertThat(store.getDelay("active:1", now)).isEqualTo(5000);
+            assertThat(store.getDelay("active:2", now)).isEqualTo(5000);
+
+            store.update("active:3", 0, now + 5000);
+            store.update("active:4", 0, now + 5000);
+            assertThat(store.getDelay("active:3", now)).isEqualTo(5000);
+            assertThat(store.getDelay("active:4", now)).isEqualTo(5000);
+        }
+    }
+
+    private void testBuckets(RateLimitStore first, RateLimitStore second)
+    {
+        long now = System.currentTimeMillis();
+
+        // The first request reserves the unknown bucket
+        assertThat(first.acquire("hash:guild_id=1", now)).isZero();
+        assertThat(second.acquire("hash:guild_id=1", now)).isEqualTo(RateLimitStore.PENDING_POLL_INTERVAL);
+        assertThat(second.acquire("hash:guild_id=2", now)).isZero();
+
+        // Releasing without an update frees the bucket again
+        first.release("hash:guild_id=1");
+        assertThat(second.getDelay("hash:guild_id=1", now)).isZero();
+
+        first.update("hash:guild_id=1", 1, now + 1000);
+        assertThat(second.acquire("hash:guild_id=1", now)).isZero();
+        assertThat(first.acquire("hash:guild_id=1", now)).isEqualTo(1000);
+
+        // Stale responses cannot increase the remaining uses of the current window
+        second.update("hash:guild_id=1", 1, now + 1000);
+        assertThat(first.getDelay("hash:guild_id=1", now)).isEqualTo(1000);
+
+        // Once the window is reset, the next request reserves the bucket again
+        assertThat(first.acquire("hash:guild_id=1", now + 1000)).isZero();
+        assertThat(second.getDelay("hash:guild_id=1", now + 1000)).isEqualTo(RateLimitStore.PENDING_POLL_INTERVAL);
+    }
+
+    private void testHashes(RateLimitStore first, RateLimitStore second)
+    {
+        assertThat(second.getHash("GET/channels/{channel_id}")).isNull();
+        assertThat(first.putHash("GET/channels/{channel_id}", "abc")).isTrue();
+        assertThat(second.putHash("GET/channels/{channel_id}", "def")).isFalse();
+        assertThat(second.getHash("GET/channels/{channel_id}")).isEqualTo("abc");
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.restaction;
+
+import net.dv8tion.jda.api.requests.Request;
+import net.dv8tion.jda.api.requests.Response;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.requests.RestRateLimiter;
+import net.dv8tion.jda.api.requests.Route;
+import net.dv8tion.jda.api.utils.data.DataObject;
+import net.dv8tion.jda.internal.JDAImpl;
+import net.dv8tion.jda.internal.requests.Requester;
+import net.dv8tion.jda.internal.utils.config.AuthorizationConfig;
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RequesterTest
+{
+    private final JDAImpl jda = mock();
+    private final OkHttpClient httpClient = mock();
+    private final Call call = mock();
+    private final RestRateLimiter rateLimiter = mock();
+
+    @BeforeEach
+    void setup() throws IOException
+    {
+        when(jda.getHttpClient()).thenReturn(httpClient);
+        when(httpClient.newCall(any())).thenReturn(call);
+        when(call.execute()).thenAnswer(invocation -> createResponse());
+    }
+
+    @Test
+    void testCoalesceRequests()
+    {
+        Requester requester = new Requester(jda, new AuthorizationConfig("token"), new RestConfig().setCoalesceRequests(true), rateLimiter);
+        Route.CompiledRoute route = Route.Users.GET_USER.compile("1");
+
+        Request<Object> first = mockRequest(route);
+        Request<Object> second = mockRequest(route);
+        requester.request(first);
+        requester.request(second);
+
+        ArgumentCaptor<RestRateLimiter.Work> work = ArgumentCaptor.forClass(RestRateLimiter.Work.class);
+        verify(rateLimiter, times(1)).enqueue(work.capture());
+        assertThat(requester.getCoalescedRequestCount()).isEqualTo(1);
+        assertThat(requester.getCoalescingHitRate()).isEqualTo(0.5);
+
+        work.getValue().execute();
+        verify(call, times(1)).execute();
+        assertThat(work.getValue().isDone()).isTrue();
+
+        // Both callers receive their own copy of the response
+        for (Request<Object> request : Arrays.asList(first, second))
+        {
+            ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+            verify(request, times(1)).handleResponse(response.capture());
+            assertThat(response.getValue().getObject().getString("id")).isEqualTo("1");
+        }
+
+        // Requests cannot join once the request has been sent
+        requester.request(mockRequest(route));
+        verify(rateLimiter, times(2)).enqueue(any());
+    }
+
+    @Test
+    void testResponseCache()
+    {
+        Requester requester = new Requester(jda, new AuthorizationConfig("token"), new RestConfig().setResponseCache(10, 1, TimeUnit.MINUTES), rateLimiter);
+        Route.CompiledRoute route = Route.Users.GET_USER.compile("1");
+
+        requester.request(mockRequest(route));
+        ArgumentCaptor<RestRateLimiter.Work> work = ArgumentCaptor.forClass(RestRateLimiter.Work.class);
+        verify(rateLimiter, times(1)).enqueue(work.capture());
+        work.getValue().execute();
+
+        // The cached response is used without the rate-limiter
+        Request<Object> cached = mockRequest(route);
+        requester.request(cached);
+        verify(rateLimiter, times(1)).enqueue(any());
+        ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+        verify(cached, times(1)).handleResponse(response.capture());
+        assertThat(response.getValue().getObject().getString("id")).isEqualTo("1");
+
+        // Gateway events remove outdated responses
+        requester.invalidateCachedResponses("USER_UPDATE", DataObject.empty().put("id", "1"));
+        requester.request(mockRequest(route));
+        verify(rateLimiter, times(2)).enqueue(any());
+    }
+
+    @Test
+    void testInvalidationDuringRequest() throws IOException
+    {
+        Requester requester = new Requester(jda, new AuthorizationConfig("token"), new RestConfig().setResponseCache(10, 1, TimeUnit.MINUTES), rateLimiter);
+        Route.CompiledRoute route = Route.Users.GET_USER.compile("1");
+
+        // The user is updated after the request was sent, but before the response arrives
+        reset(call);
+        when(call.execute()).thenAnswer(invocation ->
+        {
+            requester.invalidateCachedResponses("USER_UPDATE", DataObject.empty().put("id", "1"));
+            return createResponse();
+        });
+
+        Request<Object> first = mockRequest(route);
+        requester.request(first);
+        ArgumentCaptor<RestRateLimiter.Work> work = ArgumentCaptor.forClass(RestRateLimiter.Work.class);
+        verify(rateLimiter, times(1)).enqueue(work.capture());
+        work.getValue().execute();
+        verify(first, times(1)).handleResponse(any());
+
+        // The response is not cached, since it was invalidated while in flight
+        assertThat(requester.getResponseCache().size()).isEqualTo(0);
+        requester.request(mockRequest(route));
+        verify(rateLimiter, times(2)).enqueue(any());
+
+        // Unrelated invalidations do not prevent caching
+        reset(call);
+        when(call.execute()).thenAnswer(invocation ->
+        {
+            requester.invalidateCachedResponses("USER_UPDATE", DataObject.empty().put("id", "2"));
+            return createResponse();
+        });
+        requester.request(mockRequest(route));
+        verify(rateLimiter, times(3)).enqueue(work.capture());
+        work.getValue().execute();
+        assertThat(requester.getResponseCache().size()).isEqualTo(1);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static okhttp3.Response createResponse()
+    {
+        return new okhttp3.Response.Builder()
+            .request(new okhttp3.Request.Builder().url(RestConfig.DEFAULT_BASE_URL + "users/1").build())
+            .protocol(Protocol.HTTP_1_1)
+            .code(200)
+            .message("OK")
+            .body(ResponseBody.create(MediaType.get("application/json"), "{\"id\":\"1\"}"))
+            .build();
+    }
+
+    private Request<Object> mockRequest(Route.CompiledRoute route)
+    {
+        Request<Object> request = mock();
+        when(request.getRoute()).thenReturn(route);
+        when(request.shouldQueue()).thenReturn(true);
+        return request;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.util;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.utils.cache.LRUMemberCachePolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class LRUMemberCachePolicyTest
+{
+    private static Guild guild(long id)
+    {
+        Guild guild = mock(Guild.class);
+        when(guild.getIdLong()).thenReturn(id);
+        return guild;
+    }
+
+    private static Member member(Guild guild, long id)
+    {
+        Member member = mock(Member.class);
+        when(member.getGuild()).thenReturn(guild);
+        when(member.getIdLong()).thenReturn(id);
+        return member;
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed()
+    {
+        Guild guild = guild(1);
+        Guild otherGuild = guild(2);
+        LRUMemberCachePolicy policy = new LRUMemberCachePolicy(3).withActiveMemberCache(false);
+
+        policy.cacheMember(member(guild, 1));
+        policy.cacheMember(member(guild, 2));
+        policy.cacheMember(member(guild, 3));
+        // Members are identified by their ids, not by their instance
+        policy.cacheMember(member(guild, 1));
+        verify(guild, never()).unloadMember(anyLong());
+
+        policy.cacheMember(member(guild, 4));
+        verify(guild).unloadMember(2);
+
+        // The same user in another guild is a different member
+        policy.cacheMember(member(otherGuild, 1));
+        verify(guild).unloadMember(3);
+        verify(guild, never()).unloadMember(1);
+        verify(otherGuild, never()).unloadMember(anyLong());
+    }
+
+    @Test
+    void testUnloadUnless()
+    {
+        Guild guild = guild(1);
+        Member voiceMember = member(guild, 1);
+        LRUMemberCachePolicy policy = new LRUMemberCachePolicy(1).unloadUnless(member -> member == voiceMember);
+
+        policy.cacheMember(voiceMember);
+        policy.cacheMember(member(guild, 2));
+        policy.cacheMember(member(guild, 3));
+        verify(guild, never()).unloadMember(1);
+        verify(guild).unloadMember(2);
+    }
+
+    @Test
+    void testActiveMembersAreRetained()
+    {
+        Guild guild = guild(1);
+        LRUMemberCachePolicy policy = new LRUMemberCachePolicy(5).withActiveMemberCache(1);
+
+        Member active = member(guild, 1);
+        policy.cacheMember(active);
+        policy.cacheMember(active);
+        for (long id = 2; id <= 7; id++)
+            policy.cacheMember(member(guild, id));
+
+        verify(guild, never()).unloadMember(1);
+        verify(guild).unloadMember(2);
+        verify(guild).unloadMember(3);
+
+        // Without the active cache, the member is evicted like any other
+        policy.withActiveMemberCache(false);
+        for (long id = 8; id <= 12; id++)
+            policy.cacheMember(member(guild, id));
+        verify(guild).unloadMember(1);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.dv8tion.jda.test.util;
+
+import net.dv8tion.jda.api.utils.cache.CacheView;
+import net.dv8tion.jda.internal.utils.UnlockHook;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OptimisticCacheViewTest
+{
+    private static CacheView.SimpleCacheView<String> createCache()
+    {
+        CacheView.SimpleCacheView<String> cache = new CacheView.SimpleCacheView<>(String.class, s -> s);
+        cache.setOptimisticReads(true);
+        return cache;
+    }
+
+    @Test
+    void testReadsWrittenValues()
+    {
+        CacheView.SimpleCacheView<String> cache = createCache();
+        try (UnlockHook hook = cache.writeLock())
+        {
+            cache.getMap().put(1, "one");
+            // Nested write locks are allowed and must not deadlock on the version stamp
+            try (UnlockHook nested = cache.writeLock())
+            {
+                cache.getMap().put(2, "two");
+            }
+            assertThat(cache.get(2)).isEqualTo("two");
+        }
+
+        assertThat(cache.get(1)).isEqualTo("one");
+        assertThat(cache.get(2)).isEqualTo("two");
+        assertThat(cache.get(3)).isNull();
+
+        cache.remove(1);
+        assertThat(cache.get(1)).isNull();
+    }
+
+    @Test
+    void testConcurrentReadsDuringRehash() throws Exception
+    {
+        CacheView.SimpleCacheView<String> cache = createCache();
+        try (UnlockHook hook = cache.writeLock())
+        {
+            for (long i = 0; i < 100; i++)
+                cache.getMap().put(i, String.valueOf(i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try
+        {
+            List<Future<Boolean>> readers = new ArrayList<>();
+            for (int i = 0; i < 3; i++)
+            {
+                readers.add(executor.submit(() ->
+                {
+                    while (running.get())
+                    {
+                        for (long id = 0; id < 100; id++)
+                        {
+                            if (!String.valueOf(id).equals(cache.get(id)))
+                                return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+
+            // Keep growing and shrinking the map to force rehashing while the readers are active
+            for (int round = 0; round < 50; round++)
+            {
+                try (UnlockHook hook = cache.writeLock())
+                {
+                    for (long i = 1000; i < 5000; i++)
+                        cache.getMap().put(i, "temporary");
+                }
+                try (UnlockHook hook = cache.writeLock())
+                {
+                    for (long i = 1000; i < 5000; i++)
+                        cache.getMap().remove(i);
+                }
+            }
+
+            running.set(false);
+            for (Future<Boolean> reader : readers)
+                assertThat(reader.get(10, TimeUnit.SECONDS)).isTrue();
+        }
+        finally
+        {
+            running.set(false);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.test.util;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.utils.cache.TinyLFUMemberCachePolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.*;
+
+class TinyLFUMemberCachePolicyTest
+{
+    @Test
+    void testActiveMembersSurviveBurst()
+    {
+        Guild guild = mock(Guild.class);
+        when(guild.getIdLong()).thenReturn(1L);
+        Member[] members = new Member[1050];
+        for (int i = 0; i < members.length; i++)
+        {
+            members[i] = mock(Member.class);
+            when(members[i].getGuild()).thenReturn(guild);
+            when(members[i].getIdLong()).thenReturn((long) i);
+        }
+
+        TinyLFUMemberCachePolicy policy = new TinyLFUMemberCachePolicy(100);
+        for (int round = 0; round < 10; round++)
+        {
+            for (int i = 0; i < 50; i++)
+                policy.cacheMember(members[i]);
+        }
+
+        // A burst of new members, which are only seen once
+        for (int i = 50; i < members.length; i++)
+            policy.cacheMember(members[i]);
+
+        verify(guild, never()).unloadMember(longThat(id -> id < 50));
+        verify(guild, times(950)).unloadMember(longThat(id -> id >= 50));
+
+        assertThat(policy.getHitCount()).isEqualTo(450);
+        assertThat(policy.getMissCount()).isEqualTo(1050);
+        assertThat(policy.getEvictionCount()).isEqualTo(950);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.test.util;
+
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.internal.utils.concurrent.VirtualThreads;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+public class VirtualThreadsTest
+{
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setup() throws Exception
+    {
+        // A single platform thread, which is reused for every task
+        executor = VirtualThreads.withContext(Executors.newSingleThreadExecutor());
+        // Start the thread before any context is set, some adapters let new threads inherit the context
+        executor.submit(() -> {}).get(5, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException
+    {
+        MDC.clear();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testContextPropagated() throws Exception
+    {
+        MDC.put("shard", "1");
+        MDC.put("guild", "42");
+
+        Map<String, String> context = executor.submit(MDC::getCopyOfContextMap).get(5, TimeUnit.SECONDS);
+
+        assertThat(context)
+            .containsEntry("shard", "1")
+            .containsEntry("guild", "42")
+            .hasSize(2);
+    }
+
+    @Test
+    void testContextRestored() throws Exception
+    {
+        MDC.put("shard", "1");
+        executor.submit(() -> MDC.put("leaked", "true")).get(5, TimeUnit.SECONDS);
+
+        MDC.clear();
+        Map<String, String> context = executor.submit(MDC::getCopyOfContextMap).get(5, TimeUnit.SECONDS);
+
+        assertThat(context == null || context.isEmpty()).isTrue();
+    }
+
+    @Test
+    void testUnsupported()
+    {
+        assumeFalse(VirtualThreads.isSupported(), "This JVM supports virtual threads");
+
+        assertThatThrownBy(() -> VirtualThreads.newExecutor(() -> "JDA", "Event"))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> JDABuilder.createLight("token").setVirtualThreads(true))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> DefaultShardManagerBuilder.createLight("token").setVirtualThreads(true))
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
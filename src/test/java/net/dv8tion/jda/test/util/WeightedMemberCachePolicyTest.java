@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015 Austin Keener, Michael Ritter, Florian Spieß, and the JDA contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.dv8tion.jda.test.util;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.utils.cache.WeightedMemberCachePolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class WeightedMemberCachePolicyTest
+{
+    @Test
+    void testEvictsByWeight()
+    {
+        Guild guild = mock(Guild.class);
+        when(guild.getIdLong()).thenReturn(1L);
+        Member[] members = new Member[7];
+        for (int i = 1; i < members.length; i++)
+        {
+            members[i] = mock(Member.class);
+            when(members[i].getGuild()).thenReturn(guild);
+            when(members[i].getIdLong()).thenReturn((long) i);
+        }
+
+        Map<Long, Long> weights = new HashMap<>();
+        WeightedMemberCachePolicy policy = new WeightedMemberCachePolicy(100, member -> weights.get(member.getIdLong()));
+
+        for (int i = 1; i <= 5; i++)
+        {
+            weights.put((long) i, 20L);
+            policy.cacheMember(members[i]);
+        }
+        assertThat(policy.getWeight()).isEqualTo(100);
+        assertThat(policy.getMemberCount()).isEqualTo(5);
+        verify(guild, never()).unloadMember(anyLong());
+
+        // Updated members are weighed again
+        weights.put(1L, 50L);
+        policy.cacheMember(members[1]);
+        verify(guild).unloadMember(2);
+        verify(guild).unloadMember(3);
+        assertThat(policy.getWeight()).isEqualTo(90);
+        assertThat(policy.getMemberCount()).isEqualTo(3);
+
+        // A single member heavier than the maximum is still cached, by itself
+        weights.put(6L, 500L);
+        policy.cacheMember(members[6]);
+        verify(guild).unloadMember(1);
+        verify(guild, never()).unloadMember(6);
+        assertThat(policy.getWeight()).isEqualTo(500);
+        assertThat(policy.getMemberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testConcurrentEviction() throws Exception
+    {
+        long memberWeight = 1 << 12;
+        long maxWeight = 1 << 22;
+        Guild guild = mock(Guild.class);
+        when(guild.getIdLong()).thenReturn(1L);
+        Member[] members = new Member[2048];
+        for (int i = 0; i < members.length; i++)
+        {
+            members[i] = mock(Member.class);
+            when(members[i].getGuild()).thenReturn(guild);
+            when(members[i].getIdLong()).thenReturn((long) i);
+        }
+
+        // Large enough for several stripes, which evict concurrently
+        WeightedMemberCachePolicy policy = new WeightedMemberCachePolicy(maxWeight, member -> memberWeight);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++)
+        {
+            Random random = new Random(thread);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 20000; i++)
+                    policy.cacheMember(members[random.nextInt(members.length)]);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures)
+            future.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Stripes only evict while the total exceeds the maximum, so they never evict more than one member too many
+        assertThat(policy.getWeight()).isGreaterThan(maxWeight - memberWeight);
+        assertThat(policy.getWeight()).isEqualTo(policy.getMemberCount() * memberWeight);
+    }
+
+    @Test
+    void testCollectedMembers() throws InterruptedException
+    {
+        Guild guild = mock(Guild.class);
+        when(guild.getIdLong()).thenReturn(1L);
+        Member kept = mockMember(guild, 1);
+
+        // Small enough for a single stripe, so updating the kept member removes the collected member
+        WeightedMemberCachePolicy policy = new WeightedMemberCachePolicy(1000, member -> 100);
+        policy.cacheMember(kept);
+        policy.cacheMember(mockMember(guild, 2));
+        assertThat(policy.getWeight()).isEqualTo(200);
+
+        // The member was removed from the cache by other means, so only the policy could still reference it
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (policy.getWeight() > 100 && System.nanoTime() < deadline)
+        {
+            System.gc();
+            Thread.sleep(10);
+            policy.cacheMember(kept);
+        }
+
+        assertThat(policy.getWeight()).isEqualTo(100);
+        assertThat(policy.getMemberCount()).isEqualTo(1);
+        verify(guild, never()).unloadMember(anyLong());
+    }
+
+    private static Member mockMember(Guild guild, long id)
+    {
+        Member member = mock(Member.class);
+        when(member.getGuild()).thenReturn(guild);
+        when(member.getIdLong()).thenReturn(id);
+        return member;
+    }
+}